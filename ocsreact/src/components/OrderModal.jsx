@@ -22,6 +22,19 @@ const OrderModal = ({ isOpen, onClose, onSave, order, customers, mode = 'add' })
     'Disputed'
   ];
 
+  // Moves the backend allows from each status (OrderStatus.next); editing offers only these
+  const allowedNext = {
+    'In Process': ['Shipped', 'On Hold', 'Cancelled'],
+    'On Hold': ['In Process', 'Cancelled'],
+    'Shipped': ['Disputed'],
+    'Disputed': ['Resolved'],
+    'Resolved': [],
+    'Cancelled': []
+  };
+  const availableStatuses = mode === 'edit' && order && allowedNext[order.status]
+    ? [order.status, ...allowedNext[order.status]]
+    : statusOptions;
+
   useEffect(() => {
     if (order && mode === 'edit') {
       setFormData({
@@ -232,7 +245,7 @@ const OrderModal = ({ isOpen, onClose, onSave, order, customers, mode = 'add' })
                 errors.status ? 'border-red-500' : 'border-gray-300'
               }`}
             >
-              {statusOptions.map(status => (
+              {availableStatuses.map(status => (
                 <option key={status} value={status}>
                   {status}
                 </option>
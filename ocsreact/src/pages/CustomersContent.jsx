@@ -1,5 +1,6 @@
 import React, { useState, useEffect } from 'react';
 import { customerApi } from '../services/api';
+import { useLiveChanges, applyLiveChanges } from '../services/liveUpdates';
 import Pagination from '../components/Pagination';
 
 const CustomersContent = () => {
@@ -30,6 +31,11 @@ const CustomersContent = () => {
     fetchCustomers();
   }, []);
 
+  // Keep the list current with other users' edits, without the loading state
+  useLiveChanges('customer', (changes) =>
+    applyLiveChanges(changes, setCustomers, customerApi.getById, async () => setCustomers(await customerApi.getAll()))
+  );
+
   // Calculate pagination values
   const totalItems = customers.length;
   const totalPages = Math.ceil(totalItems / itemsPerPage);
@@ -4,6 +4,7 @@ import ProductLineCard from '../components/ProductLineCard';
 import ProductLineModal from '../components/ProductLineModal';
 import DeleteConfirmationModal from '../components/DeleteConfirmationModal';
 import { productLineApi } from '../services/api';
+import { useLiveChanges, applyLiveChanges } from '../services/liveUpdates';
 import { getProductLineIcon } from '../data/mockData';
 
 const HomeContent = () => {
@@ -49,6 +50,17 @@ const HomeContent = () => {
     fetchProductLines();
   }, []);
 
+  // Keep the cards current with other users' edits, without the loading state
+  const withIcon = (line) => ({ ...line, icon: getProductLineIcon(line.productLine) });
+  useLiveChanges('productline', (changes) =>
+    applyLiveChanges(
+      changes,
+      setProductLines,
+      async (id) => withIcon(await productLineApi.getById(id)),
+      async () => setProductLines((await productLineApi.getAll()).map(withIcon))
+    )
+  );
+
   // Filter product lines based on search term
   const filteredProductLines = productLines.filter(line => {
     const searchLower = searchTerm.toLowerCase().trim();
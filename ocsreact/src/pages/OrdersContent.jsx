@@ -1,5 +1,6 @@
 import React, { useState, useEffect } from 'react';
 import { orderApi, customerApi } from '../services/api';
+import { useLiveChanges, applyLiveChanges } from '../services/liveUpdates';
 import Pagination from '../components/Pagination';
 import OrderModal from '../components/OrderModal';
 
@@ -41,6 +42,11 @@ const OrdersContent = () => {
     fetchData();
   }, []);
 
+  // Keep the list current with other users' edits, without the loading state
+  useLiveChanges('order', (changes) =>
+    applyLiveChanges(changes, setOrders, orderApi.getById, async () => setOrders(await orderApi.getAll()))
+  );
+
   // Calculate pagination values
   const totalItems = orders.length;
   const totalPages = Math.ceil(totalItems / itemsPerPage);
@@ -1,5 +1,6 @@
 import React, { useState, useEffect } from 'react';
 import { productApi } from '../services/api';
+import { useLiveChanges, applyLiveChanges } from '../services/liveUpdates';
 
 const ProductsContent = () => {
   const [products, setProducts] = useState([]);
@@ -49,6 +50,11 @@ const ProductsContent = () => {
     fetchProducts();
   }, []);
 
+  // Keep the list current with other users' edits, without the loading state
+  useLiveChanges('product', (changes) =>
+    applyLiveChanges(changes, setProducts, productApi.getById, async () => setProducts(await productApi.getAll()))
+  );
+
   // Calculate pagination values
   const totalItems = products.length;
   const totalPages = Math.ceil(totalItems / itemsPerPage);
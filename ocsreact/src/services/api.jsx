@@ -134,6 +134,14 @@ export const productApi = {
   findByProductLine: async (productLine) => {
     return await apiRequest(`/products/line/${encodeURIComponent(productLine)}`);
   },
+
+  // POST /api/products/lookup - Resolve up to 1000 codes at once: { found: {code: product}, missing: [code] }
+  lookup: async (productCodes) => {
+    return await apiRequest('/products/lookup', {
+      method: 'POST',
+      body: JSON.stringify(productCodes),
+    });
+  },
 };
 
 // ============ CUSTOMER API FUNCTIONS ============
@@ -180,6 +188,14 @@ export const customerApi = {
   findByCountry: async (country) => {
     return await apiRequest(`/customers/country/${encodeURIComponent(country)}`);
   },
+
+  // POST /api/customers/lookup - Resolve up to 1000 ids at once: { found: {id: customer}, missing: [id] }
+  lookup: async (ids) => {
+    return await apiRequest('/customers/lookup', {
+      method: 'POST',
+      body: JSON.stringify(ids),
+    });
+  },
 };
 
 // ============ OTHER ENTITY APIs (for future use) ============
@@ -199,6 +215,19 @@ export const employeeApi = {
   delete: async (id) => await apiRequest(`/employees/${id}`, { method: 'DELETE' }),
 };
 
+// ============ CHANGE FEED ============
+export const changeApi = {
+  // GET /api/changes?since=&types= - Changes after a cursor: { changes: [{seq, type, id, op, data}], cursor, hasMore }
+  // Without since, returns only the current cursor. An HTTP 410 error means reload everything and continue from its cursor.
+  getChanges: async (since, types = []) => {
+    const params = new URLSearchParams();
+    if (since !== undefined && since !== null) params.set('since', since);
+    if (types.length > 0) params.set('types', types.join(','));
+    const query = params.toString();
+    return await apiRequest(`/changes${query ? `?${query}` : ''}`);
+  },
+};
+
 
 
 
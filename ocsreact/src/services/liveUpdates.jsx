@@ -0,0 +1,107 @@
+import { useEffect, useRef } from 'react';
+
+// ============ LIVE UPDATES ============
+// One WebSocket per tab to /ws/changes, shared by every page. Pages subscribe to the entity
+// types they show and hear which rows changed, instead of refetching whole lists.
+// Listeners get an array of {type, id, op, version, fields}, or null when they should reload.
+const listeners = new Map(); // type -> Set of callbacks
+let socket = null;
+let hasConnected = false;
+let reconnectDelay = 1000;
+
+const send = (message) => {
+  if (socket?.readyState === WebSocket.OPEN) {
+    socket.send(JSON.stringify(message));
+  }
+};
+
+const reloadAll = () => {
+  listeners.forEach((callbacks) => callbacks.forEach((callback) => callback(null)));
+};
+
+const connect = () => {
+  const protocol = window.location.protocol === 'https:' ? 'wss' : 'ws';
+  socket = new WebSocket(`${protocol}://${window.location.host}/ws/changes`);
+
+  socket.onopen = () => {
+    reconnectDelay = 1000;
+    send({ subscribe: [...listeners.keys()] });
+    // Anything committed while we were disconnected was missed
+    if (hasConnected) {
+      reloadAll();
+    }
+    hasConnected = true;
+  };
+
+  socket.onmessage = (event) => {
+    const message = JSON.parse(event.data);
+    if (message.resync) {
+      reloadAll();
+    } else if (message.changes) {
+      const byType = new Map();
+      message.changes.forEach((change) => {
+        if (!byType.has(change.type)) byType.set(change.type, []);
+        byType.get(change.type).push(change);
+      });
+      byType.forEach((changes, type) => {
+        listeners.get(type)?.forEach((callback) => callback(changes));
+      });
+    }
+  };
+
+  socket.onclose = () => {
+    socket = null;
+    if (listeners.size > 0) {
+      setTimeout(() => { if (!socket && listeners.size > 0) connect(); }, reconnectDelay);
+      reconnectDelay = Math.min(reconnectDelay * 2, 30000);
+    }
+  };
+};
+
+// Calls onChanges with each batch of changes to `type` while the component is mounted
+export const useLiveChanges = (type, onChanges) => {
+  const handler = useRef(onChanges);
+  handler.current = onChanges;
+
+  useEffect(() => {
+    const callback = (changes) => handler.current(changes);
+    if (!listeners.has(type)) {
+      listeners.set(type, new Set());
+      send({ subscribe: [type] });
+    }
+    listeners.get(type).add(callback);
+    if (!socket) connect();
+
+    return () => {
+      const callbacks = listeners.get(type);
+      callbacks.delete(callback);
+      if (callbacks.size === 0) {
+        listeners.delete(type);
+        send({ unsubscribe: [type] });
+      }
+    };
+  }, [type]);
+};
+
+// Applies a batch to a list held in state: deleted rows are dropped, inserted and updated rows
+// fetched by id, and a resync or a batch with more than maxFetches rows reloads the list.
+export const applyLiveChanges = async (changes, setItems, getById, reload, maxFetches = 20) => {
+  const changed = changes ? changes.filter((change) => change.op !== 'delete') : [];
+  if (!changes || changed.length > maxFetches) {
+    await reload();
+    return;
+  }
+  const removed = new Set(changes.filter((change) => change.op === 'delete').map((change) => change.id));
+  const rows = await Promise.all(changed.map((change) => getById(change.id).catch(() => null)));
+  rows.forEach((row, i) => { if (!row) removed.add(changed[i].id); });
+
+  setItems((items) => {
+    const next = items.filter((item) => !removed.has(item.id));
+    rows.filter(Boolean).forEach((row) => {
+      const index = next.findIndex((item) => item.id === row.id);
+      if (index >= 0) next[index] = row;
+      else next.push(row);
+    });
+    return next;
+  });
+};
@@ -0,0 +1,197 @@
+package com.team.onlinecatalogsystem.benchmarks;
+
+import com.team.onlinecatalogsystem.model.Customer;
+import com.team.onlinecatalogsystem.model.Employee;
+import com.team.onlinecatalogsystem.model.Office;
+import com.team.onlinecatalogsystem.model.Order;
+import com.team.onlinecatalogsystem.model.OrderDetail;
+import com.team.onlinecatalogsystem.model.Payment;
+import com.team.onlinecatalogsystem.model.Product;
+import com.team.onlinecatalogsystem.model.ProductLine;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+// Deterministic classicmodels-shaped data shared by the benchmarks
+final class Fixtures {
+    static final int PRODUCTS = 10_000;
+    static final int CUSTOMERS = 5_000;
+    static final int ORDERS = 50_000;
+    static final int ORDER_DETAILS = 200_000;
+    static final int PAYMENTS = 20_000;
+    static final int PRODUCT_LINES = 7;
+
+    private Fixtures() {
+    }
+
+    static String productCode(int i) {
+        return "S" + String.format("%08d", i);
+    }
+
+    // Mirrors the application's mappers: Boot's date defaults, Blackbird, and the JacksonConfig factories
+    static ObjectMapper objectMapper(String format) {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, SerializationFeature.WRITE_DURATIONS_AS_TIMESTAMPS)
+                .modulesToInstall(new BlackbirdModule());
+        return switch (format) {
+            case "json" -> builder.build();
+            case "cbor" -> builder.factory(new CBORFactory()).build();
+            case "smile" -> builder.factory(SmileFactory.builder()
+                    .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES).build()).build();
+            default -> throw new IllegalArgumentException("Unknown format " + format);
+        };
+    }
+
+    static List<?> models(String model, int rows) {
+        List<Object> list = new ArrayList<>(rows);
+        for (int i = 1; i <= rows; i++) {
+            list.add(switch (model) {
+                case "Product" -> product(i);
+                case "Customer" -> customer(i);
+                case "Order" -> order(i);
+                case "OrderDetail" -> orderDetail(i);
+                default -> throw new IllegalArgumentException("Unknown model " + model);
+            });
+        }
+        return list;
+    }
+
+    static Product product(int i) {
+        Product product = new Product();
+        product.setId((long) i);
+        product.setProductCode(productCode(i));
+        product.setProductName("1969 Harley Davidson Ultimate Chopper #" + i);
+        product.setProductLine("Line " + (i % PRODUCT_LINES));
+        product.setProductScale("1:10");
+        product.setProductVendor("Min Lin Diecast");
+        product.setProductDescription("This replica features working kickstand, front suspension, gear-shift lever, "
+                + "footbrake lever, drive chain, wheels and steering.");
+        product.setQuantityInStock(i % 10_000);
+        product.setBuyPrice(BigDecimal.valueOf(4_881 + i % 5_000, 2));
+        product.setMsrp(BigDecimal.valueOf(9_587 + i % 9_000, 2));
+        return product;
+    }
+
+    static ProductLine productLine(int i) {
+        ProductLine productLine = new ProductLine();
+        productLine.setId((long) i);
+        productLine.setProductLine("Line " + i);
+        productLine.setTextDescription("Attention car enthusiasts: make your wildest car ownership dreams come true.");
+        return productLine;
+    }
+
+    static Employee employee(int i) {
+        Employee employee = new Employee();
+        employee.setId((long) i);
+        employee.setLastName("Murphy");
+        employee.setFirstName("Diane");
+        employee.setExtension("x5800");
+        employee.setEmail("employee" + i + "@classicmodelcars.com");
+        employee.setOfficeCode("1");
+        employee.setJobTitle("Sales Rep");
+        return employee;
+    }
+
+    static Office office(int i) {
+        Office office = new Office();
+        office.setId((long) i);
+        office.setCity("San Francisco");
+        office.setPhone("+1 650 219 4782");
+        office.setAddressLine1("100 Market Street");
+        office.setAddressLine2("Suite 300");
+        office.setState("CA");
+        office.setCountry("USA");
+        office.setPostalCode("94080");
+        office.setTerritory("NA");
+        return office;
+    }
+
+    static Customer customer(int i) {
+        Customer customer = new Customer();
+        customer.setId((long) i);
+        customer.setCustomerName("Atelier graphique " + i);
+        customer.setContactLastName("Schmitt");
+        customer.setContactFirstName("Carine");
+        customer.setPhone("40.32.2555");
+        customer.setAddressLine1("54, rue Royale");
+        customer.setCity("Nantes");
+        customer.setPostalCode("44000");
+        customer.setCountry("France");
+        customer.setSalesRepEmployeeNumber((long) (1 + i % 20));
+        customer.setCreditLimit(BigDecimal.valueOf(2_120_000 + i, 2));
+        return customer;
+    }
+
+    static Order order(int i) {
+        Order order = new Order();
+        order.setId((long) i);
+        order.setOrderdate(LocalDate.of(2003, 1, 6).plusDays(i % 900));
+        order.setRequireddate(LocalDate.of(2003, 1, 13).plusDays(i % 900));
+        order.setShippeddate(LocalDate.of(2003, 1, 10).plusDays(i % 900));
+        order.setStatus("Shipped");
+        order.setCustomernumber((long) (1 + i % CUSTOMERS));
+        return order;
+    }
+
+    static OrderDetail orderDetail(int i) {
+        OrderDetail detail = new OrderDetail();
+        detail.setId((long) i);
+        detail.setOrderNumber((long) (1 + i % ORDERS));
+        detail.setProductCode(productCode(1 + i % PRODUCTS));
+        detail.setQuantityOrdered(20 + i % 30);
+        detail.setPriceEach(BigDecimal.valueOf(13_600 + i % 5_000, 2));
+        detail.setOrderLineNumber(1 + i % 10);
+        return detail;
+    }
+
+    static Payment payment(int i) {
+        Payment payment = new Payment();
+        payment.setId((long) i);
+        payment.setCustomerNumber((long) (1 + i % CUSTOMERS));
+        payment.setCheckNumber("HQ" + i);
+        payment.setPaymentDate(LocalDate.of(2004, 10, 19).plusDays(i % 900));
+        payment.setAmount(BigDecimal.valueOf(631_900 + i, 2));
+        return payment;
+    }
+
+    // Bulk-loads the database with the same shapes as the in-memory fixtures
+    static void seed(JdbcTemplate jdbc) {
+        jdbc.update("INSERT INTO productlines (productline, textdescription) "
+                + "SELECT 'Line ' || g, 'Product line ' || g FROM generate_series(0, ?) g", PRODUCT_LINES - 1);
+        jdbc.update("INSERT INTO products (productcode, productname, productline, productscale, productvendor, "
+                + "productdescription, quantityinstock, buyprice, msrp) "
+                + "SELECT 'S' || lpad(g::text, 8, '0'), 'Product ' || g, 'Line ' || (g % ?), '1:10', 'Min Lin Diecast', "
+                + "'Description ' || g, g % 10000, 48.81 + (g % 5000) / 100.0, 95.87 + (g % 9000) / 100.0 "
+                + "FROM generate_series(1, ?) g", PRODUCT_LINES, PRODUCTS);
+        jdbc.update("INSERT INTO customers (customername, contactlastname, contactfirstname, phone, addressline1, "
+                + "city, country, creditlimit) "
+                + "SELECT 'Customer ' || g, 'Schmitt', 'Carine', '40.32.2555', '54, rue Royale', 'Nantes', 'France', 21000 "
+                + "FROM generate_series(1, ?) g", CUSTOMERS);
+        // Years the migration didn't partition, as the data wasn't there when it ran
+        jdbc.queryForObject("SELECT ocs_create_year_partitions('orders', 2003, 2005)", Integer.class);
+        jdbc.queryForObject("SELECT ocs_create_year_partitions('orderdetails', 2003, 2005)", Integer.class);
+        jdbc.queryForObject("SELECT ocs_create_year_partitions('payments', 2004, 2007)", Integer.class);
+        jdbc.update("INSERT INTO orders (orderdate, requireddate, shippeddate, status, customernumber) "
+                + "SELECT DATE '2003-01-06' + g % 900, DATE '2003-01-13' + g % 900, DATE '2003-01-10' + g % 900, "
+                + "'Shipped', 1 + g % ? FROM generate_series(1, ?) g", CUSTOMERS, ORDERS);
+        // Lines carry their order's date, which their foreign key and partition are keyed on
+        jdbc.update("INSERT INTO orderdetails (order_number, orderdate, product_code, quantity_ordered, price_each, "
+                + "order_line_number) "
+                + "SELECT o.id, o.orderdate, 'S' || lpad((1 + g % ?)::text, 8, '0'), 20 + g % 30, 136 + (g % 5000) / 100.0, "
+                + "1 + g % 10 FROM generate_series(1, ?) g JOIN orders o ON o.id = 1 + g % ?", PRODUCTS, ORDER_DETAILS, ORDERS);
+        jdbc.update("INSERT INTO payments (customer_number, check_number, payment_date, amount) "
+                + "SELECT 1 + g % ?, 'HQ' || g, DATE '2004-10-19' + g % 900, 6319 + g "
+                + "FROM generate_series(1, ?) g", CUSTOMERS, PAYMENTS);
+        jdbc.execute("ANALYZE");
+    }
+}
@@ -0,0 +1,38 @@
+package com.team.onlinecatalogsystem.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Prints the encoded size of each list payload in every negotiable format, next to the
+ * SerializationBenchmark timings for the same combinations.
+ */
+public final class PayloadSizes {
+    private static final List<String> FORMATS = List.of("json", "cbor", "smile");
+
+    private PayloadSizes() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        System.out.printf("%-12s %8s %14s %14s %14s%n", "model", "rows", "json bytes", "cbor", "smile");
+        for (String model : List.of("Product", "Customer", "Order", "OrderDetail")) {
+            List<?> payload = Fixtures.models(model, rows);
+            long json = 0;
+            StringBuilder line = new StringBuilder(String.format("%-12s %8d", model, rows));
+            for (String format : FORMATS) {
+                ObjectMapper mapper = Fixtures.objectMapper(format);
+                long size = mapper.writeValueAsBytes(payload).length;
+                if ("json".equals(format)) {
+                    json = size;
+                    line.append(String.format(" %14d", size));
+                } else {
+                    line.append(String.format(" %7d (%3.0f%%)", size, 100.0 * size / json));
+                }
+            }
+            System.out.println(line);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.team.onlinecatalogsystem.benchmarks;
+
+import com.team.onlinecatalogsystem.OnlinecatalogsystemApplication;
+import com.team.onlinecatalogsystem.model.OrderDetail;
+import com.team.onlinecatalogsystem.model.Product;
+import com.team.onlinecatalogsystem.service.OrderDetailServiceI;
+import com.team.onlinecatalogsystem.service.OrderServiceI;
+import com.team.onlinecatalogsystem.service.PaymentServiceI;
+import com.team.onlinecatalogsystem.service.ProductServiceI;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// *ServiceImpl reads and writes through the full Spring/JPA stack against an embedded PostgreSQL
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ServiceBenchmark {
+    private EmbeddedPostgres postgres;
+    private Path dataDirectory;
+    private ConfigurableApplicationContext context;
+    private ProductServiceI productService;
+    private OrderServiceI orderService;
+    private OrderDetailServiceI orderDetailService;
+    private PaymentServiceI paymentService;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        postgres = EmbeddedPostgres.start();
+        dataDirectory = Files.createTempDirectory("ocs-bench");
+        context = SpringApplication.run(OnlinecatalogsystemApplication.class,
+                "--spring.main.web-application-type=none",
+                "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                "--spring.datasource.username=postgres",
+                "--spring.datasource.password=postgres",
+                "--ocs.recommendations.snapshot-file=" + dataDirectory.resolve("co-purchases.bin"),
+                "--logging.level.root=WARN",
+                "--logging.level.com.team.onlinecatalogsystem=WARN");
+        Fixtures.seed(context.getBean(JdbcTemplate.class));
+        productService = context.getBean(ProductServiceI.class);
+        orderService = context.getBean(OrderServiceI.class);
+        orderDetailService = context.getBean(OrderDetailServiceI.class);
+        paymentService = context.getBean(PaymentServiceI.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        postgres.close();
+        FileSystemUtils.deleteRecursively(dataDirectory);
+    }
+
+    @Benchmark
+    public Optional<Product> getProductByCode() {
+        return productService.getProductByCode(Fixtures.productCode(random(Fixtures.PRODUCTS)));
+    }
+
+    @Benchmark
+    public Optional<Product> getProductById() {
+        return productService.getProductById((long) random(Fixtures.PRODUCTS));
+    }
+
+    @Benchmark
+    public List<Product> getProductsByLine() {
+        return productService.getProductsByLine("Line " + (random(Fixtures.PRODUCT_LINES) - 1));
+    }
+
+    @Benchmark
+    public Object getOrdersByCustomerNumber() {
+        return orderService.getOrdersByCustomerNumber((long) random(Fixtures.CUSTOMERS));
+    }
+
+    @Benchmark
+    public Object getOrderDetailsByOrderNumber() {
+        return orderDetailService.getOrderDetailsByOrderNumber((long) random(Fixtures.ORDERS));
+    }
+
+    @Benchmark
+    public Object getPaymentsByCustomerNumber() {
+        return paymentService.getPaymentsByCustomerNumber((long) random(Fixtures.CUSTOMERS));
+    }
+
+    @Benchmark
+    public OrderDetail addOrderDetail() {
+        OrderDetail detail = Fixtures.orderDetail(random(Fixtures.ORDER_DETAILS));
+        detail.setId(null);
+        return orderDetailService.addOrderDetail(detail);
+    }
+
+    @Benchmark
+    public Product updateProduct() {
+        int i = random(Fixtures.PRODUCTS);
+        Product product = Fixtures.product(i);
+        product.setQuantityInStock(ThreadLocalRandom.current().nextInt(10_000));
+        return productService.updateProduct((long) i, product);
+    }
+
+    private static int random(int bound) {
+        return 1 + ThreadLocalRandom.current().nextInt(bound);
+    }
+}
@@ -0,0 +1,256 @@
+package com.team.onlinecatalogsystem.benchmarks;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Cold-start times of the application jar in each startup mode, each started as its own JVM
+ * against one embedded PostgreSQL:
+ *
+ * <ul>
+ *   <li>{@code default}: the regular jar as it ships today</li>
+ *   <li>{@code lazy}: the regular jar with the fast-startup profile (lazy init, no metadata probing)</li>
+ *   <li>{@code aot}: the {@code -Pfast-startup} jar with AOT-generated bean definitions</li>
+ *   <li>{@code aot+cds}: as {@code aot}, unpacked and started from a class-data-sharing archive
+ *       made by a training run, which is what the fast-startup Docker stage does</li>
+ * </ul>
+ *
+ * <pre>
+ * StartupTime --jar=../target/onlinecatalogsystem-0.0.1-SNAPSHOT-exec.jar
+ *             [--aot-jar=../target/onlinecatalogsystem-0.0.1-SNAPSHOT-aot.jar] [--runs=5]
+ *             [--modes=default,lazy,aot,aot+cds] [--work-dir=target/startup]
+ * </pre>
+ *
+ * Ready is the wall time from launching the JVM to the first 200 from /actuator/health; first
+ * request is the time /api/products then takes, which is where lazy initialization pays back.
+ */
+public final class StartupTime {
+    private static final Pattern STARTED = Pattern.compile("Started \\S+ in ([0-9.]+) seconds");
+    private static final Duration TIMEOUT = Duration.ofMinutes(2);
+
+    private final String java = ProcessHandle.current().info().command().orElse("java");
+    private final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+    private final Path workDir;
+    // Passed to every start: the database, and a snapshot file that stays out of the working directory
+    private final List<String> sharedArgs;
+
+    private StartupTime(Path workDir, EmbeddedPostgres postgres) {
+        this.workDir = workDir;
+        this.sharedArgs = List.of(
+                "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                "--spring.datasource.username=postgres",
+                "--spring.datasource.password=postgres",
+                "--ocs.recommendations.snapshot-file=" + workDir.resolve("co-purchases.bin").toAbsolutePath());
+    }
+
+    private record Run(long readyMillis, long firstRequestMillis, double startedSeconds) {
+    }
+
+    private record Mode(String name, List<String> jvmArgs, Path jar, List<String> appArgs) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            options.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        if (!options.containsKey("jar")) {
+            throw new IllegalArgumentException("--jar is required");
+        }
+        int runs = Integer.parseInt(options.getOrDefault("runs", "5"));
+        List<String> names = Arrays.asList(options.getOrDefault("modes", "default,lazy,aot,aot+cds").split(","));
+        Path workDir = Path.of(options.getOrDefault("work-dir", "target/startup"));
+        Files.createDirectories(workDir);
+
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.start()) {
+            StartupTime bench = new StartupTime(workDir, postgres);
+            List<Mode> modes = bench.modes(names, Path.of(options.get("jar")),
+                    options.containsKey("aot-jar") ? Path.of(options.get("aot-jar")) : null);
+
+            // Unmeasured first start: applies the migrations and warms the page cache
+            bench.start(modes.get(0), "warmup");
+
+            Map<String, List<Run>> results = new LinkedHashMap<>();
+            for (int i = 0; i < runs; i++) {
+                // Interleaved, so drift on the machine hits every mode alike
+                for (Mode mode : modes) {
+                    results.computeIfAbsent(mode.name(), k -> new ArrayList<>()).add(bench.start(mode, "run" + i));
+                }
+            }
+            print(results);
+        }
+    }
+
+    private List<Mode> modes(List<String> names, Path jar, Path aotJar) throws Exception {
+        List<String> fastStartup = List.of("--spring.profiles.active=fast-startup");
+        List<Mode> modes = new ArrayList<>();
+        for (String name : names) {
+            switch (name) {
+                case "default" -> modes.add(new Mode(name, List.of(), jar, List.of()));
+                case "lazy" -> modes.add(new Mode(name, List.of(), jar, fastStartup));
+                case "aot" -> modes.add(new Mode(name, List.of("-Dspring.aot.enabled=true"), requireAot(aotJar), fastStartup));
+                case "aot+cds" -> {
+                    Path extracted = extract(requireAot(aotJar));
+                    Path archive = train(extracted, fastStartup);
+                    modes.add(new Mode(name, List.of("-XX:SharedArchiveFile=" + archive, "-Dspring.aot.enabled=true"),
+                            extracted, fastStartup));
+                }
+                default -> throw new IllegalArgumentException("Unknown mode " + name);
+            }
+        }
+        return modes;
+    }
+
+    private static Path requireAot(Path aotJar) {
+        if (aotJar == null) {
+            throw new IllegalArgumentException("--aot-jar is required for the aot modes (mvn -Pfast-startup package)");
+        }
+        return aotJar;
+    }
+
+    // Same layout as the Docker stage: application jar with its dependencies under lib/
+    private Path extract(Path aotJar) throws Exception {
+        Path destination = workDir.resolve("extracted").toAbsolutePath();
+        exec(List.of(java, "-Djarmode=tools", "-jar", aotJar.toString(), "extract", "--force",
+                "--destination", destination.toString()), workDir.resolve("extract.log"));
+        try (Stream<Path> files = Files.list(destination)) {
+            return files.filter(file -> file.toString().endsWith(".jar")).findFirst()
+                    .orElseThrow(() -> new IllegalStateException("No application jar in " + destination));
+        }
+    }
+
+    private Path train(Path extractedJar, List<String> appArgs) throws Exception {
+        Path archive = workDir.resolve("app.jsa").toAbsolutePath();
+        Files.deleteIfExists(archive);
+        List<String> command = new ArrayList<>(List.of(java, "-XX:ArchiveClassesAtExit=" + archive,
+                "-Dspring.aot.enabled=true", "-Dspring.context.exit=onRefresh", "-jar", extractedJar.toString()));
+        command.addAll(appArgs);
+        command.addAll(sharedArgs);
+        exec(command, workDir.resolve("train.log"));
+        if (!Files.exists(archive)) {
+            throw new IllegalStateException("Training run did not write " + archive + ", see train.log");
+        }
+        return archive;
+    }
+
+    private void exec(List<String> command, Path log) throws Exception {
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log.toFile()).start();
+        if (!process.waitFor(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS) || process.exitValue() != 0) {
+            process.destroyForcibly();
+            throw new IllegalStateException("Failed: " + String.join(" ", command) + ", see " + log);
+        }
+    }
+
+    private Run start(Mode mode, String label) throws Exception {
+        int port = freePort();
+        int managementPort = freePort();
+        while (managementPort == port) {
+            managementPort = freePort();
+        }
+        List<String> command = new ArrayList<>();
+        command.add(java);
+        command.addAll(mode.jvmArgs());
+        command.addAll(List.of("-jar", mode.jar().toString(), "--server.port=" + port,
+                "--management.server.port=" + managementPort));
+        command.addAll(mode.appArgs());
+        command.addAll(sharedArgs);
+        Path log = workDir.resolve(mode.name().replace('+', '-') + "-" + label + ".log");
+
+        long launched = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log.toFile()).start();
+        try {
+            URI base = URI.create("http://localhost:" + port);
+            // Actuator has its own port
+            awaitOk(process, URI.create("http://localhost:" + managementPort + "/actuator/health"), launched, log);
+            long ready = System.nanoTime();
+            awaitOk(process, base.resolve("/api/products"), ready, log);
+            long firstRequest = System.nanoTime();
+            return new Run(TimeUnit.NANOSECONDS.toMillis(ready - launched),
+                    TimeUnit.NANOSECONDS.toMillis(firstRequest - ready), startedSeconds(log));
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    private void awaitOk(Process process, URI uri, long since, Path log) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(TIMEOUT).GET().build();
+        while (System.nanoTime() - since < TIMEOUT.toNanos()) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Application exited with " + process.exitValue() + ", see " + log);
+            }
+            try {
+                if (http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (ConnectException e) {
+                // Not listening yet
+            }
+            Thread.sleep(10);
+        }
+        throw new IllegalStateException("No 200 from " + uri + " within " + TIMEOUT + ", see " + log);
+    }
+
+    // Spring's own figure, which leaves out JVM startup before main
+    private static double startedSeconds(Path log) throws IOException {
+        Matcher matcher = STARTED.matcher(Files.readString(log));
+        return matcher.find() ? Double.parseDouble(matcher.group(1)) : Double.NaN;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static void print(Map<String, List<Run>> results) {
+        long baseline = -1;
+        System.out.printf("%-10s %5s %12s %12s %12s %14s %10s%n",
+                "mode", "runs", "ready p50 ms", "ready min", "spring p50 s", "first req p50", "vs first");
+        for (Map.Entry<String, List<Run>> entry : results.entrySet()) {
+            List<Run> runs = entry.getValue();
+            long ready = median(runs.stream().mapToLong(Run::readyMillis).toArray());
+            if (baseline < 0) {
+                baseline = ready;
+            }
+            System.out.printf("%-10s %5d %12d %12d %12.2f %14d %9.0f%%%n", entry.getKey(), runs.size(), ready,
+                    runs.stream().mapToLong(Run::readyMillis).min().orElse(0),
+                    median(runs.stream().mapToDouble(Run::startedSeconds).toArray()),
+                    median(runs.stream().mapToLong(Run::firstRequestMillis).toArray()),
+                    100.0 * (ready - baseline) / baseline);
+        }
+    }
+
+    private static long median(long[] values) {
+        Arrays.sort(values);
+        return values[values.length / 2];
+    }
+
+    private static double median(double[] values) {
+        Arrays.sort(values);
+        return values[values.length / 2];
+    }
+}
@@ -0,0 +1,148 @@
+package com.team.onlinecatalogsystem.benchmarks;
+
+import com.team.onlinecatalogsystem.OnlinecatalogsystemApplication;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.FileSystemUtils;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares the platform-thread Tomcat pool against virtual threads with the database concurrency
+ * limiter, under a burst of slow list fetches, each in the application started in this JVM on
+ * one embedded PostgreSQL:
+ *
+ * <pre>ThreadModels [--clients=800] [--seconds=20]</pre>
+ */
+public final class ThreadModels {
+    private static final int ORDERS = 20_000;
+
+    private final int clients;
+    private final int seconds;
+
+    private ThreadModels(int clients, int seconds) {
+        this.clients = clients;
+        this.seconds = seconds;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            options.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        ThreadModels bench = new ThreadModels(Integer.parseInt(options.getOrDefault("clients", "800")),
+                Integer.parseInt(options.getOrDefault("seconds", "20")));
+
+        try (EmbeddedPostgres pg = EmbeddedPostgres.start()) {
+            String url = pg.getJdbcUrl("postgres", "postgres");
+
+            Result platform = bench.run(url, false, true);
+            Result virtual = bench.run(url, true, false);
+
+            System.out.println();
+            System.out.printf("%-28s %12s %10s %10s %10s%n", "mode", "req/s", "p50 ms", "p99 ms", "errors");
+            platform.print();
+            virtual.print();
+        }
+    }
+
+    private Result run(String url, boolean virtualThreads, boolean seed) throws Exception {
+        // Each mode starts without a co-purchase snapshot, and none is left in the working directory
+        Path dataDirectory = Files.createTempDirectory("ocs-threads");
+        ConfigurableApplicationContext context = SpringApplication.run(OnlinecatalogsystemApplication.class,
+                "--server.port=0",
+                "--spring.datasource.url=" + url,
+                "--spring.datasource.username=postgres",
+                "--spring.datasource.password=postgres",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--ocs.rate-limit.enabled=false",  // Every client shares one address
+                "--ocs.recommendations.snapshot-file=" + dataDirectory.resolve("co-purchases.bin"),
+                "--spring.threads.virtual.enabled=" + virtualThreads,
+                "--ocs.db-concurrency.enabled=" + virtualThreads);
+        try {
+            if (seed) {
+                seed(context.getBean(JdbcTemplate.class));
+            }
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            return load(virtualThreads ? "virtual threads + limiter" : "platform threads (tomcat)",
+                    URI.create("http://localhost:" + port + "/api/orders/status/In%20Process"));
+        } finally {
+            context.close();
+            FileSystemUtils.deleteRecursively(dataDirectory);
+        }
+    }
+
+    private static void seed(JdbcTemplate jdbc) {
+        jdbc.update("INSERT INTO customers (customername, contactlastname, contactfirstname, phone, addressline1, city, country) "
+                + "SELECT 'Customer ' || g, 'Last', 'First', '555', 'Street', 'City', 'Country' FROM generate_series(1, 500) g");
+        jdbc.update("INSERT INTO orders (orderdate, requireddate, status, customernumber) "
+                + "SELECT DATE '2004-01-01' + g % 365, DATE '2004-01-10' + g % 365, "
+                + "CASE WHEN g % 10 = 0 THEN 'In Process' ELSE 'Shipped' END, 1 + g % 500 "
+                + "FROM generate_series(1, ?) g", ORDERS);
+        jdbc.execute("ANALYZE");
+    }
+
+    private Result load(String mode, URI uri) throws InterruptedException {
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        AtomicLong errors = new AtomicLong();
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < this.clients; i++) {
+                clients.submit(() -> {
+                    HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(30)).build();
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() != 200) {
+                                errors.incrementAndGet();
+                                continue;
+                            }
+                            latencies.add(System.nanoTime() - start);
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                    }
+                });
+            }
+        }
+
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        return new Result(mode, sorted.size() / (double) seconds, percentile(sorted, 0.50), percentile(sorted, 0.99), errors.get());
+    }
+
+    private static double percentile(List<Long> sorted, double p) {
+        if (sorted.isEmpty()) {
+            return Double.NaN;
+        }
+        return sorted.get((int) Math.min(sorted.size() - 1, Math.ceil(p * sorted.size()) - 1)) / 1_000_000.0;
+    }
+
+    private record Result(String mode, double throughput, double p50, double p99, long errors) {
+        void print() {
+            System.out.printf("%-28s %12.1f %10.1f %10.1f %10d%n", mode, throughput, p50, p99, errors);
+        }
+    }
+}
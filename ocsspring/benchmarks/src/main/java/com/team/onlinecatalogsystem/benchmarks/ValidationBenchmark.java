@@ -0,0 +1,107 @@
+package com.team.onlinecatalogsystem.benchmarks;
+
+import com.team.onlinecatalogsystem.model.Customer;
+import com.team.onlinecatalogsystem.model.Employee;
+import com.team.onlinecatalogsystem.model.Office;
+import com.team.onlinecatalogsystem.model.Order;
+import com.team.onlinecatalogsystem.model.OrderDetail;
+import com.team.onlinecatalogsystem.model.Payment;
+import com.team.onlinecatalogsystem.model.Product;
+import com.team.onlinecatalogsystem.model.ProductLine;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// Cost of the Jakarta constraints checked by @Valid on each request body
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ValidationBenchmark {
+    private ValidatorFactory factory;
+    private Validator validator;
+    private Product product;
+    private ProductLine productLine;
+    private Customer customer;
+    private Employee employee;
+    private Office office;
+    private Order order;
+    private OrderDetail orderDetail;
+    private Payment payment;
+
+    @Setup
+    public void setUp() {
+        factory = Validation.buildDefaultValidatorFactory();
+        validator = factory.getValidator();
+        product = Fixtures.product(1);
+        productLine = Fixtures.productLine(1);
+        customer = Fixtures.customer(1);
+        employee = Fixtures.employee(1);
+        office = Fixtures.office(1);
+        order = Fixtures.order(1);
+        orderDetail = Fixtures.orderDetail(1);
+        payment = Fixtures.payment(1);
+    }
+
+    @TearDown
+    public void tearDown() {
+        factory.close();
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<Product>> validateProduct() {
+        return validator.validate(product);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<ProductLine>> validateProductLine() {
+        return validator.validate(productLine);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<Customer>> validateCustomer() {
+        return validator.validate(customer);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<Employee>> validateEmployee() {
+        return validator.validate(employee);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<Office>> validateOffice() {
+        return validator.validate(office);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<Order>> validateOrder() {
+        return validator.validate(order);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<OrderDetail>> validateOrderDetail() {
+        return validator.validate(orderDetail);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<Payment>> validatePayment() {
+        return validator.validate(payment);
+    }
+}
@@ -0,0 +1,94 @@
+package com.team.onlinecatalogsystem.benchmarks.load;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic classicmodels-shaped data. Scale 1 matches the row counts of the original sample
+ * database (110 products, 122 customers, 326 orders, 2996 order lines, 273 payments); every other
+ * scale multiplies them. The same scale always produces the same rows, so runs are comparable.
+ */
+record Dataset(int scale, long products, long customers, long orders, long orderDetails, long payments) {
+    static final List<String> PRODUCT_LINES = List.of("Classic Cars", "Motorcycles", "Planes", "Ships", "Trains",
+            "Trucks and Buses", "Vintage Cars");
+    static final List<String> STATUSES = List.of("Shipped", "In Process", "On Hold", "Cancelled", "Resolved", "Disputed");
+
+    static Dataset ofScale(int scale) {
+        return new Dataset(scale, 110L * scale, 122L * scale, 326L * scale, 2_996L * scale, 273L * scale);
+    }
+
+    // Key ranges of an already populated database, for targets seeded by an earlier run
+    static Dataset discover(JdbcTemplate jdbc, int scale) {
+        return new Dataset(scale, maxId(jdbc, "products"), maxId(jdbc, "customers"), maxId(jdbc, "orders"),
+                maxId(jdbc, "orderdetails"), maxId(jdbc, "payments"));
+    }
+
+    static String productCode(long i) {
+        return "S" + String.format("%08d", i);
+    }
+
+    // Skewed towards low keys so a small set of products and customers is hot, as in real catalogs
+    static long pick(SplittableRandom random, long count, double skew) {
+        return 1 + Math.min(count - 1, (long) (Math.pow(random.nextDouble(), skew) * count));
+    }
+
+    // Bulk-loads an empty database. Relies on fresh identity sequences so generated ids are 1..n.
+    void seed(JdbcTemplate jdbc) {
+        Long existing = jdbc.queryForObject("SELECT count(*) FROM products", Long.class);
+        if (existing != null && existing > 0) {
+            throw new IllegalStateException("Target database already has " + existing + " products; "
+                    + "seed into an empty database or run with --seed=false");
+        }
+        String lines = "ARRAY['" + String.join("','", PRODUCT_LINES) + "']";
+        String statuses = "ARRAY['" + String.join("','", STATUSES) + "']";
+
+        jdbc.update("INSERT INTO productlines (productline, textdescription) "
+                + "SELECT l, 'Attention ' || l || ' enthusiasts' FROM unnest(" + lines + ") l");
+        // Classic Cars carries about a third of the catalog, like the original data
+        jdbc.update("INSERT INTO products (productcode, productname, productline, productscale, productvendor, "
+                + "productdescription, quantityinstock, buyprice, msrp) "
+                + "SELECT 'S' || lpad(g::text, 8, '0'), 'Model ' || g, "
+                + "CASE WHEN g % 3 = 0 THEN 'Classic Cars' ELSE (" + lines + ")[2 + g % 6] END, "
+                + "(ARRAY['1:10','1:12','1:18','1:24','1:32','1:50','1:700'])[1 + g % 7], "
+                + "'Vendor ' || (g % 13), 'Description of model ' || g, (g::bigint * 7919) % 10000, "
+                + "15 + (g::bigint * 37) % 9000 / 100.0, 30 + (g::bigint * 37) % 9000 / 100.0 * 1.8 "
+                + "FROM generate_series(1, ?::int) g", products);
+        jdbc.update("INSERT INTO customers (customername, contactlastname, contactfirstname, phone, addressline1, "
+                + "city, country, creditlimit) "
+                + "SELECT 'Customer ' || g, 'Last ' || g, 'First ' || g, '555-' || lpad(g::text, 6, '0'), g || ' Main Street', "
+                + "'City ' || (g % 95), 'Country ' || (g % 27), 10000 + (g::bigint * 131) % 200000 "
+                + "FROM generate_series(1, ?::int) g", customers);
+        // The migration only partitioned from the current year on; the data's years get their own,
+        // as they would have had the rows been there when it ran
+        for (String table : List.of("orders", "orderdetails", "payments")) {
+            jdbc.queryForObject("SELECT ocs_create_year_partitions(?, 2003, 2005)", Integer.class, table);
+        }
+        // About 93% of orders are shipped; the rest are spread over the open statuses
+        jdbc.update("INSERT INTO orders (orderdate, requireddate, shippeddate, status, customernumber) "
+                + "SELECT DATE '2003-01-06' + g % 880, DATE '2003-01-13' + g % 880, "
+                + "CASE WHEN g % 326 < 303 THEN DATE '2003-01-10' + g % 880 END, "
+                + "CASE WHEN g % 326 < 303 THEN 'Shipped' ELSE (" + statuses + ")[2 + g % 5] END, "
+                + "1 + (g::bigint * 7) % ?::int FROM generate_series(1, ?::int) g", customers, orders);
+        // Lines carry their order's date, which their foreign key and partition are keyed on
+        jdbc.update("INSERT INTO orderdetails (order_number, orderdate, product_code, quantity_ordered, price_each, "
+                + "order_line_number) "
+                + "SELECT o.id, o.orderdate, 'S' || lpad((1 + (g::bigint * 7919) % ?::int)::text, 8, '0'), 20 + g % 40, "
+                + "30 + (g::bigint * 37) % 9000 / 100.0, 1 + (g - 1) / ?::int "
+                + "FROM generate_series(1, ?::int) g JOIN orders o ON o.id = 1 + (g - 1) % ?::int",
+                products, orders, orderDetails, orders);
+        jdbc.update("INSERT INTO payments (customer_number, check_number, payment_date, amount) "
+                + "SELECT 1 + (g::bigint * 11) % ?::int, 'CK' || lpad(g::text, 9, '0'), DATE '2003-01-16' + g % 880, "
+                + "1000 + (g::bigint * 7919) % 100000 / 1.0 FROM generate_series(1, ?::int) g", customers, payments);
+        jdbc.execute("ANALYZE");
+    }
+
+    private static long maxId(JdbcTemplate jdbc, String table) {
+        Long max = jdbc.queryForObject("SELECT coalesce(max(id), 0) FROM " + table, Long.class);
+        if (max == null || max == 0) {
+            throw new IllegalStateException("Table " + table + " is empty; seed the target first");
+        }
+        return max;
+    }
+}
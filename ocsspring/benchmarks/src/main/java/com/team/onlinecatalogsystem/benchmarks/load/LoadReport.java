@@ -0,0 +1,45 @@
+package com.team.onlinecatalogsystem.benchmarks.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The result of a load run: the settings that shaped the traffic and one {@link StepResult} per
+ * offered load. Written as indented JSON with a fixed key order and no timestamps, so the files
+ * from two builds can be compared with plain diff or {@link LoadReportDiff}.
+ */
+record LoadReport(String mode, int scale, double skew, long seed, long warmupSeconds, long durationSeconds,
+                  Map<String, Integer> mix, List<StepResult> steps) {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    void write(File file) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        MAPPER.writeValue(file, this);
+    }
+
+    static LoadReport read(File file) throws IOException {
+        return MAPPER.readValue(file, LoadReport.class);
+    }
+
+    // The throughput/latency curve, one row per step
+    void print(PrintStream out) {
+        out.printf("%-26s %8s %10s %8s %9s %9s %9s %9s %9s %9s%n", "step", "CO-corr", "req/s", "errors",
+                "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "svc p99");
+        for (StepResult step : steps) {
+            StepResult.Percentiles latency = step.latencyMs();
+            out.printf("%-26s %8s %10.1f %8d %9.2f %9.2f %9.2f %9.2f %9.2f %9.2f%n", step.label(),
+                    step.coordinatedOmissionCorrected() ? "yes" : "no", step.throughput(), step.errors(),
+                    latency.p50(), latency.p90(), latency.p99(), latency.p999(), latency.max(), step.serviceTimeMs().p99());
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.team.onlinecatalogsystem.benchmarks.load;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compares two load reports step by step and operation by operation. Exits non-zero when any p99
+ * grew, or any step's throughput fell, by more than the threshold.
+ *
+ * <pre>LoadReportDiff baseline.json current.json [threshold, default 0.10]</pre>
+ */
+public final class LoadReportDiff {
+
+    private LoadReportDiff() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: LoadReportDiff <baseline.json> <current.json> [threshold]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 0.10;
+        LoadReport baseline = LoadReport.read(new File(args[0]));
+        LoadReport current = LoadReport.read(new File(args[1]));
+        if (baseline.scale() != current.scale() || !baseline.mix().equals(current.mix())) {
+            System.out.println("Warning: reports were generated with a different scale or traffic mix");
+        }
+
+        Map<String, StepResult> before = new LinkedHashMap<>();
+        baseline.steps().forEach(step -> before.put(step.label(), step));
+
+        int regressions = 0;
+        System.out.printf("%-48s %12s %12s %9s%n", "step / metric", "baseline", "current", "change");
+        for (StepResult after : current.steps()) {
+            StepResult reference = before.get(after.label());
+            if (reference == null) {
+                System.out.printf("%-48s %12s %12s %9s%n", after.label(), "-", "-", "new");
+                continue;
+            }
+            regressions += row(after.label() + " req/s", reference.throughput(), after.throughput(), true, threshold);
+            regressions += row(after.label() + " p99 ms", reference.latencyMs().p99(), after.latencyMs().p99(), false, threshold);
+            row(after.label() + " errors", reference.errors(), after.errors(), false, Double.MAX_VALUE);
+            for (Map.Entry<String, StepResult.OperationResult> operation : after.operations().entrySet()) {
+                StepResult.OperationResult old = reference.operations().get(operation.getKey());
+                if (old != null) {
+                    regressions += row("  " + operation.getKey() + " p99 ms", old.latencyMs().p99(),
+                            operation.getValue().latencyMs().p99(), false, threshold);
+                }
+            }
+        }
+
+        if (regressions > 0) {
+            System.out.printf("%d metric(s) regressed by more than %.0f%%%n", regressions, threshold * 100);
+            System.exit(1);
+        }
+        System.out.println("No regressions beyond " + Math.round(threshold * 100) + "%");
+    }
+
+    private static int row(String name, double reference, double value, boolean higherIsBetter, double threshold) {
+        double change = reference == 0 ? 0 : (value - reference) / reference;
+        boolean regressed = (higherIsBetter ? -change : change) > threshold;
+        System.out.printf("%-48s %12.2f %12.2f %+8.1f%%%s%n", name, reference, value, change * 100,
+                regressed ? "  REGRESSION" : "");
+        return regressed ? 1 : 0;
+    }
+}
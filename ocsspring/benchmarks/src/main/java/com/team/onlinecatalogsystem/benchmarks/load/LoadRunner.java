@@ -0,0 +1,173 @@
+package com.team.onlinecatalogsystem.benchmarks.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives one load step and records latencies in microseconds.
+ *
+ * <p>Open loop sends on a fixed schedule whatever the server does, and measures each request from
+ * the moment it was due, so queueing behind a slow server shows up in the numbers instead of
+ * silently lowering the offered load. Closed loop runs a fixed number of clients that each wait
+ * for their response; when paced with a rate, those latencies are also measured from the
+ * scheduled send time. Unpaced closed loop has no schedule to correct against and reports
+ * service time only.
+ */
+final class LoadRunner {
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(2);
+
+    private final HttpClient client;
+    private final TrafficMix mix;
+    private final long seed;
+    private final Duration warmup;
+    private final Duration duration;
+    private final int maxInFlight;
+
+    LoadRunner(HttpClient client, TrafficMix mix, long seed, Duration warmup, Duration duration, int maxInFlight) {
+        this.client = client;
+        this.mix = mix;
+        this.seed = seed;
+        this.warmup = warmup;
+        this.duration = duration;
+        this.maxInFlight = maxInFlight;
+    }
+
+    StepResult openLoop(double rate) throws InterruptedException {
+        Recording recording = new Recording(true);
+        SplittableRandom random = new SplittableRandom(seed);
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+
+        try (ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long due = start; due < end; due += interval) {
+                sleepUntil(due);
+                TrafficMix.Call call = mix.next(random);
+                // Blocking here delays the send but not the due time, so the wait is still charged
+                inFlight.acquire();
+                long scheduled = due;
+                senders.submit(() -> {
+                    try {
+                        send(call, scheduled, scheduled >= measureFrom, recording);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+        return recording.result("open", rate, 0, duration);
+    }
+
+    StepResult closedLoop(int clients, double rate) throws InterruptedException {
+        Recording recording = new Recording(rate > 0);
+        long interval = rate > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) * clients / rate) : 0;
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                SplittableRandom random = new SplittableRandom(seed + i);
+                // Stagger paced clients so they do not all fire on the same tick
+                long first = start + (interval * i) / clients;
+                workers.submit(() -> {
+                    long due = first;
+                    while (true) {
+                        long scheduled = interval > 0 ? due : System.nanoTime();
+                        if (scheduled >= end) {
+                            return;
+                        }
+                        if (interval > 0) {
+                            sleepUntil(scheduled);
+                            due += interval;
+                        }
+                        send(mix.next(random), scheduled, scheduled >= measureFrom, recording);
+                    }
+                });
+            }
+        }
+        return recording.result("closed", rate, clients, duration);
+    }
+
+    private void send(TrafficMix.Call call, long scheduled, boolean measured, Recording recording) {
+        long sent = System.nanoTime();
+        boolean ok;
+        try {
+            HttpResponse<Void> response = client.send(call.request(), HttpResponse.BodyHandlers.discarding());
+            ok = response.statusCode() < 400;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (Exception e) {
+            ok = false;
+        }
+        if (measured) {
+            long done = System.nanoTime();
+            recording.record(call.operation(), (done - scheduled) / 1_000, (done - sent) / 1_000, ok);
+        }
+    }
+
+    private static void sleepUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    // Overall and per-operation histograms, safe for concurrent recording
+    private static final class Recording {
+        private final boolean corrected;
+        private final Histogram latency = histogram();
+        private final Histogram serviceTime = histogram();
+        private final Map<String, Histogram> operations = new ConcurrentHashMap<>();
+        private final Map<String, LongAdder> operationErrors = new ConcurrentHashMap<>();
+        private final LongAdder errors = new LongAdder();
+
+        Recording(boolean corrected) {
+            this.corrected = corrected;
+        }
+
+        void record(String operation, long latencyMicros, long serviceMicros, boolean ok) {
+            long value = corrected ? latencyMicros : serviceMicros;
+            latency.recordValue(Math.min(value, HIGHEST_TRACKABLE_MICROS));
+            serviceTime.recordValue(Math.min(serviceMicros, HIGHEST_TRACKABLE_MICROS));
+            operations.computeIfAbsent(operation, name -> histogram()).recordValue(Math.min(value, HIGHEST_TRACKABLE_MICROS));
+            if (!ok) {
+                errors.increment();
+                operationErrors.computeIfAbsent(operation, name -> new LongAdder()).increment();
+            }
+        }
+
+        StepResult result(String mode, double rate, int clients, Duration duration) {
+            Map<String, StepResult.OperationResult> perOperation = new TreeMap<>();
+            operations.forEach((name, histogram) -> {
+                LongAdder failed = operationErrors.get(name);
+                perOperation.put(name, new StepResult.OperationResult(histogram.getTotalCount(),
+                        failed == null ? 0 : failed.sum(), StepResult.Percentiles.of(histogram)));
+            });
+            return new StepResult(mode, rate, clients, corrected, latency.getTotalCount(), errors.sum(),
+                    Math.round(latency.getTotalCount() / (duration.toNanos() / 1e9) * 10) / 10.0,
+                    StepResult.Percentiles.of(latency), StepResult.Percentiles.of(serviceTime), perOperation);
+        }
+
+        private static Histogram histogram() {
+            return new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.team.onlinecatalogsystem.benchmarks.load;
+
+import com.team.onlinecatalogsystem.OnlinecatalogsystemApplication;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.File;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * HTTP load generator for the REST API. Without {@code --url} it starts the application on an
+ * embedded PostgreSQL, seeds it at the requested scale and drives that; with {@code --url} it
+ * drives an instance that is already running, seeding its database first when {@code --jdbc-url}
+ * is given.
+ *
+ * <pre>
+ * LoadTest [--url=http://localhost:8080] [--jdbc-url=... --jdbc-user=... --jdbc-password=...]
+ *          [--scale=10] [--seed=true] [--mode=open|closed] [--rates=100,200,400] [--clients=8,32]
+ *          [--warmup=10] [--duration=30] [--mix=product.byCode:40,payment.add:0] [--replay=calls.txt]
+ *          [--skew=1.5] [--random-seed=42] [--max-in-flight=2000] [--report=target/load-report.json]
+ * </pre>
+ *
+ * Open loop runs one step per rate. Closed loop runs one step per client count, paced by the
+ * matching rate when rates are given.
+ */
+public final class LoadTest {
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        String mode = options.getOrDefault("mode", "closed");
+        int scale = Integer.parseInt(options.getOrDefault("scale", "10"));
+        double skew = Double.parseDouble(options.getOrDefault("skew", "1.5"));
+        long seed = Long.parseLong(options.getOrDefault("random-seed", "42"));
+        Duration warmup = Duration.ofSeconds(Long.parseLong(options.getOrDefault("warmup", "10")));
+        Duration duration = Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration", "30")));
+        int maxInFlight = Integer.parseInt(options.getOrDefault("max-in-flight", "2000"));
+        List<Double> rates = doubles(options.get("rates"));
+        List<Double> clients = doubles(options.getOrDefault("clients", "open".equals(mode) ? null : "1,8,32,128"));
+        if ("open".equals(mode) && rates.isEmpty()) {
+            throw new IllegalArgumentException("Open loop needs --rates");
+        }
+        if (!"open".equals(mode) && !"closed".equals(mode)) {
+            throw new IllegalArgumentException("--mode must be open or closed");
+        }
+        if ("closed".equals(mode) && !rates.isEmpty() && rates.size() != clients.size()) {
+            throw new IllegalArgumentException("Paced closed loop needs one rate per client count");
+        }
+
+        try (Target target = Target.start(options, scale)) {
+            TrafficMix mix = options.containsKey("replay")
+                    ? TrafficMix.replay(target.base, Path.of(options.get("replay")))
+                    : TrafficMix.synthetic(target.base, target.dataset, skew, weights(options.get("mix")));
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .build();
+            LoadRunner runner = new LoadRunner(client, mix, seed, warmup, duration, maxInFlight);
+
+            List<StepResult> steps = new ArrayList<>();
+            int count = "open".equals(mode) ? rates.size() : clients.size();
+            for (int i = 0; i < count; i++) {
+                StepResult step = "open".equals(mode)
+                        ? runner.openLoop(rates.get(i))
+                        : runner.closedLoop(clients.get(i).intValue(), rates.isEmpty() ? 0 : rates.get(i));
+                System.out.printf("%s: %.1f req/s, p99 %.2f ms, %d errors%n", step.label(), step.throughput(),
+                        step.latencyMs().p99(), step.errors());
+                steps.add(step);
+            }
+
+            LoadReport report = new LoadReport(mode, scale, skew, seed, warmup.toSeconds(), duration.toSeconds(),
+                    mix.weights(), steps);
+            File file = new File(options.getOrDefault("report", "target/load-report.json"));
+            report.write(file);
+            System.out.println();
+            report.print(System.out);
+            System.out.println("Report written to " + file);
+        }
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        return options;
+    }
+
+    private static List<Double> doubles(String csv) {
+        List<Double> values = new ArrayList<>();
+        if (csv != null && !csv.isBlank()) {
+            for (String value : csv.split(",")) {
+                values.add(Double.parseDouble(value.strip()));
+            }
+        }
+        return values;
+    }
+
+    private static Map<String, Integer> weights(String csv) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        if (csv != null && !csv.isBlank()) {
+            for (String entry : csv.split(",")) {
+                String[] parts = entry.split(":");
+                weights.put(parts[0].strip(), Integer.parseInt(parts[1].strip()));
+            }
+        }
+        return weights;
+    }
+
+    // The instance under load, either started here on an embedded database or already running
+    private static final class Target implements AutoCloseable {
+        private final URI base;
+        private final Dataset dataset;
+        private final EmbeddedPostgres postgres;
+        private final ConfigurableApplicationContext context;
+        private final Path dataDirectory;
+
+        private Target(URI base, Dataset dataset, EmbeddedPostgres postgres, ConfigurableApplicationContext context,
+                       Path dataDirectory) {
+            this.base = base;
+            this.dataset = dataset;
+            this.postgres = postgres;
+            this.context = context;
+            this.dataDirectory = dataDirectory;
+        }
+
+        static Target start(Map<String, String> options, int scale) throws Exception {
+            boolean seed = Boolean.parseBoolean(options.getOrDefault("seed", "true"));
+            if (options.containsKey("url")) {
+                URI base = URI.create(options.get("url"));
+                if (!options.containsKey("jdbc-url")) {
+                    // Trust that the target was seeded at this scale by an earlier run
+                    return new Target(base, Dataset.ofScale(scale), null, null, null);
+                }
+                JdbcTemplate jdbc = new JdbcTemplate(new DriverManagerDataSource(options.get("jdbc-url"),
+                        options.getOrDefault("jdbc-user", "postgres"), options.getOrDefault("jdbc-password", "")));
+                Dataset dataset = Dataset.ofScale(scale);
+                if (seed) {
+                    dataset.seed(jdbc);
+                    return new Target(base, dataset, null, null, null);
+                }
+                return new Target(base, Dataset.discover(jdbc, scale), null, null, null);
+            }
+
+            EmbeddedPostgres postgres = EmbeddedPostgres.start();
+            // The co-purchase snapshot would otherwise be left in the working directory
+            Path dataDirectory = Files.createTempDirectory("ocs-load");
+            ConfigurableApplicationContext context = SpringApplication.run(OnlinecatalogsystemApplication.class,
+                    "--server.port=0",
+                    "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                    "--spring.datasource.username=postgres",
+                    "--spring.datasource.password=postgres",
+                    "--ocs.rate-limit.enabled=false",  // One generator on one address would only measure 429s
+                    "--ocs.recommendations.snapshot-file=" + dataDirectory.resolve("co-purchases.bin"),
+                    "--logging.level.root=WARN",
+                    "--logging.level.com.team.onlinecatalogsystem=WARN");
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            Target target = new Target(URI.create("http://localhost:" + port), Dataset.ofScale(scale), postgres, context,
+                    dataDirectory);
+            try {
+                target.dataset.seed(context.getBean(JdbcTemplate.class));
+            } catch (RuntimeException e) {
+                target.close();
+                throw e;
+            }
+            return target;
+        }
+
+        @Override
+        public void close() throws Exception {
+            if (context != null) {
+                context.close();
+            }
+            if (postgres != null) {
+                postgres.close();
+            }
+            if (dataDirectory != null) {
+                FileSystemUtils.deleteRecursively(dataDirectory);
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.team.onlinecatalogsystem.benchmarks.load;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.HdrHistogram.Histogram;
+
+import java.util.Map;
+
+/**
+ * One point on the throughput/latency curve. Latencies are in milliseconds, rounded so that
+ * reports from two builds diff cleanly.
+ */
+record StepResult(String mode, double targetRate, int clients, boolean coordinatedOmissionCorrected,
+                  long requests, long errors, double throughput, Percentiles latencyMs, Percentiles serviceTimeMs,
+                  Map<String, OperationResult> operations) {
+
+    String label() {
+        return "closed".equals(mode) ? "clients=" + clients + (targetRate > 0 ? " rate=" + fmt(targetRate) : "")
+                : "rate=" + fmt(targetRate);
+    }
+
+    record OperationResult(long requests, long errors, Percentiles latencyMs) {
+    }
+
+    record Percentiles(double p50, double p90, double p99, @JsonProperty("p99.9") double p999, double max) {
+
+        static Percentiles of(Histogram micros) {
+            if (micros.getTotalCount() == 0) {
+                return new Percentiles(0, 0, 0, 0, 0);
+            }
+            return new Percentiles(ms(micros.getValueAtPercentile(50)), ms(micros.getValueAtPercentile(90)),
+                    ms(micros.getValueAtPercentile(99)), ms(micros.getValueAtPercentile(99.9)), ms(micros.getMaxValue()));
+        }
+
+        private static double ms(long micros) {
+            return Math.round(micros / 10.0) / 100.0;
+        }
+    }
+
+    private static String fmt(double value) {
+        return value == Math.rint(value) ? Long.toString((long) value) : Double.toString(value);
+    }
+}
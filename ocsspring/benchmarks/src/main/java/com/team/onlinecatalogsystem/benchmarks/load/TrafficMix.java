@@ -0,0 +1,200 @@
+package com.team.onlinecatalogsystem.benchmarks.load;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+
+/**
+ * A weighted mix of REST calls against the product, order, order detail and payment endpoints.
+ * Each request is chosen from a caller-supplied random, so a fixed seed replays the same sequence.
+ */
+final class TrafficMix {
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    // Read-heavy catalog browsing with a steady trickle of order entry, roughly a storefront day
+    static final Map<String, Integer> DEFAULT_WEIGHTS = defaults();
+
+    private final URI base;
+    private final Dataset data;
+    private final double skew;
+    private final List<Operation> operations = new ArrayList<>();
+    private final int totalWeight;
+    private final List<ReplayedCall> replay;
+    private final AtomicLong replayCursor = new AtomicLong();
+    private final AtomicLong writes = new AtomicLong();
+    private final String runTag = Long.toString(System.currentTimeMillis(), 36);
+
+    record Call(String operation, HttpRequest request) {
+    }
+
+    private record Operation(String name, int weight, BiFunction<SplittableRandom, TrafficMix, HttpRequest> factory) {
+    }
+
+    private record ReplayedCall(String method, String path, String body) {
+    }
+
+    private TrafficMix(URI base, Dataset data, double skew, Map<String, Integer> weights, List<ReplayedCall> replay) {
+        this.base = base;
+        this.data = data;
+        this.skew = skew;
+        this.replay = replay;
+        int total = 0;
+        for (Map.Entry<String, Integer> weight : weights.entrySet()) {
+            if (weight.getValue() > 0) {
+                operations.add(new Operation(weight.getKey(), weight.getValue(), factory(weight.getKey())));
+                total += weight.getValue();
+            }
+        }
+        if (replay == null && total == 0) {
+            throw new IllegalArgumentException("Traffic mix has no operations with a positive weight");
+        }
+        this.totalWeight = total;
+    }
+
+    static TrafficMix synthetic(URI base, Dataset data, double skew, Map<String, Integer> overrides) {
+        Map<String, Integer> weights = new LinkedHashMap<>(DEFAULT_WEIGHTS);
+        for (String name : overrides.keySet()) {
+            if (!weights.containsKey(name)) {
+                throw new IllegalArgumentException("Unknown operation " + name + "; known: " + weights.keySet());
+            }
+        }
+        weights.putAll(overrides);
+        return new TrafficMix(base, data, skew, weights, null);
+    }
+
+    // Replays "METHOD /path [json body]" lines in order, cycling when the file runs out
+    static TrafficMix replay(URI base, Path file) throws IOException {
+        List<ReplayedCall> calls = new ArrayList<>();
+        for (String line : Files.readAllLines(file)) {
+            String trimmed = line.strip();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            String[] parts = trimmed.split("\\s+", 3);
+            if (parts.length < 2) {
+                throw new IllegalArgumentException("Bad replay line: " + line);
+            }
+            calls.add(new ReplayedCall(parts[0].toUpperCase(), parts[1], parts.length > 2 ? parts[2] : null));
+        }
+        if (calls.isEmpty()) {
+            throw new IllegalArgumentException("Replay file " + file + " has no calls");
+        }
+        return new TrafficMix(base, null, 1, Map.of(), calls);
+    }
+
+    Map<String, Integer> weights() {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        if (replay != null) {
+            weights.put("replay", replay.size());
+        }
+        operations.forEach(operation -> weights.put(operation.name(), operation.weight()));
+        return weights;
+    }
+
+    Call next(SplittableRandom random) {
+        if (replay != null) {
+            ReplayedCall call = replay.get((int) (replayCursor.getAndIncrement() % replay.size()));
+            String operation = call.method() + " " + call.path().replaceAll("/\\d+", "/{id}");
+            return new Call(operation, request(call.method(), call.path(), call.body()));
+        }
+        int ticket = random.nextInt(totalWeight);
+        for (Operation operation : operations) {
+            ticket -= operation.weight();
+            if (ticket < 0) {
+                return new Call(operation.name(), operation.factory().apply(random, this));
+            }
+        }
+        throw new IllegalStateException("unreachable");
+    }
+
+    private static Map<String, Integer> defaults() {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        weights.put("product.byCode", 22);
+        weights.put("product.byId", 10);
+        weights.put("product.byLine", 6);
+        weights.put("order.byId", 10);
+        weights.put("order.byCustomer", 10);
+        weights.put("order.byStatus", 2);
+        weights.put("orderDetail.byOrder", 16);
+        weights.put("orderDetail.byProduct", 4);
+        weights.put("payment.byCustomer", 8);
+        weights.put("order.add", 5);
+        weights.put("orderDetail.add", 5);
+        weights.put("payment.add", 2);
+        return weights;
+    }
+
+    private static BiFunction<SplittableRandom, TrafficMix, HttpRequest> factory(String name) {
+        return switch (name) {
+            case "product.byCode" -> (r, m) -> m.get("/api/products/code/" + Dataset.productCode(m.product(r)));
+            case "product.byId" -> (r, m) -> m.get("/api/products/" + m.product(r));
+            case "product.byLine" -> (r, m) -> m.get("/api/products/line/" + m.pickOf(r, Dataset.PRODUCT_LINES));
+            case "order.byId" -> (r, m) -> m.get("/api/orders/" + m.order(r));
+            case "order.byCustomer" -> (r, m) -> m.get("/api/orders/customer/" + m.customer(r));
+            // Only the work-queue statuses; listing every shipped order is a report, not traffic
+            case "order.byStatus" -> (r, m) -> m.get("/api/orders/status/"
+                    + m.pickOf(r, Dataset.STATUSES.subList(1, Dataset.STATUSES.size())));
+            case "orderDetail.byOrder" -> (r, m) -> m.get("/api/orderdetails/order/" + m.order(r));
+            case "orderDetail.byProduct" -> (r, m) -> m.get("/api/orderdetails/product/" + Dataset.productCode(m.product(r)));
+            case "payment.byCustomer" -> (r, m) -> m.get("/api/payments/customer/" + m.customer(r));
+            case "order.add" -> (r, m) -> m.post("/api/orders/add", """
+                    {"orderdate":"%s","requireddate":"%s","status":"In Process","customernumber":%d}"""
+                    .formatted(LocalDate.of(2005, 6, 1), LocalDate.of(2005, 6, 8), m.customer(r)));
+            case "orderDetail.add" -> (r, m) -> m.post("/api/orderdetails/add", """
+                    {"orderNumber":%d,"productCode":"%s","quantityOrdered":%d,"priceEach":%d.%02d,"orderLineNumber":%d}"""
+                    .formatted(m.order(r), Dataset.productCode(m.product(r)), 20 + r.nextInt(40),
+                            30 + r.nextInt(170), r.nextInt(100), 100 + r.nextInt(900)));
+            case "payment.add" -> (r, m) -> m.post("/api/payments/add", """
+                    {"customerNumber":%d,"checkNumber":"LT%s-%d","paymentDate":"%s","amount":%d.%02d}"""
+                    .formatted(m.customer(r), m.runTag, m.writes.incrementAndGet(), LocalDate.of(2005, 6, 1),
+                            1_000 + r.nextInt(100_000), r.nextInt(100)));
+            default -> throw new IllegalArgumentException("Unknown operation " + name);
+        };
+    }
+
+    private long product(SplittableRandom random) {
+        return Dataset.pick(random, data.products(), skew);
+    }
+
+    private long customer(SplittableRandom random) {
+        return Dataset.pick(random, data.customers(), skew);
+    }
+
+    private long order(SplittableRandom random) {
+        return Dataset.pick(random, data.orders(), skew);
+    }
+
+    private String pickOf(SplittableRandom random, List<String> values) {
+        return URLEncoder.encode(values.get(random.nextInt(values.size())), StandardCharsets.UTF_8).replace("+", "%20");
+    }
+
+    private HttpRequest get(String path) {
+        return request("GET", path, null);
+    }
+
+    private HttpRequest post(String path, String body) {
+        return request("POST", path, body);
+    }
+
+    private HttpRequest request(String method, String path, String body) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(base.resolve(path)).timeout(REQUEST_TIMEOUT);
+        if (body == null) {
+            return builder.method(method, HttpRequest.BodyPublishers.noBody()).build();
+        }
+        return builder.header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofString(body)).build();
+    }
+}
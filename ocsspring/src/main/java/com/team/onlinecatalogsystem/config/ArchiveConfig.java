@@ -0,0 +1,29 @@
+package com.team.onlinecatalogsystem.config;
+
+import com.team.onlinecatalogsystem.service.ChangeRecorder;
+import com.team.onlinecatalogsystem.service.OrderArchiver;
+import com.team.onlinecatalogsystem.service.OrderStatusCounters;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Moves old shipped orders to the archive tables (V11); reads fall back to them either way
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties(ArchiveProperties.class)
+@ConditionalOnProperty(prefix = "ocs.archive", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ArchiveConfig {
+
+    @Bean
+    public OrderArchiver orderArchiver(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                       ArchiveProperties properties, OrderStatusCounters statusCounters,
+                                       ChangeRecorder changeRecorder) {
+        return new OrderArchiver(jdbcTemplate, new TransactionTemplate(transactionManager), properties, statusCounters,
+                changeRecorder);
+    }
+}
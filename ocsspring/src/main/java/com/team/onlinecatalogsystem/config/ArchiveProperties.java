@@ -0,0 +1,26 @@
+package com.team.onlinecatalogsystem.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.time.Period;
+
+@Data
+@ConfigurationProperties(prefix = "ocs.archive")
+public class ArchiveProperties {
+    private boolean enabled = true;
+
+    // Shipped orders dated before this long ago are archived, with their lines
+    private Period olderThan = Period.ofYears(2);
+
+    // Payments dated before the same cutoff go too; they aren't tied to an order
+    private boolean includePayments = true;
+
+    // Orders (or payments) moved per transaction, and the pause between transactions
+    private int batchSize = 500;
+    private Duration pause = Duration.ofMillis(250);
+
+    // A run stops after this long and the next run carries on
+    private Duration maxRunTime = Duration.ofMinutes(10);
+}
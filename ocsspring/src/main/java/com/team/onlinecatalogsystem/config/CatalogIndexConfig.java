@@ -0,0 +1,41 @@
+package com.team.onlinecatalogsystem.config;
+
+import com.team.onlinecatalogsystem.repository.ProductRepository;
+import com.team.onlinecatalogsystem.service.ProductCatalog;
+import com.team.onlinecatalogsystem.service.ProductFacetIndex;
+import com.team.onlinecatalogsystem.service.ProductIndex;
+import com.team.onlinecatalogsystem.service.ProductPriceIndex;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// The products held in memory, and the indexes over them that serve catalog queries without SQL
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties(CatalogIndexProperties.class)
+@ConditionalOnProperty(prefix = "ocs.catalog-index", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class CatalogIndexConfig {
+
+    @Bean
+    public ProductCatalog productCatalog(ProductRepository productRepository, PlatformTransactionManager transactionManager,
+                                         ObjectProvider<ProductIndex> indexes) {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        return new ProductCatalog(productRepository, readOnly, indexes);
+    }
+
+    @Bean
+    public ProductFacetIndex productFacetIndex(ProductCatalog productCatalog, CatalogIndexProperties properties) {
+        return new ProductFacetIndex(productCatalog, properties.getFacets());
+    }
+
+    @Bean
+    public ProductPriceIndex productPriceIndex(ProductCatalog productCatalog) {
+        return new ProductPriceIndex(productCatalog);
+    }
+}
@@ -0,0 +1,28 @@
+package com.team.onlinecatalogsystem.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "ocs.catalog-index")
+public class CatalogIndexProperties {
+    private boolean enabled = true;
+
+    // Full reload from products, picking up writes made through other instances or SQL
+    private Duration reloadInterval = Duration.ofMinutes(10);
+
+    private Facets facets = new Facets();
+
+    @Data
+    public static class Facets {
+        // Band edges for msrp and quantityInStock; each band includes its lower edge
+        private List<BigDecimal> priceBands = new ArrayList<>(List.of(new BigDecimal("25"), new BigDecimal("50"),
+                new BigDecimal("100"), new BigDecimal("200")));
+        private List<Integer> stockBands = new ArrayList<>(List.of(1, 100, 1000));
+    }
+}
@@ -0,0 +1,41 @@
+package com.team.onlinecatalogsystem.config;
+
+import com.team.onlinecatalogsystem.service.ChangeFeedServiceI;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Instant;
+
+// Applies ocs.changes.retention to the change log
+@Slf4j
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties(ChangeFeedProperties.class)
+public class ChangeFeedConfig {
+    private final ChangeFeedServiceI changeFeedService;
+    private final ChangeFeedProperties properties;
+
+    public ChangeFeedConfig(ChangeFeedServiceI changeFeedService, ChangeFeedProperties properties) {
+        this.changeFeedService = changeFeedService;
+        this.properties = properties;
+    }
+
+    // Each batch is its own transaction; stop at the first short one
+    @Scheduled(initialDelayString = "${ocs.changes.purge-interval:1h}", fixedDelayString = "${ocs.changes.purge-interval:1h}", scheduler = SchedulingConfig.BACKGROUND)
+    public void purgeExpiredChanges() {
+        Instant cutoff = Instant.now().minus(properties.getRetention());
+        int batchSize = Math.max(1, properties.getPurgeBatchSize());
+        long purged = 0;
+        int deleted;
+        do {
+            deleted = changeFeedService.purgeChangesBefore(cutoff, batchSize);
+            purged += deleted;
+        } while (deleted == batchSize);
+        if (purged > 0) {
+            log.info("Purged {} changes older than {}", purged, cutoff);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.team.onlinecatalogsystem.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "ocs.changes")
+public class ChangeFeedProperties {
+    // How long changes stay in the log; clients further behind are told to resync
+    private Duration retention = Duration.ofDays(7);
+
+    // Expired changes are deleted in batches of this size so the purge never holds long locks
+    private int purgeBatchSize = 10_000;
+
+    // Raw changes read per page when the client gives no limit, and the most it may ask for
+    private int defaultBatchSize = 500;
+    private int maxBatchSize = 5_000;
+}
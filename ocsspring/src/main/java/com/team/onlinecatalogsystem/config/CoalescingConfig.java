@@ -0,0 +1,20 @@
+package com.team.onlinecatalogsystem.config;
+
+import com.team.onlinecatalogsystem.service.CoalescingAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(CoalescingProperties.class)
+@ConditionalOnProperty(prefix = "ocs.coalescing", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class CoalescingConfig {
+
+    @Bean
+    public CoalescingAspect coalescingAspect(CoalescingProperties properties, ObjectProvider<MeterRegistry> meterRegistry) {
+        return new CoalescingAspect(properties.getMaxWait(), meterRegistry);
+    }
+}
@@ -0,0 +1,16 @@
+package com.team.onlinecatalogsystem.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "ocs.coalescing")
+public class CoalescingProperties {
+    // Share one execution between concurrent identical @Coalesced reads
+    private boolean enabled = true;
+
+    // How long a caller waits on another's in-flight read before running it itself
+    private Duration maxWait = Duration.ofSeconds(2);
+}
@@ -0,0 +1,57 @@
+package com.team.onlinecatalogsystem.config;
+
+import com.team.onlinecatalogsystem.web.CompressedResponseCache;
+import com.team.onlinecatalogsystem.web.CompressionMetrics;
+import com.team.onlinecatalogsystem.web.ResponseCompressionFilter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.servlet.DispatcherType;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+@Configuration
+@EnableConfigurationProperties(CompressionProperties.class)
+@ConditionalOnProperty(prefix = "ocs.compression", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class CompressionConfig {
+
+    @Bean
+    @ConditionalOnProperty(prefix = "ocs.compression.cache", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public CompressedResponseCache compressedResponseCache(CompressionProperties properties) {
+        CompressionProperties.Cache cache = properties.getCache();
+        return new CompressedResponseCache(cache.getPaths(), cache.getTtl().toNanos(),
+                cache.getMaxEntrySize().toBytes(), cache.getMaxSize().toBytes());
+    }
+
+    // Outermost on /api/*, so cache hits skip everything behind it and compression sees the final body
+    @Bean
+    public FilterRegistrationBean<ResponseCompressionFilter> responseCompressionFilter(CompressionProperties properties,
+                                                                                       ObjectProvider<CompressedResponseCache> cache,
+                                                                                       ObjectProvider<MeterRegistry> meterRegistry) {
+        FilterRegistrationBean<ResponseCompressionFilter> registration = new FilterRegistrationBean<>(
+                new ResponseCompressionFilter(properties, cache.getIfAvailable(), new CompressionMetrics(meterRegistry)));
+        registration.addUrlPatterns("/api/*");
+        registration.setDispatcherTypes(DispatcherType.REQUEST, DispatcherType.ASYNC);
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 100);
+        return registration;
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "ocs.compression.cache", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public MeterBinder compressedResponseCacheMetrics(CompressedResponseCache cache) {
+        return registry -> {
+            Gauge.builder("ocs.http.response.cache.entries", cache, CompressedResponseCache::entryCount)
+                    .description("Responses held in the compressed response cache")
+                    .register(registry);
+            Gauge.builder("ocs.http.response.cache.size", cache, CompressedResponseCache::sizeInBytes)
+                    .description("Raw and compressed bytes held in the compressed response cache")
+                    .baseUnit("bytes")
+                    .register(registry);
+        };
+    }
+}
@@ -0,0 +1,48 @@
+package com.team.onlinecatalogsystem.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "ocs.compression")
+public class CompressionProperties {
+    private boolean enabled = true;
+
+    // Bodies smaller than this go out uncompressed; the headers would eat most of the saving
+    private DataSize minResponseSize = DataSize.ofKilobytes(2);
+
+    // Encodings offered, in server preference order, when the client accepts more than one
+    private List<String> encodings = new ArrayList<>(List.of("gzip", "deflate"));
+
+    // Deflater level, 1 (fastest) to 9 (smallest)
+    private int level = 6;
+
+    private List<String> mimeTypes = new ArrayList<>(List.of("application/json", "application/cbor",
+            "application/x-jackson-smile", "text/csv", "text/plain"));
+
+    private Cache cache = new Cache();
+
+    @Data
+    public static class Cache {
+        private boolean enabled = true;
+
+        // GET endpoints under these prefixes are cached with their compressed variants
+        private List<String> paths = new ArrayList<>(List.of("/api/products", "/api/productlines", "/api/customers"));
+
+        // POST endpoints that only read, so they don't evict their resource like other writes
+        private List<String> readOnlyPosts = new ArrayList<>(List.of("/api/products/lookup", "/api/customers/lookup"));
+
+        // Bounds staleness from writes made through other instances and from periodic index
+        // rebuilds; local writes evict on commit
+        private Duration ttl = Duration.ofSeconds(10);
+
+        private DataSize maxEntrySize = DataSize.ofMegabytes(8);
+
+        private DataSize maxSize = DataSize.ofMegabytes(64);
+    }
+}
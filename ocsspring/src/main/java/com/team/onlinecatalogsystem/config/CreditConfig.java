@@ -0,0 +1,22 @@
+package com.team.onlinecatalogsystem.config;
+
+import com.team.onlinecatalogsystem.service.CreditExposureTracker;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Per-customer credit exposure in memory, checked when an order is placed or a line added to one
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties(CreditProperties.class)
+@ConditionalOnProperty(prefix = "ocs.credit", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class CreditConfig {
+
+    @Bean
+    public CreditExposureTracker creditExposureTracker(JdbcTemplate jdbcTemplate) {
+        return new CreditExposureTracker(jdbcTemplate);
+    }
+}
@@ -0,0 +1,16 @@
+package com.team.onlinecatalogsystem.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "ocs.credit")
+public class CreditProperties {
+    // New orders are refused for customers who owe more than their credit limit
+    private boolean enabled = true;
+
+    // Recounts every customer's exposure from the tables, picking up writes made outside this instance
+    private Duration reconcileInterval = Duration.ofMinutes(5);
+}
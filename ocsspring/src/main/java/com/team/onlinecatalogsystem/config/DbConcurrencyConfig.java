@@ -0,0 +1,30 @@
+package com.team.onlinecatalogsystem.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+@Configuration
+@EnableConfigurationProperties(DbConcurrencyProperties.class)
+public class DbConcurrencyConfig {
+
+    // Wraps the auto-configured pool so every connection checkout goes through the limiter
+    @Bean
+    @ConditionalOnProperty(prefix = "ocs.db-concurrency", name = "enabled", havingValue = "true")
+    public static BeanPostProcessor concurrencyLimitingDataSourcePostProcessor(ObjectProvider<DbConcurrencyProperties> properties) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ConcurrencyLimitingDataSource)) {
+                    return new ConcurrencyLimitingDataSource(dataSource, properties.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+}
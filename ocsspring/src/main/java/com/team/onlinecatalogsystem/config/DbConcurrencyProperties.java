@@ -0,0 +1,25 @@
+package com.team.onlinecatalogsystem.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "ocs.db-concurrency")
+public class DbConcurrencyProperties {
+    // Off by default; turned on together with virtual threads, where request concurrency is no longer capped by Tomcat
+    private boolean enabled = false;
+
+    // Connections handed out at once; keep at or below the Hikari maximum-pool-size
+    private int maxConcurrent = 10;
+
+    // Callers allowed to queue for a permit before new ones are rejected outright
+    private int maxQueued = 200;
+
+    // How long a queued caller waits for a permit before being rejected
+    private Duration acquireTimeout = Duration.ofSeconds(2);
+
+    // Value of the Retry-After header sent with the 503 when a caller is rejected
+    private Duration retryAfter = Duration.ofSeconds(1);
+}
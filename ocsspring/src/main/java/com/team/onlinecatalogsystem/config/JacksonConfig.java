@@ -0,0 +1,84 @@
+package com.team.onlinecatalogsystem.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.List;
+
+@Configuration
+public class JacksonConfig implements WebMvcConfigurer {
+
+    // Generated accessors instead of reflection for the model getters; the JSON itself is unchanged
+    @Bean
+    public BlackbirdModule blackbirdModule() {
+        return new BlackbirdModule();
+    }
+
+    // Accept: application/cbor on list endpoints. JSON stays first in the converter list, so
+    // browsers and */* clients keep getting the same JSON as before.
+    @Bean
+    @ConditionalOnProperty(prefix = "ocs.binary-encoding", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build()) {
+            @Override
+            public boolean canRead(Class<?> clazz, MediaType mediaType) {
+                return false;
+            }
+
+            @Override
+            public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+                return false;
+            }
+
+            @Override
+            public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+                return Collection.class.isAssignableFrom(clazz) && super.canWrite(clazz, mediaType);
+            }
+        };
+    }
+
+    // Accept: application/x-jackson-smile on list endpoints. Shared string values back-reference
+    // the product lines, vendors and statuses repeated on every row.
+    @Bean
+    @ConditionalOnProperty(prefix = "ocs.binary-encoding", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        SmileFactory factory = SmileFactory.builder().enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES).build();
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(factory).build()) {
+            @Override
+            public boolean canRead(Class<?> clazz, MediaType mediaType) {
+                return false;
+            }
+
+            @Override
+            public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+                return false;
+            }
+
+            @Override
+            public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+                return Collection.class.isAssignableFrom(clazz) && super.canWrite(clazz, mediaType);
+            }
+        };
+    }
+
+    // Spring MVC registers stock CBOR and Smile converters whenever the formats are on the classpath;
+    // drop them so binary output is limited to the collection-only converters above
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.removeIf(converter -> converter.getClass() == MappingJackson2CborHttpMessageConverter.class
+                || converter.getClass() == MappingJackson2SmileHttpMessageConverter.class);
+    }
+}
@@ -0,0 +1,79 @@
+package com.team.onlinecatalogsystem.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.team.onlinecatalogsystem.service.ChangeRecorder;
+import com.team.onlinecatalogsystem.service.ChangedFieldsListener;
+import com.team.onlinecatalogsystem.web.LiveUpdateHub;
+import com.team.onlinecatalogsystem.web.LiveUpdateWebSocketHandler;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.hibernate.jpa.boot.spi.JpaSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+import java.util.List;
+
+// Pushes committed changes to dashboards over a WebSocket instead of having them poll
+@Configuration
+@EnableWebSocket
+@EnableScheduling
+@EnableConfigurationProperties(LiveUpdateProperties.class)
+@ConditionalOnProperty(prefix = "ocs.live-updates", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class LiveUpdateConfig implements WebSocketConfigurer {
+    private final LiveUpdateProperties properties;
+    private final ObjectProvider<LiveUpdateHub> hub;
+    private final ObjectMapper objectMapper;
+
+    public LiveUpdateConfig(LiveUpdateProperties properties, ObjectProvider<LiveUpdateHub> hub, ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.hub = hub;
+        this.objectMapper = objectMapper;
+    }
+
+    @Bean
+    public LiveUpdateHub liveUpdateHub(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new LiveUpdateHub(objectMapper, new LiveUpdateHub.Settings(properties.getMaxChangesPerMessage(),
+                properties.getMaxPending(), properties.getMaxSessions(), (int) properties.getSendTimeLimit().toMillis(),
+                (int) properties.getSendBufferSize().toBytes(), properties.isIncludeFields()), meterRegistry);
+    }
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(new LiveUpdateWebSocketHandler(hub.getObject(), objectMapper), properties.getPath())
+                .setAllowedOrigins(properties.getAllowedOrigins().toArray(String[]::new));
+    }
+
+    // Changed field names come from Hibernate's dirty checking as updates flush
+    @Bean
+    public HibernatePropertiesCustomizer changedFieldsIntegrator(ChangeRecorder changeRecorder) {
+        ChangedFieldsListener listener = new ChangedFieldsListener(changeRecorder);
+        return hibernateProperties -> {
+            if (properties.isIncludeFields()) {
+                hibernateProperties.put(JpaSettings.INTEGRATOR_PROVIDER, (IntegratorProvider) () -> List.<Integrator>of(listener));
+            }
+        };
+    }
+
+    @Bean
+    public MeterBinder liveUpdateMetrics(LiveUpdateHub liveUpdateHub) {
+        return registry -> {
+            Gauge.builder("ocs.live.sessions", liveUpdateHub, LiveUpdateHub::sessionCount)
+                    .description("Open live update WebSocket sessions")
+                    .register(registry);
+            Gauge.builder("ocs.live.pending", liveUpdateHub, LiveUpdateHub::pendingCount)
+                    .description("Committed changes waiting for the next flush")
+                    .register(registry);
+        };
+    }
+}
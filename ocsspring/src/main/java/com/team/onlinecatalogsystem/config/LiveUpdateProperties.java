@@ -0,0 +1,40 @@
+package com.team.onlinecatalogsystem.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "ocs.live-updates")
+public class LiveUpdateProperties {
+    // Push committed changes to subscribed WebSocket clients
+    private boolean enabled = true;
+
+    private String path = "/ws/changes";
+
+    // Origins allowed to open the socket; empty allows the same origin only
+    private List<String> allowedOrigins = new ArrayList<>();
+
+    // Changes committed within one interval go out as one message per client
+    private Duration flushInterval = Duration.ofMillis(250);
+
+    // Larger flushes, and changes queued beyond max-pending, reach clients as a resync instead
+    private int maxChangesPerMessage = 1_000;
+    private int maxPending = 100_000;
+
+    private int maxSessions = 10_000;
+
+    // A client that can't take a message within the time limit, or falls this far behind, is disconnected
+    private Duration sendTimeLimit = Duration.ofSeconds(5);
+    private DataSize sendBufferSize = DataSize.ofKilobytes(512);
+
+    // Keeps idle connections open through proxies and finds dead ones
+    private Duration pingInterval = Duration.ofSeconds(25);
+
+    // Name the properties each update changed
+    private boolean includeFields = true;
+}
@@ -0,0 +1,9 @@
+package com.team.onlinecatalogsystem.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(OrderQueueProperties.class)
+public class OrderQueueConfig {
+}
@@ -0,0 +1,16 @@
+package com.team.onlinecatalogsystem.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "ocs.orders")
+public class OrderQueueProperties {
+    // How long a claimed order stays with its worker before others may claim it again
+    private Duration claimLease = Duration.ofMinutes(5);
+
+    // Most orders one claim call returns
+    private int maxClaim = 100;
+}
@@ -0,0 +1,31 @@
+package com.team.onlinecatalogsystem.config;
+
+import com.team.onlinecatalogsystem.service.PartitionMaintenance;
+import com.team.onlinecatalogsystem.web.PartitionEndpoint;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Yearly partitions of orders, orderdetails and payments (V10): created ahead, detached when old
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties(PartitionProperties.class)
+@ConditionalOnProperty(prefix = "ocs.partitions", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class PartitionConfig {
+
+    @Bean
+    public PartitionMaintenance partitionMaintenance(JdbcTemplate jdbcTemplate, PartitionProperties properties,
+                                                     PlatformTransactionManager transactionManager) {
+        return new PartitionMaintenance(jdbcTemplate, properties, new TransactionTemplate(transactionManager));
+    }
+
+    @Bean
+    public PartitionEndpoint partitionEndpoint(PartitionMaintenance partitionMaintenance) {
+        return new PartitionEndpoint(partitionMaintenance);
+    }
+}
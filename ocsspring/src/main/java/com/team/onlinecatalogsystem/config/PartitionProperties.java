@@ -0,0 +1,20 @@
+package com.team.onlinecatalogsystem.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "ocs.partitions")
+public class PartitionProperties {
+    private boolean enabled = true;
+
+    // Years after the current one that always have their partitions in place
+    private int yearsAhead = 2;
+
+    // Years that ended more than this many years ago are detached; 0 leaves them all attached
+    private int detachAfterYears = 0;
+
+    private Duration maintenanceInterval = Duration.ofHours(12);
+}
@@ -0,0 +1,85 @@
+package com.team.onlinecatalogsystem.config;
+
+import com.team.onlinecatalogsystem.web.Bulkheads;
+import com.team.onlinecatalogsystem.web.ClientRateLimiter;
+import com.team.onlinecatalogsystem.web.RateLimitEndpoint;
+import com.team.onlinecatalogsystem.web.ThrottlingFilter;
+import com.team.onlinecatalogsystem.web.TrustedProxies;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Configuration
+@EnableConfigurationProperties(RateLimitProperties.class)
+@ConditionalOnProperty(prefix = "ocs.rate-limit", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class RateLimitConfig {
+
+    @Bean
+    public ClientRateLimiter clientRateLimiter(RateLimitProperties properties) {
+        RateLimitProperties.Limit defaults = properties.getDefaultLimit();
+        Map<String, ClientRateLimiter.Rate> clientRates = new LinkedHashMap<>();
+        properties.getClients().forEach((name, client) ->
+                clientRates.put(name, ClientRateLimiter.Rate.of(client.getRate(), client.getBurst())));
+        return new ClientRateLimiter(ClientRateLimiter.Rate.of(defaults.getRate(), defaults.getBurst()), clientRates,
+                properties.getMaxTrackedClients());
+    }
+
+    @Bean
+    public Bulkheads bulkheads(RateLimitProperties properties) {
+        Bulkheads bulkheads = new Bulkheads(properties.getBulkheads());
+        for (RateLimitProperties.Route route : properties.getRoutes()) {
+            bulkheads.addRoute(route.getGroup(), route.getMethods(), route.getPaths());
+        }
+        return bulkheads;
+    }
+
+    // Ahead of compression and its cache, so cached responses still count against the client
+    @Bean
+    public FilterRegistrationBean<ThrottlingFilter> throttlingFilter(RateLimitProperties properties,
+                                                                     ClientRateLimiter rateLimiter, Bulkheads bulkheads,
+                                                                     ObjectProvider<MeterRegistry> meterRegistry) {
+        Map<String, String> clientsByApiKey = new LinkedHashMap<>();
+        properties.getClients().forEach((name, client) -> clientsByApiKey.put(client.getApiKey(), name));
+        FilterRegistrationBean<ThrottlingFilter> registration = new FilterRegistrationBean<>(new ThrottlingFilter(
+                rateLimiter, bulkheads, clientsByApiKey, properties.getApiKeyHeader(), properties.getClientIpHeader(),
+                TrustedProxies.of(properties.getTrustedProxies()), properties.getBulkheadRetryAfter().toSeconds(),
+                meterRegistry));
+        registration.addUrlPatterns("/api/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 50);
+        return registration;
+    }
+
+    @Bean
+    public RateLimitEndpoint rateLimitEndpoint(ClientRateLimiter rateLimiter, Bulkheads bulkheads) {
+        return new RateLimitEndpoint(rateLimiter, bulkheads);
+    }
+
+    @Bean
+    public MeterBinder throttlingMetrics(ClientRateLimiter rateLimiter, Bulkheads bulkheads) {
+        return registry -> {
+            Gauge.builder("ocs.http.ratelimit.clients", rateLimiter, ClientRateLimiter::trackedClients)
+                    .description("Client buckets tracked by the rate limiter")
+                    .register(registry);
+            for (Bulkheads.Bulkhead bulkhead : bulkheads.all()) {
+                Gauge.builder("ocs.http.bulkhead.in.flight", bulkhead, Bulkheads.Bulkhead::inFlight)
+                        .description("Requests currently admitted to the endpoint group")
+                        .tag("group", bulkhead.group())
+                        .register(registry);
+                Gauge.builder("ocs.http.bulkhead.limit", bulkhead, Bulkheads.Bulkhead::maxConcurrent)
+                        .description("Concurrent requests allowed in the endpoint group")
+                        .tag("group", bulkhead.group())
+                        .register(registry);
+            }
+        };
+    }
+}
@@ -0,0 +1,80 @@
+package com.team.onlinecatalogsystem.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Startup values only; the ratelimits actuator endpoint changes limits at runtime
+@Data
+@ConfigurationProperties(prefix = "ocs.rate-limit")
+public class RateLimitProperties {
+    private boolean enabled = true;
+
+    // Requests carrying a configured client's key are limited per client, everything else per IP
+    private String apiKeyHeader = "X-API-Key";
+
+    // Header holding the caller's address when behind a proxy, e.g. X-Real-IP from nginx; unset uses the socket address
+    private String clientIpHeader;
+
+    // Proxies whose client IP header is believed, as IP addresses or CIDR blocks; requests from
+    // anywhere else are limited by their socket address whatever the header says
+    private List<String> trustedProxies = new ArrayList<>();
+
+    // Applied to each IP address, and to any client without its own limit
+    private Limit defaultLimit = new Limit(50, 100);
+
+    // Named API clients, e.g. partner-a: {api-key: ..., rate: 200, burst: 400}
+    private Map<String, Client> clients = new LinkedHashMap<>();
+
+    // Buckets tracked at once; full buckets are dropped first, which loses nothing
+    private int maxTrackedClients = 100_000;
+
+    // Concurrent requests per endpoint group; groups are assigned by the routes below
+    private Map<String, Integer> bulkheads = new LinkedHashMap<>();
+
+    // First match wins; requests matching no route are not bulkheaded
+    private List<Route> routes = new ArrayList<>();
+
+    // Retry-After sent with the 503 when a group is full
+    private Duration bulkheadRetryAfter = Duration.ofSeconds(1);
+
+    @Data
+    public static class Limit {
+        // Sustained requests per second
+        private double rate;
+
+        // Requests allowed back to back after a quiet spell
+        private int burst;
+
+        public Limit() {
+        }
+
+        public Limit(double rate, int burst) {
+            this.rate = rate;
+            this.burst = burst;
+        }
+    }
+
+    @Data
+    public static class Client {
+        private String apiKey;
+        private double rate;
+        private int burst;
+    }
+
+    @Data
+    public static class Route {
+        private String group;
+
+        // Any method when empty
+        private List<String> methods = new ArrayList<>();
+
+        // Spring path patterns, e.g. /api/orders/**
+        private List<String> paths = new ArrayList<>();
+    }
+}
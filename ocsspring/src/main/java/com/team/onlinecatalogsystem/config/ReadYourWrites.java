@@ -0,0 +1,91 @@
+package com.team.onlinecatalogsystem.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Keeps a client on the primary for a short while after it writes, so it never reads a replica
+ * that has not caught up with its own change. The deadline travels in a cookie; requests carrying
+ * an unexpired one are pinned to the primary for their whole duration.
+ */
+public class ReadYourWrites extends OncePerRequestFilter {
+    static final String COOKIE = "ocs-primary-until";
+    private static final ThreadLocal<Boolean> PINNED = new ThreadLocal<>();
+    private static final Object WRITE_REGISTERED = new Object();
+
+    private final Duration stickiness;
+
+    public ReadYourWrites(Duration stickiness) {
+        this.stickiness = stickiness;
+    }
+
+    public static boolean isPinnedToPrimary() {
+        return Boolean.TRUE.equals(PINNED.get());
+    }
+
+    // Called for each read-write transaction; pins the client once that transaction commits
+    void registerWrite() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(WRITE_REGISTERED)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(WRITE_REGISTERED, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                PINNED.set(Boolean.TRUE);
+                if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes
+                        && attributes.getResponse() != null) {
+                    Cookie cookie = new Cookie(COOKIE, String.valueOf(System.currentTimeMillis() + stickiness.toMillis()));
+                    cookie.setPath("/");
+                    cookie.setHttpOnly(true);
+                    cookie.setMaxAge((int) Math.max(1, stickiness.toSeconds()));
+                    attributes.getResponse().addCookie(cookie);
+                }
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(WRITE_REGISTERED);
+            }
+        });
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        PINNED.set(pinnedByCookie(request));
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            PINNED.remove();
+        }
+    }
+
+    private boolean pinnedByCookie(HttpServletRequest request) {
+        if (request.getCookies() == null) {
+            return false;
+        }
+        for (Cookie cookie : request.getCookies()) {
+            if (COOKIE.equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue()) > System.currentTimeMillis();
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,27 @@
+package com.team.onlinecatalogsystem.config;
+
+import com.team.onlinecatalogsystem.service.CoPurchaseIndex;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// "Frequently bought together": product pairs counted over orders, served from memory
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties(RecommendationProperties.class)
+@ConditionalOnProperty(prefix = "ocs.recommendations", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class RecommendationConfig {
+
+    @Bean(destroyMethod = "saveSnapshot")
+    public CoPurchaseIndex coPurchaseIndex(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                           RecommendationProperties properties) {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        return new CoPurchaseIndex(jdbcTemplate, readOnly, properties);
+    }
+}
@@ -0,0 +1,33 @@
+package com.team.onlinecatalogsystem.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "ocs.recommendations")
+public class RecommendationProperties {
+    private boolean enabled = true;
+
+    // Products kept per product after a rebuild, most often bought together first
+    private int maxRelated = 100;
+
+    // Orders with more distinct products than this say little about pairs and are left out
+    private int maxBasketSize = 100;
+
+    // Fewer shared orders than this and a pair isn't recommended
+    private int minOrders = 1;
+
+    // The matrix is rebuilt from orderdetails (and the archive) once it's this old
+    private Duration rebuildInterval = Duration.ofHours(6);
+
+    // Where the matrix is saved, so a restart loads it instead of rebuilding; written when changed.
+    // Its directory is a volume in the image, so the file outlives the container
+    private Path snapshotFile = Path.of("data", "recommendations", "co-purchases.bin");
+    private Duration snapshotInterval = Duration.ofMinutes(10);
+
+    // How often the rebuild and snapshot schedules above are checked
+    private Duration maintenanceInterval = Duration.ofMinutes(1);
+}
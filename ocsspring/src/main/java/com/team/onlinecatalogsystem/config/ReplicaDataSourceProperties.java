@@ -0,0 +1,26 @@
+package com.team.onlinecatalogsystem.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "ocs.datasource.replica")
+public class ReplicaDataSourceProperties {
+    // When off, everything runs on spring.datasource as before
+    private boolean enabled = false;
+
+    private String url;
+    private String username;
+    private String password;
+
+    // Read-only transactions fall back to the primary while the replica is further behind than this
+    private Duration maxLag = Duration.ofSeconds(5);
+
+    // How often replica lag is sampled
+    private Duration lagCheckInterval = Duration.ofSeconds(5);
+
+    // How long a client keeps reading from the primary after one of its writes commits
+    private Duration stickiness = Duration.ofSeconds(5);
+}
@@ -0,0 +1,55 @@
+package com.team.onlinecatalogsystem.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+
+/**
+ * Samples how far the replica is behind the primary. Until the first successful sample, and
+ * whenever the replica is unreachable or too far behind, it is reported as unusable.
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+    // Replay lag in milliseconds; 0 when the replica has nothing left to replay
+    private static final String LAG_QUERY = "SELECT CASE WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 "
+            + "ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0) END";
+
+    private final DataSource replicaDataSource;
+    private final JdbcTemplate replica;
+    private final ReplicaDataSourceProperties properties;
+    private volatile long lagMillis = -1;
+    private volatile boolean usable;
+
+    public ReplicaLagMonitor(DataSource replica, ReplicaDataSourceProperties properties) {
+        this.replicaDataSource = replica;
+        this.replica = new JdbcTemplate(replica);
+        this.properties = properties;
+    }
+
+    @Scheduled(fixedDelayString = "${ocs.datasource.replica.lag-check-interval:5s}")
+    public void sample() {
+        try {
+            Double lag = replica.queryForObject(LAG_QUERY, Double.class);
+            lagMillis = lag == null ? 0 : lag.longValue();
+            usable = lagMillis <= properties.getMaxLag().toMillis();
+        } catch (RuntimeException e) {
+            log.warn("Replica lag check failed, routing reads to primary: {}", e.getMessage());
+            lagMillis = -1;
+            usable = false;
+        }
+    }
+
+    public boolean isReplicaUsable() {
+        return usable;
+    }
+
+    public long getLagMillis() {
+        return lagMillis;
+    }
+
+    public DataSource getDataSource() {
+        return replicaDataSource;
+    }
+}
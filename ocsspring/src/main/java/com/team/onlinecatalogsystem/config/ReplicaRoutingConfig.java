@@ -0,0 +1,82 @@
+package com.team.onlinecatalogsystem.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+
+// Replaces the auto-configured DataSource with primary/replica routing when a replica is configured
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties(ReplicaDataSourceProperties.class)
+@ConditionalOnProperty(prefix = "ocs.datasource.replica", name = "enabled", havingValue = "true")
+public class ReplicaRoutingConfig {
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(ReplicaDataSourceProperties replicaProperties, Environment environment,
+                                               ObjectProvider<MeterRegistry> meterRegistry) {
+        HikariDataSource replica = replicaPool(replicaProperties, environment);
+        meterRegistry.ifAvailable(registry -> replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+        return new ReplicaLagMonitor(replica, replicaProperties);
+    }
+
+    @Bean
+    public ReadYourWrites readYourWrites(ReplicaDataSourceProperties replicaProperties) {
+        return new ReadYourWrites(replicaProperties.getStickiness());
+    }
+
+    // Only API requests touch the database
+    @Bean
+    public FilterRegistrationBean<ReadYourWrites> readYourWritesRegistration(ReadYourWrites readYourWrites) {
+        FilterRegistrationBean<ReadYourWrites> registration = new FilterRegistrationBean<>(readYourWrites);
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(DataSourceProperties primaryProperties, ReplicaDataSourceProperties replicaProperties,
+                                 ReplicaLagMonitor lagMonitor, ReadYourWrites readYourWrites, Environment environment,
+                                 ObjectProvider<MeterRegistry> meterRegistry) {
+        HikariDataSource primary = primaryProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        primary.setPoolName("primary");
+        // Both pools sit behind the router, where Boot's pool metrics cannot find them
+        meterRegistry.ifAvailable(registry -> primary.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary,
+                lagMonitor.getDataSource(), lagMonitor, readYourWrites);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing) {
+            public void close() throws IOException {
+                routing.close();
+            }
+        };
+    }
+
+    private static HikariDataSource replicaPool(ReplicaDataSourceProperties properties, Environment environment) {
+        HikariDataSource replica = new HikariDataSource();
+        replica.setJdbcUrl(properties.getUrl());
+        replica.setUsername(properties.getUsername());
+        replica.setPassword(properties.getPassword());
+        replica.setReadOnly(true);
+        Binder.get(environment).bind("ocs.datasource.replica.hikari", Bindable.ofInstance(replica));
+        replica.setPoolName("replica");
+        return replica;
+    }
+}
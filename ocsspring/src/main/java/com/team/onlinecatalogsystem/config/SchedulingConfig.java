@@ -0,0 +1,40 @@
+package com.team.onlinecatalogsystem.config;
+
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.task.SimpleAsyncTaskSchedulerBuilder;
+import org.springframework.boot.task.ThreadPoolTaskSchedulerBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Two schedulers for the {@code @Scheduled} jobs. The default one, sized by
+ * spring.task.scheduling.pool.size, runs the frequent quick ones: live update flushes and pings,
+ * replica lag samples. Jobs that can run for minutes name {@link #BACKGROUND} instead, so an
+ * archive run or a snapshot export never delays a flush, only other background jobs.
+ */
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties(SchedulingProperties.class)
+public class SchedulingConfig {
+    public static final String BACKGROUND = "backgroundScheduler";
+
+    // What Spring Boot builds when there's no other scheduler; @Scheduled finds it by this name
+    @Bean(name = "taskScheduler")
+    public TaskScheduler taskScheduler(ThreadPoolTaskSchedulerBuilder platformThreads,
+                                       SimpleAsyncTaskSchedulerBuilder virtualThreads, Environment environment) {
+        return Threading.VIRTUAL.isActive(environment) ? virtualThreads.build() : platformThreads.build();
+    }
+
+    @Bean(name = BACKGROUND)
+    public ThreadPoolTaskScheduler backgroundScheduler(SchedulingProperties properties) {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(Math.max(1, properties.getBackgroundPoolSize()));
+        scheduler.setThreadNamePrefix("ocs-background-");
+        return scheduler;
+    }
+}
@@ -0,0 +1,12 @@
+package com.team.onlinecatalogsystem.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "ocs.scheduling")
+public class SchedulingProperties {
+    // Threads for the long-running jobs (archiving, exports, rebuilds, reconciles, purges); more of
+    // them only matters when several come due together
+    private int backgroundPoolSize = 4;
+}
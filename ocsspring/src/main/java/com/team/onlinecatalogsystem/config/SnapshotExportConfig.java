@@ -0,0 +1,37 @@
+package com.team.onlinecatalogsystem.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.team.onlinecatalogsystem.service.SnapshotExporter;
+import com.team.onlinecatalogsystem.web.SnapshotEndpoint;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Parquet snapshots of orders, orderdetails and payments on local disk, for offline analytics
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties(SnapshotExportProperties.class)
+@ConditionalOnProperty(prefix = "ocs.snapshot-export", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class SnapshotExportConfig {
+
+    @Bean
+    public SnapshotExporter snapshotExporter(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                             SnapshotExportProperties properties, ObjectMapper objectMapper) {
+        // One snapshot for all three tables and the change log position; read-only, so a replica serves it
+        TransactionTemplate snapshot = new TransactionTemplate(transactionManager);
+        snapshot.setReadOnly(true);
+        snapshot.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        return new SnapshotExporter(jdbcTemplate, snapshot, properties, objectMapper);
+    }
+
+    @Bean
+    public SnapshotEndpoint snapshotEndpoint(SnapshotExporter snapshotExporter) {
+        return new SnapshotEndpoint(snapshotExporter);
+    }
+}
@@ -0,0 +1,35 @@
+package com.team.onlinecatalogsystem.config;
+
+import lombok.Data;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "ocs.snapshot-export")
+public class SnapshotExportProperties {
+    private boolean enabled = true;
+
+    // Each export is a directory here, holding one Parquet file per table and month
+    private Path directory = Path.of("data", "snapshots");
+
+    // Scheduled exports carry on from the last one; the first is a full export
+    private Duration interval = Duration.ofHours(1);
+
+    // A scheduled export is full once the newest full export is this old, so retention has one to keep
+    private Duration fullInterval = Duration.ofDays(1);
+
+    // Older exports are deleted, except the newest full one and those after it, which rebuild the current state
+    private Duration retention = Duration.ofDays(7);
+
+    private CompressionCodecName codec = CompressionCodecName.ZSTD;
+
+    // A file's rows are buffered in memory up to this size before a row group is written out
+    private DataSize rowGroupSize = DataSize.ofMegabytes(32);
+
+    // Rows the JDBC driver holds at a time while the export reads
+    private int fetchSize = 5000;
+}
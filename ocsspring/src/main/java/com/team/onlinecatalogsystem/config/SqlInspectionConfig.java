@@ -0,0 +1,49 @@
+package com.team.onlinecatalogsystem.config;
+
+import com.team.onlinecatalogsystem.metrics.SqlInspectionFilter;
+import com.team.onlinecatalogsystem.metrics.StatementInspectingDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+
+@Configuration
+@EnableConfigurationProperties(SqlInspectionProperties.class)
+@ConditionalOnProperty(prefix = "ocs.sql-inspection", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class SqlInspectionConfig implements WebMvcConfigurer {
+
+    @Bean
+    public static BeanPostProcessor statementInspectingDataSourcePostProcessor(ObjectProvider<SqlInspectionProperties> properties) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof StatementInspectingDataSource)) {
+                    return new StatementInspectingDataSource(dataSource, properties.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public FilterRegistrationBean<SqlInspectionFilter> sqlInspectionFilter(SqlInspectionProperties properties,
+                                                                           ObjectProvider<MeterRegistry> meterRegistry) {
+        FilterRegistrationBean<SqlInspectionFilter> registration =
+                new FilterRegistrationBean<>(new SqlInspectionFilter(properties, meterRegistry));
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new SqlInspectionFilter.HandlerNamingInterceptor()).addPathPatterns("/api/**");
+    }
+}
@@ -0,0 +1,24 @@
+package com.team.onlinecatalogsystem.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "ocs.sql-inspection")
+public class SqlInspectionProperties {
+    private boolean enabled = true;
+
+    // Requests issuing more statements than this are logged as likely N+1
+    private int queryBudget = 20;
+
+    // Statements slower than this are candidates for the slow-query log
+    private Duration slowQueryThreshold = Duration.ofMillis(200);
+
+    // Fraction of slow statements actually logged, 0.0 to 1.0
+    private double slowQuerySampleRate = 1.0;
+
+    // Adds X-SQL-* summary headers to API responses; meant for the dev profile only
+    private boolean exposeHeaders = false;
+}
@@ -0,0 +1,23 @@
+package com.team.onlinecatalogsystem.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationInitializer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+@Configuration
+@ConditionalOnProperty(prefix = "spring.main", name = "lazy-initialization", havingValue = "true")
+public class StartupConfig {
+
+    // Lazy init defers everything else to first use; these stay eager so migrations run before
+    // traffic arrives and the first request doesn't pay for the pool and the JPA metamodel
+    @Bean
+    static LazyInitializationExcludeFilter eagerPersistence() {
+        return LazyInitializationExcludeFilter.forBeanTypes(DataSource.class, EntityManagerFactory.class,
+                FlywayMigrationInitializer.class);
+    }
+}
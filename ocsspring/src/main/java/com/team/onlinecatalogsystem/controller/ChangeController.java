@@ -0,0 +1,44 @@
+package com.team.onlinecatalogsystem.controller;
+
+import com.team.onlinecatalogsystem.service.ChangeBatch;
+import com.team.onlinecatalogsystem.service.ChangeFeedServiceI;
+import com.team.onlinecatalogsystem.service.ChangeType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Incremental sync. A client with no cursor calls without {@code since}, loads the tables it
+ * needs, then polls {@code /api/changes?since=<cursor>} and applies each page. A 410 means the
+ * cursor fell out of retention and the client has to load the tables again.
+ */
+@RestController
+@RequestMapping("/api/changes")
+@RequiredArgsConstructor
+public class ChangeController {
+    private final ChangeFeedServiceI changeFeedService;
+
+    // e.g. /api/changes?since=1042&types=product,productline&limit=500; data=false leaves out the rows
+    @GetMapping
+    public ResponseEntity<ChangeBatch> getChanges(@RequestParam(required = false) Long since,
+                                                  @RequestParam(required = false) List<String> types,
+                                                  @RequestParam(required = false) Integer limit,
+                                                  @RequestParam(defaultValue = "true") boolean data) {
+        if (since != null && since < 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        Set<ChangeType> typeSet = EnumSet.noneOf(ChangeType.class);
+        try {
+            if (types != null) {
+                types.stream().filter(type -> !type.isBlank()).map(ChangeType::fromToken).forEach(typeSet::add);
+            }
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(changeFeedService.getChanges(since, typeSet, limit, data));
+    }
+}
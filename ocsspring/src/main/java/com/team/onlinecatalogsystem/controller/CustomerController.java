@@ -2,6 +2,7 @@ package com.team.onlinecatalogsystem.controller;
 
 import com.team.onlinecatalogsystem.model.Customer;
 import com.team.onlinecatalogsystem.service.CustomerServiceI;
+import com.team.onlinecatalogsystem.service.LookupResult;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -33,6 +34,15 @@ public class CustomerController {
         return customer.map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
     }
 
+    // Resolves many ids in one call: {"found": {id: customer}, "missing": [id]}
+    @PostMapping("/lookup")
+    public ResponseEntity<LookupResult<Long, Customer>> lookupCustomers(@RequestBody List<Long> ids) {
+        if (ids.size() > LookupResult.MAX_KEYS) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(customerService.lookupCustomersById(ids));
+    }
+
     @GetMapping("/city/{city}")
     public ResponseEntity<List<Customer>> getCustomersByCity(@PathVariable String city) {
         List<Customer> customerList = customerService.getCustomersByCity(city);
@@ -3,10 +3,13 @@ package com.team.onlinecatalogsystem.controller;
 import com.team.onlinecatalogsystem.model.Order;
 import com.team.onlinecatalogsystem.service.OrderServiceI;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import jakarta.validation.Valid;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
@@ -35,7 +38,7 @@ public class OrderController {
     }
 
     @GetMapping("/customer/{customernumber}")
-    public ResponseEntity<List<Order>> getOrdersByCustomerNumber(@PathVariable String customernumber) {
+    public ResponseEntity<List<Order>> getOrdersByCustomerNumber(@PathVariable Long customernumber) {
         List<Order> orderList = orderService.getOrdersByCustomerNumber(customernumber);
         return ResponseEntity.ok(orderList);
     }
@@ -46,6 +49,34 @@ public class OrderController {
         return ResponseEntity.ok(orderList);
     }
 
+    // Orders dated from..to inclusive, e.g. /api/orders/range?from=2004-01-01&to=2004-03-31; only the
+    // years in the range are read
+    @GetMapping("/range")
+    public ResponseEntity<List<Order>> getOrdersBetween(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        if (from.isAfter(to)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(orderService.getOrdersBetween(from, to));
+    }
+
+    // Orders per status, from in-memory counters rather than a count query
+    @GetMapping("/status-counts")
+    public ResponseEntity<Map<String, Long>> getStatusCounts() {
+        return ResponseEntity.ok(orderService.getStatusCounts());
+    }
+
+    // Leases up to limit of the oldest unclaimed orders in an open status to the worker; concurrent
+    // workers get disjoint batches. Moving an order to another status releases it.
+    @PostMapping("/status/{status}/claim")
+    public ResponseEntity<List<Order>> claimOrders(@PathVariable String status, @RequestParam String worker,
+                                                   @RequestParam(defaultValue = "10") int limit) {
+        if (worker.isBlank() || worker.length() > 64) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(orderService.claimOrders(status, worker, limit));
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<Order> updateOrder(@PathVariable Long id, @Valid @RequestBody Order order) {
         Order updatedOrder = orderService.updateOrder(id, order);
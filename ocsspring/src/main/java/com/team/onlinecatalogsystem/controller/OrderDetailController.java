@@ -3,9 +3,11 @@ package com.team.onlinecatalogsystem.controller;
 import com.team.onlinecatalogsystem.model.OrderDetail;
 import com.team.onlinecatalogsystem.service.OrderDetailServiceI;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import jakarta.validation.Valid;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
@@ -34,7 +36,7 @@ public class OrderDetailController {
     }
 
     @GetMapping("/order/{orderNumber}")
-    public ResponseEntity<List<OrderDetail>> getOrderDetailsByOrderNumber(@PathVariable String orderNumber) {
+    public ResponseEntity<List<OrderDetail>> getOrderDetailsByOrderNumber(@PathVariable Long orderNumber) {
         List<OrderDetail> orderDetailList = orderDetailService.getOrderDetailsByOrderNumber(orderNumber);
         return ResponseEntity.ok(orderDetailList);
     }
@@ -45,6 +47,16 @@ public class OrderDetailController {
         return ResponseEntity.ok(orderDetailList);
     }
 
+    // Lines of the orders dated from..to inclusive
+    @GetMapping("/range")
+    public ResponseEntity<List<OrderDetail>> getOrderDetailsBetween(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                                    @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        if (from.isAfter(to)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(orderDetailService.getOrderDetailsBetween(from, to));
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<OrderDetail> updateOrderDetail(@PathVariable Long id, @Valid @RequestBody OrderDetail orderDetail) {
         OrderDetail updatedOrderDetail = orderDetailService.updateOrderDetail(id, orderDetail);
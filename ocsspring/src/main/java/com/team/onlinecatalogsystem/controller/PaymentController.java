@@ -3,9 +3,11 @@ package com.team.onlinecatalogsystem.controller;
 import com.team.onlinecatalogsystem.model.Payment;
 import com.team.onlinecatalogsystem.service.PaymentServiceI;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import jakarta.validation.Valid;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
@@ -34,11 +36,21 @@ public class PaymentController {
     }
 
     @GetMapping("/customer/{customerNumber}")
-    public ResponseEntity<List<Payment>> getPaymentsByCustomerNumber(@PathVariable String customerNumber) {
+    public ResponseEntity<List<Payment>> getPaymentsByCustomerNumber(@PathVariable Long customerNumber) {
         List<Payment> paymentList = paymentService.getPaymentsByCustomerNumber(customerNumber);
         return ResponseEntity.ok(paymentList);
     }
 
+    // Payments dated from..to inclusive
+    @GetMapping("/range")
+    public ResponseEntity<List<Payment>> getPaymentsBetween(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        if (from.isAfter(to)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(paymentService.getPaymentsBetween(from, to));
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<Payment> updatePayment(@PathVariable Long id, @Valid @RequestBody Payment payment) {
         Payment updatedPayment = paymentService.updatePayment(id, payment);
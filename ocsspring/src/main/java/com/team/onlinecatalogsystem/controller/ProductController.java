@@ -1,12 +1,22 @@
 package com.team.onlinecatalogsystem.controller;
 
 import com.team.onlinecatalogsystem.model.Product;
+import com.team.onlinecatalogsystem.service.BrowseResult;
+import com.team.onlinecatalogsystem.service.BulkProductUpdate;
+import com.team.onlinecatalogsystem.service.BulkUpdateResult;
+import com.team.onlinecatalogsystem.service.LookupResult;
+import com.team.onlinecatalogsystem.service.ProductFacetIndex.Facet;
+import com.team.onlinecatalogsystem.service.ProductPriceIndex.PriceField;
 import com.team.onlinecatalogsystem.service.ProductServiceI;
+import com.team.onlinecatalogsystem.service.RelatedProduct;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import jakarta.validation.Valid;
+import java.math.BigDecimal;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
@@ -27,6 +37,70 @@ public class ProductController {
         return ResponseEntity.ok(productList);
     }
 
+    // Storefront filtering: ?productLine=Motorcycles&productLine=Planes&price=50-100&stock=100-1000&page=0&size=20.
+    // Values within a facet are alternatives, facets combine; see ProductFacetIndex for the counts
+    @GetMapping("/browse")
+    public ResponseEntity<BrowseResult> browseProducts(@RequestParam(required = false) List<String> productLine,
+                                                       @RequestParam(required = false) List<String> productScale,
+                                                       @RequestParam(required = false) List<String> productVendor,
+                                                       @RequestParam(required = false) List<String> price,
+                                                       @RequestParam(required = false) List<String> stock,
+                                                       @RequestParam(defaultValue = "0") int page,
+                                                       @RequestParam(defaultValue = "20") int size) {
+        if (page < 0 || size < 1 || size > BrowseResult.MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        Map<Facet, List<String>> filters = new EnumMap<>(Facet.class);
+        filters.put(Facet.PRODUCT_LINE, productLine);
+        filters.put(Facet.PRODUCT_SCALE, productScale);
+        filters.put(Facet.PRODUCT_VENDOR, productVendor);
+        filters.put(Facet.PRICE, price);
+        filters.put(Facet.STOCK, stock);
+        return productService.browseProducts(filters, page, size)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    // Price filters over msrp, buyPrice or margin (msrp - buyPrice), from the in-memory price index.
+    // min and max are inclusive and optional; pages hold up to BrowseResult.MAX_PAGE_SIZE products
+    @GetMapping("/price/count")
+    public ResponseEntity<Long> countProductsByPrice(@RequestParam(defaultValue = "msrp") String field,
+                                                     @RequestParam(required = false) BigDecimal min,
+                                                     @RequestParam(required = false) BigDecimal max) {
+        PriceField priceField = PriceField.fromParam(field);
+        if (priceField == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(productService.countProductsByPrice(priceField, min, max));
+    }
+
+    @GetMapping("/price")
+    public ResponseEntity<List<Product>> getProductsByPriceRange(@RequestParam(defaultValue = "msrp") String field,
+                                                                 @RequestParam(required = false) BigDecimal min,
+                                                                 @RequestParam(required = false) BigDecimal max,
+                                                                 @RequestParam(defaultValue = "0") int offset,
+                                                                 @RequestParam(defaultValue = "20") int limit) {
+        PriceField priceField = PriceField.fromParam(field);
+        if (priceField == null || offset < 0 || limit < 1 || limit > BrowseResult.MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(productService.getProductsByPriceRange(priceField, min, max, offset, limit));
+    }
+
+    // e.g. the cheapest in a line: ?field=msrp&productLine=Planes&limit=5; order=desc for the dearest
+    @GetMapping("/price/top")
+    public ResponseEntity<List<Product>> getTopProductsByPrice(@RequestParam(defaultValue = "msrp") String field,
+                                                               @RequestParam(defaultValue = "asc") String order,
+                                                               @RequestParam(required = false) String productLine,
+                                                               @RequestParam(defaultValue = "10") int limit) {
+        PriceField priceField = PriceField.fromParam(field);
+        if (priceField == null || !(order.equals("asc") || order.equals("desc")) || limit < 1
+                || limit > BrowseResult.MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(productService.getTopProductsByPrice(priceField, order.equals("desc"), productLine, limit));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Product> getProductById(@PathVariable Long id) {
         Optional<Product> product = productService.getProductById(id);
@@ -39,18 +113,50 @@ public class ProductController {
         return product.map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
     }
 
+    // "Frequently bought together", from the in-memory co-purchase matrix; cached like other product
+    // reads, so new order lines show up here within the response cache's ttl
+    @GetMapping("/code/{productCode}/related")
+    public ResponseEntity<List<RelatedProduct>> getRelatedProducts(@PathVariable String productCode,
+                                                                   @RequestParam(defaultValue = "10") int limit) {
+        if (limit < 1 || limit > RelatedProduct.MAX_LIMIT) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(productService.getFrequentlyBoughtWith(productCode, limit));
+    }
+
     @GetMapping("/line/{productLine}")
     public ResponseEntity<List<Product>> getProductsByLine(@PathVariable String productLine) {
         List<Product> productList = productService.getProductsByLine(productLine);
         return ResponseEntity.ok(productList);
     }
 
+    // Resolves a cart's worth of codes in one call: {"found": {code: product}, "missing": [code]}
+    @PostMapping("/lookup")
+    public ResponseEntity<LookupResult<String, Product>> lookupProducts(@RequestBody List<String> productCodes) {
+        if (productCodes.size() > LookupResult.MAX_KEYS) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(productService.lookupProductsByCode(productCodes));
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<Product> updateProduct(@PathVariable Long id, @Valid @RequestBody Product product) {
         Product updatedProduct = productService.updateProduct(id, product);
         return ResponseEntity.ok(updatedProduct);
     }
 
+    // Reprices or restocks a whole line, vendor or selection in one statement; see BulkProductUpdate
+    @PostMapping("/bulk")
+    public ResponseEntity<BulkUpdateResult> bulkUpdateProducts(@RequestBody BulkProductUpdate update) {
+        return ResponseEntity.ok(productService.bulkUpdateProducts(update, false));
+    }
+
+    // The same summary without writing anything; a separate path so the response cache treats it as a read
+    @PostMapping("/bulk/preview")
+    public ResponseEntity<BulkUpdateResult> previewBulkUpdate(@RequestBody BulkProductUpdate update) {
+        return ResponseEntity.ok(productService.bulkUpdateProducts(update, true));
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteProduct(@PathVariable Long id) {
         productService.deleteProduct(id);
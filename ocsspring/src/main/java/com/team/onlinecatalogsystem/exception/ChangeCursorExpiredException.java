@@ -0,0 +1,14 @@
+package com.team.onlinecatalogsystem.exception;
+
+import lombok.Getter;
+
+// The cursor is older than the retained change log (or newer than its head), so changes may have been missed
+@Getter
+public class ChangeCursorExpiredException extends RuntimeException {
+    private final long cursor;
+
+    public ChangeCursorExpiredException(long since, long cursor) {
+        super("Change cursor " + since + " is outside the retained change log; reload and continue from " + cursor);
+        this.cursor = cursor;
+    }
+}
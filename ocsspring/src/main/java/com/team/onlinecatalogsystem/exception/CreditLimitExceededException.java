@@ -0,0 +1,21 @@
+package com.team.onlinecatalogsystem.exception;
+
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+// An order or order line refused because its customer would owe more than their credit limit
+@Getter
+public class CreditLimitExceededException extends RuntimeException {
+    private final Long customerNumber;
+    private final BigDecimal exposure;
+    private final BigDecimal creditLimit;
+
+    public CreditLimitExceededException(Long customerNumber, BigDecimal exposure, BigDecimal creditLimit) {
+        super("Customer " + customerNumber + " would owe " + exposure.toPlainString() + " on orders not yet paid for, over their credit limit of "
+                + creditLimit.toPlainString());
+        this.customerNumber = customerNumber;
+        this.exposure = exposure;
+        this.creditLimit = creditLimit;
+    }
+}
@@ -0,0 +1,17 @@
+package com.team.onlinecatalogsystem.exception;
+
+import lombok.Getter;
+
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+// Thrown instead of a connection when the database concurrency limit is saturated
+@Getter
+public class DatabaseBusyException extends SQLTransientConnectionException {
+    private final Duration retryAfter;
+
+    public DatabaseBusyException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+}
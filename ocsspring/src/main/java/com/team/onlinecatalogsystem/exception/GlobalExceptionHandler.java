@@ -0,0 +1,57 @@
+package com.team.onlinecatalogsystem.exception;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.TransactionException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.Map;
+
+@RestControllerAdvice
+public class GlobalExceptionHandler {
+
+    // The limiter's exception reaches us wrapped by Hibernate and Spring; anything else is rethrown untouched
+    @ExceptionHandler({DataAccessException.class, TransactionException.class})
+    public ResponseEntity<String> handleDatabaseBusy(RuntimeException ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DatabaseBusyException busy) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, busy.getRetryAfter().toSeconds())))
+                        .body(busy.getMessage());
+            }
+        }
+        throw ex;
+    }
+
+    @ExceptionHandler(InvalidOrderStatusException.class)
+    public ResponseEntity<String> handleInvalidOrderStatus(InvalidOrderStatusException ex) {
+        return ResponseEntity.badRequest().body(ex.getMessage());
+    }
+
+    @ExceptionHandler(InvalidBulkUpdateException.class)
+    public ResponseEntity<String> handleInvalidBulkUpdate(InvalidBulkUpdateException ex) {
+        return ResponseEntity.badRequest().body(ex.getMessage());
+    }
+
+    @ExceptionHandler(InvalidStatusTransitionException.class)
+    public ResponseEntity<String> handleInvalidStatusTransition(InvalidStatusTransitionException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getMessage());
+    }
+
+    @ExceptionHandler(CreditLimitExceededException.class)
+    public ResponseEntity<Map<String, Object>> handleCreditLimitExceeded(CreditLimitExceededException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("message", ex.getMessage(), "customerNumber", ex.getCustomerNumber(),
+                        "exposure", ex.getExposure(), "creditLimit", ex.getCreditLimit()));
+    }
+
+    // 410 tells a syncing client to reload everything, then carry on from the cursor given here
+    @ExceptionHandler(ChangeCursorExpiredException.class)
+    public ResponseEntity<Map<String, Object>> handleChangeCursorExpired(ChangeCursorExpiredException ex) {
+        return ResponseEntity.status(HttpStatus.GONE)
+                .body(Map.of("resync", true, "cursor", ex.getCursor(), "message", ex.getMessage()));
+    }
+}
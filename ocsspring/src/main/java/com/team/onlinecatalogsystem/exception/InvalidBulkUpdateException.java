@@ -0,0 +1,8 @@
+package com.team.onlinecatalogsystem.exception;
+
+// A bulk product update that is malformed, or that would leave a product with a price or stock it can't have
+public class InvalidBulkUpdateException extends RuntimeException {
+    public InvalidBulkUpdateException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package com.team.onlinecatalogsystem.exception;
+
+// A status label that isn't one of OrderStatus, or a queue that can't be claimed from
+public class InvalidOrderStatusException extends RuntimeException {
+    public InvalidOrderStatusException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,13 @@
+package com.team.onlinecatalogsystem.exception;
+
+import com.team.onlinecatalogsystem.model.OrderStatus;
+
+import java.util.stream.Collectors;
+
+public class InvalidStatusTransitionException extends RuntimeException {
+    public InvalidStatusTransitionException(Long orderId, OrderStatus from, OrderStatus to) {
+        super("Order " + orderId + " can't move from " + from.label() + " to " + to.label()
+                + (from.next().isEmpty() ? "; " + from.label() + " is final"
+                : "; allowed: " + from.next().stream().map(OrderStatus::label).collect(Collectors.joining(", "))));
+    }
+}
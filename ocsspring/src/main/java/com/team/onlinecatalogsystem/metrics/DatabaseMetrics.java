@@ -0,0 +1,48 @@
+package com.team.onlinecatalogsystem.metrics;
+
+import com.team.onlinecatalogsystem.config.ConcurrencyLimitingDataSource;
+import com.team.onlinecatalogsystem.config.ReplicaLagMonitor;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+// Gauges for the pieces in front of the connection pools that Hikari's own metrics cannot see
+@Component
+@RequiredArgsConstructor
+public class DatabaseMetrics implements MeterBinder {
+    private final ObjectProvider<DataSource> dataSource;
+    private final ObjectProvider<ReplicaLagMonitor> replicaLagMonitor;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        ConcurrencyLimitingDataSource limiter = limiter(dataSource.getIfAvailable());
+        if (limiter != null) {
+            Gauge.builder("ocs.db.limiter.available", limiter, ConcurrencyLimitingDataSource::getAvailablePermits)
+                    .description("Free permits in the database concurrency limiter")
+                    .register(registry);
+            Gauge.builder("ocs.db.limiter.queued", limiter, ConcurrencyLimitingDataSource::getQueueLength)
+                    .description("Callers waiting for a database concurrency permit")
+                    .register(registry);
+        }
+        replicaLagMonitor.ifAvailable(monitor -> Gauge.builder("ocs.db.replica.lag", monitor, ReplicaLagMonitor::getLagMillis)
+                .description("Replica replay lag in milliseconds, -1 when unknown")
+                .baseUnit("milliseconds")
+                .register(registry));
+    }
+
+    // The limiter may be wrapped by other DataSource decorators
+    private static ConcurrencyLimitingDataSource limiter(DataSource dataSource) {
+        try {
+            return dataSource != null && dataSource.isWrapperFor(ConcurrencyLimitingDataSource.class)
+                    ? dataSource.unwrap(ConcurrencyLimitingDataSource.class) : null;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.team.onlinecatalogsystem.metrics;
+
+import lombok.Getter;
+import lombok.Setter;
+
+// Statement accounting for the request running on the current thread
+@Getter
+public class RequestSqlStats {
+    private static final ThreadLocal<RequestSqlStats> CURRENT = new ThreadLocal<>();
+
+    private int statements;
+    private long rows;
+    private long jdbcNanos;
+    @Setter
+    private String handler = "unknown";
+
+    static RequestSqlStats begin() {
+        RequestSqlStats stats = new RequestSqlStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    public static RequestSqlStats current() {
+        return CURRENT.get();
+    }
+
+    void recordStatement(long nanos) {
+        statements++;
+        jdbcNanos += nanos;
+    }
+
+    void recordRow() {
+        rows++;
+    }
+
+    public long getJdbcMillis() {
+        return jdbcNanos / 1_000_000;
+    }
+}
@@ -0,0 +1,89 @@
+package com.team.onlinecatalogsystem.metrics;
+
+import com.team.onlinecatalogsystem.config.SqlInspectionProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.io.IOException;
+
+/**
+ * Opens a {@link RequestSqlStats} for each request and, when it completes, records the statement
+ * count and flags requests that went over the query budget as likely N+1.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class SqlInspectionFilter extends OncePerRequestFilter {
+    public static final String STATEMENTS_HEADER = "X-SQL-Statements";
+    public static final String ROWS_HEADER = "X-SQL-Rows";
+    public static final String TIME_HEADER = "X-SQL-Time-Ms";
+
+    private final SqlInspectionProperties properties;
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RequestSqlStats stats = RequestSqlStats.begin();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            RequestSqlStats.end();
+            complete(request, response, stats);
+        }
+    }
+
+    private void complete(HttpServletRequest request, HttpServletResponse response, RequestSqlStats stats) {
+        if (properties.isExposeHeaders() && !response.isCommitted()) {
+            writeHeaders(response, stats);
+        }
+        boolean overBudget = stats.getStatements() > properties.getQueryBudget();
+        if (overBudget) {
+            log.warn("Likely N+1: {} {} ({}) issued {} statements, budget {}; {} rows, {} ms in JDBC",
+                    request.getMethod(), request.getRequestURI(), stats.getHandler(), stats.getStatements(),
+                    properties.getQueryBudget(), stats.getRows(), stats.getJdbcMillis());
+        }
+        meterRegistry.ifAvailable(registry -> {
+            DistributionSummary.builder("ocs.request.sql.statements")
+                    .description("JDBC statements issued per request")
+                    .tag("handler", stats.getHandler())
+                    .register(registry)
+                    .record(stats.getStatements());
+            if (overBudget) {
+                Counter.builder("ocs.request.sql.over.budget")
+                        .description("Requests that exceeded the SQL query budget")
+                        .tag("handler", stats.getHandler())
+                        .register(registry)
+                        .increment();
+            }
+        });
+    }
+
+    static void writeHeaders(HttpServletResponse response, RequestSqlStats stats) {
+        response.setHeader(STATEMENTS_HEADER, String.valueOf(stats.getStatements()));
+        response.setHeader(ROWS_HEADER, String.valueOf(stats.getRows()));
+        response.setHeader(TIME_HEADER, String.valueOf(stats.getJdbcMillis()));
+    }
+
+    // Names the controller method a request is dispatched to, for the N+1 and slow-query logs
+    public static class HandlerNamingInterceptor implements HandlerInterceptor {
+        @Override
+        public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+            RequestSqlStats stats = RequestSqlStats.current();
+            if (stats != null && handler instanceof HandlerMethod method) {
+                stats.setHandler(method.getBeanType().getSimpleName() + "." + method.getMethod().getName());
+            }
+            return true;
+        }
+    }
+}
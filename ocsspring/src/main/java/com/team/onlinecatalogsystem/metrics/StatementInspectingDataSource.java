@@ -0,0 +1,131 @@
+package com.team.onlinecatalogsystem.metrics;
+
+import com.team.onlinecatalogsystem.config.SqlInspectionProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Counts statements, JDBC time and fetched rows into the current {@link RequestSqlStats}, and
+ * writes a sampled log line, with bind parameters and the originating handler, for statements
+ * slower than the configured threshold.
+ */
+@Slf4j
+public class StatementInspectingDataSource extends DelegatingDataSource {
+    private final SqlInspectionProperties properties;
+
+    public StatementInspectingDataSource(DataSource target, SqlInspectionProperties properties) {
+        super(target);
+        this.properties = properties;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return proxy(Connection.class, super.getConnection(), this::onConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return proxy(Connection.class, super.getConnection(username, password), this::onConnection);
+    }
+
+    private Object onConnection(Object target, Method method, Object[] args) throws Throwable {
+        Object result = invoke(target, method, args);
+        String name = method.getName();
+        if (result instanceof CallableStatement statement) {
+            return inspect(CallableStatement.class, statement, (String) args[0]);
+        }
+        if (result instanceof PreparedStatement statement) {
+            return inspect(PreparedStatement.class, statement, (String) args[0]);
+        }
+        if (result instanceof Statement statement && "createStatement".equals(name)) {
+            return inspect(Statement.class, statement, null);
+        }
+        return result;
+    }
+
+    private <T extends Statement> T inspect(Class<T> type, T statement, String preparedSql) {
+        Map<Integer, Object> binds = new TreeMap<>();
+        return proxy(type, statement, (target, method, args) -> {
+            String name = method.getName();
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                binds.put(index, "setNull".equals(name) ? null : args[1]);
+            } else if ("clearParameters".equals(name)) {
+                binds.clear();
+            }
+            if (!name.startsWith("execute")) {
+                Object result = invoke(target, method, args);
+                return "getResultSet".equals(name) && result instanceof ResultSet rs ? countRows(rs) : result;
+            }
+
+            String sql = preparedSql != null ? preparedSql : args != null && args.length > 0 ? String.valueOf(args[0]) : "";
+            long start = System.nanoTime();
+            try {
+                Object result = invoke(target, method, args);
+                return result instanceof ResultSet rs ? countRows(rs) : result;
+            } finally {
+                record(System.nanoTime() - start, sql, binds);
+            }
+        });
+    }
+
+    private ResultSet countRows(ResultSet resultSet) {
+        RequestSqlStats stats = RequestSqlStats.current();
+        if (stats == null) {
+            return resultSet;
+        }
+        return proxy(ResultSet.class, resultSet, (target, method, args) -> {
+            Object result = invoke(target, method, args);
+            if ("next".equals(method.getName()) && Boolean.TRUE.equals(result)) {
+                stats.recordRow();
+            }
+            return result;
+        });
+    }
+
+    private void record(long nanos, String sql, Map<Integer, Object> binds) {
+        RequestSqlStats stats = RequestSqlStats.current();
+        if (stats != null) {
+            stats.recordStatement(nanos);
+        }
+        if (nanos >= properties.getSlowQueryThreshold().toNanos()
+                && ThreadLocalRandom.current().nextDouble() < properties.getSlowQuerySampleRate()) {
+            log.warn("Slow query {} ms from {} binds={} sql={}", nanos / 1_000_000,
+                    stats != null ? stats.getHandler() : "non-request", binds, sql);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, T target, TargetHandler handler) {
+        InvocationHandler invocationHandler = (proxy, method, args) -> handler.handle(target, method, args);
+        return (T) Proxy.newProxyInstance(StatementInspectingDataSource.class.getClassLoader(),
+                new Class<?>[]{type}, invocationHandler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    @FunctionalInterface
+    private interface TargetHandler {
+        Object handle(Object target, Method method, Object[] args) throws Throwable;
+    }
+}
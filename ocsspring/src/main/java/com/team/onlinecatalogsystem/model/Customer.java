@@ -1,12 +1,17 @@
 package com.team.onlinecatalogsystem.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.*;
 import java.math.BigDecimal;
 
 @Entity
-@Table(name = "customers")
+@Table(name = "customers", indexes = {
+        @Index(name = "idx_customers_city", columnList = "city"),
+        @Index(name = "idx_customers_country", columnList = "country"),
+        @Index(name = "idx_customers_salesrep_assigned", columnList = "salesrepemployeenumber")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -63,9 +68,18 @@ public class Customer {
     @Size(max = 50, message = "Country must be at most 50 characters")
     private String country;
 
-    // CHANGED: String instead of Long for consistency with your approach
+    // CHANGED: Long to match the employees primary key it references
     @Column(name = "salesrepemployeenumber")
-    private String salesRepEmployeeNumber;
+    private Long salesRepEmployeeNumber;
+
+    // Read-only view of the salesrepemployeenumber foreign key, for joins in queries
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "salesrepemployeenumber", insertable = false, updatable = false,
+            foreignKey = @ForeignKey(name = "fk_customers_sales_rep"))
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Employee salesRep;
 
     // CHANGED: Double to BigDecimal for better precision
     @Column(name = "creditlimit", precision = 10)
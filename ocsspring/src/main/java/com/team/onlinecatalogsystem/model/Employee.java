@@ -5,7 +5,9 @@ import jakarta.validation.constraints.*;
 import lombok.*;
 
 @Entity
-@Table(name = "employees")
+@Table(name = "employees", indexes = {
+        @Index(name = "idx_employees_office_code", columnList = "officeCode")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
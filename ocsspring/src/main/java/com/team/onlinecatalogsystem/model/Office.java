@@ -5,7 +5,10 @@ import jakarta.validation.constraints.*;
 import lombok.*;
 
 @Entity
-@Table(name = "offices")
+@Table(name = "offices", indexes = {
+        @Index(name = "idx_offices_city", columnList = "city"),
+        @Index(name = "idx_offices_country", columnList = "country")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
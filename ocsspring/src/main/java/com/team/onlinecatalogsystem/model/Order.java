@@ -1,19 +1,28 @@
 package com.team.onlinecatalogsystem.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.*;
+import java.time.Instant;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_customernumber", columnList = "customernumber"),
+        @Index(name = "idx_orders_status", columnList = "status"),
+        @Index(name = "idx_orders_orderdate", columnList = "orderdate")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Order {
 
+    // Always assigned by the database (V10): the partitioned tables' keys don't make id unique on their own
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
     private Long id;
 
     @Column(name = "orderdate", nullable = false)
@@ -36,6 +45,24 @@ public class Order {
     private String comments;
 
     @Column(name = "customernumber", nullable = false)
-    @NotBlank(message = "Customer number is required")
-    private String customernumber;
+    @NotNull(message = "Customer number is required")
+    private Long customernumber;
+
+    // Set by /api/orders/status/{status}/claim: the worker holding the order and until when
+    @Column(name = "claimedby", length = 64)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private String claimedby;
+
+    @Column(name = "claimeduntil")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Instant claimeduntil;
+
+    // Read-only view of the customernumber foreign key, for joins in queries
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "customernumber", insertable = false, updatable = false,
+            foreignKey = @ForeignKey(name = "fk_orders_customer"))
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Customer customer;
 }
\ No newline at end of file
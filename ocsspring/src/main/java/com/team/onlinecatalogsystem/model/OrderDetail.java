@@ -1,24 +1,47 @@
 package com.team.onlinecatalogsystem.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.*;
 import java.math.BigDecimal;
+import java.time.LocalDate;
 
 @Entity
-@Table(name = "orderdetails")
+@Table(name = "orderdetails", indexes = {
+        @Index(name = "idx_orderdetails_order_number", columnList = "orderNumber"),
+        @Index(name = "idx_orderdetails_product_code", columnList = "productCode"),
+        @Index(name = "idx_orderdetails_orderdate", columnList = "orderdate")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class OrderDetail {
 
+    // Always assigned by the database (V10): the partitioned tables' keys don't make id unique on their own
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
     private Long id;
 
     @Column(name = "orderNumber", nullable = false)
-    @NotBlank(message = "Order number is required")
-    private String orderNumber;
+    @NotNull(message = "Order number is required")
+    private Long orderNumber;
+
+    // Read-only view of the orderNumber foreign key, for joins in queries
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "orderNumber", insertable = false, updatable = false,
+            foreignKey = @ForeignKey(name = "fk_orderdetails_order"))
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Order order;
+
+    // Copied from the order by the service: orderdetails is partitioned by year alongside orders
+    @Column(name = "orderdate", nullable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private LocalDate orderdate;
 
     @Column(name = "productCode", length = 15, nullable = false)
     @NotBlank(message = "Product code is required")
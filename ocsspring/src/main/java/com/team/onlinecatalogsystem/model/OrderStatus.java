@@ -0,0 +1,60 @@
+package com.team.onlinecatalogsystem.model;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * The statuses an {@link Order} moves through, stored by label. Open statuses are the fulfilment
+ * work queues; Resolved and Cancelled are final. Keep the open labels in step with the partial
+ * index and claim query on orders (V9, OrderRepository.findClaimableIds).
+ */
+public enum OrderStatus {
+    IN_PROCESS("In Process"),
+    ON_HOLD("On Hold"),
+    DISPUTED("Disputed"),
+    SHIPPED("Shipped"),
+    RESOLVED("Resolved"),
+    CANCELLED("Cancelled");
+
+    private final String label;
+
+    OrderStatus(String label) {
+        this.label = label;
+    }
+
+    public String label() {
+        return label;
+    }
+
+    public Set<OrderStatus> next() {
+        return switch (this) {
+            case IN_PROCESS -> EnumSet.of(SHIPPED, ON_HOLD, CANCELLED);
+            case ON_HOLD -> EnumSet.of(IN_PROCESS, CANCELLED);
+            case SHIPPED -> EnumSet.of(DISPUTED);
+            case DISPUTED -> EnumSet.of(RESOLVED);
+            case RESOLVED, CANCELLED -> EnumSet.noneOf(OrderStatus.class);
+        };
+    }
+
+    // Staying put is always allowed, so other fields can be edited
+    public boolean canMoveTo(OrderStatus target) {
+        return target == this || next().contains(target);
+    }
+
+    public boolean isOpen() {
+        return this == IN_PROCESS || this == ON_HOLD || this == DISPUTED;
+    }
+
+    // Case-insensitive; null for labels that aren't a status
+    public static OrderStatus fromLabel(String label) {
+        if (label == null) {
+            return null;
+        }
+        for (OrderStatus status : values()) {
+            if (status.label.equalsIgnoreCase(label.trim())) {
+                return status;
+            }
+        }
+        return null;
+    }
+}
@@ -1,5 +1,7 @@
 package com.team.onlinecatalogsystem.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.*;
@@ -7,21 +9,36 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "payments")
+@Table(name = "payments", indexes = {
+        @Index(name = "idx_payments_customer_number", columnList = "customerNumber"),
+        @Index(name = "idx_payments_payment_date", columnList = "paymentDate")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Payment {
 
+    // Always assigned by the database (V10): the partitioned tables' keys don't make id unique on their own
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
     private Long id;
 
     @Column(name = "customerNumber", nullable = false)
-    @NotBlank(message = "Customer number is required")
-    private String customerNumber;
+    @NotNull(message = "Customer number is required")
+    private Long customerNumber;
 
-    @Column(name = "checkNumber", length = 50, nullable = false, unique = true)
+    // Read-only view of the customerNumber foreign key, for joins in queries
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "customerNumber", insertable = false, updatable = false,
+            foreignKey = @ForeignKey(name = "fk_payments_customer"))
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Customer customer;
+
+    // Unique across years through payment_check_numbers (V10), since payments is partitioned
+    @Column(name = "checkNumber", length = 50, nullable = false)
     @NotBlank(message = "Check number is required")
     @Size(max = 50, message = "Check number must be at most 50 characters")
     private String checkNumber;
@@ -7,7 +7,9 @@ import lombok.*;
 import java.math.BigDecimal;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+        @Index(name = "idx_products_productline", columnList = "productline")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
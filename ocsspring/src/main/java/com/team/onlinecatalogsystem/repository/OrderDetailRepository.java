@@ -1,14 +1,28 @@
 package com.team.onlinecatalogsystem.repository;
 
 import com.team.onlinecatalogsystem.model.OrderDetail;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @Repository
 public interface OrderDetailRepository extends JpaRepository<OrderDetail, Long> {
     // Custom query methods
-    List<OrderDetail> findByOrderNumber(String orderNumber);
+    List<OrderDetail> findByOrderNumber(Long orderNumber);
     List<OrderDetail> findByProductCode(String productCode);
+
+    @Query("SELECT d.id FROM OrderDetail d WHERE d.orderNumber = :orderNumber")
+    List<Long> findIdsByOrderNumber(@Param("orderNumber") Long orderNumber);
+
+    // Lines of orders moved out by OrderArchiver; read-only
+    @Query(value = "SELECT * FROM orderdetails_archive WHERE order_number = :orderNumber", nativeQuery = true)
+    List<OrderDetail> findArchivedByOrderNumber(@Param("orderNumber") Long orderNumber);
+
+    // Partitioned by the order's date, like orders
+    List<OrderDetail> findByOrderdateBetween(LocalDate from, LocalDate to, Sort sort);
 }
@@ -1,14 +1,43 @@
 package com.team.onlinecatalogsystem.repository;
 
 import com.team.onlinecatalogsystem.model.Order;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
     // Custom query methods - updated to match lowercase field names
-    List<Order> findByCustomernumber(String customernumber);
+    List<Order> findByCustomernumber(Long customernumber);
     List<Order> findByStatus(String status);
-}
\ No newline at end of file
+
+    // orders is partitioned by orderdate, so only the years in the range are read
+    List<Order> findByOrderdateBetween(LocalDate from, LocalDate to, Sort sort);
+
+    // Orders moved out by OrderArchiver; read-only
+    @Query(value = "SELECT * FROM orders_archive WHERE id = :id", nativeQuery = true)
+    Optional<Order> findArchivedById(@Param("id") Long id);
+
+    // Oldest unclaimed orders in an open status, locked for the caller. The literal IN list repeats
+    // the partial index predicate so even a generic plan can use the index; SKIP LOCKED passes over
+    // rows another worker is claiming instead of waiting for it.
+    @Query(value = "SELECT id FROM orders WHERE status = :status AND status IN ('In Process', 'On Hold', 'Disputed') "
+            + "AND (claimeduntil IS NULL OR claimeduntil < now()) ORDER BY orderdate, id LIMIT :limit "
+            + "FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Long> findClaimableIds(@Param("status") String status, @Param("limit") int limit);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Order o SET o.claimedby = :worker, o.claimeduntil = :until WHERE o.id IN :ids")
+    int claim(@Param("ids") List<Long> ids, @Param("worker") String worker, @Param("until") Instant until);
+
+    @Query(value = "SELECT status, count(*) FROM orders GROUP BY status", nativeQuery = true)
+    List<Object[]> countByStatus();
+}
@@ -1,13 +1,18 @@
 package com.team.onlinecatalogsystem.repository;
 
 import com.team.onlinecatalogsystem.model.Payment;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @Repository
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
     // Custom query methods
-    List<Payment> findByCustomerNumber(String customerNumber);
+    List<Payment> findByCustomerNumber(Long customerNumber);
+
+    // payments is partitioned by paymentDate, so only the years in the range are read
+    List<Payment> findByPaymentDateBetween(LocalDate from, LocalDate to, Sort sort);
 }
\ No newline at end of file
@@ -4,6 +4,7 @@ import com.team.onlinecatalogsystem.model.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,4 +13,5 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     // Custom query methods
     Optional<Product> findByProductCode(String productCode);
     List<Product> findByProductLine(String productLine);
+    List<Product> findByProductCodeIn(Collection<String> productCodes);
 }
@@ -0,0 +1,16 @@
+package com.team.onlinecatalogsystem.service;
+
+import com.team.onlinecatalogsystem.model.Product;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One page of a faceted browse: how many products match the filters, the count for every value
+ * of every facet (by facet name, then value), and the matching products on this page.
+ */
+public record BrowseResult(long total, int page, int size, Map<String, Map<String, Integer>> facets,
+                           List<Product> products) {
+    // Products per page
+    public static final int MAX_PAGE_SIZE = 100;
+}
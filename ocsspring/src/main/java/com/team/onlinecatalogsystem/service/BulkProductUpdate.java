@@ -0,0 +1,30 @@
+package com.team.onlinecatalogsystem.service;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * A price or stock change applied to every product a filter selects, in one statement.
+ *
+ * <pre>
+ * {"filter": {"productLine": "Classic Cars"}, "msrp": {"percent": 5}, "buyPrice": {"amount": -1.50}}
+ * {"filter": {"productVendor": "Min Lin Diecast", "stockBelow": 100}, "stockDelta": 500}
+ * </pre>
+ *
+ * Filter criteria combine with AND; an empty filter is refused unless it sets {@code all}.
+ */
+public record BulkProductUpdate(Filter filter, PriceChange buyPrice, PriceChange msrp, Integer stockDelta) {
+
+    public record Filter(String productLine, String productVendor, String productScale, List<String> productCodes,
+                         Integer stockBelow, boolean all) {
+
+        boolean isEmpty() {
+            return productLine == null && productVendor == null && productScale == null
+                    && (productCodes == null || productCodes.isEmpty()) && stockBelow == null;
+        }
+    }
+
+    // Exactly one of the two: a percentage of the current price, rounded to cents, or an amount added to it
+    public record PriceChange(BigDecimal percent, BigDecimal amount) {
+    }
+}
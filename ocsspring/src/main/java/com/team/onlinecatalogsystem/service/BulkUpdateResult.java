@@ -0,0 +1,22 @@
+package com.team.onlinecatalogsystem.service;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * What a {@link BulkProductUpdate} did, or with {@code dryRun} would do: how many products the
+ * filter matched, how many of those actually change, the before and after totals of each field,
+ * and the changed products themselves, the first {@link #MAX_LISTED} by product code.
+ */
+public record BulkUpdateResult(boolean dryRun, int matched, int changed, Totals buyPrice, Totals msrp,
+                               Totals quantityInStock, List<ProductChange> products, boolean truncated) {
+    public static final int MAX_LISTED = 1000;
+
+    public record Totals(BigDecimal before, BigDecimal after) {
+    }
+
+    public record ProductChange(Long id, String productCode, BigDecimal buyPriceBefore, BigDecimal buyPriceAfter,
+                                BigDecimal msrpBefore, BigDecimal msrpAfter, int quantityInStockBefore,
+                                int quantityInStockAfter) {
+    }
+}
@@ -0,0 +1,19 @@
+package com.team.onlinecatalogsystem.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * One page of the change feed. Each entity appears at most once, as its latest state: an upsert
+ * carrying the row, or a delete. Clients apply the changes in order, store {@code cursor}, and
+ * ask again from it; {@code hasMore} means the next page is already waiting.
+ */
+public record ChangeBatch(List<Change> changes, long cursor, boolean hasMore) {
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Change(long seq, String type, Long id, String op, Object data) {
+        public static final String UPSERT = "upsert";
+        public static final String DELETE = "delete";
+    }
+}
@@ -0,0 +1,9 @@
+package com.team.onlinecatalogsystem.service;
+
+import java.time.Instant;
+import java.util.Set;
+
+public interface ChangeFeedServiceI {
+    ChangeBatch getChanges(Long since, Set<ChangeType> types, Integer limit, boolean includeData);
+    int purgeChangesBefore(Instant cutoff, int batchSize);
+}
@@ -0,0 +1,143 @@
+package com.team.onlinecatalogsystem.service;
+
+import com.team.onlinecatalogsystem.config.ChangeFeedProperties;
+import com.team.onlinecatalogsystem.exception.ChangeCursorExpiredException;
+import com.team.onlinecatalogsystem.model.*;
+import com.team.onlinecatalogsystem.repository.*;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@Transactional
+public class ChangeFeedServiceImpl implements ChangeFeedServiceI {
+    private static final String HEAD = "SELECT GREATEST((SELECT COALESCE(MAX(seq), 0) FROM change_log), purged_through), "
+            + "purged_through FROM change_log_retention WHERE id = 1";
+    private static final String PAGE = "SELECT seq, entity, entity_id, op FROM change_log WHERE seq > ?";
+    private static final String PURGE = "DELETE FROM change_log WHERE seq IN (SELECT seq FROM change_log "
+            + "WHERE changed_at < ? ORDER BY seq LIMIT ?) RETURNING seq";
+    private static final String ADVANCE_PURGED = "UPDATE change_log_retention SET purged_through = GREATEST(purged_through, ?) "
+            + "WHERE id = 1";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ChangeFeedProperties properties;
+    private final Map<ChangeType, Loader<?>> loaders = new EnumMap<>(ChangeType.class);
+
+    public ChangeFeedServiceImpl(JdbcTemplate jdbcTemplate, ChangeFeedProperties properties,
+                                 CustomerRepository customerRepository, EmployeeRepository employeeRepository,
+                                 OfficeRepository officeRepository, OrderRepository orderRepository,
+                                 OrderDetailRepository orderDetailRepository, PaymentRepository paymentRepository,
+                                 ProductRepository productRepository, ProductLineRepository productLineRepository) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+        loaders.put(ChangeType.CUSTOMER, new Loader<>(customerRepository, Customer::getId));
+        loaders.put(ChangeType.EMPLOYEE, new Loader<>(employeeRepository, Employee::getId));
+        loaders.put(ChangeType.OFFICE, new Loader<>(officeRepository, Office::getId));
+        loaders.put(ChangeType.ORDER, new Loader<>(orderRepository, Order::getId));
+        loaders.put(ChangeType.ORDER_DETAIL, new Loader<>(orderDetailRepository, OrderDetail::getId));
+        loaders.put(ChangeType.PAYMENT, new Loader<>(paymentRepository, Payment::getId));
+        loaders.put(ChangeType.PRODUCT, new Loader<>(productRepository, Product::getId));
+        loaders.put(ChangeType.PRODUCT_LINE, new Loader<>(productLineRepository, ProductLine::getId));
+    }
+
+    private record Row(long seq, ChangeType type, long id, ChangeRecorder.Op op) {
+    }
+
+    private record Key(ChangeType type, long id) {
+    }
+
+    private record Loader<T>(JpaRepository<T, Long> repository, Function<T, Long> idOf) {
+        Map<Long, Object> load(List<Long> ids) {
+            Map<Long, Object> byId = new HashMap<>();
+            repository.findAllById(ids).forEach(entity -> byId.put(idOf.apply(entity), entity));
+            return byId;
+        }
+    }
+
+    // One snapshot for the head, the page and the rows embedded in it, so they all agree
+    @Override
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public ChangeBatch getChanges(Long since, Set<ChangeType> types, Integer limit, boolean includeData) {
+        long[] head = jdbcTemplate.queryForObject(HEAD, (rs, n) -> new long[]{rs.getLong(1), rs.getLong(2)});
+        long cursor = head[0];
+        long purgedThrough = head[1];
+        // No cursor yet: the client loads the tables itself and continues from here
+        if (since == null) {
+            return new ChangeBatch(List.of(), cursor, false);
+        }
+        if (since < purgedThrough || since > cursor) {
+            throw new ChangeCursorExpiredException(since, cursor);
+        }
+
+        int pageSize = Math.min(limit != null ? Math.max(1, limit) : properties.getDefaultBatchSize(), properties.getMaxBatchSize());
+        List<Row> rows = readPage(since, types, pageSize + 1);
+        boolean hasMore = rows.size() > pageSize;
+        if (hasMore) {
+            rows = rows.subList(0, pageSize);
+            cursor = rows.get(pageSize - 1).seq();
+        }
+
+        // Compaction: only the last change to each entity matters, at the position of that change
+        Map<Key, Row> latest = new LinkedHashMap<>();
+        for (Row row : rows) {
+            Key key = new Key(row.type(), row.id());
+            latest.remove(key);
+            latest.put(key, row);
+        }
+        Map<Key, Object> data = includeData ? loadUpserted(latest.values()) : Map.of();
+
+        List<ChangeBatch.Change> changes = new ArrayList<>(latest.size());
+        for (Map.Entry<Key, Row> entry : latest.entrySet()) {
+            Row row = entry.getValue();
+            Object entity = data.get(entry.getKey());
+            // A row gone from the snapshot was deleted by a change past this page; say so now
+            boolean deleted = row.op() == ChangeRecorder.Op.DELETE || (includeData && entity == null);
+            changes.add(new ChangeBatch.Change(row.seq(), row.type().token(), row.id(),
+                    deleted ? ChangeBatch.Change.DELETE : ChangeBatch.Change.UPSERT, deleted ? null : entity));
+        }
+        return new ChangeBatch(changes, cursor, hasMore);
+    }
+
+    private List<Row> readPage(long since, Set<ChangeType> types, int limit) {
+        StringBuilder sql = new StringBuilder(PAGE);
+        List<Object> args = new ArrayList<>();
+        args.add(since);
+        if (types != null && !types.isEmpty() && types.size() < ChangeType.values().length) {
+            sql.append(" AND entity IN (").append(String.join(",", Collections.nCopies(types.size(), "?"))).append(')');
+            types.forEach(type -> args.add(type.token()));
+        }
+        sql.append(" ORDER BY seq LIMIT ?");
+        args.add(limit);
+        return jdbcTemplate.query(sql.toString(), (rs, n) -> new Row(rs.getLong(1), ChangeType.fromToken(rs.getString(2)),
+                rs.getLong(3), ChangeRecorder.Op.fromCode(rs.getString(4))), args.toArray());
+    }
+
+    // One findAllById per entity type in the page
+    private Map<Key, Object> loadUpserted(Collection<Row> rows) {
+        Map<ChangeType, List<Long>> idsByType = rows.stream()
+                .filter(row -> row.op() != ChangeRecorder.Op.DELETE)
+                .collect(Collectors.groupingBy(Row::type, () -> new EnumMap<>(ChangeType.class),
+                        Collectors.mapping(Row::id, Collectors.toList())));
+        Map<Key, Object> loaded = new HashMap<>();
+        idsByType.forEach((type, ids) -> loaders.get(type).load(ids)
+                .forEach((id, entity) -> loaded.put(new Key(type, id), entity)));
+        return loaded;
+    }
+
+    @Override
+    public int purgeChangesBefore(Instant cutoff, int batchSize) {
+        List<Long> purged = jdbcTemplate.queryForList(PURGE, Long.class, Timestamp.from(cutoff), batchSize);
+        if (!purged.isEmpty()) {
+            jdbcTemplate.update(ADVANCE_PURGED, Collections.max(purged));
+        }
+        return purged.size();
+    }
+}
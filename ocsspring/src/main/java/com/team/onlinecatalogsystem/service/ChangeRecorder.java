@@ -0,0 +1,149 @@
+package com.team.onlinecatalogsystem.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.util.*;
+
+/**
+ * Appends the service layer's writes to change_log. Changes are held until the transaction is
+ * about to commit and then written in one batch, so a rolled-back write leaves no trace. The
+ * batch runs under a transaction-scoped advisory lock that is held through the commit, which
+ * makes seq order match commit order: a reader that has seen seq N can't later find a smaller
+ * seq appear behind its cursor. Once committed, the changes are published as a
+ * {@link CommittedChange.Event} for live subscribers.
+ */
+@Component
+@RequiredArgsConstructor
+public class ChangeRecorder {
+    private static final String LOCK = "SELECT pg_advisory_xact_lock(hashtext('change_log'))";
+    private static final String INSERT = "INSERT INTO change_log (entity, entity_id, op) "
+            + "SELECT * FROM unnest(?::varchar[], ?::bigint[], ?::text[]) RETURNING seq, entity, entity_id, op";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public enum Op {
+        INSERT("I"), UPDATE("U"), DELETE("D");
+
+        private final String code;
+
+        Op(String code) {
+            this.code = code;
+        }
+
+        public String code() {
+            return code;
+        }
+
+        public static Op fromCode(String code) {
+            return switch (code) {
+                case "I" -> INSERT;
+                case "U" -> UPDATE;
+                case "D" -> DELETE;
+                default -> throw new IllegalArgumentException("Unknown change op " + code);
+            };
+        }
+    }
+
+    private record Change(ChangeType type, Long id, Op op) {
+    }
+
+    private record Key(ChangeType type, long id) {
+    }
+
+    public void inserted(ChangeType type, Long id) {
+        record(new Change(type, id, Op.INSERT));
+    }
+
+    public void updated(ChangeType type, Long id) {
+        record(new Change(type, id, Op.UPDATE));
+    }
+
+    public void deleted(ChangeType type, Long id) {
+        record(new Change(type, id, Op.DELETE));
+    }
+
+    // Properties an update changed, as Hibernate flushes it; only kept for changes this transaction records
+    public void fieldsChanged(ChangeType type, Long id, Collection<String> fields) {
+        PendingChanges pending = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+        if (pending != null && id != null && !fields.isEmpty()) {
+            pending.fields.computeIfAbsent(new Key(type, id), key -> new TreeSet<>()).addAll(fields);
+        }
+    }
+
+    private void record(Change change) {
+        if (change.id() == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(write(List.of(change)), Map.of());
+            return;
+        }
+        PendingChanges pending = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingChanges();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.changes.add(change);
+    }
+
+    // One statement for the whole transaction, returning the seq each change was given
+    private List<CommittedChange> write(List<Change> changes) {
+        jdbcTemplate.execute(LOCK);
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(INSERT);
+            Array entities = connection.createArrayOf("varchar", changes.stream().map(c -> c.type().token()).toArray());
+            Array ids = connection.createArrayOf("bigint", changes.stream().map(Change::id).toArray());
+            Array ops = connection.createArrayOf("text", changes.stream().map(c -> c.op().code()).toArray());
+            ps.setArray(1, entities);
+            ps.setArray(2, ids);
+            ps.setArray(3, ops);
+            return ps;
+        }, (rs, n) -> new CommittedChange(ChangeType.fromToken(rs.getString(2)), rs.getLong(3),
+                Op.fromCode(rs.getString(4).trim()), rs.getLong(1), Set.of()));
+    }
+
+    private void publish(List<CommittedChange> written, Map<Key, Set<String>> fields) {
+        List<CommittedChange> changes = new ArrayList<>(written.size());
+        for (CommittedChange change : written) {
+            Set<String> changed = change.op() == Op.UPDATE ? fields.get(new Key(change.type(), change.id())) : null;
+            changes.add(changed == null ? change
+                    : new CommittedChange(change.type(), change.id(), change.op(), change.seq(), Set.copyOf(changed)));
+        }
+        changes.sort(Comparator.comparingLong(CommittedChange::seq));
+        eventPublisher.publishEvent(new CommittedChange.Event(changes));
+    }
+
+    private final class PendingChanges implements TransactionSynchronization {
+        private final List<Change> changes = new ArrayList<>();
+        private final Map<Key, Set<String>> fields = new HashMap<>();
+        private List<CommittedChange> written = List.of();
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            if (!changes.isEmpty()) {
+                written = write(changes);
+            }
+        }
+
+        @Override
+        public void afterCommit() {
+            if (!written.isEmpty()) {
+                publish(written, fields);
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(ChangeRecorder.this);
+        }
+    }
+}
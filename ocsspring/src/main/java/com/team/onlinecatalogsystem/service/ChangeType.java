@@ -0,0 +1,46 @@
+package com.team.onlinecatalogsystem.service;
+
+import com.team.onlinecatalogsystem.model.*;
+
+import java.util.Arrays;
+
+// Entities tracked by the change feed, named as clients pass them in /api/changes?types=
+public enum ChangeType {
+    CUSTOMER("customer", Customer.class),
+    EMPLOYEE("employee", Employee.class),
+    OFFICE("office", Office.class),
+    ORDER("order", Order.class),
+    ORDER_DETAIL("orderdetail", OrderDetail.class),
+    PAYMENT("payment", Payment.class),
+    PRODUCT("product", Product.class),
+    PRODUCT_LINE("productline", ProductLine.class);
+
+    private final String token;
+    private final Class<?> entityClass;
+
+    ChangeType(String token, Class<?> entityClass) {
+        this.token = token;
+        this.entityClass = entityClass;
+    }
+
+    public String token() {
+        return token;
+    }
+
+    public static ChangeType fromToken(String token) {
+        return Arrays.stream(values())
+                .filter(type -> type.token.equalsIgnoreCase(token.trim()))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown change type " + token));
+    }
+
+    // Null for classes that aren't tracked
+    public static ChangeType ofEntity(Class<?> entityClass) {
+        for (ChangeType type : values()) {
+            if (type.entityClass == entityClass) {
+                return type;
+            }
+        }
+        return null;
+    }
+}
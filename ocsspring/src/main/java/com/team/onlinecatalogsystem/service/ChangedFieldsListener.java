@@ -0,0 +1,50 @@
+package com.team.onlinecatalogsystem.service;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+
+import java.util.Arrays;
+
+/**
+ * Tells the {@link ChangeRecorder} which properties each flushed update changed, using the
+ * dirty check Hibernate has already done, so live notifications can name the changed fields.
+ */
+@RequiredArgsConstructor
+public class ChangedFieldsListener implements PostUpdateEventListener, Integrator {
+    private final ChangeRecorder changeRecorder;
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        ChangeType type = ChangeType.ofEntity(event.getPersister().getMappedClass());
+        int[] dirty = event.getDirtyProperties();
+        if (type == null || dirty == null || !(event.getId() instanceof Long id)) {
+            return;
+        }
+        String[] names = event.getPersister().getPropertyNames();
+        changeRecorder.fieldsChanged(type, id, Arrays.stream(dirty).mapToObj(i -> names[i]).toList());
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    @Override
+    public void integrate(Metadata metadata, BootstrapContext bootstrapContext, SessionFactoryImplementor sessionFactory) {
+        sessionFactory.getServiceRegistry().requireService(EventListenerRegistry.class)
+                .appendListeners(EventType.POST_UPDATE, this);
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+    }
+}
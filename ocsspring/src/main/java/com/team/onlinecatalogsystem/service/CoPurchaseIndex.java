@@ -0,0 +1,455 @@
+package com.team.onlinecatalogsystem.service;
+
+import com.team.onlinecatalogsystem.config.RecommendationProperties;
+import com.team.onlinecatalogsystem.config.SchedulingConfig;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import it.unimi.dsi.fastutil.ints.Int2IntMap;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * "Frequently bought together": for every product, the products that share orders with it and
+ * how many orders they share, in a sparse matrix keyed by product ordinal. Lines written through
+ * OrderDetailServiceImpl adjust the counts once their transaction commits; a periodic rebuild from
+ * orderdetails and orderdetails_archive picks up everything else (other instances, SQL, two lines
+ * added to one order at the same moment) and trims each product to its max-related best. The
+ * matrix is saved to a snapshot file, so a restart loads it rather than rebuilding.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class CoPurchaseIndex implements MeterBinder {
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final String BASKET = "SELECT product_code FROM orderdetails WHERE order_number = ?";
+    private static final String ALL_LINES = "SELECT order_number, product_code FROM orderdetails "
+            + "UNION ALL SELECT order_number, product_code FROM orderdetails_archive ORDER BY 1";
+    private static final int FETCH_SIZE = 5000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final RecommendationProperties properties;
+    private volatile Matrix matrix;
+    // Changes committed while a rebuild runs, replayed onto its result; guarded by this
+    private List<Delta> duringRebuild;
+    private volatile boolean dirty;
+    private volatile long snapshotAt;
+    private volatile Timer rebuildTimer;
+
+    // One product joining (+1) or leaving (-1) an order that holds the others
+    private record Delta(String productCode, List<String> others, int by) {
+    }
+
+    public List<RelatedProduct> related(String productCode, int limit) {
+        Matrix current = matrix;
+        return current == null ? List.of() : current.top(productCode, limit, properties.getMinOrders());
+    }
+
+    // Called in the writing transaction before the line is inserted
+    void lineAdded(Long orderNumber, String productCode) {
+        lineMoved(null, null, orderNumber, productCode);
+    }
+
+    // Called in the writing transaction before the line is deleted
+    void lineRemoved(Long orderNumber, String productCode) {
+        lineMoved(orderNumber, productCode, null, null);
+    }
+
+    // A line changing order or product, called before the change is written; either side may be null
+    void lineMoved(Long fromOrder, String fromCode, Long toOrder, String toCode) {
+        if (Objects.equals(fromOrder, toOrder) && Objects.equals(fromCode, toCode)) {
+            return;
+        }
+        List<Delta> deltas = new ArrayList<>(2);
+        List<String> fromBasket = fromOrder == null ? List.of() : basket(fromOrder);
+        if (fromOrder != null && fromBasket.indexOf(fromCode) == fromBasket.lastIndexOf(fromCode)) {
+            deltas.add(new Delta(fromCode, others(fromBasket, fromCode), -1));
+        }
+        if (toOrder != null) {
+            List<String> toBasket;
+            if (toOrder.equals(fromOrder)) {
+                toBasket = new ArrayList<>(fromBasket);
+                toBasket.remove(fromCode);
+            } else {
+                toBasket = basket(toOrder);
+            }
+            if (!toBasket.contains(toCode)) {
+                deltas.add(new Delta(toCode, others(toBasket, toCode), +1));
+            }
+        }
+        deltas.removeIf(delta -> delta.others().isEmpty() || delta.others().size() >= properties.getMaxBasketSize());
+        if (deltas.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(deltas);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply(deltas);
+            }
+        });
+    }
+
+    private List<String> basket(Long orderNumber) {
+        return jdbcTemplate.queryForList(BASKET, String.class, orderNumber);
+    }
+
+    private static List<String> others(List<String> basket, String productCode) {
+        Set<String> others = new LinkedHashSet<>(basket);
+        others.remove(productCode);
+        return List.copyOf(others);
+    }
+
+    private synchronized void apply(List<Delta> deltas) {
+        if (duringRebuild != null) {
+            duringRebuild.addAll(deltas);
+        }
+        Matrix current = matrix;
+        if (current != null) {
+            deltas.forEach(current::apply);
+            dirty = true;
+        }
+    }
+
+    // Also runs at startup: loads the snapshot, or builds the matrix if there's none or it's too old
+    @Scheduled(fixedDelayString = "${ocs.recommendations.maintenance-interval:1m}", scheduler = SchedulingConfig.BACKGROUND)
+    public void maintain() {
+        if (matrix == null) {
+            Matrix loaded = readSnapshot();
+            if (loaded != null) {
+                synchronized (this) {
+                    if (matrix == null) {
+                        matrix = loaded;
+                    }
+                }
+                snapshotAt = System.currentTimeMillis();
+            }
+        }
+        Matrix current = matrix;
+        if (current == null || System.currentTimeMillis() - current.builtAt >= properties.getRebuildInterval().toMillis()) {
+            rebuild();
+        } else if (dirty && System.currentTimeMillis() - snapshotAt >= properties.getSnapshotInterval().toMillis()) {
+            writeSnapshot();
+        }
+    }
+
+    public void rebuild() {
+        long started = System.nanoTime();
+        synchronized (this) {
+            duringRebuild = new ArrayList<>();
+        }
+        Matrix built = new Matrix(System.currentTimeMillis());
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> scanOrders(built));
+        } catch (DataAccessException e) {
+            synchronized (this) {
+                duringRebuild = null;
+            }
+            log.warn("Rebuilding the co-purchase matrix failed: {}", e.getMessage());
+            return;
+        }
+        built.prune(properties.getMaxRelated());
+        synchronized (this) {
+            // Changes that committed as the scan started may be counted twice; the next rebuild sorts them out
+            duringRebuild.forEach(built::apply);
+            duringRebuild = null;
+            matrix = built;
+            dirty = true;
+        }
+        Timer timer = rebuildTimer;
+        if (timer != null) {
+            timer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+        log.info("Rebuilt the co-purchase matrix: {} products, {} pairs in {} ms", built.products(), built.pairs(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        writeSnapshot();
+    }
+
+    // Lines arrive grouped by order; each order's distinct products are counted pairwise
+    private void scanOrders(Matrix built) {
+        IntArrayList basket = new IntArrayList();
+        long[] order = {Long.MIN_VALUE};
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(ALL_LINES);
+            statement.setFetchSize(FETCH_SIZE);
+            return statement;
+        }, rs -> {
+            long orderNumber = rs.getLong(1);
+            if (orderNumber != order[0]) {
+                built.addBasket(basket, properties.getMaxBasketSize());
+                basket.clear();
+                order[0] = orderNumber;
+            }
+            int product = built.ordinal(rs.getString(2));
+            if (!basket.contains(product)) {
+                basket.add(product);
+            }
+        });
+        built.addBasket(basket, properties.getMaxBasketSize());
+    }
+
+    // On shutdown, so counts changed since the last snapshot survive the restart
+    public void saveSnapshot() {
+        if (dirty && matrix != null) {
+            writeSnapshot();
+        }
+    }
+
+    private Matrix readSnapshot() {
+        Path file = properties.getSnapshotFile();
+        try (InputStream in = Files.newInputStream(file)) {
+            Matrix loaded = Matrix.read(new DataInputStream(new BufferedInputStream(in)));
+            log.info("Loaded the co-purchase matrix from {}: {} products, {} pairs", file, loaded.products(), loaded.pairs());
+            return loaded;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Couldn't load the co-purchase snapshot {}; rebuilding instead: {}", file, e.toString());
+            return null;
+        }
+    }
+
+    // Written beside the target and moved over it, so a crash never leaves half a snapshot
+    private void writeSnapshot() {
+        Matrix current = matrix;
+        Path file = properties.getSnapshotFile().toAbsolutePath();
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(file.getParent());
+            dirty = false;
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+                current.write(data);
+                data.flush();
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            snapshotAt = System.currentTimeMillis();
+        } catch (IOException e) {
+            dirty = true;
+            log.warn("Couldn't write the co-purchase snapshot {}: {}", file, e.toString());
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("ocs.recommendations.products", this, index -> index.matrix == null ? 0 : index.matrix.products())
+                .description("Products with co-purchase counts")
+                .register(registry);
+        Gauge.builder("ocs.recommendations.pairs", this, index -> index.matrix == null ? 0 : index.matrix.pairs())
+                .description("Product pairs bought together, counted once per direction")
+                .register(registry);
+        rebuildTimer = Timer.builder("ocs.recommendations.rebuild")
+                .description("Time to rebuild the co-purchase matrix from the order lines")
+                .register(registry);
+    }
+
+    /**
+     * Product codes numbered in order of appearance, and per product ordinal a map from the ordinal
+     * of each product bought with it to the number of orders they share. Counts are kept in both
+     * directions, so a read touches one row. Reads share a lock; writers are serialized by the index.
+     */
+    private static final class Matrix {
+        private final long builtAt;
+        private final Object2IntOpenHashMap<String> ordinals = new Object2IntOpenHashMap<>();
+        private final List<String> codes = new ArrayList<>();
+        private final List<Int2IntOpenHashMap> rows = new ArrayList<>();
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private long pairs;
+
+        Matrix(long builtAt) {
+            this.builtAt = builtAt;
+            ordinals.defaultReturnValue(-1);
+        }
+
+        int products() {
+            return codes.size();
+        }
+
+        long pairs() {
+            return pairs;
+        }
+
+        // Only called by the thread building or writing the matrix
+        int ordinal(String productCode) {
+            int ordinal = ordinals.getInt(productCode);
+            if (ordinal < 0) {
+                ordinal = codes.size();
+                ordinals.put(productCode, ordinal);
+                codes.add(productCode);
+                rows.add(new Int2IntOpenHashMap());
+            }
+            return ordinal;
+        }
+
+        void addBasket(IntArrayList basket, int maxBasketSize) {
+            if (basket.size() < 2 || basket.size() > maxBasketSize) {
+                return;
+            }
+            for (int i = 0; i < basket.size(); i++) {
+                for (int j = i + 1; j < basket.size(); j++) {
+                    bump(basket.getInt(i), basket.getInt(j), 1);
+                    bump(basket.getInt(j), basket.getInt(i), 1);
+                }
+            }
+        }
+
+        void apply(Delta delta) {
+            lock.writeLock().lock();
+            try {
+                int product = ordinal(delta.productCode());
+                for (String other : delta.others()) {
+                    int ordinal = ordinal(other);
+                    bump(product, ordinal, delta.by());
+                    bump(ordinal, product, delta.by());
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private void bump(int product, int other, int by) {
+            Int2IntOpenHashMap row = rows.get(product);
+            int count = row.addTo(other, by) + by;
+            if (count <= 0) {
+                row.remove(other);
+                if (count - by > 0) {
+                    pairs--;
+                }
+            } else if (count == by) {
+                pairs++;
+            }
+        }
+
+        // Keeps each product's maxRelated largest counts
+        void prune(int maxRelated) {
+            for (Int2IntOpenHashMap row : rows) {
+                if (row.size() <= maxRelated) {
+                    continue;
+                }
+                int[] counts = row.values().toIntArray();
+                Arrays.sort(counts);
+                int threshold = counts[counts.length - maxRelated];
+                int before = row.size();
+                row.int2IntEntrySet().removeIf(entry -> entry.getIntValue() < threshold);
+                pairs -= before - row.size();
+                row.trim();
+            }
+        }
+
+        // Highest counts first, ties by product code
+        List<RelatedProduct> top(String productCode, int limit, int minOrders) {
+            lock.readLock().lock();
+            try {
+                int product = ordinals.getInt(productCode);
+                if (product < 0 || limit <= 0) {
+                    return List.of();
+                }
+                int[] best = new int[limit];
+                int[] bestCounts = new int[limit];
+                int size = 0;
+                for (Int2IntMap.Entry entry : rows.get(product).int2IntEntrySet()) {
+                    int count = entry.getIntValue();
+                    if (count < minOrders || (size == limit && !ranksAbove(count, entry.getIntKey(), bestCounts[size - 1], best[size - 1]))) {
+                        continue;
+                    }
+                    int at = size == limit ? size - 1 : size++;
+                    while (at > 0 && ranksAbove(count, entry.getIntKey(), bestCounts[at - 1], best[at - 1])) {
+                        best[at] = best[at - 1];
+                        bestCounts[at] = bestCounts[at - 1];
+                        at--;
+                    }
+                    best[at] = entry.getIntKey();
+                    bestCounts[at] = count;
+                }
+                List<RelatedProduct> related = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    related.add(new RelatedProduct(codes.get(best[i]), bestCounts[i]));
+                }
+                return related;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        private boolean ranksAbove(int count, int product, int otherCount, int other) {
+            return count != otherCount ? count > otherCount : codes.get(product).compareTo(codes.get(other)) < 0;
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            lock.readLock().lock();
+            try {
+                out.writeInt(SNAPSHOT_VERSION);
+                out.writeLong(builtAt);
+                out.writeInt(codes.size());
+                for (String code : codes) {
+                    out.writeUTF(code);
+                }
+                for (Int2IntOpenHashMap row : rows) {
+                    out.writeInt(row.size());
+                    for (Int2IntMap.Entry entry : row.int2IntEntrySet()) {
+                        out.writeInt(entry.getIntKey());
+                        out.writeInt(entry.getIntValue());
+                    }
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        static Matrix read(DataInputStream in) throws IOException {
+            int version = in.readInt();
+            if (version != SNAPSHOT_VERSION) {
+                throw new IOException("Unknown snapshot version " + version);
+            }
+            Matrix matrix = new Matrix(in.readLong());
+            int products = in.readInt();
+            for (int i = 0; i < products; i++) {
+                matrix.ordinal(in.readUTF());
+            }
+            for (int product = 0; product < products; product++) {
+                int size = in.readInt();
+                Int2IntOpenHashMap row = matrix.rows.get(product);
+                row.ensureCapacity(size);
+                for (int i = 0; i < size; i++) {
+                    row.put(in.readInt(), in.readInt());
+                }
+                matrix.pairs += size;
+            }
+            return matrix;
+        }
+    }
+}
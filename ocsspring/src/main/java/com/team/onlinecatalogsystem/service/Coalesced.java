@@ -0,0 +1,16 @@
+package com.team.onlinecatalogsystem.service;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a read whose concurrent identical calls (same method, equal arguments) may share one
+ * execution; see {@link CoalescingAspect}. Only for methods without side effects whose result
+ * callers don't modify, since every caller in the flight gets the same instance.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Coalesced {
+}
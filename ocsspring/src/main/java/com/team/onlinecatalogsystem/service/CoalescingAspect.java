@@ -0,0 +1,123 @@
+package com.team.onlinecatalogsystem.service;
+
+import com.team.onlinecatalogsystem.config.ReadYourWrites;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Single-flight for {@link Coalesced} reads: the first caller runs the method, and identical calls
+ * arriving while it is in flight wait for its result instead of issuing the same query. Errors
+ * reach every waiter. A waiter gives up after the max wait and runs the call itself, so a stuck
+ * leader costs its followers at most that much extra latency.
+ * <p>
+ * Ordered outside {@code @Transactional}, so waiters never hold a connection. Calls made inside a
+ * transaction, or by a client pinned to the primary after a write, always run on their own, since
+ * they must see that transaction's or that client's writes.
+ */
+@Aspect
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+public class CoalescingAspect {
+    private final Map<Key, Flight> inFlight = new ConcurrentHashMap<>();
+    private final long maxWaitNanos;
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    public CoalescingAspect(Duration maxWait, ObjectProvider<MeterRegistry> meterRegistry) {
+        this.maxWaitNanos = maxWait.toNanos();
+        this.meterRegistry = meterRegistry;
+    }
+
+    private record Key(Method method, List<Object> args) {
+    }
+
+    private static final class Flight {
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+        private final AtomicInteger followers = new AtomicInteger();
+    }
+
+    @Around("@annotation(com.team.onlinecatalogsystem.service.Coalesced)")
+    public Object coalesce(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive() || ReadYourWrites.isPinnedToPrimary()) {
+            return joinPoint.proceed();
+        }
+        Key key = new Key(((MethodSignature) joinPoint.getSignature()).getMethod(), Arrays.asList(joinPoint.getArgs()));
+        Flight flight = new Flight();
+        Flight existing = inFlight.putIfAbsent(key, flight);
+        return existing == null ? lead(joinPoint, key, flight) : follow(joinPoint, existing);
+    }
+
+    private Object lead(ProceedingJoinPoint joinPoint, Key key, Flight flight) throws Throwable {
+        try {
+            Object result = joinPoint.proceed();
+            // Removed before completing, so only calls that overlapped the query share its result
+            inFlight.remove(key, flight);
+            flight.result.complete(result);
+            return result;
+        } catch (Throwable t) {
+            inFlight.remove(key, flight);
+            flight.result.completeExceptionally(t);
+            throw t;
+        } finally {
+            record(joinPoint, "leader", flight.followers.get());
+        }
+    }
+
+    private Object follow(ProceedingJoinPoint joinPoint, Flight flight) throws Throwable {
+        flight.followers.incrementAndGet();
+        try {
+            Object result = flight.result.get(maxWaitNanos, TimeUnit.NANOSECONDS);
+            record(joinPoint, "follower", -1);
+            return result;
+        } catch (ExecutionException e) {
+            record(joinPoint, "follower", -1);
+            throw e.getCause();
+        } catch (TimeoutException e) {
+            record(joinPoint, "timeout", -1);
+            return joinPoint.proceed();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            record(joinPoint, "timeout", -1);
+            return joinPoint.proceed();
+        }
+    }
+
+    // Callers by role give the coalescing ratio; per flight, the callers one execution served
+    private void record(ProceedingJoinPoint joinPoint, String role, int followers) {
+        meterRegistry.ifAvailable(registry -> {
+            String service = joinPoint.getSignature().getDeclaringType().getSimpleName();
+            String method = joinPoint.getSignature().getName();
+            Counter.builder("ocs.service.coalescing")
+                    .description("Coalesced reads by caller role: leader ran the query, follower shared it, timeout gave up waiting")
+                    .tags("service", service, "method", method, "role", role)
+                    .register(registry)
+                    .increment();
+            if (followers >= 0) {
+                DistributionSummary.builder("ocs.service.coalescing.callers")
+                        .description("Callers served by one execution of a coalesced read")
+                        .tags("service", service, "method", method)
+                        .register(registry)
+                        .record(1 + followers);
+            }
+        });
+    }
+}
@@ -0,0 +1,15 @@
+package com.team.onlinecatalogsystem.service;
+
+import java.util.Set;
+
+/**
+ * A change as written to change_log, published once its transaction commits. {@code seq} is the
+ * entity's version in the change feed; {@code fields} holds the properties an update changed,
+ * and is empty for inserts, deletes and updates that changed nothing.
+ */
+public record CommittedChange(ChangeType type, long id, ChangeRecorder.Op op, long seq, Set<String> fields) {
+
+    // Published after commit with everything one transaction changed, in seq order
+    public record Event(java.util.List<CommittedChange> changes) {
+    }
+}
@@ -0,0 +1,301 @@
+package com.team.onlinecatalogsystem.service;
+
+import com.team.onlinecatalogsystem.config.SchedulingConfig;
+import com.team.onlinecatalogsystem.exception.CreditLimitExceededException;
+import com.team.onlinecatalogsystem.model.OrderStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * What every customer owes, in cents, so placing an order or adding a line to one checks credit
+ * with one map lookup: the value of the lines of their orders that aren't cancelled, less their
+ * payments, archived rows included. Writes through the order, order detail and payment services adjust it once their
+ * transaction commits, so a rolled back write never shows. A line that adds to what a customer owes
+ * is checked and reserved in one step under the customer's lock, and stays reserved until its
+ * transaction ends, so concurrent writers are checked against each other's lines as well as the
+ * committed figure. A periodic reconcile recounts it from
+ * the tables, picking up writes made elsewhere (other instances, SQL) and races between an order's
+ * lines and its status; a customer written to while it runs keeps the count it already had.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class CreditExposureTracker implements MeterBinder {
+    private static final long NO_LIMIT = Long.MAX_VALUE;
+    private static final String EXPOSURES = """
+            WITH amounts AS (
+                SELECT o.customernumber AS customer, d.quantity_ordered * d.price_each AS amount
+                FROM orderdetails d JOIN orders o ON o.id = d.order_number AND o.orderdate = d.orderdate
+                WHERE o.status <> ?
+                UNION ALL
+                SELECT o.customernumber, d.quantity_ordered * d.price_each
+                FROM orderdetails_archive d JOIN orders_archive o ON o.id = d.order_number
+                WHERE o.status <> ?
+                UNION ALL SELECT customer_number, -amount FROM payments
+                UNION ALL SELECT customer_number, -amount FROM payments_archive)
+            SELECT c.id, round(c.creditlimit * 100)::bigint AS credit_limit,
+                   round(coalesce(sum(a.amount), 0) * 100)::bigint AS exposure
+            FROM customers c LEFT JOIN amounts a ON a.customer = c.id
+            GROUP BY c.id, c.creditlimit""";
+    private static final String ORDER_TOTAL = "SELECT round(coalesce(sum(quantity_ordered * price_each), 0) * 100)::bigint "
+            + "FROM orderdetails WHERE order_number = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ConcurrentHashMap<Long, Account> accounts = new ConcurrentHashMap<>();
+    // Numbers every applied change, so a reconcile can tell which accounts moved while it counted
+    private final AtomicLong changes = new AtomicLong();
+    private final Object reconciling = new Object();
+    private volatile boolean loaded;
+    private volatile Counter rejections;
+
+    private static final class Account {
+        private volatile long exposure;
+        // Added by transactions that passed the check and haven't finished yet
+        private long reserved;
+        private volatile long limit = NO_LIMIT;
+        private long changedAt;
+    }
+
+    // Throws if the customer already owes more than their credit limit
+    public void checkCredit(Long customerNumber) {
+        checkCredit(customerNumber, 0);
+    }
+
+    // Throws if the customer would owe more than their credit limit once another amount is added
+    public void checkCredit(Long customerNumber, long addedCents) {
+        if (!loaded) {
+            reconcile();
+        }
+        Account account = accounts.get(customerNumber);
+        if (account == null) {
+            return;
+        }
+        synchronized (account) {
+            ensureWithinLimit(customerNumber, account, addedCents);
+        }
+    }
+
+    private void ensureWithinLimit(Long customerNumber, Account account, long addedCents) {
+        long limit = account.limit;
+        long exposure = account.exposure + account.reserved + addedCents;
+        if (limit != NO_LIMIT && exposure > limit) {
+            Counter counter = rejections;
+            if (counter != null) {
+                counter.increment();
+            }
+            throw new CreditLimitExceededException(customerNumber, fromCents(exposure), fromCents(limit));
+        }
+    }
+
+    // Current exposure in currency units, or null for a customer the tracker doesn't know
+    public BigDecimal exposureOf(Long customerNumber) {
+        Account account = accounts.get(customerNumber);
+        return account == null ? null : fromCents(account.exposure);
+    }
+
+    // An order line written or removed; each side only counts if its order isn't cancelled. Called
+    // before the write, and throws if a line added or grown takes its customer over their limit.
+    void lineMoved(Long fromCustomer, String fromStatus, long fromCents,
+                   Long toCustomer, String toStatus, long toCents) {
+        long removed = counts(fromStatus) ? fromCents : 0;
+        long added = counts(toStatus) ? toCents : 0;
+        if (fromCustomer != null && fromCustomer.equals(toCustomer)) {
+            if (added > removed) {
+                reserve(toCustomer, added - removed);
+            } else {
+                afterCommit(() -> add(toCustomer, added - removed));
+            }
+            return;
+        }
+        if (toCustomer != null && added > 0) {
+            reserve(toCustomer, added);
+        }
+        afterCommit(() -> add(fromCustomer, -removed));
+    }
+
+    // Throws if the amount takes the customer over their limit, and otherwise holds it against them
+    // until the transaction ends: it becomes exposure on commit and is released on rollback
+    private void reserve(Long customerNumber, long cents) {
+        if (!loaded) {
+            reconcile();
+        }
+        Account account = accounts.get(customerNumber);
+        if (account == null) {
+            // No limit known until the next reconcile
+            afterCommit(() -> add(customerNumber, cents));
+            return;
+        }
+        boolean transactional = TransactionSynchronizationManager.isSynchronizationActive();
+        synchronized (account) {
+            ensureWithinLimit(customerNumber, account, cents);
+            if (!transactional) {
+                account.exposure += cents;
+                account.changedAt = changes.incrementAndGet();
+                return;
+            }
+            account.reserved += cents;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                synchronized (account) {
+                    account.reserved -= cents;
+                    if (status == STATUS_COMMITTED) {
+                        account.exposure += cents;
+                        account.changedAt = changes.incrementAndGet();
+                    }
+                }
+            }
+        });
+    }
+
+    // An order changing customer or status; called in the writing transaction, before the update
+    void orderMoved(Long orderNumber, Long fromCustomer, String fromStatus, Long toCustomer, String toStatus) {
+        boolean fromCounts = counts(fromStatus);
+        boolean toCounts = counts(toStatus);
+        if (fromCounts == toCounts && (!fromCounts || fromCustomer.equals(toCustomer))) {
+            return;
+        }
+        Long total = jdbcTemplate.queryForObject(ORDER_TOTAL, Long.class, orderNumber);
+        if (total == null || total == 0) {
+            return;
+        }
+        afterCommit(() -> {
+            if (fromCounts) {
+                add(fromCustomer, -total);
+            }
+            if (toCounts) {
+                add(toCustomer, total);
+            }
+        });
+    }
+
+    // A payment added (fromAmount null), changed, or removed (toAmount null)
+    void paymentMoved(Long fromCustomer, BigDecimal fromAmount, Long toCustomer, BigDecimal toAmount) {
+        afterCommit(() -> {
+            if (fromAmount != null) {
+                add(fromCustomer, cents(fromAmount));
+            }
+            if (toAmount != null) {
+                add(toCustomer, -cents(toAmount));
+            }
+        });
+    }
+
+    // Null for a customer without a limit
+    void creditLimitChanged(Long customerNumber, BigDecimal creditLimit) {
+        long limit = creditLimit == null ? NO_LIMIT : cents(creditLimit);
+        afterCommit(() -> {
+            Account account = accounts.computeIfAbsent(customerNumber, id -> new Account());
+            synchronized (account) {
+                account.limit = limit;
+                account.changedAt = changes.incrementAndGet();
+            }
+        });
+    }
+
+    void customerRemoved(Long customerNumber) {
+        afterCommit(() -> accounts.remove(customerNumber));
+    }
+
+    private static boolean counts(String status) {
+        return status != null && !OrderStatus.CANCELLED.label().equals(status);
+    }
+
+    private void add(Long customerNumber, long cents) {
+        if (customerNumber == null || cents == 0) {
+            return;
+        }
+        Account account = accounts.computeIfAbsent(customerNumber, id -> new Account());
+        synchronized (account) {
+            account.exposure += cents;
+            account.changedAt = changes.incrementAndGet();
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    // Also runs at startup. Until the first one finishes, accounts only hold the changes made so
+    // far, so the counted figures replace them outright.
+    @Scheduled(fixedDelayString = "${ocs.credit.reconcile-interval:5m}", scheduler = SchedulingConfig.BACKGROUND)
+    public void reconcile() {
+        synchronized (reconciling) {
+            long started = System.nanoTime();
+            long since = changes.get();
+            boolean initial = !loaded;
+            Set<Long> seen = new HashSet<>();
+            try {
+                String cancelled = OrderStatus.CANCELLED.label();
+                jdbcTemplate.query(EXPOSURES, rs -> {
+                    Long id = rs.getLong("id");
+                    long limit = rs.getLong("credit_limit");
+                    if (rs.wasNull()) {
+                        limit = NO_LIMIT;
+                    }
+                    long exposure = rs.getLong("exposure");
+                    seen.add(id);
+                    Account account = accounts.computeIfAbsent(id, key -> new Account());
+                    synchronized (account) {
+                        if (initial || account.changedAt <= since) {
+                            account.exposure = exposure;
+                            account.limit = limit;
+                        }
+                    }
+                }, cancelled, cancelled);
+            } catch (DataAccessException e) {
+                log.warn("Reconciling credit exposure failed: {}", e.getMessage());
+                return;
+            }
+            // Customers deleted elsewhere
+            accounts.entrySet().removeIf(entry -> !seen.contains(entry.getKey()) && entry.getValue().changedAt <= since);
+            loaded = true;
+            log.debug("Reconciled credit exposure of {} customers in {} ms", seen.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        }
+    }
+
+    static long cents(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("ocs.credit.customers", accounts, ConcurrentHashMap::size)
+                .description("Customers whose credit exposure is tracked in memory")
+                .register(registry);
+        rejections = Counter.builder("ocs.credit.rejections")
+                .description("Orders and order lines refused because the customer would be over their credit limit")
+                .register(registry);
+    }
+}
@@ -1,6 +1,7 @@
 package com.team.onlinecatalogsystem.service;
 
 import com.team.onlinecatalogsystem.model.Customer;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -10,6 +11,7 @@ public interface CustomerServiceI {
     Optional<Customer> getCustomerById(Long id);
     List<Customer> getCustomersByCity(String city);
     List<Customer> getCustomersByCountry(String country);
+    LookupResult<Long, Customer> lookupCustomersById(Collection<Long> ids);
     Customer updateCustomer(Long id, Customer customer);
     void deleteCustomer(Long id);
 }
\ No newline at end of file
@@ -3,9 +3,11 @@ package com.team.onlinecatalogsystem.service;
 import com.team.onlinecatalogsystem.model.Customer;
 import com.team.onlinecatalogsystem.repository.CustomerRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,32 +16,51 @@ import java.util.Optional;
 @Transactional
 public class CustomerServiceImpl implements CustomerServiceI {
     private final CustomerRepository customerRepository;
+    private final ChangeRecorder changeRecorder;
+    private final ObjectProvider<CreditExposureTracker> credit;
 
     @Override
     public Customer addCustomer(Customer customer) {
-        return customerRepository.save(customer);
+        Customer saved = customerRepository.save(customer);
+        credit.ifAvailable(tracker -> tracker.creditLimitChanged(saved.getId(), saved.getCreditLimit()));
+        changeRecorder.inserted(ChangeType.CUSTOMER, saved.getId());
+        return saved;
     }
 
     @Override
+    @Coalesced
+    @Transactional(readOnly = true)
     public List<Customer> getAllCustomers() {
         return customerRepository.findAll();
     }
 
     @Override
+    @Coalesced
+    @Transactional(readOnly = true)
     public Optional<Customer> getCustomerById(Long id) {
         return customerRepository.findById(id);
     }
 
     @Override
+    @Coalesced
+    @Transactional(readOnly = true)
     public List<Customer> getCustomersByCity(String city) {
         return customerRepository.findByCity(city);
     }
 
     @Override
+    @Coalesced
+    @Transactional(readOnly = true)
     public List<Customer> getCustomersByCountry(String country) {
         return customerRepository.findByCountry(country);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public LookupResult<Long, Customer> lookupCustomersById(Collection<Long> ids) {
+        return LookupResult.resolve(LookupResult.distinctKeys(ids), customerRepository::findAllById, Customer::getId);
+    }
+
     @Override
     public Customer updateCustomer(Long id, Customer customer) {
         return customerRepository.findById(id)
@@ -56,7 +77,10 @@ public class CustomerServiceImpl implements CustomerServiceI {
                     existingCustomer.setCountry(customer.getCountry());
                     existingCustomer.setSalesRepEmployeeNumber(customer.getSalesRepEmployeeNumber());
                     existingCustomer.setCreditLimit(customer.getCreditLimit());
-                    return customerRepository.save(existingCustomer);
+                    Customer saved = customerRepository.save(existingCustomer);
+                    credit.ifAvailable(tracker -> tracker.creditLimitChanged(id, saved.getCreditLimit()));
+                    changeRecorder.updated(ChangeType.CUSTOMER, id);
+                    return saved;
                 })
                 .orElseThrow(() -> new RuntimeException("Customer with ID " + id + " not found"));
     }
@@ -64,5 +88,7 @@ public class CustomerServiceImpl implements CustomerServiceI {
     @Override
     public void deleteCustomer(Long id) {
         customerRepository.deleteById(id);
+        credit.ifAvailable(tracker -> tracker.customerRemoved(id));
+        changeRecorder.deleted(ChangeType.CUSTOMER, id);
     }
 }
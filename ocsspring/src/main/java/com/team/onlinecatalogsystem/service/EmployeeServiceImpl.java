@@ -14,28 +14,39 @@ import java.util.Optional;
 @Transactional
 public class EmployeeServiceImpl implements EmployeeServiceI {
     private final EmployeeRepository employeeRepository;
+    private final ChangeRecorder changeRecorder;
 
     @Override
     public Employee addEmployee(Employee employee) {
-        return employeeRepository.save(employee);
+        Employee saved = employeeRepository.save(employee);
+        changeRecorder.inserted(ChangeType.EMPLOYEE, saved.getId());
+        return saved;
     }
 
     @Override
+    @Coalesced
+    @Transactional(readOnly = true)
     public List<Employee> getAllEmployees() {
         return employeeRepository.findAll();
     }
 
     @Override
+    @Coalesced
+    @Transactional(readOnly = true)
     public Optional<Employee> getEmployeeById(Long id) {
         return employeeRepository.findById(id);
     }
 
     @Override
+    @Coalesced
+    @Transactional(readOnly = true)
     public Optional<Employee> getEmployeeByEmail(String email) {
         return employeeRepository.findByEmail(email);
     }
 
     @Override
+    @Coalesced
+    @Transactional(readOnly = true)
     public List<Employee> getEmployeesByOfficeCode(String officeCode) {
         return employeeRepository.findByOfficeCode(officeCode);
     }
@@ -51,7 +62,9 @@ public class EmployeeServiceImpl implements EmployeeServiceI {
                     existingEmployee.setOfficeCode(employee.getOfficeCode());
                     existingEmployee.setReportsTo(employee.getReportsTo());
                     existingEmployee.setJobTitle(employee.getJobTitle());
-                    return employeeRepository.save(existingEmployee);
+                    Employee saved = employeeRepository.save(existingEmployee);
+                    changeRecorder.updated(ChangeType.EMPLOYEE, id);
+                    return saved;
                 })
                 .orElseThrow(() -> new RuntimeException("Employee with ID " + id + " not found"));
     }
@@ -59,5 +72,6 @@ public class EmployeeServiceImpl implements EmployeeServiceI {
     @Override
     public void deleteEmployee(Long id) {
         employeeRepository.deleteById(id);
+        changeRecorder.deleted(ChangeType.EMPLOYEE, id);
     }
 }
@@ -0,0 +1,60 @@
+package com.team.onlinecatalogsystem.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Result of a batch lookup: every requested key that resolved, in request order, and the keys
+ * that did not, so callers never have to diff the two lists themselves.
+ */
+public record LookupResult<K, V>(Map<K, V> found, List<K> missing) {
+    // Keys per request; more than this should be paged by the caller
+    public static final int MAX_KEYS = 1000;
+
+    // Keys per IN query; with in_clause_parameter_padding the statement shapes stay few
+    static final int CHUNK_SIZE = 500;
+
+    // Distinct non-null keys in request order
+    public static <K> List<K> distinctKeys(Collection<K> keys) {
+        LinkedHashSet<K> distinct = new LinkedHashSet<>();
+        for (K key : keys) {
+            if (key != null) {
+                distinct.add(key);
+            }
+        }
+        return new ArrayList<>(distinct);
+    }
+
+    // Resolves the keys with one IN query per chunk and sorts the rows into hits and misses
+    static <K, V> LookupResult<K, V> resolve(List<K> keys, Function<List<K>, List<V>> query, Function<V, K> keyOf) {
+        Map<K, V> rows = new LinkedHashMap<>();
+        for (int from = 0; from < keys.size(); from += CHUNK_SIZE) {
+            for (V row : query.apply(keys.subList(from, Math.min(keys.size(), from + CHUNK_SIZE)))) {
+                rows.put(keyOf.apply(row), row);
+            }
+        }
+        Map<K, V> found = new LinkedHashMap<>();
+        List<K> missing = new ArrayList<>();
+        for (K key : keys) {
+            V row = rows.get(key);
+            if (row != null) {
+                found.put(key, row);
+            } else {
+                missing.add(key);
+            }
+        }
+        return new LookupResult<>(Collections.unmodifiableMap(found), Collections.unmodifiableList(missing));
+    }
+
+    public LookupResult {
+        Objects.requireNonNull(found);
+        Objects.requireNonNull(missing);
+    }
+}
@@ -14,28 +14,39 @@ import java.util.Optional;
 @Transactional
 public class OfficeServiceImpl implements OfficeServiceI {
     private final OfficeRepository officeRepository;
+    private final ChangeRecorder changeRecorder;
 
     @Override
     public Office addOffice(Office office) {
-        return officeRepository.save(office);
+        Office saved = officeRepository.save(office);
+        changeRecorder.inserted(ChangeType.OFFICE, saved.getId());
+        return saved;
     }
 
     @Override
+    @Coalesced
+    @Transactional(readOnly = true)
     public List<Office> getAllOffices() {
         return officeRepository.findAll();
     }
 
     @Override
+    @Coalesced
+    @Transactional(readOnly = true)
     public Optional<Office> getOfficeById(Long id) {
         return officeRepository.findById(id);
     }
 
     @Override
+    @Coalesced
+    @Transactional(readOnly = true)
     public List<Office> getOfficesByCity(String city) {
         return officeRepository.findByCity(city);
     }
 
     @Override
+    @Coalesced
+    @Transactional(readOnly = true)
     public List<Office> getOfficesByCountry(String country) {
         return officeRepository.findByCountry(country);
     }
@@ -52,7 +63,9 @@ public class OfficeServiceImpl implements OfficeServiceI {
                     existingOffice.setCountry(office.getCountry());
                     existingOffice.setPostalCode(office.getPostalCode());
                     existingOffice.setTerritory(office.getTerritory());
-                    return officeRepository.save(existingOffice);
+                    Office saved = officeRepository.save(existingOffice);
+                    changeRecorder.updated(ChangeType.OFFICE, id);
+                    return saved;
                 })
                 .orElseThrow(() -> new RuntimeException("Office with ID " + id + " not found"));
     }
@@ -60,5 +73,6 @@ public class OfficeServiceImpl implements OfficeServiceI {
     @Override
     public void deleteOffice(Long id) {
         officeRepository.deleteById(id);
+        changeRecorder.deleted(ChangeType.OFFICE, id);
     }
 }
\ No newline at end of file
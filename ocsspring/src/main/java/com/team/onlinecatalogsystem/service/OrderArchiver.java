@@ -0,0 +1,191 @@
+package com.team.onlinecatalogsystem.service;
+
+import com.team.onlinecatalogsystem.config.ArchiveProperties;
+import com.team.onlinecatalogsystem.config.SchedulingConfig;
+import com.team.onlinecatalogsystem.model.OrderStatus;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * Moves orders shipped long ago, with their lines, out of the hot tables into the archive tables
+ * (V11), and payments of the same age with them. Each batch is one statement in one transaction,
+ * batches are spaced out, and a run gives up after max-run-time, so a large backlog is worked off
+ * over several runs instead of loading the database. Archived orders are still found by
+ * {@link OrderServiceI#getOrderById}. Instances running side by side take disjoint batches. Each
+ * row moved is recorded in the change log as an update, so change feed readers and incremental
+ * snapshot exports see it become archived.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class OrderArchiver implements MeterBinder {
+    // Labels are constants, so they're spliced into the query rather than bound
+    private static final String OPEN_STATUSES = Arrays.stream(OrderStatus.values())
+            .filter(OrderStatus::isOpen)
+            .map(status -> "'" + status.label() + "'")
+            .collect(Collectors.joining(", "));
+    // Lines and orders leave in the same statement, so the foreign key between them holds throughout
+    private static final String ARCHIVE_ORDERS = "WITH picked AS (SELECT id, orderdate FROM orders "
+            + "WHERE orderdate < ? AND shippeddate IS NOT NULL AND status NOT IN (" + OPEN_STATUSES + ") "
+            + "ORDER BY orderdate, id LIMIT ? FOR UPDATE SKIP LOCKED), "
+            + "lines AS (DELETE FROM orderdetails d USING picked p WHERE d.order_number = p.id AND d.orderdate = p.orderdate "
+            + "RETURNING d.id, d.order_number, d.orderdate, d.product_code, d.quantity_ordered, d.price_each, d.order_line_number), "
+            + "archived_lines AS (INSERT INTO orderdetails_archive (id, order_number, orderdate, product_code, quantity_ordered, "
+            + "price_each, order_line_number) SELECT * FROM lines RETURNING id), "
+            + "moved AS (DELETE FROM orders o USING picked p WHERE o.id = p.id AND o.orderdate = p.orderdate "
+            + "RETURNING o.id, o.orderdate, o.requireddate, o.shippeddate, o.status, o.comments, o.customernumber, o.claimedby, o.claimeduntil), "
+            + "archived AS (INSERT INTO orders_archive (id, orderdate, requireddate, shippeddate, status, comments, customernumber, "
+            + "claimedby, claimeduntil) SELECT * FROM moved RETURNING id) "
+            + "SELECT ARRAY(SELECT id FROM archived), ARRAY(SELECT id FROM archived_lines)";
+    private static final String ARCHIVE_PAYMENTS = "WITH picked AS (SELECT id, payment_date FROM payments "
+            + "WHERE payment_date < ? ORDER BY payment_date, id LIMIT ? FOR UPDATE SKIP LOCKED), "
+            + "moved AS (DELETE FROM payments p USING picked k WHERE p.id = k.id AND p.payment_date = k.payment_date "
+            + "RETURNING p.id, p.customer_number, p.check_number, p.payment_date, p.amount), "
+            + "archived AS (INSERT INTO payments_archive (id, customer_number, check_number, payment_date, amount) "
+            + "SELECT * FROM moved RETURNING id) "
+            + "SELECT ARRAY(SELECT id FROM archived)";
+    // Partitioned tables are sized by adding up their partitions; the tree of a plain table is empty
+    private static final String TABLE_BYTES = "SELECT COALESCE((SELECT sum(pg_total_relation_size(relid)) "
+            + "FROM pg_partition_tree(?::regclass)), pg_total_relation_size(?::regclass))";
+    private static final List<String> TABLES = List.of("orders", "orderdetails", "payments",
+            "orders_archive", "orderdetails_archive", "payments_archive");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ArchiveProperties properties;
+    private final OrderStatusCounters statusCounters;
+    private final ChangeRecorder changeRecorder;
+    private final Map<String, LongAdder> archived = Map.of("orders", new LongAdder(),
+            "orderdetails", new LongAdder(), "payments", new LongAdder());
+    private final Map<String, Long> tableBytes = new ConcurrentHashMap<>();
+    private volatile Timer batchTimer;
+
+    @Scheduled(initialDelayString = "${ocs.archive.interval:6h}", fixedDelayString = "${ocs.archive.interval:6h}",
+            scheduler = SchedulingConfig.BACKGROUND)
+    public void archive() {
+        LocalDate cutoff = LocalDate.now().minus(properties.getOlderThan());
+        long deadline = System.nanoTime() + properties.getMaxRunTime().toNanos();
+        long started = System.nanoTime();
+        long orders = inBatches(deadline, () -> archiveOrders(cutoff));
+        long payments = properties.isIncludePayments() ? inBatches(deadline, () -> archivePayments(cutoff)) : 0;
+        if (orders > 0 || payments > 0) {
+            // The status counters count the hot table
+            statusCounters.reconcile();
+            log.info("Archived {} orders and {} payments dated before {} in {} ms", orders, payments, cutoff,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        }
+        refreshSizes();
+    }
+
+    // Table sizes for the gauges; measured here rather than on every scrape
+    @Scheduled(fixedDelayString = "${ocs.archive.size-refresh-interval:5m}", scheduler = SchedulingConfig.BACKGROUND)
+    public void refreshSizes() {
+        for (String table : TABLES) {
+            try {
+                tableBytes.put(table, jdbcTemplate.queryForObject(TABLE_BYTES, Long.class, table, table));
+            } catch (DataAccessException e) {
+                log.warn("Couldn't measure {}: {}", table, e.getMessage());
+            }
+        }
+    }
+
+    private long inBatches(long deadline, IntSupplier batch) {
+        long total = 0;
+        while (true) {
+            int moved = batch.getAsInt();
+            total += moved;
+            if (moved < properties.getBatchSize() || System.nanoTime() > deadline) {
+                return total;
+            }
+            try {
+                Thread.sleep(properties.getPause().toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return total;
+            }
+        }
+    }
+
+    private int archiveOrders(LocalDate cutoff) {
+        long started = System.nanoTime();
+        int[] moved = transactionTemplate.execute(status -> {
+            Long[][] ids = jdbcTemplate.queryForObject(ARCHIVE_ORDERS,
+                    (rs, n) -> new Long[][]{ids(rs, 1), ids(rs, 2)}, cutoff, properties.getBatchSize());
+            recordMoved(ChangeType.ORDER, ids[0]);
+            recordMoved(ChangeType.ORDER_DETAIL, ids[1]);
+            return new int[]{ids[0].length, ids[1].length};
+        });
+        archived.get("orders").add(moved[0]);
+        archived.get("orderdetails").add(moved[1]);
+        timeBatch(started);
+        return moved[0];
+    }
+
+    private int archivePayments(LocalDate cutoff) {
+        long started = System.nanoTime();
+        Integer moved = transactionTemplate.execute(status -> {
+            // Keeps the archived check numbers reserved; see ocs_register_check_number
+            jdbcTemplate.execute("SET LOCAL ocs.archiving = 'on'");
+            Long[] ids = jdbcTemplate.queryForObject(ARCHIVE_PAYMENTS, (rs, n) -> ids(rs, 1), cutoff, properties.getBatchSize());
+            recordMoved(ChangeType.PAYMENT, ids);
+            return ids.length;
+        });
+        archived.get("payments").add(moved);
+        timeBatch(started);
+        return moved;
+    }
+
+    private static Long[] ids(ResultSet rs, int column) throws SQLException {
+        return (Long[]) rs.getArray(column).getArray();
+    }
+
+    // Written with the batch's commit, under the change log's ordering lock
+    private void recordMoved(ChangeType type, Long[] ids) {
+        for (Long id : ids) {
+            changeRecorder.updated(type, id);
+        }
+    }
+
+    private void timeBatch(long started) {
+        Timer timer = batchTimer;
+        if (timer != null) {
+            timer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        archived.forEach((table, count) -> FunctionCounter.builder("ocs.archive.rows", count, LongAdder::sum)
+                .description("Rows moved to the archive tables")
+                .tag("table", table)
+                .register(registry));
+        TABLES.forEach(table -> Gauge.builder("ocs.archive.table.size", tableBytes, sizes -> sizes.getOrDefault(table, 0L))
+                .description("Size of the hot and archive tables, indexes included")
+                .baseUnit("bytes")
+                .tag("table", table)
+                .register(registry));
+        batchTimer = Timer.builder("ocs.archive.batch")
+                .description("Time to archive one batch")
+                .register(registry);
+    }
+}
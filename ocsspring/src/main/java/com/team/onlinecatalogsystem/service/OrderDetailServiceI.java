@@ -1,6 +1,7 @@
 package com.team.onlinecatalogsystem.service;
 
 import com.team.onlinecatalogsystem.model.OrderDetail;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
@@ -8,8 +9,9 @@ public interface OrderDetailServiceI {
     OrderDetail addOrderDetail(OrderDetail orderDetail);
     List<OrderDetail> getAllOrderDetails();
     Optional<OrderDetail> getOrderDetailById(Long id);
-    List<OrderDetail> getOrderDetailsByOrderNumber(String orderNumber);
+    List<OrderDetail> getOrderDetailsByOrderNumber(Long orderNumber);
     List<OrderDetail> getOrderDetailsByProductCode(String productCode);
+    List<OrderDetail> getOrderDetailsBetween(LocalDate from, LocalDate to);
     OrderDetail updateOrderDetail(Long id, OrderDetail orderDetail);
     void deleteOrderDetail(Long id);
 }
@@ -1,11 +1,17 @@
 package com.team.onlinecatalogsystem.service;
 
+import com.team.onlinecatalogsystem.model.Order;
 import com.team.onlinecatalogsystem.model.OrderDetail;
 import com.team.onlinecatalogsystem.repository.OrderDetailRepository;
+import com.team.onlinecatalogsystem.repository.OrderRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,48 +20,101 @@ import java.util.Optional;
 @Transactional
 public class OrderDetailServiceImpl implements OrderDetailServiceI {
     private final OrderDetailRepository orderDetailRepository;
+    private final OrderRepository orderRepository;
+    private final ChangeRecorder changeRecorder;
+    private final ObjectProvider<CoPurchaseIndex> coPurchases;
+    private final ObjectProvider<CreditExposureTracker> credit;
 
     @Override
     public OrderDetail addOrderDetail(OrderDetail orderDetail) {
-        return orderDetailRepository.save(orderDetail);
+        Order order = orderOf(orderDetail.getOrderNumber());
+        orderDetail.setOrderdate(order.getOrderdate());
+        credit.ifAvailable(tracker -> tracker.lineMoved(null, null, 0,
+                order.getCustomernumber(), order.getStatus(), valueOf(orderDetail)));
+        coPurchases.ifAvailable(index -> index.lineAdded(orderDetail.getOrderNumber(), orderDetail.getProductCode()));
+        OrderDetail saved = orderDetailRepository.save(orderDetail);
+        changeRecorder.inserted(ChangeType.ORDER_DETAIL, saved.getId());
+        return saved;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<OrderDetail> getAllOrderDetails() {
         return orderDetailRepository.findAll();
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Optional<OrderDetail> getOrderDetailById(Long id) {
         return orderDetailRepository.findById(id);
     }
 
     @Override
-    public List<OrderDetail> getOrderDetailsByOrderNumber(String orderNumber) {
-        return orderDetailRepository.findByOrderNumber(orderNumber);
+    @Transactional(readOnly = true)
+    public List<OrderDetail> getOrderDetailsByOrderNumber(Long orderNumber) {
+        List<OrderDetail> lines = orderDetailRepository.findByOrderNumber(orderNumber);
+        // An archived order's lines were archived with it
+        return lines.isEmpty() ? orderDetailRepository.findArchivedByOrderNumber(orderNumber) : lines;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<OrderDetail> getOrderDetailsByProductCode(String productCode) {
         return orderDetailRepository.findByProductCode(productCode);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<OrderDetail> getOrderDetailsBetween(LocalDate from, LocalDate to) {
+        return orderDetailRepository.findByOrderdateBetween(from, to, Sort.by("orderdate", "orderNumber", "orderLineNumber"));
+    }
+
     @Override
     public OrderDetail updateOrderDetail(Long id, OrderDetail orderDetail) {
         return orderDetailRepository.findById(id)
                 .map(existingOrderDetail -> {
+                    Order from = orderOf(existingOrderDetail.getOrderNumber());
+                    Order to = orderOf(orderDetail.getOrderNumber());
+                    credit.ifAvailable(tracker -> tracker.lineMoved(from.getCustomernumber(), from.getStatus(),
+                            valueOf(existingOrderDetail), to.getCustomernumber(), to.getStatus(), valueOf(orderDetail)));
+                    coPurchases.ifAvailable(index -> index.lineMoved(existingOrderDetail.getOrderNumber(),
+                            existingOrderDetail.getProductCode(), orderDetail.getOrderNumber(), orderDetail.getProductCode()));
                     existingOrderDetail.setOrderNumber(orderDetail.getOrderNumber());
+                    existingOrderDetail.setOrderdate(to.getOrderdate());
                     existingOrderDetail.setProductCode(orderDetail.getProductCode());
                     existingOrderDetail.setQuantityOrdered(orderDetail.getQuantityOrdered());
                     existingOrderDetail.setPriceEach(orderDetail.getPriceEach());
                     existingOrderDetail.setOrderLineNumber(orderDetail.getOrderLineNumber());
-                    return orderDetailRepository.save(existingOrderDetail);
+                    OrderDetail saved = orderDetailRepository.save(existingOrderDetail);
+                    changeRecorder.updated(ChangeType.ORDER_DETAIL, id);
+                    return saved;
                 })
                 .orElseThrow(() -> new RuntimeException("OrderDetail with ID " + id + " not found"));
     }
 
     @Override
     public void deleteOrderDetail(Long id) {
+        // deleteById loads the line anyway; this finds it in the persistence context
+        orderDetailRepository.findById(id).ifPresent(line -> {
+            coPurchases.ifAvailable(index -> index.lineRemoved(line.getOrderNumber(), line.getProductCode()));
+            credit.ifAvailable(tracker -> orderRepository.findById(line.getOrderNumber()).ifPresent(order ->
+                    tracker.lineMoved(order.getCustomernumber(), order.getStatus(), valueOf(line), null, null, 0)));
+        });
         orderDetailRepository.deleteById(id);
+        changeRecorder.deleted(ChangeType.ORDER_DETAIL, id);
+    }
+
+    // A line lives in its order's year partition, so it takes the order's date
+    private Order orderOf(Long orderNumber) {
+        return orderRepository.findById(orderNumber)
+                .orElseThrow(() -> new RuntimeException("Order with ID " + orderNumber + " not found"));
+    }
+
+    // In cents; a line missing its price fails its insert anyway
+    private static long valueOf(OrderDetail line) {
+        if (line.getPriceEach() == null) {
+            return 0;
+        }
+        return CreditExposureTracker.cents(line.getPriceEach().multiply(BigDecimal.valueOf(line.getQuantityOrdered())));
     }
 }
@@ -1,15 +1,20 @@
 package com.team.onlinecatalogsystem.service;
 
 import com.team.onlinecatalogsystem.model.Order;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface OrderServiceI {
     Order addOrder(Order order);
     List<Order> getAllOrders();
     Optional<Order> getOrderById(Long id);
-    List<Order> getOrdersByCustomerNumber(String customernumber);
+    List<Order> getOrdersByCustomerNumber(Long customernumber);
     List<Order> getOrdersByStatus(String status);
+    List<Order> getOrdersBetween(LocalDate from, LocalDate to);
+    Map<String, Long> getStatusCounts();
+    List<Order> claimOrders(String status, String worker, int limit);
     Order updateOrder(Long id, Order order);
     void deleteOrder(Long id);
 }
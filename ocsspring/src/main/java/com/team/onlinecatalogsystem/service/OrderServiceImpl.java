@@ -1,12 +1,25 @@
 package com.team.onlinecatalogsystem.service;
 
+import com.team.onlinecatalogsystem.config.OrderQueueProperties;
+import com.team.onlinecatalogsystem.exception.InvalidOrderStatusException;
+import com.team.onlinecatalogsystem.exception.InvalidStatusTransitionException;
 import com.team.onlinecatalogsystem.model.Order;
+import com.team.onlinecatalogsystem.model.OrderStatus;
+import com.team.onlinecatalogsystem.repository.OrderDetailRepository;
 import com.team.onlinecatalogsystem.repository.OrderRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
 @RequiredArgsConstructor
@@ -14,49 +27,129 @@ import java.util.Optional;
 @Transactional
 public class OrderServiceImpl implements OrderServiceI {
     private final OrderRepository orderRepository;
+    private final OrderDetailRepository orderDetailRepository;
+    private final ChangeRecorder changeRecorder;
+    private final OrderStatusCounters statusCounters;
+    private final OrderQueueProperties queueProperties;
+    private final ObjectProvider<CreditExposureTracker> credit;
 
     @Override
     public Order addOrder(Order order) {
-        return orderRepository.save(order);
+        OrderStatus status = requireStatus(order.getStatus());
+        order.setStatus(status.label());
+        credit.ifAvailable(tracker -> tracker.checkCredit(order.getCustomernumber()));
+        Order saved = orderRepository.save(order);
+        statusCounters.moved(null, status);
+        changeRecorder.inserted(ChangeType.ORDER, saved.getId());
+        return saved;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Order> getAllOrders() {
         return orderRepository.findAll();
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Optional<Order> getOrderById(Long id) {
-        return orderRepository.findById(id);
+        // Old shipped orders may have been archived
+        return orderRepository.findById(id).or(() -> orderRepository.findArchivedById(id));
     }
 
     @Override
-    public List<Order> getOrdersByCustomerNumber(String customernumber) {
+    @Transactional(readOnly = true)
+    public List<Order> getOrdersByCustomerNumber(Long customernumber) {
         return orderRepository.findByCustomernumber(customernumber);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Order> getOrdersByStatus(String status) {
         return orderRepository.findByStatus(status);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<Order> getOrdersBetween(LocalDate from, LocalDate to) {
+        return orderRepository.findByOrderdateBetween(from, to, Sort.by("orderdate", "id"));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Long> getStatusCounts() {
+        return statusCounters.snapshot();
+    }
+
+    @Override
+    public List<Order> claimOrders(String status, String worker, int limit) {
+        OrderStatus queue = requireStatus(status);
+        if (!queue.isOpen()) {
+            throw new InvalidOrderStatusException(queue.label() + " orders aren't a work queue and can't be claimed");
+        }
+        List<Long> ids = orderRepository.findClaimableIds(queue.label(), Math.max(1, Math.min(limit, queueProperties.getMaxClaim())));
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        orderRepository.claim(ids, worker, Instant.now().plus(queueProperties.getClaimLease()));
+        List<Order> claimed = new ArrayList<>(orderRepository.findAllById(ids));
+        claimed.sort(Comparator.comparing(Order::getOrderdate).thenComparing(Order::getId));
+        return claimed;
+    }
+
     @Override
     public Order updateOrder(Long id, Order order) {
         return orderRepository.findById(id)
                 .map(existingOrder -> {
+                    // Rows from before the state machine may hold other labels; let them move anywhere once
+                    OrderStatus from = OrderStatus.fromLabel(existingOrder.getStatus());
+                    OrderStatus to = requireStatus(order.getStatus());
+                    if (from != null && !from.canMoveTo(to)) {
+                        throw new InvalidStatusTransitionException(id, from, to);
+                    }
+                    credit.ifAvailable(tracker -> tracker.orderMoved(id, existingOrder.getCustomernumber(),
+                            existingOrder.getStatus(), order.getCustomernumber(), to.label()));
+                    boolean dateChanged = !Objects.equals(existingOrder.getOrderdate(), order.getOrderdate());
                     existingOrder.setOrderdate(order.getOrderdate());
                     existingOrder.setRequireddate(order.getRequireddate());
                     existingOrder.setShippeddate(order.getShippeddate());
-                    existingOrder.setStatus(order.getStatus());
+                    existingOrder.setStatus(to.label());
                     existingOrder.setComments(order.getComments());
                     existingOrder.setCustomernumber(order.getCustomernumber());
-                    return orderRepository.save(existingOrder);
+                    if (from != to) {
+                        // A claim is on the order in its old queue
+                        existingOrder.setClaimedby(null);
+                        existingOrder.setClaimeduntil(null);
+                        statusCounters.moved(from, to);
+                    }
+                    Order saved = orderRepository.save(existingOrder);
+                    changeRecorder.updated(ChangeType.ORDER, id);
+                    if (dateChanged) {
+                        // The foreign key cascades the date onto the lines in the database, past the service
+                        for (Long line : orderDetailRepository.findIdsByOrderNumber(id)) {
+                            changeRecorder.updated(ChangeType.ORDER_DETAIL, line);
+                            changeRecorder.fieldsChanged(ChangeType.ORDER_DETAIL, line, List.of("orderdate"));
+                        }
+                    }
+                    return saved;
                 })
                 .orElseThrow(() -> new RuntimeException("Order with ID " + id + " not found"));
     }
 
     @Override
     public void deleteOrder(Long id) {
-        orderRepository.deleteById(id);
+        orderRepository.findById(id).ifPresent(existingOrder -> {
+            orderRepository.delete(existingOrder);
+            statusCounters.moved(OrderStatus.fromLabel(existingOrder.getStatus()), null);
+        });
+        changeRecorder.deleted(ChangeType.ORDER, id);
+    }
+
+    private static OrderStatus requireStatus(String label) {
+        OrderStatus status = OrderStatus.fromLabel(label);
+        if (status == null) {
+            throw new InvalidOrderStatusException("Unknown order status '" + label + "'");
+        }
+        return status;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,142 @@
+package com.team.onlinecatalogsystem.service;
+
+import com.team.onlinecatalogsystem.config.SchedulingConfig;
+import com.team.onlinecatalogsystem.model.OrderStatus;
+import com.team.onlinecatalogsystem.repository.OrderRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Orders per status, kept in memory so dashboards and workers can read queue depths without a
+ * count query. Writes through OrderServiceImpl adjust a {@link LongAdder} per status once their
+ * transaction commits, so concurrent order writes never contend on one counter. Writes made
+ * elsewhere (other instances, SQL) are picked up when the counts are reconciled with the table.
+ * <p>
+ * A write's commit can land before the reconcile's count query and its adjustment after it, so a
+ * reconcile leaves alone any status with a move still pending or applied since it started; those
+ * are corrected by the next run, as CreditExposureTracker does for its accounts.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderStatusCounters implements MeterBinder {
+    private final OrderRepository orderRepository;
+    private final Map<OrderStatus, Count> counts = initialCounts();
+    // Numbers every applied move, so a reconcile can tell which statuses moved while it counted
+    private final AtomicLong changes = new AtomicLong();
+    private volatile boolean loaded;
+
+    private static final class Count {
+        private final LongAdder orders = new LongAdder();
+        // Moves of transactions that haven't completed yet, registered before they commit
+        private final AtomicInteger pending = new AtomicInteger();
+        private volatile long changedAt;
+    }
+
+    private static Map<OrderStatus, Count> initialCounts() {
+        Map<OrderStatus, Count> counts = new EnumMap<>(OrderStatus.class);
+        for (OrderStatus status : OrderStatus.values()) {
+            counts.put(status, new Count());
+        }
+        return counts;
+    }
+
+    // An order entering (from null), leaving (to null) or changing status; applied after commit
+    void moved(OrderStatus from, OrderStatus to) {
+        if (from == to) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(from, to);
+            return;
+        }
+        pending(from, 1);
+        pending(to, 1);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply(from, to);
+            }
+
+            // After afterCommit, so a reconcile never sees the move neither pending nor applied
+            @Override
+            public void afterCompletion(int status) {
+                pending(from, -1);
+                pending(to, -1);
+            }
+        });
+    }
+
+    private void pending(OrderStatus status, int delta) {
+        if (status != null) {
+            counts.get(status).pending.addAndGet(delta);
+        }
+    }
+
+    private void apply(OrderStatus from, OrderStatus to) {
+        if (from != null) {
+            Count count = counts.get(from);
+            count.orders.decrement();
+            count.changedAt = changes.incrementAndGet();
+        }
+        if (to != null) {
+            Count count = counts.get(to);
+            count.orders.increment();
+            count.changedAt = changes.incrementAndGet();
+        }
+    }
+
+    public Map<String, Long> snapshot() {
+        if (!loaded) {
+            reconcile();
+        }
+        Map<String, Long> snapshot = new LinkedHashMap<>();
+        counts.forEach((status, count) -> snapshot.put(status.label(), count.orders.sum()));
+        return snapshot;
+    }
+
+    // Adjusts each counter by its difference from the table rather than replacing it. The first
+    // run adjusts every counter, as there is nothing better to show until it does
+    @Scheduled(fixedDelayString = "${ocs.orders.status-counts-reconcile-interval:5m}", scheduler = SchedulingConfig.BACKGROUND)
+    public synchronized void reconcile() {
+        long since = changes.get();
+        Map<OrderStatus, Long> actual = new EnumMap<>(OrderStatus.class);
+        for (Object[] row : orderRepository.countByStatus()) {
+            OrderStatus status = OrderStatus.fromLabel((String) row[0]);
+            if (status == null) {
+                log.warn("{} orders have unknown status '{}'", row[1], row[0]);
+            } else {
+                actual.merge(status, ((Number) row[1]).longValue(), Long::sum);
+            }
+        }
+        counts.forEach((status, count) -> {
+            // Pending is read first: a move stops being pending only after its applied change is numbered
+            if (!loaded || (count.pending.get() == 0 && count.changedAt <= since)) {
+                count.orders.add(actual.getOrDefault(status, 0L) - count.orders.sum());
+            }
+        });
+        loaded = true;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        counts.forEach((status, count) -> Gauge.builder("ocs.orders.status", count.orders, LongAdder::sum)
+                .description("Orders in each status")
+                .tag("status", status.label())
+                .register(registry));
+    }
+}
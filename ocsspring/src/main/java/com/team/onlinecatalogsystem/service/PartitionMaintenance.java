@@ -0,0 +1,119 @@
+package com.team.onlinecatalogsystem.service;
+
+import com.team.onlinecatalogsystem.config.PartitionProperties;
+import com.team.onlinecatalogsystem.config.SchedulingConfig;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps the yearly partitions of orders, orderdetails and payments (V10) ahead of the calendar and
+ * detaches old years for archival. A detached year stays in the database as a standalone table
+ * under its partition name, e.g. orders_y2003, out of every query on the parent; it can be dumped
+ * and dropped, or attached again, at leisure.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class PartitionMaintenance {
+    // orderdetails is partitioned on its order's date, so its years come and go with the orders years
+    private static final List<String> TABLES = List.of("orders", "orderdetails", "payments");
+    private static final Pattern YEAR_PARTITION = Pattern.compile("(orders|orderdetails|payments)_y(\\d{4})");
+
+    private static final String PARTITIONS = "SELECT p.relname, c.relname, pg_get_expr(c.relpartbound, c.oid), "
+            + "GREATEST(c.reltuples, 0)::bigint, pg_total_relation_size(c.oid) FROM pg_inherits i "
+            + "JOIN pg_class c ON c.oid = i.inhrelid JOIN pg_class p ON p.oid = i.inhparent "
+            + "WHERE i.inhparent IN ('orders'::regclass, 'orderdetails'::regclass, 'payments'::regclass) "
+            + "ORDER BY p.relname, c.relname";
+    private static final String IS_PARTITION = "SELECT EXISTS (SELECT 1 FROM pg_inherits "
+            + "WHERE inhrelid = to_regclass(?) AND inhparent = ?::regclass)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PartitionProperties properties;
+    private final TransactionTemplate transactionTemplate;
+
+    public record Partition(String table, String name, String bounds, long estimatedRows, long bytes) {
+    }
+
+    // Also runs at startup. Creating a partition briefly locks its parent and checks the default
+    // partition for rows in the new year, so years are made well before any rows arrive.
+    @Scheduled(fixedDelayString = "${ocs.partitions.maintenance-interval:12h}", scheduler = SchedulingConfig.BACKGROUND)
+    public void maintain() {
+        int thisYear = Year.now().getValue();
+        for (String table : TABLES) {
+            try {
+                Integer created = jdbcTemplate.queryForObject("SELECT ocs_create_year_partitions(?, ?, ?)", Integer.class,
+                        table, thisYear, thisYear + properties.getYearsAhead());
+                if (created != null && created > 0) {
+                    log.info("Created {} yearly partitions of {} through {}", created, table, thisYear + properties.getYearsAhead());
+                }
+                if (Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM " + table + "_default)", Boolean.class))) {
+                    log.warn("{}_default holds rows outside every yearly partition; they're read by every date-range query", table);
+                }
+            } catch (DataAccessException e) {
+                // Most likely another instance creating the same year; the next run catches up
+                log.warn("Partition maintenance of {} failed: {}", table, e.getMessage());
+            }
+        }
+        if (properties.getDetachAfterYears() > 0) {
+            int lastDetached = thisYear - properties.getDetachAfterYears() - 1;
+            for (Partition partition : partitions()) {
+                Matcher year = YEAR_PARTITION.matcher(partition.name());
+                if (year.matches() && !partition.table().equals("orderdetails") && Integer.parseInt(year.group(2)) <= lastDetached) {
+                    log.info("Detached {}", detachYear(partition.table(), Integer.parseInt(year.group(2))));
+                }
+            }
+        }
+    }
+
+    public List<Partition> partitions() {
+        return jdbcTemplate.query(PARTITIONS, (rs, n) -> new Partition(rs.getString(1), rs.getString(2), rs.getString(3),
+                rs.getLong(4), rs.getLong(5)));
+    }
+
+    /**
+     * Detaches one year of orders (with its order lines) or payments. DETACH PARTITION takes an
+     * exclusive lock on the parent, but only for as long as it takes to update the catalog.
+     *
+     * @return the partitions detached; empty if the year was already detached or never had one
+     */
+    public List<String> detachYear(String table, int year) {
+        if (!table.equals("orders") && !table.equals("payments")) {
+            throw new IllegalArgumentException("Expected orders or payments, got " + table);
+        }
+        if (year >= Year.now().getValue()) {
+            throw new IllegalArgumentException("Only years that have ended can be detached");
+        }
+        return transactionTemplate.execute(status -> {
+            List<String> detached = new ArrayList<>();
+            if (table.equals("orders")) {
+                // Lines first: orders can't lose a year that lines still reference
+                String lines = "orderdetails_y" + year;
+                if (detach("orderdetails", lines)) {
+                    jdbcTemplate.execute("ALTER TABLE " + lines + " DROP CONSTRAINT IF EXISTS fk_orderdetails_order");
+                    detached.add(lines);
+                }
+            }
+            if (detach(table, table + "_y" + year)) {
+                detached.add(table + "_y" + year);
+            }
+            return detached;
+        });
+    }
+
+    private boolean detach(String parent, String partition) {
+        if (!Boolean.TRUE.equals(jdbcTemplate.queryForObject(IS_PARTITION, Boolean.class, partition, parent))) {
+            return false;
+        }
+        jdbcTemplate.execute("ALTER TABLE " + parent + " DETACH PARTITION " + partition);
+        return true;
+    }
+}
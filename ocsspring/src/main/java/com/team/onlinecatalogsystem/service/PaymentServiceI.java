@@ -1,6 +1,7 @@
 package com.team.onlinecatalogsystem.service;
 
 import com.team.onlinecatalogsystem.model.Payment;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
@@ -8,7 +9,8 @@ public interface PaymentServiceI {
     Payment addPayment(Payment payment);
     List<Payment> getAllPayments();
     Optional<Payment> getPaymentById(Long id);
-    List<Payment> getPaymentsByCustomerNumber(String customerNumber);
+    List<Payment> getPaymentsByCustomerNumber(Long customerNumber);
+    List<Payment> getPaymentsBetween(LocalDate from, LocalDate to);
     Payment updatePayment(Long id, Payment payment);
     void deletePayment(Long id);
 }
@@ -3,9 +3,12 @@ package com.team.onlinecatalogsystem.service;
 import com.team.onlinecatalogsystem.model.Payment;
 import com.team.onlinecatalogsystem.repository.PaymentRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,42 +17,64 @@ import java.util.Optional;
 @Transactional
 public class PaymentServiceImpl implements PaymentServiceI {
     private final PaymentRepository paymentRepository;
+    private final ChangeRecorder changeRecorder;
+    private final ObjectProvider<CreditExposureTracker> credit;
 
     @Override
     public Payment addPayment(Payment payment) {
-        return paymentRepository.save(payment);
+        Payment saved = paymentRepository.save(payment);
+        credit.ifAvailable(tracker -> tracker.paymentMoved(null, null, saved.getCustomerNumber(), saved.getAmount()));
+        changeRecorder.inserted(ChangeType.PAYMENT, saved.getId());
+        return saved;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Payment> getAllPayments() {
         return paymentRepository.findAll();
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Optional<Payment> getPaymentById(Long id) {
         return paymentRepository.findById(id);
     }
 
     @Override
-    public List<Payment> getPaymentsByCustomerNumber(String customerNumber) {
+    @Transactional(readOnly = true)
+    public List<Payment> getPaymentsByCustomerNumber(Long customerNumber) {
         return paymentRepository.findByCustomerNumber(customerNumber);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<Payment> getPaymentsBetween(LocalDate from, LocalDate to) {
+        return paymentRepository.findByPaymentDateBetween(from, to, Sort.by("paymentDate", "id"));
+    }
+
     @Override
     public Payment updatePayment(Long id, Payment payment) {
         return paymentRepository.findById(id)
                 .map(existingPayment -> {
+                    credit.ifAvailable(tracker -> tracker.paymentMoved(existingPayment.getCustomerNumber(),
+                            existingPayment.getAmount(), payment.getCustomerNumber(), payment.getAmount()));
                     existingPayment.setCustomerNumber(payment.getCustomerNumber());
                     existingPayment.setCheckNumber(payment.getCheckNumber());
                     existingPayment.setPaymentDate(payment.getPaymentDate());
                     existingPayment.setAmount(payment.getAmount());
-                    return paymentRepository.save(existingPayment);
+                    Payment saved = paymentRepository.save(existingPayment);
+                    changeRecorder.updated(ChangeType.PAYMENT, id);
+                    return saved;
                 })
                 .orElseThrow(() -> new RuntimeException("Payment with ID " + id + " not found"));
     }
 
     @Override
     public void deletePayment(Long id) {
+        // deleteById loads the payment anyway; this finds it in the persistence context
+        credit.ifAvailable(tracker -> paymentRepository.findById(id)
+                .ifPresent(payment -> tracker.paymentMoved(payment.getCustomerNumber(), payment.getAmount(), null, null)));
         paymentRepository.deleteById(id);
+        changeRecorder.deleted(ChangeType.PAYMENT, id);
     }
 }
@@ -0,0 +1,199 @@
+package com.team.onlinecatalogsystem.service;
+
+import com.team.onlinecatalogsystem.config.SchedulingConfig;
+import com.team.onlinecatalogsystem.model.Product;
+import com.team.onlinecatalogsystem.repository.ProductRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * The products table held in memory for the {@link ProductIndex}es, each product under a small
+ * int ordinal. A reload numbers the products in product code order; products added since then
+ * take the next ordinals, and a deleted product leaves its ordinal empty until the next reload.
+ * Writes through ProductServiceImpl reach the indexes once their transaction commits; writes made
+ * elsewhere (other instances, SQL) are picked up by the periodic reload. Queries run under a
+ * shared read lock, so a write never shows up half applied.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class ProductCatalog implements MeterBinder {
+    private final ProductRepository productRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectProvider<ProductIndex> indexProvider;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object loading = new Object();
+    private final Long2IntOpenHashMap ordinals = new Long2IntOpenHashMap();
+    private final List<Product> products = new ArrayList<>();
+    private List<ProductIndex> indexes = List.of();
+    private int live;
+    private volatile boolean loaded;
+    // Writes committed while a reload reads the table, applied on top of what it read; guarded by this
+    private Map<Long, Product> duringReload;
+
+    {
+        ordinals.defaultReturnValue(-1);
+    }
+
+    // Called in the writing transaction; the indexes see a copy as it was saved, after commit
+    void saved(Product product) {
+        Product copy = copyOf(product);
+        afterCommit(() -> apply(copy.getId(), copy));
+    }
+
+    void deleted(Long id) {
+        afterCommit(() -> apply(id, null));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private synchronized void apply(Long id, Product product) {
+        if (duringReload != null) {
+            duringReload.put(id, product);
+        }
+        if (!loaded) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            put(id, product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Under the write lock; a null product is a delete
+    private void put(Long id, Product product) {
+        int ordinal = ordinals.get(id.longValue());
+        if (product == null) {
+            if (ordinal >= 0) {
+                Product before = products.set(ordinal, null);
+                ordinals.remove(id.longValue());
+                live--;
+                indexes.forEach(index -> index.removed(ordinal, before));
+            }
+        } else if (ordinal < 0) {
+            int added = products.size();
+            products.add(product);
+            ordinals.put(id.longValue(), added);
+            live++;
+            indexes.forEach(index -> index.added(added, product));
+        } else {
+            Product before = products.set(ordinal, product);
+            indexes.forEach(index -> index.changed(ordinal, before, product));
+        }
+    }
+
+    // Also runs at startup
+    @Scheduled(fixedDelayString = "${ocs.catalog-index.reload-interval:10m}", scheduler = SchedulingConfig.BACKGROUND)
+    public void reload() {
+        synchronized (loading) {
+            long started = System.nanoTime();
+            synchronized (this) {
+                duringReload = new HashMap<>();
+            }
+            List<Product> read;
+            try {
+                read = readOnlyTransaction.execute(status -> productRepository.findAll(Sort.by("productCode")).stream()
+                        .map(ProductCatalog::copyOf)
+                        .toList());
+            } catch (DataAccessException e) {
+                synchronized (this) {
+                    duringReload = null;
+                }
+                log.warn("Reloading the product catalog failed: {}", e.getMessage());
+                return;
+            }
+            synchronized (this) {
+                lock.writeLock().lock();
+                try {
+                    indexes = indexProvider.orderedStream().toList();
+                    ordinals.clear();
+                    products.clear();
+                    products.addAll(read);
+                    for (int ordinal = 0; ordinal < read.size(); ordinal++) {
+                        ordinals.put(read.get(ordinal).getId().longValue(), ordinal);
+                    }
+                    live = read.size();
+                    indexes.forEach(index -> index.reset(read));
+                    duringReload.forEach(this::put);
+                    duringReload = null;
+                    loaded = true;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+            log.debug("Reloaded {} products into {} indexes in {} ms", read.size(), indexes.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        }
+    }
+
+    // Runs a query against the indexes; the first one waits for the initial load
+    public <T> T read(Supplier<T> query) {
+        if (!loaded) {
+            synchronized (loading) {
+                if (!loaded) {
+                    reload();
+                }
+            }
+        }
+        lock.readLock().lock();
+        try {
+            return query.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Only inside read(); null for an ordinal whose product was deleted
+    public Product product(int ordinal) {
+        return products.get(ordinal);
+    }
+
+    // Ordinals handed out, deleted ones included; only inside read()
+    public int ordinalCount() {
+        return products.size();
+    }
+
+    private static Product copyOf(Product product) {
+        return new Product(product.getId(), product.getProductCode(), product.getProductName(), product.getProductLine(),
+                product.getProductScale(), product.getProductVendor(), product.getProductDescription(),
+                product.getQuantityInStock(), product.getBuyPrice(), product.getMsrp());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("ocs.catalog.index.products", this, catalog -> catalog.live)
+                .description("Products held in memory for the catalog indexes")
+                .register(registry);
+    }
+}
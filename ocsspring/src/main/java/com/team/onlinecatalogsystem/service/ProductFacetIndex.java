@@ -0,0 +1,194 @@
+package com.team.onlinecatalogsystem.service;
+
+import com.team.onlinecatalogsystem.config.CatalogIndexProperties;
+import com.team.onlinecatalogsystem.model.Product;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * Faceted browsing over the {@link ProductCatalog}: a compressed bitmap of product ordinals for
+ * every value of every facet. Values selected within a facet are OR-ed and the facets AND-ed;
+ * each facet is counted against the other facets' selections only, so its unselected values
+ * show how many products picking them would add. Nothing here reads the database.
+ */
+public class ProductFacetIndex implements ProductIndex {
+    private final ProductCatalog catalog;
+    private final List<BigDecimal> priceBands;
+    private final List<Integer> stockBands;
+    private final Map<Facet, Map<String, RoaringBitmap>> bitmaps = new EnumMap<>(Facet.class);
+    private final RoaringBitmap live = new RoaringBitmap();
+
+    public enum Facet {
+        PRODUCT_LINE("productLine"), PRODUCT_SCALE("productScale"), PRODUCT_VENDOR("productVendor"),
+        PRICE("price"), STOCK("stock");
+
+        private final String param;
+
+        Facet(String param) {
+            this.param = param;
+        }
+
+        public String param() {
+            return param;
+        }
+    }
+
+    public ProductFacetIndex(ProductCatalog catalog, CatalogIndexProperties.Facets properties) {
+        this.catalog = catalog;
+        this.priceBands = properties.getPriceBands().stream().sorted().toList();
+        this.stockBands = properties.getStockBands().stream().sorted().toList();
+        for (Facet facet : Facet.values()) {
+            bitmaps.put(facet, new HashMap<>());
+        }
+    }
+
+    public BrowseResult browse(Map<Facet, List<String>> selected, int page, int size) {
+        return catalog.read(() -> {
+            Map<Facet, RoaringBitmap> selections = new EnumMap<>(Facet.class);
+            selected.forEach((facet, values) -> {
+                if (values != null && !values.isEmpty()) {
+                    selections.put(facet, FastAggregation.or(values.stream()
+                            .map(value -> bitmaps.get(facet).getOrDefault(value, new RoaringBitmap()))
+                            .iterator()));
+                }
+            });
+
+            Map<String, Map<String, Integer>> facets = new LinkedHashMap<>();
+            for (Facet facet : Facet.values()) {
+                RoaringBitmap others = live;
+                for (Map.Entry<Facet, RoaringBitmap> selection : selections.entrySet()) {
+                    if (selection.getKey() != facet) {
+                        others = RoaringBitmap.and(others, selection.getValue());
+                    }
+                }
+                Map<String, Integer> counts = facet == Facet.PRICE || facet == Facet.STOCK ? new LinkedHashMap<>() : new TreeMap<>();
+                for (String value : valuesInOrder(facet)) {
+                    counts.put(value, RoaringBitmap.andCardinality(others, bitmaps.get(facet).get(value)));
+                }
+                facets.put(facet.param(), counts);
+            }
+
+            RoaringBitmap matched = live;
+            for (RoaringBitmap selection : selections.values()) {
+                matched = RoaringBitmap.and(matched, selection);
+            }
+            long total = matched.getLongCardinality();
+            List<Product> products = new ArrayList<>(size);
+            long offset = (long) page * size;
+            if (offset < total) {
+                PeekableIntIterator ordinals = matched.getIntIterator();
+                ordinals.advanceIfNeeded(matched.select((int) offset));
+                while (ordinals.hasNext() && products.size() < size) {
+                    products.add(catalog.product(ordinals.next()));
+                }
+            }
+            return new BrowseResult(total, page, size, facets, products);
+        });
+    }
+
+    // Bands in ascending order, other facets as they sort
+    private List<String> valuesInOrder(Facet facet) {
+        Map<String, RoaringBitmap> values = bitmaps.get(facet);
+        if (facet == Facet.PRICE) {
+            return bandLabels(priceBands, BigDecimal::toPlainString).stream().filter(values::containsKey).toList();
+        }
+        if (facet == Facet.STOCK) {
+            return bandLabels(stockBands, String::valueOf).stream().filter(values::containsKey).toList();
+        }
+        return new ArrayList<>(values.keySet());
+    }
+
+    private static <T> List<String> bandLabels(List<T> edges, Function<T, String> format) {
+        List<String> labels = new ArrayList<>(edges.size() + 1);
+        String lower = "0";
+        for (T edge : edges) {
+            labels.add(lower + "-" + format.apply(edge));
+            lower = format.apply(edge);
+        }
+        labels.add(lower + "+");
+        return labels;
+    }
+
+    // The band a value falls in: at or above its lower edge, below its upper one
+    private static <T extends Comparable<T>> String band(List<T> edges, T value, Function<T, String> format) {
+        int below = Collections.binarySearch(edges, value);
+        int band = below >= 0 ? below + 1 : -below - 1;
+        String lower = band == 0 ? "0" : format.apply(edges.get(band - 1));
+        return band == edges.size() ? lower + "+" : lower + "-" + format.apply(edges.get(band));
+    }
+
+    private Map<Facet, String> valuesOf(Product product) {
+        Map<Facet, String> values = new EnumMap<>(Facet.class);
+        values.put(Facet.PRODUCT_LINE, product.getProductLine());
+        values.put(Facet.PRODUCT_SCALE, product.getProductScale());
+        values.put(Facet.PRODUCT_VENDOR, product.getProductVendor());
+        if (product.getMsrp() != null) {
+            values.put(Facet.PRICE, band(priceBands, product.getMsrp(), BigDecimal::toPlainString));
+        }
+        if (product.getQuantityInStock() != null) {
+            values.put(Facet.STOCK, band(stockBands, product.getQuantityInStock(), String::valueOf));
+        }
+        return values;
+    }
+
+    @Override
+    public void reset(List<Product> products) {
+        bitmaps.values().forEach(Map::clear);
+        live.clear();
+        for (int ordinal = 0; ordinal < products.size(); ordinal++) {
+            added(ordinal, products.get(ordinal));
+        }
+        bitmaps.values().forEach(values -> values.values().forEach(RoaringBitmap::runOptimize));
+    }
+
+    @Override
+    public void added(int ordinal, Product product) {
+        valuesOf(product).forEach((facet, value) -> bitmaps.get(facet).computeIfAbsent(value, v -> new RoaringBitmap()).add(ordinal));
+        live.add(ordinal);
+    }
+
+    @Override
+    public void changed(int ordinal, Product before, Product after) {
+        Map<Facet, String> old = valuesOf(before);
+        Map<Facet, String> now = valuesOf(after);
+        for (Facet facet : Facet.values()) {
+            String from = old.get(facet);
+            String to = now.get(facet);
+            if (from != null && !from.equals(to)) {
+                unset(facet, from, ordinal);
+            }
+            if (to != null && !to.equals(from)) {
+                bitmaps.get(facet).computeIfAbsent(to, v -> new RoaringBitmap()).add(ordinal);
+            }
+        }
+    }
+
+    @Override
+    public void removed(int ordinal, Product before) {
+        valuesOf(before).forEach((facet, value) -> unset(facet, value, ordinal));
+        live.remove(ordinal);
+    }
+
+    // A value with no products left drops out of the facet
+    private void unset(Facet facet, String value, int ordinal) {
+        RoaringBitmap bitmap = bitmaps.get(facet).get(value);
+        if (bitmap != null) {
+            bitmap.remove(ordinal);
+            if (bitmap.isEmpty()) {
+                bitmaps.get(facet).remove(value);
+            }
+        }
+    }
+}
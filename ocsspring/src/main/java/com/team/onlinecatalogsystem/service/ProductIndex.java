@@ -0,0 +1,22 @@
+package com.team.onlinecatalogsystem.service;
+
+import com.team.onlinecatalogsystem.model.Product;
+
+import java.util.List;
+
+/**
+ * An in-memory index over the products held by {@link ProductCatalog}, addressed by the
+ * catalog's product ordinals. The catalog calls these under its write lock, one at a time;
+ * an index answers queries under the catalog's read lock ({@link ProductCatalog#read}).
+ */
+public interface ProductIndex {
+
+    // Everything from scratch; the list is indexed by ordinal
+    void reset(List<Product> products);
+
+    void added(int ordinal, Product product);
+
+    void changed(int ordinal, Product before, Product after);
+
+    void removed(int ordinal, Product before);
+}
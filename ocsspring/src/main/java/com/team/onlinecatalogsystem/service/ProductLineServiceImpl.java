@@ -14,23 +14,32 @@ import java.util.Optional;
 @Transactional
 public class ProductLineServiceImpl implements ProductLineServiceI {
     private final ProductLineRepository productLineRepository;
+    private final ChangeRecorder changeRecorder;
 
     @Override
     public ProductLine addProductLine(ProductLine productLine) {
-        return productLineRepository.save(productLine);
+        ProductLine saved = productLineRepository.save(productLine);
+        changeRecorder.inserted(ChangeType.PRODUCT_LINE, saved.getId());
+        return saved;
     }
 
     @Override
+    @Coalesced
+    @Transactional(readOnly = true)
     public List<ProductLine> getAllProductLines() {
         return productLineRepository.findAll();
     }
 
     @Override
+    @Coalesced
+    @Transactional(readOnly = true)
     public Optional<ProductLine> getProductLineById(Long id) {
         return productLineRepository.findById(id);
     }
 
     @Override
+    @Coalesced
+    @Transactional(readOnly = true)
     public Optional<ProductLine> getProductLineByName(String productLine) {
         return productLineRepository.findByProductLine(productLine);
     }
@@ -43,7 +52,9 @@ public class ProductLineServiceImpl implements ProductLineServiceI {
                     existingProductLine.setTextDescription(productLine.getTextDescription());
                     existingProductLine.setHtmlDescription(productLine.getHtmlDescription());
                     existingProductLine.setImage(productLine.getImage());
-                    return productLineRepository.save(existingProductLine);
+                    ProductLine saved = productLineRepository.save(existingProductLine);
+                    changeRecorder.updated(ChangeType.PRODUCT_LINE, id);
+                    return saved;
                 })
                 .orElseThrow(() -> new RuntimeException("ProductLine with ID " + id + " not found"));
     }
@@ -51,5 +62,6 @@ public class ProductLineServiceImpl implements ProductLineServiceI {
     @Override
     public void deleteProductLine(Long id) {
         productLineRepository.deleteById(id);
+        changeRecorder.deleted(ChangeType.PRODUCT_LINE, id);
     }
 }
@@ -0,0 +1,248 @@
+package com.team.onlinecatalogsystem.service;
+
+import com.team.onlinecatalogsystem.model.Product;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Products in price order over the {@link ProductCatalog}: for msrp, buyPrice and the margin
+ * between them, a sorted array of prices in cents alongside the ordinals of their products.
+ * Counting a range is two binary searches, a page of a range or the N cheapest or dearest is a
+ * walk from the right index, and a write moves the tail of the arrays by one. Prices are only
+ * converted from BigDecimal when a product is written or a query's bounds are given; bounds past
+ * what a long holds in cents are taken as open.
+ */
+public class ProductPriceIndex implements ProductIndex {
+    private static final BigDecimal MAX_BOUND = BigDecimal.valueOf(Long.MAX_VALUE, 2);
+    private static final BigDecimal MIN_BOUND = BigDecimal.valueOf(Long.MIN_VALUE, 2);
+
+    private final ProductCatalog catalog;
+    private final Map<PriceField, SortedPrices> indexes = new EnumMap<>(PriceField.class);
+
+    public enum PriceField {
+        MSRP("msrp"), BUY_PRICE("buyPrice"), MARGIN("margin");
+
+        private final String param;
+
+        PriceField(String param) {
+            this.param = param;
+        }
+
+        public String param() {
+            return param;
+        }
+
+        public static PriceField fromParam(String param) {
+            for (PriceField field : values()) {
+                if (field.param.equals(param)) {
+                    return field;
+                }
+            }
+            return null;
+        }
+
+        // msrp - buyPrice for MARGIN; null if the product lacks a price
+        public BigDecimal of(Product product) {
+            return switch (this) {
+                case MSRP -> product.getMsrp();
+                case BUY_PRICE -> product.getBuyPrice();
+                case MARGIN -> product.getMsrp() == null || product.getBuyPrice() == null ? null
+                        : product.getMsrp().subtract(product.getBuyPrice());
+            };
+        }
+    }
+
+    public ProductPriceIndex(ProductCatalog catalog) {
+        this.catalog = catalog;
+        for (PriceField field : PriceField.values()) {
+            indexes.put(field, new SortedPrices());
+        }
+    }
+
+    // Products priced from min to max, both inclusive and either open when null
+    public long count(PriceField field, BigDecimal min, BigDecimal max) {
+        return catalog.read(() -> {
+            SortedPrices prices = indexes.get(field);
+            return (long) Math.max(0, prices.upperEnd(max) - prices.lowerEnd(min));
+        });
+    }
+
+    // One page of the products priced from min to max, cheapest first
+    public List<Product> range(PriceField field, BigDecimal min, BigDecimal max, int offset, int limit) {
+        return catalog.read(() -> {
+            SortedPrices prices = indexes.get(field);
+            long from = (long) prices.lowerEnd(min) + offset;
+            long to = Math.min(prices.upperEnd(max), from + limit);
+            List<Product> products = new ArrayList<>((int) Math.max(0, to - from));
+            for (int i = (int) from; i < to; i++) {
+                products.add(catalog.product(prices.ordinals[i]));
+            }
+            return products;
+        });
+    }
+
+    // The limit cheapest (or dearest, with highest) products, in that order, of one product line or all
+    public List<Product> top(PriceField field, boolean highest, String productLine, int limit) {
+        return catalog.read(() -> {
+            SortedPrices prices = indexes.get(field);
+            List<Product> products = new ArrayList<>(Math.min(limit, prices.size));
+            for (int n = 0; n < prices.size && products.size() < limit; n++) {
+                Product product = catalog.product(prices.ordinals[highest ? prices.size - 1 - n : n]);
+                if (productLine == null || productLine.equals(product.getProductLine())) {
+                    products.add(product);
+                }
+            }
+            return products;
+        });
+    }
+
+    static long cents(BigDecimal price) {
+        return price.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    // Query bounds come from the request, so ?max=1e30 clamps to the end of the range rather than overflowing
+    private static long boundCents(BigDecimal bound) {
+        if (bound.compareTo(MAX_BOUND) >= 0) {
+            return Long.MAX_VALUE;
+        }
+        if (bound.compareTo(MIN_BOUND) <= 0) {
+            return Long.MIN_VALUE;
+        }
+        // Under a tenth of a cent rounds to nothing; setScale would first build 10^-scale
+        return bound.precision() - bound.scale() < -2 ? 0 : cents(bound);
+    }
+
+    @Override
+    public void reset(List<Product> products) {
+        for (PriceField field : PriceField.values()) {
+            long[] prices = new long[products.size()];
+            int[] ordinals = new int[products.size()];
+            int size = 0;
+            for (int ordinal = 0; ordinal < products.size(); ordinal++) {
+                BigDecimal price = field.of(products.get(ordinal));
+                if (price != null) {
+                    prices[size] = cents(price);
+                    ordinals[size++] = ordinal;
+                }
+            }
+            indexes.get(field).reset(prices, ordinals, size);
+        }
+    }
+
+    @Override
+    public void added(int ordinal, Product product) {
+        for (PriceField field : PriceField.values()) {
+            BigDecimal price = field.of(product);
+            if (price != null) {
+                indexes.get(field).insert(cents(price), ordinal);
+            }
+        }
+    }
+
+    @Override
+    public void changed(int ordinal, Product before, Product after) {
+        for (PriceField field : PriceField.values()) {
+            BigDecimal from = field.of(before);
+            BigDecimal to = field.of(after);
+            if (from != null && to != null && from.compareTo(to) == 0) {
+                continue;
+            }
+            if (from != null) {
+                indexes.get(field).remove(cents(from), ordinal);
+            }
+            if (to != null) {
+                indexes.get(field).insert(cents(to), ordinal);
+            }
+        }
+    }
+
+    @Override
+    public void removed(int ordinal, Product before) {
+        for (PriceField field : PriceField.values()) {
+            BigDecimal price = field.of(before);
+            if (price != null) {
+                indexes.get(field).remove(cents(price), ordinal);
+            }
+        }
+    }
+
+    // Prices ascending, ties in ordinal order, so every (price, ordinal) pair has one position
+    private static final class SortedPrices {
+        private long[] prices = new long[0];
+        private int[] ordinals = new int[0];
+        private int size;
+
+        void reset(long[] unsortedPrices, int[] unsortedOrdinals, int count) {
+            int[] order = new int[count];
+            Arrays.setAll(order, i -> i);
+            IntArrays.quickSort(order, (a, b) -> unsortedPrices[a] != unsortedPrices[b]
+                    ? Long.compare(unsortedPrices[a], unsortedPrices[b])
+                    : Integer.compare(unsortedOrdinals[a], unsortedOrdinals[b]));
+            prices = new long[Math.max(16, count + count / 8)];
+            ordinals = new int[prices.length];
+            for (int i = 0; i < count; i++) {
+                prices[i] = unsortedPrices[order[i]];
+                ordinals[i] = unsortedOrdinals[order[i]];
+            }
+            size = count;
+        }
+
+        // First position not before (price, ordinal)
+        private int position(long price, int ordinal) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (prices[mid] < price || (prices[mid] == price && ordinals[mid] < ordinal)) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        // First position priced at or above min
+        int lowerEnd(BigDecimal min) {
+            return min == null ? 0 : position(boundCents(min), Integer.MIN_VALUE);
+        }
+
+        // First position priced above max
+        int upperEnd(BigDecimal max) {
+            if (max == null) {
+                return size;
+            }
+            long cents = boundCents(max);
+            return cents == Long.MAX_VALUE ? size : position(cents + 1, Integer.MIN_VALUE);
+        }
+
+        void insert(long price, int ordinal) {
+            if (size == prices.length) {
+                prices = Arrays.copyOf(prices, Math.max(16, size * 3 / 2));
+                ordinals = Arrays.copyOf(ordinals, prices.length);
+            }
+            int at = position(price, ordinal);
+            System.arraycopy(prices, at, prices, at + 1, size - at);
+            System.arraycopy(ordinals, at, ordinals, at + 1, size - at);
+            prices[at] = price;
+            ordinals[at] = ordinal;
+            size++;
+        }
+
+        void remove(long price, int ordinal) {
+            int at = position(price, ordinal);
+            if (at < size && prices[at] == price && ordinals[at] == ordinal) {
+                System.arraycopy(prices, at + 1, prices, at, size - at - 1);
+                System.arraycopy(ordinals, at + 1, ordinals, at, size - at - 1);
+                size--;
+            }
+        }
+    }
+}
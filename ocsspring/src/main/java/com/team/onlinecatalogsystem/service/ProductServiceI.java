@@ -1,7 +1,11 @@
 package com.team.onlinecatalogsystem.service;
 
 import com.team.onlinecatalogsystem.model.Product;
+
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface ProductServiceI {
@@ -10,6 +14,18 @@ public interface ProductServiceI {
     Optional<Product> getProductById(Long id);
     Optional<Product> getProductByCode(String productCode);
     List<Product> getProductsByLine(String productLine);
+    LookupResult<String, Product> lookupProductsByCode(Collection<String> productCodes);
+    // Products most often ordered together with this one; empty when recommendations are off
+    List<RelatedProduct> getFrequentlyBoughtWith(String productCode, int limit);
+    // Facet counts and a page of matches from the in-memory facet index; empty when it's turned off
+    Optional<BrowseResult> browseProducts(Map<ProductFacetIndex.Facet, List<String>> filters, int page, int size);
+    // Products by msrp, buyPrice or margin; min and max are inclusive and may be null
+    long countProductsByPrice(ProductPriceIndex.PriceField field, BigDecimal min, BigDecimal max);
+    List<Product> getProductsByPriceRange(ProductPriceIndex.PriceField field, BigDecimal min, BigDecimal max, int offset, int limit);
+    // Cheapest first, or dearest with highest; productLine may be null for the whole catalog
+    List<Product> getTopProductsByPrice(ProductPriceIndex.PriceField field, boolean highest, String productLine, int limit);
     Product updateProduct(Long id, Product product);
     void deleteProduct(Long id);
+    // One set-based update over every product the filter selects; with dryRun, only reports what it would change
+    BulkUpdateResult bulkUpdateProducts(BulkProductUpdate update, boolean dryRun);
 }
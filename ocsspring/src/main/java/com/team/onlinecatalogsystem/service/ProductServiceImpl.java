@@ -1,45 +1,153 @@
 package com.team.onlinecatalogsystem.service;
 
+import com.team.onlinecatalogsystem.exception.InvalidBulkUpdateException;
 import com.team.onlinecatalogsystem.model.Product;
 import com.team.onlinecatalogsystem.repository.ProductRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 @RequiredArgsConstructor
 @Service
 @Transactional
 public class ProductServiceImpl implements ProductServiceI {
+    // The matched rows with their new values, and whether those are out of range for the columns. The new
+    // values come from the lateral select, so each of their arguments is bound once, ahead of the filter's
+    private static final String BULK_MATCH = "SELECT p.id, p.productcode, p.buyprice, p.msrp, p.quantityinstock, "
+            + "n.new_buyprice, n.new_msrp, n.new_quantityinstock, "
+            + "(n.new_buyprice NOT BETWEEN 0.01 AND 99999999.99 OR n.new_msrp NOT BETWEEN 0.01 AND 99999999.99 "
+            + "OR n.new_quantityinstock NOT BETWEEN 0 AND 2147483647) AS invalid "
+            + "FROM products p CROSS JOIN LATERAL (SELECT ";
+    private static final String BULK_PREVIEW = "SELECT m.*, false FROM matched m ORDER BY m.productcode";
+    // Writes the locked rows that change, unless any of them would end up invalid
+    private static final String BULK_UPDATE = "updated AS (UPDATE products p SET buyprice = m.new_buyprice, msrp = m.new_msrp, "
+            + "quantityinstock = m.new_quantityinstock FROM matched m WHERE p.id = m.id "
+            + "AND (m.new_buyprice, m.new_msrp, m.new_quantityinstock) IS DISTINCT FROM (m.buyprice, m.msrp, m.quantityinstock) "
+            + "AND NOT EXISTS (SELECT 1 FROM matched WHERE invalid) RETURNING p.id) "
+            + "SELECT m.*, u.id IS NOT NULL FROM matched m LEFT JOIN updated u ON u.id = m.id ORDER BY m.productcode";
+
     private final ProductRepository productRepository;
+    private final ChangeRecorder changeRecorder;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectProvider<CoPurchaseIndex> coPurchases;
+    private final ObjectProvider<ProductCatalog> catalog;
+    private final ObjectProvider<ProductFacetIndex> facets;
+    private final ObjectProvider<ProductPriceIndex> prices;
+
+    private record BulkRow(BulkUpdateResult.ProductChange change, boolean invalid, boolean updated) {
+    }
 
     @Override
     public Product addProduct(Product product) {
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        changeRecorder.inserted(ChangeType.PRODUCT, saved.getId());
+        catalog.ifAvailable(products -> products.saved(saved));
+        return saved;
     }
 
     @Override
+    @Coalesced
+    @Transactional(readOnly = true)
     public List<Product> getAllProducts() {
         return productRepository.findAll();
     }
 
     @Override
+    @Coalesced
+    @Transactional(readOnly = true)
     public Optional<Product> getProductById(Long id) {
         return productRepository.findById(id);
     }
 
     @Override
+    @Coalesced
+    @Transactional(readOnly = true)
     public Optional<Product> getProductByCode(String productCode) {
         return productRepository.findByProductCode(productCode);
     }
 
     @Override
+    @Coalesced
+    @Transactional(readOnly = true)
     public List<Product> getProductsByLine(String productLine) {
         return productRepository.findByProductLine(productLine);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public LookupResult<String, Product> lookupProductsByCode(Collection<String> productCodes) {
+        return LookupResult.resolve(LookupResult.distinctKeys(productCodes), productRepository::findByProductCodeIn,
+                Product::getProductCode);
+    }
+
+    // Served from memory; SUPPORTS keeps the class-level transaction from taking a connection
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<RelatedProduct> getFrequentlyBoughtWith(String productCode, int limit) {
+        CoPurchaseIndex index = coPurchases.getIfAvailable();
+        return index == null ? List.of() : index.related(productCode, limit);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Optional<BrowseResult> browseProducts(Map<ProductFacetIndex.Facet, List<String>> filters, int page, int size) {
+        return Optional.ofNullable(facets.getIfAvailable()).map(index -> index.browse(filters, page, size));
+    }
+
+    // The price queries are answered by the price index; with it turned off, by sorting the whole table
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public long countProductsByPrice(ProductPriceIndex.PriceField field, BigDecimal min, BigDecimal max) {
+        ProductPriceIndex index = prices.getIfAvailable();
+        return index != null ? index.count(field, min, max) : pricedBetween(field, min, max).count();
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<Product> getProductsByPriceRange(ProductPriceIndex.PriceField field, BigDecimal min, BigDecimal max,
+                                                 int offset, int limit) {
+        ProductPriceIndex index = prices.getIfAvailable();
+        return index != null ? index.range(field, min, max, offset, limit)
+                : pricedBetween(field, min, max).skip(offset).limit(limit).toList();
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<Product> getTopProductsByPrice(ProductPriceIndex.PriceField field, boolean highest, String productLine,
+                                               int limit) {
+        ProductPriceIndex index = prices.getIfAvailable();
+        if (index != null) {
+            return index.top(field, highest, productLine, limit);
+        }
+        List<Product> sorted = pricedBetween(field, null, null)
+                .filter(product -> productLine == null || productLine.equals(product.getProductLine()))
+                .toList();
+        return (highest ? sorted.reversed() : sorted).stream().limit(limit).toList();
+    }
+
+    private Stream<Product> pricedBetween(ProductPriceIndex.PriceField field, BigDecimal min, BigDecimal max) {
+        return productRepository.findAll(Sort.by("productCode")).stream()
+                .filter(product -> field.of(product) != null)
+                .filter(product -> min == null || field.of(product).compareTo(min) >= 0)
+                .filter(product -> max == null || field.of(product).compareTo(max) <= 0)
+                .sorted(Comparator.comparing(field::of));
+    }
+
     @Override
     public Product updateProduct(Long id, Product product) {
         return productRepository.findById(id)
@@ -53,7 +161,10 @@ public class ProductServiceImpl implements ProductServiceI {
                     existingProduct.setQuantityInStock(product.getQuantityInStock());
                     existingProduct.setBuyPrice(product.getBuyPrice());
                     existingProduct.setMsrp(product.getMsrp()); // CHANGED: MSRP to Msrp
-                    return productRepository.save(existingProduct);
+                    Product saved = productRepository.save(existingProduct);
+                    changeRecorder.updated(ChangeType.PRODUCT, id);
+                    catalog.ifAvailable(products -> products.saved(saved));
+                    return saved;
                 })
                 .orElseThrow(() -> new RuntimeException("Product with ID " + id + " not found"));
     }
@@ -61,5 +172,137 @@ public class ProductServiceImpl implements ProductServiceI {
     @Override
     public void deleteProduct(Long id) {
         productRepository.deleteById(id);
+        changeRecorder.deleted(ChangeType.PRODUCT, id);
+        catalog.ifAvailable(products -> products.deleted(id));
+    }
+
+    @Override
+    public BulkUpdateResult bulkUpdateProducts(BulkProductUpdate update, boolean dryRun) {
+        BulkProductUpdate.Filter filter = update.filter();
+        if (filter == null || (filter.isEmpty() && !filter.all())) {
+            throw new InvalidBulkUpdateException("Give a filter, or set all to change every product");
+        }
+        if (filter.productCodes() != null && filter.productCodes().size() > LookupResult.MAX_KEYS) {
+            throw new InvalidBulkUpdateException("At most " + LookupResult.MAX_KEYS + " product codes per update");
+        }
+        if (update.buyPrice() == null && update.msrp() == null && update.stockDelta() == null) {
+            throw new InvalidBulkUpdateException("Nothing to change: give buyPrice, msrp or stockDelta");
+        }
+
+        // Text order of the placeholders: the new values in the lateral select, then the filter
+        List<Object> args = new ArrayList<>();
+        String buyPrice = priceExpression("buyprice", update.buyPrice(), args);
+        String msrp = priceExpression("msrp", update.msrp(), args);
+        String stock = "quantityinstock";
+        if (update.stockDelta() != null) {
+            stock = "quantityinstock::bigint + ?";
+            args.add(update.stockDelta());
+        }
+        String where = filterCondition(filter, args);
+
+        String matched = "WITH matched AS (" + BULK_MATCH + buyPrice + " AS new_buyprice, " + msrp + " AS new_msrp, "
+                + stock + " AS new_quantityinstock) n WHERE " + where;
+        String sql = dryRun ? matched + ") " + BULK_PREVIEW : matched + " FOR UPDATE OF p), " + BULK_UPDATE;
+        List<BulkRow> rows = jdbcTemplate.query(sql, (rs, n) -> new BulkRow(new BulkUpdateResult.ProductChange(
+                rs.getLong("id"), rs.getString("productcode"), rs.getBigDecimal("buyprice"), rs.getBigDecimal("new_buyprice"),
+                rs.getBigDecimal("msrp"), rs.getBigDecimal("new_msrp"), rs.getInt("quantityinstock"),
+                (int) Math.min(rs.getLong("new_quantityinstock"), Integer.MAX_VALUE)),
+                rs.getBoolean("invalid"), rs.getBoolean(10)), args.toArray());
+
+        List<String> invalid = rows.stream().filter(BulkRow::invalid).map(row -> row.change().productCode()).toList();
+        if (!invalid.isEmpty()) {
+            throw new InvalidBulkUpdateException(invalid.size() + " products would be left with a price outside "
+                    + "0.01..99999999.99 or stock outside 0..2147483647, e.g. " + String.join(", ", invalid.subList(0, Math.min(5, invalid.size()))));
+        }
+
+        List<BulkUpdateResult.ProductChange> changed = new ArrayList<>();
+        List<Long> updatedIds = new ArrayList<>();
+        for (BulkRow row : rows) {
+            BulkUpdateResult.ProductChange change = row.change();
+            List<String> fields = changedFields(change);
+            if (fields.isEmpty()) {
+                continue;
+            }
+            changed.add(change);
+            if (row.updated()) {
+                changeRecorder.updated(ChangeType.PRODUCT, change.id());
+                changeRecorder.fieldsChanged(ChangeType.PRODUCT, change.id(), fields);
+                updatedIds.add(change.id());
+            }
+        }
+        // The in-memory indexes get whole products; nothing loaded them before the update, so these are fresh
+        catalog.ifAvailable(products -> productRepository.findAllById(updatedIds).forEach(products::saved));
+        return new BulkUpdateResult(dryRun, rows.size(), changed.size(),
+                totals(changed, BulkUpdateResult.ProductChange::buyPriceBefore, BulkUpdateResult.ProductChange::buyPriceAfter),
+                totals(changed, BulkUpdateResult.ProductChange::msrpBefore, BulkUpdateResult.ProductChange::msrpAfter),
+                totals(changed, c -> BigDecimal.valueOf(c.quantityInStockBefore()), c -> BigDecimal.valueOf(c.quantityInStockAfter())),
+                List.copyOf(changed.subList(0, Math.min(changed.size(), BulkUpdateResult.MAX_LISTED))),
+                changed.size() > BulkUpdateResult.MAX_LISTED);
+    }
+
+    private static String priceExpression(String column, BulkProductUpdate.PriceChange change, List<Object> args) {
+        if (change == null) {
+            return column;
+        }
+        if ((change.percent() == null) == (change.amount() == null)) {
+            throw new InvalidBulkUpdateException("A price change takes either percent or amount");
+        }
+        if (change.percent() != null) {
+            if (change.percent().compareTo(BigDecimal.valueOf(-100)) <= 0) {
+                throw new InvalidBulkUpdateException("A price can't be cut by 100% or more");
+            }
+            args.add(change.percent());
+            return "round(" + column + " * (1 + ?::numeric / 100), 2)";
+        }
+        args.add(change.amount());
+        return "round(" + column + " + ?::numeric, 2)";
+    }
+
+    private static String filterCondition(BulkProductUpdate.Filter filter, List<Object> args) {
+        List<String> conditions = new ArrayList<>();
+        if (filter.productLine() != null) {
+            conditions.add("productline = ?");
+            args.add(filter.productLine());
+        }
+        if (filter.productVendor() != null) {
+            conditions.add("productvendor = ?");
+            args.add(filter.productVendor());
+        }
+        if (filter.productScale() != null) {
+            conditions.add("productscale = ?");
+            args.add(filter.productScale());
+        }
+        if (filter.productCodes() != null && !filter.productCodes().isEmpty()) {
+            List<String> codes = LookupResult.distinctKeys(filter.productCodes());
+            conditions.add("productcode IN (" + String.join(", ", Collections.nCopies(codes.size(), "?")) + ")");
+            args.addAll(codes);
+        }
+        if (filter.stockBelow() != null) {
+            conditions.add("quantityinstock < ?");
+            args.add(filter.stockBelow());
+        }
+        return conditions.isEmpty() ? "true" : String.join(" AND ", conditions);
+    }
+
+    // Property names, as ChangedFieldsListener reports them for single updates
+    private static List<String> changedFields(BulkUpdateResult.ProductChange change) {
+        List<String> fields = new ArrayList<>(3);
+        if (change.buyPriceBefore().compareTo(change.buyPriceAfter()) != 0) {
+            fields.add("buyPrice");
+        }
+        if (change.msrpBefore().compareTo(change.msrpAfter()) != 0) {
+            fields.add("msrp");
+        }
+        if (change.quantityInStockBefore() != change.quantityInStockAfter()) {
+            fields.add("quantityInStock");
+        }
+        return fields;
+    }
+
+    private static BulkUpdateResult.Totals totals(List<BulkUpdateResult.ProductChange> changes,
+                                                  Function<BulkUpdateResult.ProductChange, BigDecimal> before,
+                                                  Function<BulkUpdateResult.ProductChange, BigDecimal> after) {
+        return new BulkUpdateResult.Totals(changes.stream().map(before).reduce(BigDecimal.ZERO, BigDecimal::add),
+                changes.stream().map(after).reduce(BigDecimal.ZERO, BigDecimal::add));
     }
 }
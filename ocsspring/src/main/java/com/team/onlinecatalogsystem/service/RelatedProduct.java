@@ -0,0 +1,7 @@
+package com.team.onlinecatalogsystem.service;
+
+// A product bought together with another, and in how many orders
+public record RelatedProduct(String productCode, int orders) {
+    // Per request
+    public static final int MAX_LIMIT = 50;
+}
@@ -0,0 +1,536 @@
+package com.team.onlinecatalogsystem.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.team.onlinecatalogsystem.config.SchedulingConfig;
+import com.team.onlinecatalogsystem.config.SnapshotExportProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.parquet.hadoop.ParquetFileWriter;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.api.WriteSupport;
+import org.apache.parquet.io.LocalOutputFile;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.io.api.RecordConsumer;
+import org.apache.parquet.schema.LogicalTypeAnnotation;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName;
+import org.apache.parquet.schema.Type;
+import org.apache.parquet.schema.Types;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Writes orders, orderdetails and payments (archived rows included, and flagged) to Parquet files
+ * on local disk, so analytics reads files instead of the primary. An export is one directory:
+ * a file per table and month under month=YYYY-MM, sorted by date and id, plus a manifest with
+ * each file's row count and date and id bounds. All tables are read in one read-only repeatable
+ * read transaction (served by a replica when there is one), streamed a fetch-size at a time, with
+ * one file open at a time; memory is bounded by the row group size. An incremental export takes
+ * the rows the change log says changed since the last export, archiving included. A directory is
+ * renamed into place once complete, so readers never see half an export. Exports older than the
+ * retention are deleted, keeping the newest full export and everything after it.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class SnapshotExporter implements MeterBinder {
+    private static final String MANIFEST = "_manifest.json";
+    private static final DateTimeFormatter EXPORT_ID = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmssSSS'Z'").withZone(ZoneOffset.UTC);
+    private static final String CHANGE_SEQ = "SELECT COALESCE(max(seq), 0) FROM change_log";
+    private static final String PURGED_THROUGH = "SELECT purged_through FROM change_log_retention WHERE id = 1";
+    private static final String CHANGED = "SELECT DISTINCT entity_id FROM change_log WHERE entity = ? AND seq > ? AND seq <= ?";
+    private static final MessageType DELETED_SCHEMA = Types.buildMessage()
+            .required(PrimitiveTypeName.INT64).named("id")
+            .named("deleted");
+
+    private static final List<Table> TABLES = List.of(
+            new Table("orders", ChangeType.ORDER, "orderdate", List.of(
+                    new Column("id", ColumnType.LONG, true),
+                    new Column("orderdate", ColumnType.DATE, true),
+                    new Column("requireddate", ColumnType.DATE, true),
+                    new Column("shippeddate", ColumnType.DATE, false),
+                    new Column("status", ColumnType.STRING, true),
+                    new Column("comments", ColumnType.STRING, false),
+                    new Column("customernumber", ColumnType.LONG, true))),
+            new Table("orderdetails", ChangeType.ORDER_DETAIL, "orderdate", List.of(
+                    new Column("id", ColumnType.LONG, true),
+                    new Column("order_number", ColumnType.LONG, true),
+                    new Column("orderdate", ColumnType.DATE, true),
+                    new Column("product_code", ColumnType.STRING, true),
+                    new Column("quantity_ordered", ColumnType.INT, true),
+                    new Column("price_each", ColumnType.DECIMAL, true),
+                    new Column("order_line_number", ColumnType.INT, true))),
+            new Table("payments", ChangeType.PAYMENT, "payment_date", List.of(
+                    new Column("id", ColumnType.LONG, true),
+                    new Column("customer_number", ColumnType.LONG, true),
+                    new Column("check_number", ColumnType.STRING, true),
+                    new Column("payment_date", ColumnType.DATE, true),
+                    new Column("amount", ColumnType.DECIMAL, true))));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate snapshotTransaction;
+    private final SnapshotExportProperties properties;
+    private final ObjectMapper objectMapper;
+    private final Map<String, Counter> rowsExported = new HashMap<>();
+    private final Map<String, Counter> bytesExported = new HashMap<>();
+    private volatile MeterRegistry registry;
+    private volatile SnapshotManifest last;
+    private volatile boolean lastLoaded;
+
+    // Money columns are numeric(10, 2), which Parquet holds as a scaled int64
+    enum ColumnType { LONG, INT, DATE, STRING, DECIMAL, BOOLEAN }
+
+    record Column(String name, ColumnType type, boolean required) {
+    }
+
+    // Every table has an id and a date column, and an _archive twin with the same columns (V11)
+    record Table(String name, ChangeType changeType, String dateColumn, List<Column> columns) {
+        List<Column> exported() {
+            List<Column> exported = new ArrayList<>(columns);
+            exported.add(new Column("archived", ColumnType.BOOLEAN, true));
+            return exported;
+        }
+
+        MessageType schema() {
+            Types.MessageTypeBuilder schema = Types.buildMessage();
+            for (Column column : exported()) {
+                Type.Repetition repetition = column.required() ? Type.Repetition.REQUIRED : Type.Repetition.OPTIONAL;
+                switch (column.type()) {
+                    case LONG -> schema.primitive(PrimitiveTypeName.INT64, repetition).named(column.name());
+                    case INT -> schema.primitive(PrimitiveTypeName.INT32, repetition).named(column.name());
+                    case DATE -> schema.primitive(PrimitiveTypeName.INT32, repetition)
+                            .as(LogicalTypeAnnotation.dateType()).named(column.name());
+                    case STRING -> schema.primitive(PrimitiveTypeName.BINARY, repetition)
+                            .as(LogicalTypeAnnotation.stringType()).named(column.name());
+                    case DECIMAL -> schema.primitive(PrimitiveTypeName.INT64, repetition)
+                            .as(LogicalTypeAnnotation.decimalType(2, 10)).named(column.name());
+                    case BOOLEAN -> schema.primitive(PrimitiveTypeName.BOOLEAN, repetition).named(column.name());
+                }
+            }
+            return schema.named(name);
+        }
+
+        // Rows of the hot table and the archive; filter is applied to both
+        String select(String filter) {
+            String columnList = String.join(", ", columns.stream().map(Column::name).toList());
+            return "SELECT " + columnList + ", false AS archived FROM " + name + " " + filter
+                    + " UNION ALL SELECT " + columnList + ", true FROM " + name + "_archive " + filter
+                    + " ORDER BY " + dateColumn + ", id";
+        }
+
+        String deleted() {
+            return "SELECT DISTINCT c.entity_id FROM change_log c WHERE c.entity = ? AND c.seq > ? AND c.seq <= ? "
+                    + "AND NOT EXISTS (SELECT 1 FROM " + name + " t WHERE t.id = c.entity_id) "
+                    + "AND NOT EXISTS (SELECT 1 FROM " + name + "_archive a WHERE a.id = c.entity_id) ORDER BY 1";
+        }
+    }
+
+    @Scheduled(initialDelayString = "${ocs.snapshot-export.interval:1h}", fixedDelayString = "${ocs.snapshot-export.interval:1h}",
+            scheduler = SchedulingConfig.BACKGROUND)
+    public void scheduledExport() {
+        try {
+            SnapshotManifest lastFull = exports().stream()
+                    .filter(export -> SnapshotManifest.FULL.equals(export.mode()))
+                    .findFirst()
+                    .orElse(null);
+            export(lastFull != null && lastFull.startedAt().isBefore(Instant.now().minus(properties.getFullInterval())));
+        } catch (RuntimeException e) {
+            log.warn("Snapshot export failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Runs an export now: a full one if asked, if there is no earlier export, or if the change
+     * log has been purged past the last one. Returns null when an incremental export finds
+     * nothing changed; no directory is written then.
+     */
+    public synchronized SnapshotManifest export(boolean full) {
+        SnapshotManifest base = full ? null : lastExport();
+        Instant startedAt = Instant.now();
+        long started = System.nanoTime();
+        String id = EXPORT_ID.format(startedAt);
+        Path target = properties.getDirectory().resolve(id);
+        Path working = properties.getDirectory().resolve(id + ".tmp");
+        try {
+            Files.createDirectories(working);
+            SnapshotManifest manifest = snapshotTransaction.execute(status -> {
+                long changeSeq = jdbcTemplate.queryForObject(CHANGE_SEQ, Long.class);
+                SnapshotManifest from = base;
+                if (from != null && jdbcTemplate.queryForObject(PURGED_THROUGH, Long.class) > from.changeSeq()) {
+                    log.info("Change log purged past export {}; exporting in full", from.id());
+                    from = null;
+                }
+                List<SnapshotManifest.FileStats> files = new ArrayList<>();
+                for (Table table : TABLES) {
+                    files.addAll(exportTable(table, working, from, changeSeq));
+                }
+                long rows = files.stream().mapToLong(SnapshotManifest.FileStats::rows).sum();
+                long bytes = files.stream().mapToLong(SnapshotManifest.FileStats::bytes).sum();
+                long durationNanos = System.nanoTime() - started;
+                return new SnapshotManifest(id, from == null ? SnapshotManifest.FULL : SnapshotManifest.INCREMENTAL,
+                        from == null ? null : from.id(), startedAt, changeSeq, rows, bytes,
+                        TimeUnit.NANOSECONDS.toMillis(durationNanos), rows * 1e9 / Math.max(1, durationNanos), files);
+            });
+            if (manifest.mode().equals(SnapshotManifest.INCREMENTAL) && manifest.files().isEmpty()) {
+                FileSystemUtils.deleteRecursively(working);
+                return null;
+            }
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(working.resolve(MANIFEST).toFile(), manifest);
+            Files.move(working, target, StandardCopyOption.ATOMIC_MOVE);
+            last = manifest;
+            prune();
+            MeterRegistry meters = registry;
+            if (meters != null) {
+                Timer.builder("ocs.snapshot.export").description("Snapshot exports, by mode").tag("mode", manifest.mode())
+                        .register(meters).record(manifest.durationMs(), TimeUnit.MILLISECONDS);
+            }
+            log.info("Exported {} snapshot {}: {} rows, {} bytes in {} files, {} ms ({} rows/s)", manifest.mode(), id,
+                    manifest.rows(), manifest.bytes(), manifest.files().size(), manifest.durationMs(), Math.round(manifest.rowsPerSecond()));
+            return manifest;
+        } catch (IOException e) {
+            deleteQuietly(working);
+            throw new UncheckedIOException("Snapshot export " + id + " failed", e);
+        } catch (RuntimeException e) {
+            deleteQuietly(working);
+            throw e;
+        }
+    }
+
+    private List<SnapshotManifest.FileStats> exportTable(Table table, Path directory, SnapshotManifest base, long changeSeq) {
+        List<SnapshotManifest.FileStats> files = new ArrayList<>();
+        Path tableDirectory = directory.resolve(table.name());
+        String entity = table.changeType().token();
+        long since = base == null ? 0 : base.changeSeq();
+        String sql = base == null ? table.select("")
+                : table.select("WHERE id IN (" + CHANGED + ")");
+        try (MonthlyFiles writer = new MonthlyFiles(table, tableDirectory, files)) {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(sql);
+                statement.setFetchSize(properties.getFetchSize());
+                if (base != null) {
+                    // The filter appears in both halves of the union
+                    for (int half = 0; half < 2; half++) {
+                        statement.setString(half * 3 + 1, entity);
+                        statement.setLong(half * 3 + 2, since);
+                        statement.setLong(half * 3 + 3, changeSeq);
+                    }
+                }
+                return statement;
+            }, writer::write);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (base != null) {
+            List<Long> deleted = jdbcTemplate.queryForList(table.deleted(), Long.class, entity, since, changeSeq);
+            if (!deleted.isEmpty()) {
+                files.add(writeDeleted(table, tableDirectory, deleted));
+            }
+        }
+        files.forEach(file -> {
+            count(rowsExported, table.name(), file.rows());
+            count(bytesExported, table.name(), file.bytes());
+        });
+        return files;
+    }
+
+    private SnapshotManifest.FileStats writeDeleted(Table table, Path tableDirectory, List<Long> ids) {
+        Path file = tableDirectory.resolve("deleted.parquet");
+        try {
+            Files.createDirectories(tableDirectory);
+            try (ParquetWriter<Object[]> writer = newWriter(file, DELETED_SCHEMA)) {
+                for (Long id : ids) {
+                    writer.write(new Object[]{id});
+                }
+            }
+            return new SnapshotManifest.FileStats(table.name(), "deleted", table.name() + "/" + file.getFileName(), ids.size(), Files.size(file),
+                    null, null, ids.getFirst(), ids.getLast());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private ParquetWriter<Object[]> newWriter(Path file, MessageType schema) throws IOException {
+        return new RowWriterBuilder(file, schema)
+                .withWriteMode(ParquetFileWriter.Mode.CREATE)
+                .withCompressionCodec(properties.getCodec())
+                .withRowGroupSize(properties.getRowGroupSize().toBytes())
+                .withDictionaryEncoding(true)
+                .build();
+    }
+
+    private void count(Map<String, Counter> counters, String table, long amount) {
+        Counter counter = counters.get(table);
+        if (counter != null) {
+            counter.increment(amount);
+        }
+    }
+
+    // The newest export written to the directory, read from disk the first time
+    public SnapshotManifest lastExport() {
+        if (!lastLoaded) {
+            synchronized (this) {
+                if (!lastLoaded) {
+                    last = exports().stream().findFirst().orElse(null);
+                    lastLoaded = true;
+                }
+            }
+        }
+        return last;
+    }
+
+    // Exports on disk, newest first
+    public List<SnapshotManifest> exports() {
+        Path directory = properties.getDirectory();
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> entries = Files.list(directory)) {
+            List<SnapshotManifest> manifests = new ArrayList<>();
+            for (Path manifest : entries.map(entry -> entry.resolve(MANIFEST)).filter(Files::isRegularFile).toList()) {
+                try {
+                    manifests.add(objectMapper.readValue(manifest.toFile(), SnapshotManifest.class));
+                } catch (IOException e) {
+                    log.warn("Skipping unreadable snapshot manifest {}: {}", manifest, e.getMessage());
+                }
+            }
+            manifests.sort(Comparator.comparing(SnapshotManifest::id).reversed());
+            return manifests;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Exports come newest first, so everything past the first full one is only needed while in retention.
+    // Working directories left by a crash go once they're as old.
+    private void prune() {
+        Instant cutoff = Instant.now().minus(properties.getRetention());
+        boolean fullKept = false;
+        int removed = 0;
+        for (SnapshotManifest export : exports()) {
+            if (fullKept && export.startedAt().isBefore(cutoff)) {
+                deleteQuietly(properties.getDirectory().resolve(export.id()));
+                removed++;
+            }
+            fullKept |= SnapshotManifest.FULL.equals(export.mode());
+        }
+        try (Stream<Path> entries = Files.list(properties.getDirectory())) {
+            for (Path working : entries.filter(entry -> entry.getFileName().toString().endsWith(".tmp")).toList()) {
+                if (Files.getLastModifiedTime(working).toInstant().isBefore(cutoff)) {
+                    deleteQuietly(working);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Couldn't look for unfinished exports in {}: {}", properties.getDirectory(), e.getMessage());
+        }
+        if (removed > 0) {
+            log.info("Removed {} snapshot exports started before {}", removed, cutoff);
+        }
+    }
+
+    private static void deleteQuietly(Path directory) {
+        try {
+            FileSystemUtils.deleteRecursively(directory);
+        } catch (IOException e) {
+            log.warn("Couldn't remove export directory {}: {}", directory, e.getMessage());
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.registry = registry;
+        for (Table table : TABLES) {
+            rowsExported.put(table.name(), Counter.builder("ocs.snapshot.export.rows")
+                    .description("Rows written to snapshot files").tag("table", table.name()).register(registry));
+            bytesExported.put(table.name(), Counter.builder("ocs.snapshot.export.bytes")
+                    .description("Bytes of snapshot files written").tag("table", table.name()).register(registry));
+        }
+    }
+
+    /**
+     * Rows of one table, arriving in date order, into one file per month. Only the current month's
+     * file is open; rows are read into one reused array before being handed to the writer.
+     */
+    private final class MonthlyFiles implements AutoCloseable {
+        private final Table table;
+        private final Path directory;
+        private final List<SnapshotManifest.FileStats> files;
+        private final List<Column> columns;
+        private final MessageType schema;
+        private final int dateIndex;
+        private final Object[] row;
+        private YearMonth month;
+        private ParquetWriter<Object[]> writer;
+        private Path file;
+        private long rows;
+        private LocalDate minDate;
+        private LocalDate maxDate;
+        private long minId;
+        private long maxId;
+
+        MonthlyFiles(Table table, Path directory, List<SnapshotManifest.FileStats> files) {
+            this.table = table;
+            this.directory = directory;
+            this.files = files;
+            this.columns = table.exported();
+            this.schema = table.schema();
+            this.dateIndex = columns.stream().map(Column::name).toList().indexOf(table.dateColumn());
+            this.row = new Object[columns.size()];
+        }
+
+        void write(ResultSet rs) throws SQLException {
+            for (int i = 0; i < columns.size(); i++) {
+                row[i] = read(rs, i + 1, columns.get(i).type());
+            }
+            LocalDate date = LocalDate.ofEpochDay((Integer) row[dateIndex]);
+            long id = (Long) row[0];
+            try {
+                if (!YearMonth.from(date).equals(month)) {
+                    finish();
+                    open(YearMonth.from(date));
+                }
+                writer.write(row);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (rows++ == 0) {
+                minDate = date;
+                minId = id;
+                maxId = id;
+            }
+            maxDate = date;
+            minId = Math.min(minId, id);
+            maxId = Math.max(maxId, id);
+        }
+
+        private void open(YearMonth month) throws IOException {
+            this.month = month;
+            Path monthDirectory = directory.resolve("month=" + month);
+            Files.createDirectories(monthDirectory);
+            file = monthDirectory.resolve("part-0.parquet");
+            writer = newWriter(file, schema);
+            rows = 0;
+        }
+
+        private void finish() throws IOException {
+            if (writer == null) {
+                return;
+            }
+            writer.close();
+            writer = null;
+            files.add(new SnapshotManifest.FileStats(table.name(), "rows", table.name() + "/month=" + month + "/" + file.getFileName(),
+                    rows, Files.size(file), minDate, maxDate, minId, maxId));
+        }
+
+        @Override
+        public void close() throws IOException {
+            finish();
+        }
+    }
+
+    private static Object read(ResultSet rs, int index, ColumnType type) throws SQLException {
+        Object value = switch (type) {
+            case LONG -> rs.getLong(index);
+            case INT -> rs.getInt(index);
+            case BOOLEAN -> rs.getBoolean(index);
+            case STRING -> rs.getString(index);
+            case DATE -> {
+                LocalDate date = rs.getObject(index, LocalDate.class);
+                yield date == null ? null : (int) date.toEpochDay();
+            }
+            case DECIMAL -> {
+                BigDecimal amount = rs.getBigDecimal(index);
+                yield amount == null ? null : amount.setScale(2).unscaledValue().longValueExact();
+            }
+        };
+        return rs.wasNull() ? null : value;
+    }
+
+    private static final class RowWriterBuilder extends ParquetWriter.Builder<Object[], RowWriterBuilder> {
+        private final MessageType schema;
+
+        RowWriterBuilder(Path file, MessageType schema) {
+            super(new LocalOutputFile(file));
+            this.schema = schema;
+        }
+
+        @Override
+        protected RowWriterBuilder self() {
+            return this;
+        }
+
+        @Override
+        protected WriteSupport<Object[]> getWriteSupport(Configuration conf) {
+            return new RowWriteSupport(schema);
+        }
+    }
+
+    // Values in schema order, already in Parquet's physical types; null for a missing optional value
+    private static final class RowWriteSupport extends WriteSupport<Object[]> {
+        private final MessageType schema;
+        private RecordConsumer consumer;
+
+        RowWriteSupport(MessageType schema) {
+            this.schema = schema;
+        }
+
+        @Override
+        public WriteContext init(Configuration configuration) {
+            return new WriteContext(schema, Map.of());
+        }
+
+        @Override
+        public void prepareForWrite(RecordConsumer recordConsumer) {
+            this.consumer = recordConsumer;
+        }
+
+        @Override
+        public void write(Object[] row) {
+            consumer.startMessage();
+            for (int i = 0; i < row.length; i++) {
+                Object value = row[i];
+                if (value == null) {
+                    continue;
+                }
+                String field = schema.getFieldName(i);
+                consumer.startField(field, i);
+                switch (value) {
+                    case Long l -> consumer.addLong(l);
+                    case Integer n -> consumer.addInteger(n);
+                    case Boolean b -> consumer.addBoolean(b);
+                    case String s -> consumer.addBinary(Binary.fromString(s));
+                    default -> throw new IllegalArgumentException("Unexpected value of " + value.getClass());
+                }
+                consumer.endField(field, i);
+            }
+            consumer.endMessage();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.team.onlinecatalogsystem.service;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * What one snapshot export wrote, saved beside its files as _manifest.json. A full export holds
+ * every row of orders, orderdetails and payments (archived ones flagged); an incremental one holds
+ * the rows changed after basedOn's changeSeq, as they are now, and the ids of rows deleted since.
+ * Readers apply the incremental exports after their base in id order.
+ */
+public record SnapshotManifest(String id, String mode, String basedOn, Instant startedAt, long changeSeq,
+                               long rows, long bytes, long durationMs, double rowsPerSecond, List<FileStats> files) {
+    public static final String FULL = "full";
+    public static final String INCREMENTAL = "incremental";
+
+    /**
+     * One file: rows of a table for one month ("rows"), or the ids of rows deleted from it
+     * ("deleted", no dates). The same bounds are in each row group's Parquet statistics; these
+     * let a reader skip whole files without opening them.
+     */
+    public record FileStats(String table, String kind, String path, long rows, long bytes,
+                            LocalDate minDate, LocalDate maxDate, long minId, long maxId) {
+    }
+}
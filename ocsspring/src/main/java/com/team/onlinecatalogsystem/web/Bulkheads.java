@@ -0,0 +1,105 @@
+package com.team.onlinecatalogsystem.web;
+
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Caps concurrent requests per endpoint group, so one group saturating the connection pool, such
+ * as a partner paging through every order detail, leaves the others room. A full group rejects
+ * straight away rather than queueing; the database limiter behind it already does the queueing.
+ */
+public class Bulkheads {
+    private final List<Route> routes = new ArrayList<>();
+    private final Map<String, Bulkhead> groups = new ConcurrentHashMap<>();
+
+    private record Route(String group, Set<String> methods, List<PathPattern> paths) {
+        boolean matches(String method, PathContainer path) {
+            return (methods.isEmpty() || methods.contains(method)) && paths.stream().anyMatch(pattern -> pattern.matches(path));
+        }
+    }
+
+    public static final class Bulkhead {
+        private final String group;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private volatile int maxConcurrent;
+
+        private Bulkhead(String group, int maxConcurrent) {
+            this.group = group;
+            this.maxConcurrent = maxConcurrent;
+        }
+
+        boolean tryEnter() {
+            while (true) {
+                int current = inFlight.get();
+                if (current >= maxConcurrent) {
+                    return false;
+                }
+                if (inFlight.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        void exit() {
+            inFlight.decrementAndGet();
+        }
+
+        public String group() {
+            return group;
+        }
+
+        public int inFlight() {
+            return inFlight.get();
+        }
+
+        public int maxConcurrent() {
+            return maxConcurrent;
+        }
+    }
+
+    public Bulkheads(Map<String, Integer> limits) {
+        limits.forEach(this::setLimit);
+    }
+
+    public void addRoute(String group, List<String> methods, List<String> paths) {
+        if (!groups.containsKey(group)) {
+            throw new IllegalArgumentException("Route for " + group + " has no bulkhead limit");
+        }
+        routes.add(new Route(group, Set.copyOf(methods), paths.stream().map(PathPatternParser.defaultInstance::parse).toList()));
+    }
+
+    // The group's bulkhead, or null when the request belongs to no group
+    Bulkhead route(String method, String path) {
+        PathContainer container = PathContainer.parsePath(path);
+        for (Route route : routes) {
+            if (route.matches(method, container)) {
+                return groups.get(route.group());
+            }
+        }
+        return null;
+    }
+
+    // Lowering a limit lets requests already in flight finish; new ones are refused until below it
+    void setLimit(String group, int maxConcurrent) {
+        if (maxConcurrent < 1) {
+            throw new IllegalArgumentException("maxConcurrent must be at least 1");
+        }
+        groups.computeIfAbsent(group, name -> new Bulkhead(name, maxConcurrent)).maxConcurrent = maxConcurrent;
+    }
+
+    public Bulkhead get(String group) {
+        return groups.get(group);
+    }
+
+    public Iterable<Bulkhead> all() {
+        return groups.values();
+    }
+}
@@ -0,0 +1,102 @@
+package com.team.onlinecatalogsystem.web;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket per client. Each bucket is a single {@link AtomicLong} holding the time at which
+ * it will be full again (the GCRA form of a token bucket), so taking a token is one CAS with no
+ * lock and no refill timer, and buckets live in a {@link ConcurrentHashMap} whose bins spread
+ * contention across clients. Limits are looked up per call from an immutable snapshot, so
+ * replacing them takes effect on the next request without touching the buckets.
+ */
+public class ClientRateLimiter {
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+    private final int maxTrackedClients;
+    private volatile Rate defaultRate;
+    private volatile Map<String, Rate> clientRates;
+
+    public ClientRateLimiter(Rate defaultRate, Map<String, Rate> clientRates, int maxTrackedClients) {
+        this.defaultRate = defaultRate;
+        this.clientRates = Map.copyOf(clientRates);
+        this.maxTrackedClients = maxTrackedClients;
+    }
+
+    // Sustained rate and burst as GCRA parameters: spacing between requests and how far ahead a client may run
+    public record Rate(double perSecond, int burst, long intervalNanos, long toleranceNanos) {
+        public static Rate of(double perSecond, int burst) {
+            if (perSecond <= 0 || burst < 1) {
+                throw new IllegalArgumentException("Rate must be positive and burst at least 1");
+            }
+            long interval = (long) (1_000_000_000L / perSecond);
+            return new Rate(perSecond, burst, interval, interval * (burst - 1));
+        }
+    }
+
+    /**
+     * Takes a token from {@code bucketKey}'s bucket, at the rate of {@code clientName} when that
+     * client has one configured and at the default rate otherwise.
+     *
+     * @return 0 when allowed, otherwise nanoseconds until the next token
+     */
+    long tryAcquire(String bucketKey, String clientName) {
+        Rate rate = clientName != null ? clientRates.getOrDefault(clientName, defaultRate) : defaultRate;
+        AtomicLong bucket = buckets.get(bucketKey);
+        if (bucket == null) {
+            bucket = buckets.computeIfAbsent(bucketKey, k -> new AtomicLong(System.nanoTime()));
+            if (buckets.size() > maxTrackedClients) {
+                sweep();
+            }
+        }
+        long now = System.nanoTime();
+        while (true) {
+            long fullAt = bucket.get();
+            long start = fullAt - now < 0 ? now : fullAt;
+            long ahead = start - now;
+            if (ahead > rate.toleranceNanos()) {
+                return ahead - rate.toleranceNanos();
+            }
+            if (bucket.compareAndSet(fullAt, start + rate.intervalNanos())) {
+                return 0;
+            }
+        }
+    }
+
+    // Full buckets carry no state beyond a fresh one, so dropping them is invisible to clients
+    private void sweep() {
+        if (!sweeping.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long now = System.nanoTime();
+            buckets.values().removeIf(bucket -> bucket.get() - now <= 0);
+        } finally {
+            sweeping.set(false);
+        }
+    }
+
+    public Rate defaultRate() {
+        return defaultRate;
+    }
+
+    public Map<String, Rate> clientRates() {
+        return clientRates;
+    }
+
+    public int trackedClients() {
+        return buckets.size();
+    }
+
+    void setDefaultRate(Rate rate) {
+        this.defaultRate = rate;
+    }
+
+    synchronized void setClientRate(String clientName, Rate rate) {
+        Map<String, Rate> rates = new ConcurrentHashMap<>(clientRates);
+        rates.put(clientName, rate);
+        this.clientRates = Map.copyOf(rates);
+    }
+}
@@ -0,0 +1,208 @@
+package com.team.onlinecatalogsystem.web;
+
+import com.team.onlinecatalogsystem.service.CommittedChange;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Short-lived cache of GET response bodies, keyed by path, query and Accept header. Each entry
+ * keeps the raw body and every content encoding requested so far, each compressed exactly once.
+ * <p>
+ * Writes through this instance evict the resource's entries as their transaction commits, from
+ * the {@link CommittedChange.Event}, and again once the write's handler returns, before its
+ * response goes out. Every eviction bumps a generation, and a GET that started before it doesn't
+ * store what it read, so a request racing a write can't put the old body back for a whole TTL.
+ * Entries are evicted by the resource in their path plus the few {@link #DEPENDENTS} known to
+ * read another resource's rows; anything else derived from other tables (e.g. the periodic
+ * co-purchase rebuild) and writes made on other instances can go unseen for up to the TTL.
+ */
+public class CompressedResponseCache {
+    // Cached reads built from another resource's rows: related products are counted from order lines
+    private static final Map<String, List<PathPattern>> DEPENDENTS = Map.of(
+            "/api/orderdetails", List.of(PathPatternParser.defaultInstance.parse("/api/products/code/*/related")));
+
+    private final List<String> paths;
+    private final long ttlNanos;
+    private final long maxEntrySize;
+    private final long maxSize;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong size = new AtomicLong();
+    private final AtomicLong generation = new AtomicLong();
+
+    public CompressedResponseCache(List<String> paths, long ttlNanos, long maxEntrySize, long maxSize) {
+        this.paths = paths;
+        this.ttlNanos = ttlNanos;
+        this.maxEntrySize = maxEntrySize;
+        this.maxSize = maxSize;
+    }
+
+    public static final class Entry {
+        private final String key;
+        private final String path;
+        private final String contentType;
+        private final byte[] body;
+        private final long expiresAt;
+        private final Map<ContentEncoding, byte[]> variants = new ConcurrentHashMap<>();
+        private final AtomicLong bytes;
+
+        private Entry(String key, String path, String contentType, byte[] body, long expiresAt) {
+            this.key = key;
+            this.path = path;
+            this.contentType = contentType;
+            this.body = body;
+            this.expiresAt = expiresAt;
+            this.bytes = new AtomicLong(body.length);
+        }
+
+        public String contentType() {
+            return contentType;
+        }
+
+        public byte[] body() {
+            return body;
+        }
+
+        byte[] variant(ContentEncoding encoding) {
+            return variants.get(encoding);
+        }
+    }
+
+    boolean isCacheable(String path) {
+        for (String prefix : paths) {
+            if (path.equals(prefix) || path.startsWith(prefix + "/")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    long maxEntrySize() {
+        return maxEntrySize;
+    }
+
+    static String key(String path, String query, String accept) {
+        return path + (query != null ? "?" + query : "") + "|" + (accept != null ? accept : "*/*");
+    }
+
+    // Taken before a GET runs and handed back to put, which stores nothing if an eviction came between
+    long generation() {
+        return generation.get();
+    }
+
+    Entry get(String key) {
+        Entry entry = entries.get(key);
+        if (entry != null && System.nanoTime() - entry.expiresAt > 0) {
+            remove(key, entry);
+            return null;
+        }
+        return entry;
+    }
+
+    Entry put(String key, String path, String contentType, byte[] body, long readAt) {
+        Entry entry = new Entry(key, path, contentType, body, System.nanoTime() + ttlNanos);
+        if (body.length > maxEntrySize || generation.get() != readAt) {
+            return entry;
+        }
+        evictExpired();
+        if (size.get() + body.length > maxSize) {
+            // Not worth an LRU for a seconds-long TTL; start over and let hot entries refill
+            clear();
+        }
+        Entry previous = entries.put(key, entry);
+        size.addAndGet(body.length - (previous != null ? previous.bytes.get() : 0));
+        // An eviction bumps the generation before it sweeps, so one that missed this entry is seen here
+        if (generation.get() != readAt) {
+            remove(key, entry);
+        }
+        return entry;
+    }
+
+    // Racing fills compress twice at worst; the first stored copy wins
+    byte[] storeVariant(Entry entry, ContentEncoding encoding, byte[] compressed) {
+        byte[] existing = entry.variants.putIfAbsent(encoding, compressed);
+        if (existing != null) {
+            return existing;
+        }
+        entry.bytes.addAndGet(compressed.length);
+        if (entries.get(entry.key) == entry) {
+            size.addAndGet(compressed.length);
+        }
+        return compressed;
+    }
+
+    // Evicts every entry for the resource a write touched, e.g. /api/products for PUT /api/products/7
+    void invalidate(String writePath) {
+        invalidateResources(Set.of(resourceOf(writePath)));
+    }
+
+    // Runs in the writing thread right after commit, before the handler has returned
+    @EventListener
+    public void onCommitted(CommittedChange.Event event) {
+        Set<String> resources = new LinkedHashSet<>();
+        for (CommittedChange change : event.changes()) {
+            resources.add("/api/" + change.type().token() + "s");
+        }
+        invalidateResources(resources);
+    }
+
+    private void invalidateResources(Set<String> resources) {
+        generation.incrementAndGet();
+        List<PathPattern> dependents = resources.stream()
+                .flatMap(resource -> DEPENDENTS.getOrDefault(resource, List.of()).stream())
+                .toList();
+        entries.forEach((key, entry) -> {
+            if (resources.contains(resourceOf(entry.path)) || matchesAny(dependents, entry.path)) {
+                remove(key, entry);
+            }
+        });
+    }
+
+    void clear() {
+        entries.forEach(this::remove);
+    }
+
+    public int entryCount() {
+        return entries.size();
+    }
+
+    public long sizeInBytes() {
+        return size.get();
+    }
+
+    private void evictExpired() {
+        long now = System.nanoTime();
+        entries.forEach((key, entry) -> {
+            if (now - entry.expiresAt > 0) {
+                remove(key, entry);
+            }
+        });
+    }
+
+    private void remove(String key, Entry entry) {
+        if (entries.remove(key, entry)) {
+            size.addAndGet(-entry.bytes.get());
+        }
+    }
+
+    private static boolean matchesAny(List<PathPattern> patterns, String path) {
+        if (patterns.isEmpty()) {
+            return false;
+        }
+        PathContainer container = PathContainer.parsePath(path);
+        return patterns.stream().anyMatch(pattern -> pattern.matches(container));
+    }
+
+    private static String resourceOf(String path) {
+        int second = path.indexOf('/', "/api/".length());
+        return second < 0 ? path : path.substring(0, second);
+    }
+}
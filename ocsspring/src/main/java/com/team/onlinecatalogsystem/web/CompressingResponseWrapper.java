@@ -0,0 +1,227 @@
+package com.team.onlinecatalogsystem.web;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.function.Predicate;
+
+/**
+ * Holds back the start of the body until it reaches the buffer limit. Bodies that finish below
+ * it are handed back whole via {@link #takeBuffered()}, so the filter can cache them or decide
+ * on compression with the full size known. Bodies that outgrow it are streamed, through a
+ * {@link Compressor} when the content type qualifies and an encoding was negotiated, which keeps
+ * long exports from ever being held in memory.
+ */
+class CompressingResponseWrapper extends HttpServletResponseWrapper {
+    private enum State { BUFFERING, IDENTITY, COMPRESSING, FINISHED }
+
+    private final ContentEncoding encoding;
+    private final int level;
+    private final int bufferLimit;
+    private final Predicate<String> compressibleType;
+    private final CompressionMetrics metrics;
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private State state = State.BUFFERING;
+    private Compressor compressor;
+    private long identityBytes;
+    private long declaredLength = -1;
+    private ServletOutputStream stream;
+    private PrintWriter writer;
+
+    CompressingResponseWrapper(HttpServletResponse response, ContentEncoding encoding, int level, int bufferLimit,
+                               Predicate<String> compressibleType, CompressionMetrics metrics) {
+        super(response);
+        this.encoding = encoding;
+        this.level = level;
+        this.bufferLimit = bufferLimit;
+        this.compressibleType = compressibleType;
+        this.metrics = metrics;
+    }
+
+    ContentEncoding encoding() {
+        return encoding;
+    }
+
+    boolean isBuffering() {
+        return state == State.BUFFERING;
+    }
+
+    boolean isCompressibleType() {
+        return compressibleType.test(getContentType()) && getHeader("Content-Encoding") == null;
+    }
+
+    // The complete body of a response that never outgrew the buffer; the caller writes it out
+    byte[] takeBuffered() {
+        if (writer != null) {
+            writer.flush();
+        }
+        state = State.FINISHED;
+        return pending.toByteArray();
+    }
+
+    // Completes a streamed response
+    void finish() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+        if (state == State.COMPRESSING) {
+            compressor.finish();
+            metrics.recordResponse(encoding.token(), false, compressor.bytesIn(), compressor.bytesOut(), compressor.nanos());
+        } else if (state == State.IDENTITY) {
+            metrics.recordResponse(CompressionMetrics.IDENTITY, false, identityBytes, identityBytes, 0);
+        }
+        state = State.FINISHED;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() {
+        if (writer != null) {
+            throw new IllegalStateException("getWriter() has already been called for this response");
+        }
+        return stream();
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (writer == null) {
+            if (stream != null) {
+                throw new IllegalStateException("getOutputStream() has already been called for this response");
+            }
+            writer = new PrintWriter(new OutputStreamWriter(stream(), getCharacterEncoding()));
+        }
+        return writer;
+    }
+
+    // Lengths are only known once the encoding is decided, so declared lengths are held back
+    @Override
+    public void setContentLength(int length) {
+        setContentLengthLong(length);
+    }
+
+    @Override
+    public void setContentLengthLong(long length) {
+        if (state == State.IDENTITY) {
+            super.setContentLengthLong(length);
+        } else {
+            declaredLength = length;
+        }
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+        if ("Content-Length".equalsIgnoreCase(name)) {
+            setContentLengthLong(Long.parseLong(value));
+        } else {
+            super.setHeader(name, value);
+        }
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+        flushStream();
+    }
+
+    @Override
+    public void resetBuffer() {
+        if (state == State.BUFFERING) {
+            pending.reset();
+        }
+        super.resetBuffer();
+    }
+
+    @Override
+    public void reset() {
+        if (state == State.BUFFERING) {
+            pending.reset();
+            declaredLength = -1;
+        }
+        super.reset();
+    }
+
+    private ServletOutputStream stream() {
+        if (stream == null) {
+            stream = new ServletOutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    write(new byte[]{(byte) b}, 0, 1);
+                }
+
+                @Override
+                public void write(byte[] bytes, int offset, int length) throws IOException {
+                    writeBody(bytes, offset, length);
+                }
+
+                @Override
+                public void flush() throws IOException {
+                    flushStream();
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setWriteListener(WriteListener listener) {
+                    throw new UnsupportedOperationException("Non-blocking writes are not supported");
+                }
+            };
+        }
+        return stream;
+    }
+
+    private void writeBody(byte[] bytes, int offset, int length) throws IOException {
+        switch (state) {
+            case BUFFERING -> {
+                pending.write(bytes, offset, length);
+                if (pending.size() > bufferLimit) {
+                    startStreaming();
+                }
+            }
+            case COMPRESSING -> compressor.write(bytes, offset, length);
+            case IDENTITY -> {
+                getResponse().getOutputStream().write(bytes, offset, length);
+                identityBytes += length;
+            }
+            case FINISHED -> throw new IOException("Response already completed");
+        }
+    }
+
+    // Until the buffer fills nothing has been sent, so a flush is a no-op; Jackson flushes on every write
+    private void flushStream() throws IOException {
+        if (state == State.COMPRESSING) {
+            compressor.flush();
+            getResponse().getOutputStream().flush();
+        } else if (state == State.IDENTITY) {
+            getResponse().getOutputStream().flush();
+        }
+    }
+
+    private void startStreaming() throws IOException {
+        byte[] head = pending.toByteArray();
+        pending.reset();
+        if (encoding != null && isCompressibleType()) {
+            state = State.COMPRESSING;
+            setHeader("Content-Encoding", encoding.token());
+            addHeader("Vary", "Accept-Encoding");
+            compressor = new Compressor(encoding, level, getResponse().getOutputStream());
+            compressor.write(head, 0, head.length);
+        } else {
+            state = State.IDENTITY;
+            if (declaredLength >= 0) {
+                super.setContentLengthLong(declaredLength);
+            }
+            getResponse().getOutputStream().write(head);
+            identityBytes += head.length;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.team.onlinecatalogsystem.web;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bandwidth and CPU per content encoding. Identity responses are counted too, so the bytes saved
+ * by each encoding can be read off the same meters.
+ */
+@RequiredArgsConstructor
+public class CompressionMetrics {
+    static final String IDENTITY = "identity";
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    // One response: its uncompressed and on-the-wire sizes and the time spent compressing it, if any
+    void recordResponse(String encoding, boolean cached, long bytesIn, long bytesOut, long compressNanos) {
+        meterRegistry.ifAvailable(registry -> {
+            String source = cached ? "cache" : "live";
+            Counter.builder("ocs.http.compression.bytes.in")
+                    .description("Response body bytes before content encoding")
+                    .tags("encoding", encoding, "source", source)
+                    .register(registry)
+                    .increment(bytesIn);
+            Counter.builder("ocs.http.compression.bytes.out")
+                    .description("Response body bytes sent on the wire")
+                    .tags("encoding", encoding, "source", source)
+                    .register(registry)
+                    .increment(bytesOut);
+            if (compressNanos > 0) {
+                recordCompression(registry, encoding, compressNanos);
+            }
+        });
+    }
+
+    // Compression done once to fill a cache entry, charged separately from the responses it serves
+    void recordCacheFill(String encoding, long compressNanos) {
+        meterRegistry.ifAvailable(registry -> recordCompression(registry, encoding, compressNanos));
+    }
+
+    void recordCacheLookup(boolean hit) {
+        meterRegistry.ifAvailable(registry -> Counter.builder("ocs.http.response.cache")
+                .description("Lookups in the compressed response cache")
+                .tag("result", hit ? "hit" : "miss")
+                .register(registry)
+                .increment());
+    }
+
+    private static void recordCompression(MeterRegistry registry, String encoding, long nanos) {
+        Timer.builder("ocs.http.compression.time")
+                .description("CPU time spent in the deflater")
+                .tag("encoding", encoding)
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,116 @@
+package com.team.onlinecatalogsystem.web;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Incremental gzip/deflate encoder writing to a target stream. Time is only counted inside
+ * {@link Deflater#deflate}, so the compression metric is CPU spent compressing, not socket writes.
+ */
+final class Compressor {
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    private final ContentEncoding encoding;
+    private final Deflater deflater;
+    private final CRC32 crc = new CRC32();
+    private final byte[] buffer = new byte[8192];
+    private final OutputStream target;
+    private long bytesIn;
+    private long bytesOut;
+    private long nanos;
+
+    Compressor(ContentEncoding encoding, int level, OutputStream target) throws IOException {
+        this.encoding = encoding;
+        this.deflater = new Deflater(level, encoding == ContentEncoding.GZIP);
+        this.target = target;
+        if (encoding == ContentEncoding.GZIP) {
+            target.write(GZIP_HEADER);
+            bytesOut += GZIP_HEADER.length;
+        }
+    }
+
+    // Whole-body compression, for cached and fully buffered responses
+    static Result compress(ContentEncoding encoding, int level, byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, body.length / 4));
+        try {
+            Compressor compressor = new Compressor(encoding, level, out);
+            compressor.write(body, 0, body.length);
+            compressor.finish();
+            return new Result(out.toByteArray(), compressor.nanos);
+        } catch (IOException e) {
+            throw new IllegalStateException("In-memory compression failed", e);
+        }
+    }
+
+    record Result(byte[] body, long nanos) {
+    }
+
+    void write(byte[] bytes, int offset, int length) throws IOException {
+        if (length == 0) {
+            return;
+        }
+        if (encoding == ContentEncoding.GZIP) {
+            crc.update(bytes, offset, length);
+        }
+        bytesIn += length;
+        deflater.setInput(bytes, offset, length);
+        while (!deflater.needsInput()) {
+            drain(Deflater.NO_FLUSH);
+        }
+    }
+
+    // Pushes everything written so far to the client, for streamed responses that flush
+    void flush() throws IOException {
+        int written;
+        do {
+            written = drain(Deflater.SYNC_FLUSH);
+        } while (written == buffer.length);
+    }
+
+    void finish() throws IOException {
+        try {
+            deflater.finish();
+            while (!deflater.finished()) {
+                drain(Deflater.NO_FLUSH);
+            }
+            if (encoding == ContentEncoding.GZIP) {
+                long crcValue = crc.getValue();
+                byte[] trailer = new byte[8];
+                for (int i = 0; i < 4; i++) {
+                    trailer[i] = (byte) (crcValue >>> (8 * i));
+                    trailer[i + 4] = (byte) (bytesIn >>> (8 * i));
+                }
+                target.write(trailer);
+                bytesOut += trailer.length;
+            }
+        } finally {
+            deflater.end();
+        }
+    }
+
+    long bytesIn() {
+        return bytesIn;
+    }
+
+    long bytesOut() {
+        return bytesOut;
+    }
+
+    long nanos() {
+        return nanos;
+    }
+
+    private int drain(int flush) throws IOException {
+        long start = System.nanoTime();
+        int written = deflater.deflate(buffer, 0, buffer.length, flush);
+        nanos += System.nanoTime() - start;
+        if (written > 0) {
+            target.write(buffer, 0, written);
+            bytesOut += written;
+        }
+        return written;
+    }
+}
@@ -0,0 +1,74 @@
+package com.team.onlinecatalogsystem.web;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Content codings the API can produce. Both are DEFLATE underneath; gzip adds a header and CRC
+ * trailer, deflate is the zlib wrapping.
+ */
+public enum ContentEncoding {
+    GZIP("gzip"),
+    DEFLATE("deflate");
+
+    private final String token;
+
+    ContentEncoding(String token) {
+        this.token = token;
+    }
+
+    public String token() {
+        return token;
+    }
+
+    public static ContentEncoding fromToken(String token) {
+        for (ContentEncoding encoding : values()) {
+            if (encoding.token.equalsIgnoreCase(token)) {
+                return encoding;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported content encoding " + token);
+    }
+
+    /**
+     * Picks the first of {@code preferred} that the Accept-Encoding header allows, or null for
+     * identity. A coding listed with q=0 is refused; "*" accepts anything not listed.
+     */
+    public static ContentEncoding negotiate(String acceptEncoding, List<ContentEncoding> preferred) {
+        if (acceptEncoding == null || acceptEncoding.isBlank()) {
+            return null;
+        }
+        String header = acceptEncoding.toLowerCase(Locale.ROOT);
+        for (ContentEncoding encoding : preferred) {
+            Double quality = quality(header, encoding.token);
+            if (quality == null) {
+                quality = quality(header, "*");
+            }
+            if (quality != null && quality > 0) {
+                return encoding;
+            }
+        }
+        return null;
+    }
+
+    private static Double quality(String header, String token) {
+        for (String part : header.split(",")) {
+            String[] params = part.split(";");
+            if (!params[0].strip().equals(token)) {
+                continue;
+            }
+            for (int i = 1; i < params.length; i++) {
+                String param = params[i].strip();
+                if (param.startsWith("q=")) {
+                    try {
+                        return Double.parseDouble(param.substring(2));
+                    } catch (NumberFormatException e) {
+                        return 0.0;
+                    }
+                }
+            }
+            return 1.0;
+        }
+        return null;
+    }
+}
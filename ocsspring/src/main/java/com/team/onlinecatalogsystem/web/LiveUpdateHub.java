@@ -0,0 +1,256 @@
+package com.team.onlinecatalogsystem.web;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.team.onlinecatalogsystem.service.ChangeRecorder;
+import com.team.onlinecatalogsystem.service.ChangeType;
+import com.team.onlinecatalogsystem.service.CommittedChange;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.web.socket.*;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fans committed changes out to WebSocket subscribers. Commits only enqueue; every flush interval
+ * the queue is drained, compacted to one notification per entity, and each distinct topic set is
+ * rendered once and shared by every client subscribed to it, so the cost of a flush grows with
+ * the number of clients only by the sends themselves. Sends run on virtual threads through a
+ * buffering session decorator, so a slow client delays nobody else and is dropped once it falls
+ * too far behind. Nothing here touches the database.
+ */
+public class LiveUpdateHub implements DisposableBean {
+    private static final TextMessage NOTHING = new TextMessage("");
+
+    private final Map<String, Subscriber> subscribers = new ConcurrentHashMap<>();
+    private final Queue<CommittedChange> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final AtomicBoolean overflowed = new AtomicBoolean();
+    private final ExecutorService sender = Executors.newVirtualThreadPerTaskExecutor();
+    private final ObjectMapper objectMapper;
+    private final Settings settings;
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    public record Settings(int maxChangesPerMessage, int maxPending, int maxSessions, int sendTimeLimitMillis,
+                           int sendBufferSize, boolean includeFields) {
+    }
+
+    private static final class Subscriber {
+        private final WebSocketSession session;
+        private volatile Set<ChangeType> topics;
+
+        private Subscriber(WebSocketSession session, Set<ChangeType> topics) {
+            this.session = session;
+            this.topics = topics;
+        }
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    record Notification(String type, long id, String op, long version, Set<String> fields) {
+    }
+
+    private record Key(ChangeType type, long id) {
+    }
+
+    public LiveUpdateHub(ObjectMapper objectMapper, Settings settings, ObjectProvider<MeterRegistry> meterRegistry) {
+        this.objectMapper = objectMapper;
+        this.settings = settings;
+        this.meterRegistry = meterRegistry;
+    }
+
+    // False when the hub is full; the caller closes the session
+    boolean register(WebSocketSession session, Set<ChangeType> topics) {
+        if (subscribers.size() >= settings.maxSessions()) {
+            return false;
+        }
+        WebSocketSession decorated = new ConcurrentWebSocketSessionDecorator(session, settings.sendTimeLimitMillis(),
+                settings.sendBufferSize(), ConcurrentWebSocketSessionDecorator.OverflowStrategy.TERMINATE);
+        subscribers.put(session.getId(), new Subscriber(decorated, Set.copyOf(topics)));
+        return true;
+    }
+
+    void unregister(String sessionId) {
+        subscribers.remove(sessionId);
+    }
+
+    // Topics are replaced rather than mutated, so a flush sees either the old set or the new one
+    Set<ChangeType> subscribe(String sessionId, Set<ChangeType> added, Set<ChangeType> removed) {
+        Subscriber subscriber = subscribers.get(sessionId);
+        if (subscriber == null) {
+            return Set.of();
+        }
+        EnumSet<ChangeType> topics = subscriber.topics.isEmpty() ? EnumSet.noneOf(ChangeType.class) : EnumSet.copyOf(subscriber.topics);
+        topics.addAll(added);
+        topics.removeAll(removed);
+        subscriber.topics = Set.copyOf(topics);
+        return subscriber.topics;
+    }
+
+    void reply(String sessionId, Object payload) {
+        Subscriber subscriber = subscribers.get(sessionId);
+        if (subscriber != null) {
+            sender.execute(() -> send(subscriber, new TextMessage(render(payload))));
+        }
+    }
+
+    @EventListener
+    public void onCommitted(CommittedChange.Event event) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        for (CommittedChange change : event.changes()) {
+            if (pendingCount.incrementAndGet() > settings.maxPending()) {
+                pendingCount.decrementAndGet();
+                overflowed.set(true);
+                return;
+            }
+            pending.add(change);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${ocs.live-updates.flush-interval:250ms}")
+    public void flush() {
+        boolean overflow = overflowed.getAndSet(false);
+        Map<Key, Notification> latest = new LinkedHashMap<>();
+        long version = 0;
+        for (CommittedChange change; (change = pending.poll()) != null; ) {
+            pendingCount.decrementAndGet();
+            Key key = new Key(change.type(), change.id());
+            latest.put(key, merge(latest.get(key), change));
+            version = Math.max(version, change.seq());
+        }
+        if ((latest.isEmpty() && !overflow) || subscribers.isEmpty()) {
+            return;
+        }
+
+        Map<ChangeType, List<Notification>> byType = new EnumMap<>(ChangeType.class);
+        latest.forEach((key, notification) -> byType.computeIfAbsent(key.type(), type -> new ArrayList<>()).add(notification));
+        Map<Set<ChangeType>, TextMessage> messages = new HashMap<>();
+        for (Subscriber subscriber : subscribers.values()) {
+            Set<ChangeType> topics = subscriber.topics;
+            TextMessage message = messages.get(topics);
+            if (message == null) {
+                message = message(topics, byType, overflow, version);
+                messages.put(topics, message);
+            }
+            if (message != NOTHING) {
+                TextMessage toSend = message;
+                sender.execute(() -> send(subscriber, toSend));
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${ocs.live-updates.ping-interval:25s}")
+    public void ping() {
+        PingMessage ping = new PingMessage(ByteBuffer.allocate(0));
+        subscribers.values().forEach(subscriber -> sender.execute(() -> send(subscriber, ping)));
+    }
+
+    public int sessionCount() {
+        return subscribers.size();
+    }
+
+    public int pendingCount() {
+        return pendingCount.get();
+    }
+
+    // Inserted then updated is still an insert; a delete wins; updates accumulate their fields
+    private Notification merge(Notification previous, CommittedChange change) {
+        String op = change.op().name().toLowerCase(Locale.ROOT);
+        if (previous != null && change.op() != ChangeRecorder.Op.DELETE && !"delete".equals(previous.op())) {
+            op = previous.op();
+        }
+        Set<String> fields = null;
+        if ("update".equals(op) && settings.includeFields()) {
+            fields = new TreeSet<>(change.fields());
+            if (previous != null && previous.fields() != null) {
+                fields.addAll(previous.fields());
+            }
+        }
+        return new Notification(change.type().token(), change.id(), op, change.seq(), fields);
+    }
+
+    private TextMessage message(Set<ChangeType> topics, Map<ChangeType, List<Notification>> byType, boolean overflow,
+                                long version) {
+        if (topics.isEmpty()) {
+            return NOTHING;
+        }
+        if (overflow) {
+            return resync(version);
+        }
+        List<Notification> changes = new ArrayList<>();
+        for (ChangeType topic : topics) {
+            changes.addAll(byType.getOrDefault(topic, List.of()));
+        }
+        if (changes.isEmpty()) {
+            return NOTHING;
+        }
+        if (changes.size() > settings.maxChangesPerMessage()) {
+            return resync(version);
+        }
+        changes.sort(Comparator.comparingLong(Notification::version));
+        record("changes");
+        return new TextMessage(render(Map.of("changes", changes)));
+    }
+
+    // Too much changed to list; clients reload what they show
+    private TextMessage resync(long version) {
+        record("resync");
+        return new TextMessage(render(Map.of("resync", true, "version", version)));
+    }
+
+    private String render(Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void send(Subscriber subscriber, WebSocketMessage<?> message) {
+        try {
+            subscriber.session.sendMessage(message);
+        } catch (IOException | RuntimeException e) {
+            // The decorator has closed it when over its limits; make sure either way
+            unregister(subscriber.session.getId());
+            record("dropped");
+            try {
+                subscriber.session.close(CloseStatus.SESSION_NOT_RELIABLE);
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private void record(String kind) {
+        meterRegistry.ifAvailable(registry -> Counter.builder("ocs.live.messages")
+                .description("Live update messages rendered, and sessions dropped for falling behind")
+                .tag("kind", kind)
+                .register(registry)
+                .increment());
+    }
+
+    @Override
+    public void destroy() {
+        subscribers.values().forEach(subscriber -> {
+            try {
+                subscriber.session.close(CloseStatus.GOING_AWAY);
+            } catch (IOException ignored) {
+            }
+        });
+        sender.shutdown();
+    }
+}
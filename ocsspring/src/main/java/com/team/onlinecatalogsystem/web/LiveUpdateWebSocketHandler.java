@@ -0,0 +1,109 @@
+package com.team.onlinecatalogsystem.web;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.team.onlinecatalogsystem.service.ChangeType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * /ws/changes: live change notifications. Topics are the change feed's types, or * for all of
+ * them, given on connect as {@code ?topics=product,productline} or later as messages:
+ *
+ * <pre>
+ * → {"subscribe": ["customer"], "unsubscribe": ["product"]}
+ * ← {"subscribed": ["customer", "productline"]}
+ * ← {"changes": [{"type": "customer", "id": 103, "op": "update", "version": 5120, "fields": ["phone"]}]}
+ * ← {"resync": true, "version": 5188}
+ * </pre>
+ *
+ * The version is the change feed's seq, so a client that reconnects can catch up through
+ * /api/changes?since=. A resync means more changed than one message carries; reload instead.
+ */
+@RequiredArgsConstructor
+public class LiveUpdateWebSocketHandler extends TextWebSocketHandler {
+    private final LiveUpdateHub hub;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws IOException {
+        Set<ChangeType> topics;
+        try {
+            String query = session.getUri() != null
+                    ? UriComponentsBuilder.fromUri(session.getUri()).build().getQueryParams().getFirst("topics") : null;
+            topics = parseTopics(query != null ? query.split(",") : new String[0]);
+        } catch (IllegalArgumentException e) {
+            session.close(CloseStatus.BAD_DATA.withReason(e.getMessage()));
+            return;
+        }
+        if (!hub.register(session, topics)) {
+            session.close(CloseStatus.SERVICE_OVERLOAD);
+            return;
+        }
+        hub.reply(session.getId(), Map.of("subscribed", tokens(topics)));
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+        try {
+            JsonNode request = objectMapper.readTree(message.getPayload());
+            Set<ChangeType> topics = hub.subscribe(session.getId(), parseTopics(request.path("subscribe")),
+                    parseTopics(request.path("unsubscribe")));
+            hub.reply(session.getId(), Map.of("subscribed", tokens(topics)));
+        } catch (IOException | IllegalArgumentException e) {
+            hub.reply(session.getId(), Map.of("error", "Expected {\"subscribe\": [types], \"unsubscribe\": [types]}: "
+                    + e.getMessage()));
+        }
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        hub.unregister(session.getId());
+    }
+
+    @Override
+    public void handleTransportError(WebSocketSession session, Throwable exception) {
+        hub.unregister(session.getId());
+    }
+
+    private static Set<ChangeType> parseTopics(JsonNode node) {
+        if (node.isMissingNode() || node.isNull()) {
+            return Set.of();
+        }
+        if (!node.isArray()) {
+            throw new IllegalArgumentException("topics must be an array");
+        }
+        String[] names = new String[node.size()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = node.get(i).asText();
+        }
+        return parseTopics(names);
+    }
+
+    private static Set<ChangeType> parseTopics(String[] names) {
+        EnumSet<ChangeType> topics = EnumSet.noneOf(ChangeType.class);
+        for (String name : names) {
+            if (name.isBlank()) {
+                continue;
+            }
+            if ("*".equals(name.trim())) {
+                return EnumSet.allOf(ChangeType.class);
+            }
+            topics.add(ChangeType.fromToken(name));
+        }
+        return topics;
+    }
+
+    private static String[] tokens(Set<ChangeType> topics) {
+        return topics.stream().sorted().map(ChangeType::token).toArray(String[]::new);
+    }
+}
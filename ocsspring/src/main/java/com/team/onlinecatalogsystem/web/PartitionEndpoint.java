@@ -0,0 +1,52 @@
+package com.team.onlinecatalogsystem.web;
+
+import com.team.onlinecatalogsystem.service.PartitionMaintenance;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * /actuator/partitions: the yearly partitions of orders, orderdetails and payments with their
+ * bounds, estimated rows and size, and detaching a year that has ended. Detaching orders takes
+ * that year's order lines with it. Nothing guards the delete but the network, so the endpoint is
+ * only exposed when added to the exposure list, and only on the management port.
+ *
+ * <pre>
+ * DELETE /actuator/partitions/orders/2003
+ * DELETE /actuator/partitions/payments/2003
+ * </pre>
+ */
+@Endpoint(id = "partitions")
+@RequiredArgsConstructor
+public class PartitionEndpoint {
+    private final PartitionMaintenance partitionMaintenance;
+
+    @ReadOperation
+    public Map<String, Object> partitions() {
+        Map<String, Object> byTable = new LinkedHashMap<>();
+        for (PartitionMaintenance.Partition partition : partitionMaintenance.partitions()) {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> partitions = (Map<String, Object>) byTable.computeIfAbsent(partition.table(), table -> new LinkedHashMap<>());
+            partitions.put(partition.name(), Map.of("bounds", partition.bounds(), "estimatedRows", partition.estimatedRows(),
+                    "bytes", partition.bytes()));
+        }
+        return byTable;
+    }
+
+    @DeleteOperation
+    public Map<String, Object> detach(@Selector String table, @Selector int year) {
+        try {
+            List<String> detached = partitionMaintenance.detachYear(table, year);
+            return Map.of("detached", detached);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidEndpointRequestException(e.getMessage(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.team.onlinecatalogsystem.web;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * /actuator/ratelimits: current limits and bulkhead occupancy, and runtime changes to either.
+ * Changes apply to the next request and last until restart, when the configuration applies again.
+ * The endpoint is read-only unless management.endpoint.ratelimits.access is unrestricted.
+ *
+ * <pre>
+ * POST /actuator/ratelimits/clients/default    {"rate": 20, "burst": 40}
+ * POST /actuator/ratelimits/clients/partner-a  {"rate": 100, "burst": 200}
+ * POST /actuator/ratelimits/bulkheads/exports  {"maxConcurrent": 2}
+ * </pre>
+ */
+@Endpoint(id = "ratelimits")
+@RequiredArgsConstructor
+public class RateLimitEndpoint {
+    static final String DEFAULT_CLIENT = "default";
+
+    private final ClientRateLimiter rateLimiter;
+    private final Bulkheads bulkheads;
+
+    @ReadOperation
+    public Map<String, Object> limits() {
+        Map<String, Object> clients = new LinkedHashMap<>();
+        clients.put(DEFAULT_CLIENT, describe(rateLimiter.defaultRate()));
+        rateLimiter.clientRates().forEach((name, rate) -> clients.put(name, describe(rate)));
+        Map<String, Object> groups = new LinkedHashMap<>();
+        for (Bulkheads.Bulkhead bulkhead : bulkheads.all()) {
+            groups.put(bulkhead.group(), Map.of("maxConcurrent", bulkhead.maxConcurrent(), "inFlight", bulkhead.inFlight()));
+        }
+        return Map.of("clients", clients, "bulkheads", groups, "trackedClients", rateLimiter.trackedClients());
+    }
+
+    @WriteOperation
+    public Map<String, Object> update(@Selector String kind, @Selector String name, @Nullable Double rate,
+                                      @Nullable Integer burst, @Nullable Integer maxConcurrent) {
+        try {
+            apply(kind, name, rate, burst, maxConcurrent);
+        } catch (IllegalArgumentException e) {
+            throw invalid(e.getMessage());
+        }
+        return limits();
+    }
+
+    private void apply(String kind, String name, Double rate, Integer burst, Integer maxConcurrent) {
+        switch (kind) {
+            case "clients" -> {
+                ClientRateLimiter.Rate current = DEFAULT_CLIENT.equals(name) ? rateLimiter.defaultRate()
+                        : rateLimiter.clientRates().getOrDefault(name, rateLimiter.defaultRate());
+                ClientRateLimiter.Rate updated = ClientRateLimiter.Rate.of(rate != null ? rate : current.perSecond(),
+                        burst != null ? burst : current.burst());
+                if (DEFAULT_CLIENT.equals(name)) {
+                    rateLimiter.setDefaultRate(updated);
+                } else if (rateLimiter.clientRates().containsKey(name)) {
+                    rateLimiter.setClientRate(name, updated);
+                } else {
+                    throw invalid("Unknown client " + name + "; API keys are only read at startup");
+                }
+            }
+            case "bulkheads" -> {
+                if (bulkheads.get(name) == null || maxConcurrent == null) {
+                    throw invalid("Unknown bulkhead " + name + " or missing maxConcurrent");
+                }
+                bulkheads.setLimit(name, maxConcurrent);
+            }
+            default -> throw invalid("Expected clients or bulkheads, got " + kind);
+        }
+    }
+
+    private static InvalidEndpointRequestException invalid(String message) {
+        return new InvalidEndpointRequestException(message, message);
+    }
+
+    private static Map<String, Object> describe(ClientRateLimiter.Rate rate) {
+        return Map.of("rate", rate.perSecond(), "burst", rate.burst());
+    }
+}
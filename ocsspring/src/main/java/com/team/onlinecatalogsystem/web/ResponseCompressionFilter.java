@@ -0,0 +1,173 @@
+package com.team.onlinecatalogsystem.web;
+
+import com.team.onlinecatalogsystem.config.CompressionProperties;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Negotiates gzip or deflate for API responses. Small bodies go out as they are; large ones are
+ * compressed, streaming once they outgrow the buffer. GET responses under the cached paths are
+ * kept in a {@link CompressedResponseCache}, so a hot list is compressed once per encoding rather
+ * than once per request, and successful writes evict their resource from it before their own
+ * response is written.
+ */
+public class ResponseCompressionFilter extends OncePerRequestFilter {
+    private static final String WRAPPER_ATTRIBUTE = ResponseCompressionFilter.class.getName() + ".wrapper";
+    private static final String CACHE_KEY_ATTRIBUTE = ResponseCompressionFilter.class.getName() + ".cacheKey";
+    private static final String CACHE_GENERATION_ATTRIBUTE = ResponseCompressionFilter.class.getName() + ".cacheGeneration";
+
+    private final CompressionProperties properties;
+    private final List<ContentEncoding> encodings;
+    private final List<MediaType> mimeTypes;
+    private final CompressedResponseCache cache;
+    private final CompressionMetrics metrics;
+
+    public ResponseCompressionFilter(CompressionProperties properties, CompressedResponseCache cache, CompressionMetrics metrics) {
+        this.properties = properties;
+        this.encodings = properties.getEncodings().stream().map(ContentEncoding::fromToken).toList();
+        this.mimeTypes = properties.getMimeTypes().stream().map(MediaType::parseMediaType).toList();
+        this.cache = cache;
+        this.metrics = metrics;
+    }
+
+    // Streamed bodies complete on the async dispatch, which is where the wrapper gets finished
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (isAsyncDispatch(request)) {
+            chain.doFilter(request, response);
+            completeIfDone(request);
+            return;
+        }
+
+        ContentEncoding encoding = ContentEncoding.negotiate(request.getHeader(HttpHeaders.ACCEPT_ENCODING), encodings);
+        String path = request.getRequestURI();
+        String cacheKey = null;
+        if (cache != null && "GET".equals(request.getMethod()) && cache.isCacheable(path)) {
+            cacheKey = CompressedResponseCache.key(path, request.getQueryString(), request.getHeader(HttpHeaders.ACCEPT));
+            CompressedResponseCache.Entry entry = cache.get(cacheKey);
+            metrics.recordCacheLookup(entry != null);
+            if (entry != null) {
+                write(response, entry.contentType(), entry.body(), entry, encoding, true);
+                return;
+            }
+        }
+
+        int minSize = (int) properties.getMinResponseSize().toBytes();
+        int bufferLimit = cacheKey != null ? (int) Math.max(minSize, cache.maxEntrySize()) : minSize;
+        CompressingResponseWrapper wrapper = new CompressingResponseWrapper(response, encoding, properties.getLevel(),
+                bufferLimit, this::isCompressible, metrics);
+        request.setAttribute(WRAPPER_ATTRIBUTE, wrapper);
+        if (cacheKey != null) {
+            request.setAttribute(CACHE_KEY_ATTRIBUTE, cacheKey);
+            request.setAttribute(CACHE_GENERATION_ATTRIBUTE, cache.generation());
+        }
+        try {
+            chain.doFilter(request, wrapper);
+        } finally {
+            // Recorded writes were evicted on commit already; this catches the rest while the
+            // body is still buffered, so a client can't read back the old copy after its write
+            if (cache != null && !isSafe(request.getMethod()) && response.getStatus() < 400
+                    && !properties.getCache().getReadOnlyPosts().contains(path)) {
+                cache.invalidate(path);
+            }
+            completeIfDone(request);
+        }
+    }
+
+    private void completeIfDone(HttpServletRequest request) throws IOException {
+        if (request.isAsyncStarted()) {
+            return;
+        }
+        CompressingResponseWrapper wrapper = (CompressingResponseWrapper) request.getAttribute(WRAPPER_ATTRIBUTE);
+        if (wrapper == null) {
+            return;
+        }
+        request.removeAttribute(WRAPPER_ATTRIBUTE);
+        HttpServletResponse response = (HttpServletResponse) wrapper.getResponse();
+        if (!wrapper.isBuffering()) {
+            wrapper.finish();
+            return;
+        }
+
+        boolean compressible = wrapper.isCompressibleType();
+        byte[] body = wrapper.takeBuffered();
+        String cacheKey = (String) request.getAttribute(CACHE_KEY_ATTRIBUTE);
+        if (body.length == 0) {
+            // Nothing written, e.g. an error page about to be rendered by the container
+            return;
+        }
+        if (cacheKey != null && compressible && response.getStatus() == HttpServletResponse.SC_OK) {
+            long readAt = (Long) request.getAttribute(CACHE_GENERATION_ATTRIBUTE);
+            CompressedResponseCache.Entry entry = cache.put(cacheKey, request.getRequestURI(), response.getContentType(),
+                    body, readAt);
+            write(response, entry.contentType(), body, entry, wrapper.encoding(), false);
+        } else {
+            write(response, response.getContentType(), body, null, compressible ? wrapper.encoding() : null, false);
+        }
+    }
+
+    // Writes a complete body, compressing it (or reusing the cached compressed copy) when worthwhile
+    private void write(HttpServletResponse response, String contentType, byte[] body, CompressedResponseCache.Entry entry,
+                       ContentEncoding encoding, boolean fromCache) throws IOException {
+        if (fromCache) {
+            response.setStatus(HttpServletResponse.SC_OK);
+            response.setContentType(contentType);
+        }
+        if (entry != null) {
+            // Cached per Accept header, so shared caches downstream must key on it too
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        }
+        if (isCompressible(contentType)) {
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        if (encoding == null || body.length < properties.getMinResponseSize().toBytes()) {
+            response.setContentLength(body.length);
+            response.getOutputStream().write(body);
+            metrics.recordResponse(CompressionMetrics.IDENTITY, fromCache, body.length, body.length, 0);
+            return;
+        }
+
+        byte[] compressed = entry != null ? entry.variant(encoding) : null;
+        long nanos = 0;
+        if (compressed == null) {
+            Compressor.Result result = Compressor.compress(encoding, properties.getLevel(), body);
+            if (entry != null) {
+                compressed = cache.storeVariant(entry, encoding, result.body());
+                metrics.recordCacheFill(encoding.token(), result.nanos());
+            } else {
+                compressed = result.body();
+                nanos = result.nanos();
+            }
+        }
+        response.setHeader(HttpHeaders.CONTENT_ENCODING, encoding.token());
+        response.setContentLength(compressed.length);
+        response.getOutputStream().write(compressed);
+        metrics.recordResponse(encoding.token(), fromCache, body.length, compressed.length, nanos);
+    }
+
+    private boolean isCompressible(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        MediaType type = MediaType.parseMediaType(contentType);
+        return mimeTypes.stream().anyMatch(candidate -> candidate.includes(type));
+    }
+
+    private static boolean isSafe(String method) {
+        return "GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method);
+    }
+}
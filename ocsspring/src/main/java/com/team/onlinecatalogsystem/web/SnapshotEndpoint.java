@@ -0,0 +1,46 @@
+package com.team.onlinecatalogsystem.web;
+
+import com.team.onlinecatalogsystem.service.SnapshotExporter;
+import com.team.onlinecatalogsystem.service.SnapshotManifest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * /actuator/snapshots: the Parquet exports on disk, newest first, and running one now. An
+ * incremental export that finds nothing changed writes nothing. Running one needs
+ * management.endpoint.snapshots.access set to unrestricted; the endpoint is read-only by default.
+ *
+ * <pre>
+ * POST /actuator/snapshots                       {"mode": "incremental"}
+ * POST /actuator/snapshots                       {"mode": "full"}
+ * </pre>
+ */
+@Endpoint(id = "snapshots")
+@RequiredArgsConstructor
+public class SnapshotEndpoint {
+    private final SnapshotExporter snapshotExporter;
+
+    @ReadOperation
+    public List<SnapshotManifest> exports() {
+        return snapshotExporter.exports();
+    }
+
+    @WriteOperation
+    public Map<String, Object> export(@Nullable String mode) {
+        boolean full = SnapshotManifest.FULL.equals(mode);
+        if (!full && mode != null && !SnapshotManifest.INCREMENTAL.equals(mode)) {
+            String reason = "mode must be " + SnapshotManifest.FULL + " or " + SnapshotManifest.INCREMENTAL;
+            throw new InvalidEndpointRequestException(reason, reason);
+        }
+        SnapshotManifest manifest = snapshotExporter.export(full);
+        return manifest == null ? Map.of("exported", false, "basedOn", snapshotExporter.lastExport().id())
+                : Map.of("exported", true, "manifest", manifest);
+    }
+}
@@ -0,0 +1,139 @@
+package com.team.onlinecatalogsystem.web;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rate limits each client, then admits the request to its endpoint group's bulkhead. Clients over
+ * their rate get a 429 and groups at capacity a 503, both with Retry-After. Clients are told apart
+ * by API key when it belongs to a configured client, otherwise by IP address, so made-up keys
+ * share their address's bucket. The client IP header is only believed on requests from a trusted
+ * proxy; anyone else could set it to a fresh address on every request.
+ */
+public class ThrottlingFilter extends OncePerRequestFilter {
+    private final ClientRateLimiter rateLimiter;
+    private final Bulkheads bulkheads;
+    private final Map<String, String> clientsByApiKey;
+    private final String apiKeyHeader;
+    private final String clientIpHeader;
+    private final TrustedProxies trustedProxies;
+    private final long bulkheadRetryAfterSeconds;
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    public ThrottlingFilter(ClientRateLimiter rateLimiter, Bulkheads bulkheads, Map<String, String> clientsByApiKey,
+                            String apiKeyHeader, String clientIpHeader, TrustedProxies trustedProxies,
+                            long bulkheadRetryAfterSeconds, ObjectProvider<MeterRegistry> meterRegistry) {
+        this.rateLimiter = rateLimiter;
+        this.bulkheads = bulkheads;
+        this.clientsByApiKey = Map.copyOf(clientsByApiKey);
+        this.apiKeyHeader = apiKeyHeader;
+        this.clientIpHeader = clientIpHeader;
+        this.trustedProxies = trustedProxies;
+        this.bulkheadRetryAfterSeconds = Math.max(1, bulkheadRetryAfterSeconds);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String apiKey = request.getHeader(apiKeyHeader);
+        String client = apiKey != null ? clientsByApiKey.get(apiKey) : null;
+        String bucket = client != null ? "client:" + client : "ip:" + clientIp(request);
+        long waitNanos = rateLimiter.tryAcquire(bucket, client);
+        if (waitNanos > 0) {
+            record("rate-limit", client != null ? client : "anonymous");
+            reject(response, HttpStatus.TOO_MANY_REQUESTS, retryAfterSeconds(waitNanos), "Rate limit exceeded");
+            return;
+        }
+
+        Bulkheads.Bulkhead bulkhead = bulkheads.route(request.getMethod(), request.getRequestURI());
+        if (bulkhead == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        if (!bulkhead.tryEnter()) {
+            record("bulkhead", bulkhead.group());
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, bulkheadRetryAfterSeconds,
+                    "Too many concurrent " + bulkhead.group() + " requests");
+            return;
+        }
+        boolean async = false;
+        try {
+            chain.doFilter(request, response);
+            async = request.isAsyncStarted();
+            if (async) {
+                request.getAsyncContext().addListener(new ExitOnComplete(bulkhead));
+            }
+        } finally {
+            if (!async) {
+                bulkhead.exit();
+            }
+        }
+    }
+
+    private String clientIp(HttpServletRequest request) {
+        if (clientIpHeader != null && trustedProxies.contains(request.getRemoteAddr())) {
+            String forwarded = request.getHeader(clientIpHeader);
+            if (forwarded != null && !forwarded.isBlank()) {
+                // X-Forwarded-For style lists start with the original client
+                int comma = forwarded.indexOf(',');
+                return (comma < 0 ? forwarded : forwarded.substring(0, comma)).trim();
+            }
+        }
+        return request.getRemoteAddr();
+    }
+
+    private static long retryAfterSeconds(long waitNanos) {
+        return Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+
+    private static void reject(HttpServletResponse response, HttpStatus status, long retryAfterSeconds, String message)
+            throws IOException {
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.getWriter().write(message);
+    }
+
+    private void record(String reason, String subject) {
+        meterRegistry.ifAvailable(registry -> Counter.builder("ocs.http.throttled")
+                .description("Requests rejected by the rate limiter or a bulkhead")
+                .tags("reason", reason, "subject", subject)
+                .register(registry)
+                .increment());
+    }
+
+    private record ExitOnComplete(Bulkheads.Bulkhead bulkhead) implements AsyncListener {
+        @Override
+        public void onComplete(AsyncEvent event) {
+            bulkhead.exit();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
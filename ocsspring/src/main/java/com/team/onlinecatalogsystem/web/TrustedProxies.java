@@ -0,0 +1,95 @@
+package com.team.onlinecatalogsystem.web;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.List;
+
+/**
+ * Addresses allowed to say who the client is through a header, given as IP addresses or CIDR
+ * blocks such as 172.28.0.0/16. Anything that isn't on the list is taken at its socket address.
+ */
+public final class TrustedProxies {
+    private final List<Block> blocks;
+
+    private record Block(byte[] network, int prefixLength) {
+        boolean contains(byte[] address) {
+            if (address.length != network.length) {
+                return false;
+            }
+            int fullBytes = prefixLength / 8;
+            for (int i = 0; i < fullBytes; i++) {
+                if (address[i] != network[i]) {
+                    return false;
+                }
+            }
+            int remainingBits = prefixLength % 8;
+            if (remainingBits == 0) {
+                return true;
+            }
+            int mask = 0xFF << (8 - remainingBits);
+            return (address[fullBytes] & mask) == (network[fullBytes] & mask);
+        }
+    }
+
+    private TrustedProxies(List<Block> blocks) {
+        this.blocks = blocks;
+    }
+
+    public static TrustedProxies of(List<String> entries) {
+        return new TrustedProxies(entries.stream()
+                .map(String::trim)
+                .filter(entry -> !entry.isEmpty())
+                .map(TrustedProxies::parse)
+                .toList());
+    }
+
+    // Remote addresses come from the container as literals, so this never resolves a name
+    boolean contains(String address) {
+        if (blocks.isEmpty() || address == null || !isLiteral(address)) {
+            return false;
+        }
+        byte[] bytes;
+        try {
+            bytes = InetAddress.getByName(address).getAddress();
+        } catch (UnknownHostException e) {
+            return false;
+        }
+        for (Block block : blocks) {
+            if (block.contains(bytes)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Block parse(String entry) {
+        int slash = entry.indexOf('/');
+        String host = slash < 0 ? entry : entry.substring(0, slash);
+        if (!isLiteral(host)) {
+            throw new IllegalArgumentException("Trusted proxy " + entry + " must be an IP address or CIDR block");
+        }
+        byte[] network;
+        try {
+            network = InetAddress.getByName(host).getAddress();
+        } catch (UnknownHostException e) {
+            throw new IllegalArgumentException("Trusted proxy " + entry + " is not an IP address", e);
+        }
+        int prefixLength = network.length * 8;
+        if (slash >= 0) {
+            try {
+                prefixLength = Integer.parseInt(entry.substring(slash + 1));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Trusted proxy " + entry + " has an invalid prefix length", e);
+            }
+            if (prefixLength < 0 || prefixLength > network.length * 8) {
+                throw new IllegalArgumentException("Trusted proxy " + entry + " has an invalid prefix length");
+            }
+        }
+        return new Block(network, prefixLength);
+    }
+
+    // IPv4 dotted quads and anything with a colon (IPv6); everything else would be a DNS lookup
+    private static boolean isLiteral(String host) {
+        return host.indexOf(':') >= 0 || host.chars().allMatch(c -> c == '.' || Character.isDigit(c));
+    }
+}
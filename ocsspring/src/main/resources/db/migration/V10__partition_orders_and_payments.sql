@@ -0,0 +1,191 @@
+-- Range partitioning of orders, orderdetails and payments by calendar year.
+-- Date-range reads only touch the years they ask for, and a closed year can be detached into a
+-- standalone table (PartitionMaintenance) instead of being deleted row by row.
+--
+-- A table can't be partitioned in place, so each one is rebuilt as a partitioned table and its
+-- rows copied across. This holds an exclusive lock on all three tables for the length of the
+-- copy, so on a database that already has rows it only runs when asked to: stop all instances but
+-- one and start that one with OCS_PARTITION_REBUILD=true (spring.flyway.placeholders.partitionRebuild)
+-- in a maintenance window. Until then startup fails here and nothing is changed. A new, empty
+-- database is partitioned straight away.
+--
+-- Keys on a partitioned table have to include the partition key:
+--  * orders is keyed (id, orderdate). orderdetails carries its order's date so its foreign key can
+--    reference that pair, and is partitioned on it so an order and its lines share a year.
+--  * payments is keyed (id, payment_date). Check numbers stay unique across years through
+--    payment_check_numbers, which a trigger keeps in step with payments.
+--  * Neither key makes id unique by itself, while JPA and the change feed look rows up by id alone.
+--    Ids are therefore GENERATED ALWAYS: inserts can't supply one, so every id comes from the
+--    table's sequence and no two rows share it.
+
+DO
+$$
+BEGIN
+    IF '${partitionRebuild}' <> 'true'
+        AND (EXISTS (SELECT FROM orders) OR EXISTS (SELECT FROM orderdetails) OR EXISTS (SELECT FROM payments)) THEN
+        RAISE EXCEPTION 'Partitioning orders, orderdetails and payments rewrites them under an exclusive lock'
+            USING HINT = 'Run it in a maintenance window by starting a single instance with OCS_PARTITION_REBUILD=true';
+    END IF;
+END
+$$;
+
+-- One partition per calendar year, named <table>_y<year>. Years that have a partition, or had one
+-- that was since detached, are skipped. Returns the number of partitions created.
+CREATE OR REPLACE FUNCTION ocs_create_year_partitions(parent text, first_year integer, last_year integer)
+    RETURNS integer
+    LANGUAGE plpgsql AS
+$$
+DECLARE
+    created integer := 0;
+BEGIN
+    FOR y IN first_year..last_year LOOP
+        IF to_regclass(quote_ident(parent || '_y' || y)) IS NULL THEN
+            EXECUTE format('CREATE TABLE %I PARTITION OF %I FOR VALUES FROM (%L) TO (%L)',
+                           parent || '_y' || y, parent, make_date(y, 1, 1), make_date(y + 1, 1, 1));
+            created := created + 1;
+        END IF;
+    END LOOP;
+    RETURN created;
+END
+$$;
+
+-- Move the old tables aside. Their constraint and index names are reused once they're dropped.
+DO
+$$
+DECLARE
+    t text;
+BEGIN
+    FOREACH t IN ARRAY ARRAY ['orders', 'orderdetails', 'payments'] LOOP
+        EXECUTE format('ALTER SEQUENCE %s RENAME TO %I', pg_get_serial_sequence(t, 'id'), t || '_unpartitioned_id_seq');
+        EXECUTE format('ALTER TABLE %I RENAME TO %I', t, t || '_unpartitioned');
+    END LOOP;
+END
+$$;
+
+CREATE TABLE orders (
+    id             bigint GENERATED ALWAYS AS IDENTITY,
+    orderdate      date        NOT NULL,
+    requireddate   date        NOT NULL,
+    shippeddate    date,
+    status         varchar(15) NOT NULL,
+    comments       varchar(255),
+    customernumber bigint      NOT NULL,
+    claimedby      varchar(64),
+    claimeduntil   timestamptz
+) PARTITION BY RANGE (orderdate);
+
+CREATE TABLE orderdetails (
+    id                bigint GENERATED ALWAYS AS IDENTITY,
+    order_number      bigint         NOT NULL,
+    orderdate         date           NOT NULL,
+    product_code      varchar(15)    NOT NULL,
+    quantity_ordered  integer        NOT NULL,
+    price_each        numeric(10, 2) NOT NULL,
+    order_line_number integer        NOT NULL
+) PARTITION BY RANGE (orderdate);
+
+CREATE TABLE payments (
+    id              bigint GENERATED ALWAYS AS IDENTITY,
+    customer_number bigint         NOT NULL,
+    check_number    varchar(50)    NOT NULL,
+    payment_date    date           NOT NULL,
+    amount          numeric(10, 2) NOT NULL
+) PARTITION BY RANGE (payment_date);
+
+-- A year for every year with data through two years ahead; PartitionMaintenance adds years as
+-- time passes. Rows outside every year, such as back-dated entries for a detached year, land in
+-- the default partition rather than failing.
+CREATE TABLE orders_default       PARTITION OF orders DEFAULT;
+CREATE TABLE orderdetails_default PARTITION OF orderdetails DEFAULT;
+CREATE TABLE payments_default     PARTITION OF payments DEFAULT;
+
+DO
+$$
+DECLARE
+    this_year   integer := extract(year FROM current_date)::integer;
+    first_order integer := COALESCE((SELECT extract(year FROM min(orderdate))::integer FROM orders_unpartitioned), this_year);
+    first_pay   integer := COALESCE((SELECT extract(year FROM min(payment_date))::integer FROM payments_unpartitioned), this_year);
+BEGIN
+    PERFORM ocs_create_year_partitions('orders', least(first_order, this_year), this_year + 2);
+    PERFORM ocs_create_year_partitions('orderdetails', least(first_order, this_year), this_year + 2);
+    PERFORM ocs_create_year_partitions('payments', least(first_pay, this_year), this_year + 2);
+END
+$$;
+
+INSERT INTO orders (id, orderdate, requireddate, shippeddate, status, comments, customernumber, claimedby, claimeduntil) OVERRIDING SYSTEM VALUE
+SELECT id, orderdate, requireddate, shippeddate, status, comments, customernumber, claimedby, claimeduntil
+FROM orders_unpartitioned;
+
+-- fk_orderdetails_order was validated in V5, so every line has its order
+INSERT INTO orderdetails (id, order_number, orderdate, product_code, quantity_ordered, price_each, order_line_number) OVERRIDING SYSTEM VALUE
+SELECT d.id, d.order_number, o.orderdate, d.product_code, d.quantity_ordered, d.price_each, d.order_line_number
+FROM orderdetails_unpartitioned d
+         JOIN orders_unpartitioned o ON o.id = d.order_number;
+
+INSERT INTO payments (id, customer_number, check_number, payment_date, amount) OVERRIDING SYSTEM VALUE
+SELECT id, customer_number, check_number, payment_date, amount
+FROM payments_unpartitioned;
+
+DROP TABLE orderdetails_unpartitioned, payments_unpartitioned, orders_unpartitioned;
+
+SELECT setval(pg_get_serial_sequence('orders', 'id'), COALESCE(max(id), 0) + 1, false) FROM orders;
+SELECT setval(pg_get_serial_sequence('orderdetails', 'id'), COALESCE(max(id), 0) + 1, false) FROM orderdetails;
+SELECT setval(pg_get_serial_sequence('payments', 'id'), COALESCE(max(id), 0) + 1, false) FROM payments;
+
+ALTER TABLE orders       ADD CONSTRAINT orders_pkey       PRIMARY KEY (id, orderdate);
+ALTER TABLE orderdetails ADD CONSTRAINT orderdetails_pkey PRIMARY KEY (id, orderdate);
+ALTER TABLE payments     ADD CONSTRAINT payments_pkey     PRIMARY KEY (id, payment_date);
+
+ALTER TABLE orders ADD CONSTRAINT fk_orders_customer
+    FOREIGN KEY (customernumber) REFERENCES customers (id);
+-- Changing an order's date moves its lines to the new year along with it
+ALTER TABLE orderdetails ADD CONSTRAINT fk_orderdetails_order
+    FOREIGN KEY (order_number, orderdate) REFERENCES orders (id, orderdate) ON UPDATE CASCADE;
+ALTER TABLE payments ADD CONSTRAINT fk_payments_customer
+    FOREIGN KEY (customer_number) REFERENCES customers (id);
+
+ALTER TABLE orders ADD CONSTRAINT chk_orders_status
+    CHECK (status IN ('In Process', 'On Hold', 'Disputed', 'Shipped', 'Resolved', 'Cancelled')) NOT VALID;
+
+-- The V3, V6 and V9 indexes, now partitioned, plus the date-range lookups
+CREATE INDEX idx_orders_customernumber ON orders (customernumber);
+CREATE INDEX idx_orders_status ON orders (status);
+CREATE INDEX idx_orders_open_queue ON orders (status, orderdate, id)
+    WHERE status IN ('In Process', 'On Hold', 'Disputed');
+CREATE INDEX idx_orders_orderdate ON orders (orderdate);
+
+CREATE INDEX idx_orderdetails_order_number ON orderdetails (order_number);
+CREATE INDEX idx_orderdetails_product_code ON orderdetails (product_code) INCLUDE (order_number);
+CREATE INDEX idx_orderdetails_orderdate ON orderdetails (orderdate);
+
+CREATE INDEX idx_payments_customer_number ON payments (customer_number);
+CREATE INDEX idx_payments_payment_date ON payments (payment_date);
+
+-- Check numbers are unique across all years, detached ones included
+CREATE TABLE payment_check_numbers (
+    check_number varchar(50) PRIMARY KEY,
+    payment_id   bigint      NOT NULL
+);
+
+INSERT INTO payment_check_numbers (check_number, payment_id)
+SELECT check_number, id
+FROM payments;
+
+-- A payment moved to another year fires as a delete and an insert, which this handles the same way
+CREATE OR REPLACE FUNCTION ocs_register_check_number() RETURNS trigger
+    LANGUAGE plpgsql AS
+$$
+BEGIN
+    IF TG_OP IN ('UPDATE', 'DELETE') THEN
+        DELETE FROM payment_check_numbers WHERE check_number = OLD.check_number AND payment_id = OLD.id;
+    END IF;
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        INSERT INTO payment_check_numbers (check_number, payment_id) VALUES (NEW.check_number, NEW.id);
+    END IF;
+    RETURN NULL;
+END
+$$;
+
+CREATE TRIGGER trg_payments_check_number
+    AFTER INSERT OR DELETE OR UPDATE OF check_number ON payments
+    FOR EACH ROW EXECUTE FUNCTION ocs_register_check_number();
@@ -0,0 +1,56 @@
+-- Cold storage for orders shipped long ago, their lines, and old payments (OrderArchiver).
+-- Archived rows keep their ids and are only read back by id or order number, so these are plain
+-- tables without the hot tables' secondary indexes or partitions.
+
+CREATE TABLE orders_archive (
+    id             bigint PRIMARY KEY,
+    orderdate      date        NOT NULL,
+    requireddate   date        NOT NULL,
+    shippeddate    date,
+    status         varchar(15) NOT NULL,
+    comments       varchar(255),
+    customernumber bigint      NOT NULL,
+    claimedby      varchar(64),
+    claimeduntil   timestamptz,
+    archived_at    timestamptz NOT NULL DEFAULT now()
+);
+
+CREATE TABLE orderdetails_archive (
+    id                bigint PRIMARY KEY,
+    order_number      bigint         NOT NULL,
+    orderdate         date           NOT NULL,
+    product_code      varchar(15)    NOT NULL,
+    quantity_ordered  integer        NOT NULL,
+    price_each        numeric(10, 2) NOT NULL,
+    order_line_number integer        NOT NULL
+);
+
+CREATE INDEX idx_orderdetails_archive_order_number ON orderdetails_archive (order_number);
+
+CREATE TABLE payments_archive (
+    id              bigint PRIMARY KEY,
+    customer_number bigint         NOT NULL,
+    check_number    varchar(50)    NOT NULL,
+    payment_date    date           NOT NULL,
+    amount          numeric(10, 2) NOT NULL,
+    archived_at     timestamptz    NOT NULL DEFAULT now()
+);
+
+-- Archived payments keep their check numbers reserved: the archiver sets ocs.archiving for its
+-- transaction, and deletes made under it leave payment_check_numbers alone.
+CREATE OR REPLACE FUNCTION ocs_register_check_number() RETURNS trigger
+    LANGUAGE plpgsql AS
+$$
+BEGIN
+    IF TG_OP = 'DELETE' AND current_setting('ocs.archiving', true) = 'on' THEN
+        RETURN NULL;
+    END IF;
+    IF TG_OP IN ('UPDATE', 'DELETE') THEN
+        DELETE FROM payment_check_numbers WHERE check_number = OLD.check_number AND payment_id = OLD.id;
+    END IF;
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        INSERT INTO payment_check_numbers (check_number, payment_id) VALUES (NEW.check_number, NEW.id);
+    END IF;
+    RETURN NULL;
+END
+$$;
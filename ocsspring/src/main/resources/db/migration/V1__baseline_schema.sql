@@ -0,0 +1,90 @@
+-- Baseline: the schema as Hibernate's ddl-auto produced it before migrations were introduced.
+-- Existing databases are baselined at this version (spring.flyway.baseline-on-migrate) and skip it;
+-- empty databases get it applied so later migrations have something to work on.
+
+CREATE TABLE IF NOT EXISTS productlines (
+    id              bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    productline     varchar(50)   NOT NULL UNIQUE,
+    textdescription varchar(4000),
+    htmldescription oid,
+    image           oid
+);
+
+CREATE TABLE IF NOT EXISTS products (
+    id                 bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    productcode        varchar(15)    NOT NULL UNIQUE,
+    productname        varchar(70)    NOT NULL,
+    productline        varchar(50)    NOT NULL,
+    productscale       varchar(10)    NOT NULL,
+    productvendor      varchar(50)    NOT NULL,
+    productdescription text           NOT NULL,
+    quantityinstock    integer        NOT NULL,
+    buyprice           numeric(10, 2) NOT NULL,
+    msrp               numeric(10, 2) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS offices (
+    id            bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    city          varchar(50) NOT NULL,
+    phone         varchar(50) NOT NULL,
+    address_line1 varchar(50) NOT NULL,
+    address_line2 varchar(50),
+    state         varchar(50),
+    country       varchar(50) NOT NULL,
+    postal_code   varchar(15) NOT NULL,
+    territory     varchar(10) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS employees (
+    id          bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    last_name   varchar(50)  NOT NULL,
+    first_name  varchar(50)  NOT NULL,
+    extension   varchar(10)  NOT NULL,
+    email       varchar(100) NOT NULL UNIQUE,
+    office_code varchar(10)  NOT NULL,
+    reports_to  varchar(255),
+    job_title   varchar(50)  NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS customers (
+    id                     bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    customername           varchar(50) NOT NULL,
+    contactlastname        varchar(50) NOT NULL,
+    contactfirstname       varchar(50) NOT NULL,
+    phone                  varchar(50) NOT NULL,
+    addressline1           varchar(50) NOT NULL,
+    addressline2           varchar(50),
+    city                   varchar(50) NOT NULL,
+    state                  varchar(50),
+    postalcode             varchar(15),
+    country                varchar(50) NOT NULL,
+    salesrepemployeenumber varchar(255),
+    creditlimit            numeric(10, 2)
+);
+
+CREATE TABLE IF NOT EXISTS orders (
+    id             bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    orderdate      date         NOT NULL,
+    requireddate   date         NOT NULL,
+    shippeddate    date,
+    status         varchar(15)  NOT NULL,
+    comments       varchar(255),
+    customernumber varchar(255) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS orderdetails (
+    id                bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    order_number      varchar(255)   NOT NULL,
+    product_code      varchar(15)    NOT NULL,
+    quantity_ordered  integer        NOT NULL,
+    price_each        numeric(10, 2) NOT NULL,
+    order_line_number integer        NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS payments (
+    id              bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    customer_number varchar(255)   NOT NULL,
+    check_number    varchar(50)    NOT NULL UNIQUE,
+    payment_date    date           NOT NULL,
+    amount          numeric(10, 2) NOT NULL
+);
@@ -0,0 +1,78 @@
+-- Typed foreign keys, step 1 of 4 (expand).
+-- Adds bigint shadow columns next to the legacy varchar reference columns, keeps them in sync
+-- with a trigger while older instances are still writing strings, and backfills existing rows.
+-- Nothing here takes more than a brief lock, so the application keeps serving traffic.
+
+ALTER TABLE orders       ADD COLUMN IF NOT EXISTS customernumber_id         bigint;
+ALTER TABLE orderdetails ADD COLUMN IF NOT EXISTS order_number_id           bigint;
+ALTER TABLE payments     ADD COLUMN IF NOT EXISTS customer_number_id        bigint;
+ALTER TABLE customers    ADD COLUMN IF NOT EXISTS salesrepemployeenumber_id bigint;
+
+-- Non-numeric legacy values map to NULL instead of failing the cast.
+CREATE OR REPLACE FUNCTION ocs_to_bigint(v varchar) RETURNS bigint
+    LANGUAGE sql IMMUTABLE AS
+$$
+SELECT CASE WHEN v ~ '^\s*[0-9]{1,18}\s*$' THEN trim(v)::bigint END
+$$;
+
+CREATE OR REPLACE FUNCTION ocs_sync_orders_customernumber() RETURNS trigger
+    LANGUAGE plpgsql AS
+$$
+BEGIN
+    NEW.customernumber_id := ocs_to_bigint(NEW.customernumber);
+    RETURN NEW;
+END
+$$;
+
+CREATE OR REPLACE FUNCTION ocs_sync_orderdetails_order_number() RETURNS trigger
+    LANGUAGE plpgsql AS
+$$
+BEGIN
+    NEW.order_number_id := ocs_to_bigint(NEW.order_number);
+    RETURN NEW;
+END
+$$;
+
+CREATE OR REPLACE FUNCTION ocs_sync_payments_customer_number() RETURNS trigger
+    LANGUAGE plpgsql AS
+$$
+BEGIN
+    NEW.customer_number_id := ocs_to_bigint(NEW.customer_number);
+    RETURN NEW;
+END
+$$;
+
+CREATE OR REPLACE FUNCTION ocs_sync_customers_salesrep() RETURNS trigger
+    LANGUAGE plpgsql AS
+$$
+BEGIN
+    NEW.salesrepemployeenumber_id := ocs_to_bigint(NEW.salesrepemployeenumber);
+    RETURN NEW;
+END
+$$;
+
+DROP TRIGGER IF EXISTS trg_orders_customernumber ON orders;
+CREATE TRIGGER trg_orders_customernumber
+    BEFORE INSERT OR UPDATE OF customernumber ON orders
+    FOR EACH ROW EXECUTE FUNCTION ocs_sync_orders_customernumber();
+
+DROP TRIGGER IF EXISTS trg_orderdetails_order_number ON orderdetails;
+CREATE TRIGGER trg_orderdetails_order_number
+    BEFORE INSERT OR UPDATE OF order_number ON orderdetails
+    FOR EACH ROW EXECUTE FUNCTION ocs_sync_orderdetails_order_number();
+
+DROP TRIGGER IF EXISTS trg_payments_customer_number ON payments;
+CREATE TRIGGER trg_payments_customer_number
+    BEFORE INSERT OR UPDATE OF customer_number ON payments
+    FOR EACH ROW EXECUTE FUNCTION ocs_sync_payments_customer_number();
+
+DROP TRIGGER IF EXISTS trg_customers_salesrep ON customers;
+CREATE TRIGGER trg_customers_salesrep
+    BEFORE INSERT OR UPDATE OF salesrepemployeenumber ON customers
+    FOR EACH ROW EXECUTE FUNCTION ocs_sync_customers_salesrep();
+
+-- Backfill. Row locks only; concurrent writers are covered by the triggers above.
+UPDATE orders       SET customernumber_id         = ocs_to_bigint(customernumber)         WHERE customernumber_id IS NULL;
+UPDATE orderdetails SET order_number_id           = ocs_to_bigint(order_number)           WHERE order_number_id IS NULL;
+UPDATE payments     SET customer_number_id        = ocs_to_bigint(customer_number)        WHERE customer_number_id IS NULL;
+UPDATE customers    SET salesrepemployeenumber_id = ocs_to_bigint(salesrepemployeenumber) WHERE salesrepemployeenumber_id IS NULL;
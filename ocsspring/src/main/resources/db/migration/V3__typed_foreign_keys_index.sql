@@ -0,0 +1,16 @@
+-- Typed foreign keys, step 2 of 4 (index).
+-- Builds the lookup indexes on the new bigint columns without blocking writes. CONCURRENTLY
+-- cannot run inside a transaction, so Flyway executes this script statement by statement.
+-- The indexes keep their names when the columns are renamed in the next step.
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_orders_customernumber
+    ON orders (customernumber_id);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_orderdetails_order_number
+    ON orderdetails (order_number_id);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_payments_customer_number
+    ON payments (customer_number_id);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_customers_salesrepemployeenumber
+    ON customers (salesrepemployeenumber_id);
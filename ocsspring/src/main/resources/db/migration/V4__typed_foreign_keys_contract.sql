@@ -0,0 +1,65 @@
+-- Typed foreign keys, step 3 of 4 (contract).
+-- Swaps the bigint columns in under the original names and adds the constraints as NOT VALID.
+-- Drops, renames and NOT VALID constraints are catalog-only changes, so the exclusive locks taken
+-- here are held only for the length of this short transaction.
+
+DROP TRIGGER IF EXISTS trg_orders_customernumber ON orders;
+DROP TRIGGER IF EXISTS trg_orderdetails_order_number ON orderdetails;
+DROP TRIGGER IF EXISTS trg_payments_customer_number ON payments;
+DROP TRIGGER IF EXISTS trg_customers_salesrep ON customers;
+
+-- Catch rows written between the backfill and the trigger drop.
+UPDATE orders       SET customernumber_id         = ocs_to_bigint(customernumber)         WHERE customernumber_id IS NULL;
+UPDATE orderdetails SET order_number_id           = ocs_to_bigint(order_number)           WHERE order_number_id IS NULL;
+UPDATE payments     SET customer_number_id        = ocs_to_bigint(customer_number)        WHERE customer_number_id IS NULL;
+UPDATE customers    SET salesrepemployeenumber_id = ocs_to_bigint(salesrepemployeenumber) WHERE salesrepemployeenumber_id IS NULL;
+
+-- A legacy value that isn't a number would become NULL, and V5 would only notice once the varchar
+-- columns are gone. Refuse to drop them instead; the whole migration rolls back, so the values can
+-- be fixed by hand and the migration rerun.
+DO
+$$
+DECLARE
+    bad_orders    bigint := (SELECT count(*) FROM orders       WHERE customernumber IS NOT NULL AND customernumber_id IS NULL);
+    bad_details   bigint := (SELECT count(*) FROM orderdetails WHERE order_number IS NOT NULL AND order_number_id IS NULL);
+    bad_payments  bigint := (SELECT count(*) FROM payments     WHERE customer_number IS NOT NULL AND customer_number_id IS NULL);
+    bad_customers bigint := (SELECT count(*) FROM customers    WHERE salesrepemployeenumber IS NOT NULL AND salesrepemployeenumber_id IS NULL);
+BEGIN
+    IF bad_orders + bad_details + bad_payments + bad_customers > 0 THEN
+        RAISE EXCEPTION 'Non-numeric references: % orders.customernumber, % orderdetails.order_number, '
+                        '% payments.customer_number, % customers.salesrepemployeenumber',
+            bad_orders, bad_details, bad_payments, bad_customers
+            USING HINT = 'Fix or remove these rows (the *_id column is NULL while the varchar is not), then migrate again';
+    END IF;
+END
+$$;
+
+ALTER TABLE orders       DROP COLUMN customernumber;
+ALTER TABLE orderdetails DROP COLUMN order_number;
+ALTER TABLE payments     DROP COLUMN customer_number;
+ALTER TABLE customers    DROP COLUMN salesrepemployeenumber;
+
+ALTER TABLE orders       RENAME COLUMN customernumber_id         TO customernumber;
+ALTER TABLE orderdetails RENAME COLUMN order_number_id           TO order_number;
+ALTER TABLE payments     RENAME COLUMN customer_number_id        TO customer_number;
+ALTER TABLE customers    RENAME COLUMN salesrepemployeenumber_id TO salesrepemployeenumber;
+
+DROP FUNCTION IF EXISTS ocs_sync_orders_customernumber();
+DROP FUNCTION IF EXISTS ocs_sync_orderdetails_order_number();
+DROP FUNCTION IF EXISTS ocs_sync_payments_customer_number();
+DROP FUNCTION IF EXISTS ocs_sync_customers_salesrep();
+DROP FUNCTION IF EXISTS ocs_to_bigint(varchar);
+
+-- NOT NULL via a validated check constraint lets SET NOT NULL skip its own full-table scan.
+ALTER TABLE orders       ADD CONSTRAINT chk_orders_customernumber_nn     CHECK (customernumber IS NOT NULL) NOT VALID;
+ALTER TABLE orderdetails ADD CONSTRAINT chk_orderdetails_order_number_nn CHECK (order_number IS NOT NULL) NOT VALID;
+ALTER TABLE payments     ADD CONSTRAINT chk_payments_customer_number_nn  CHECK (customer_number IS NOT NULL) NOT VALID;
+
+ALTER TABLE orders ADD CONSTRAINT fk_orders_customer
+    FOREIGN KEY (customernumber) REFERENCES customers (id) NOT VALID;
+ALTER TABLE orderdetails ADD CONSTRAINT fk_orderdetails_order
+    FOREIGN KEY (order_number) REFERENCES orders (id) NOT VALID;
+ALTER TABLE payments ADD CONSTRAINT fk_payments_customer
+    FOREIGN KEY (customer_number) REFERENCES customers (id) NOT VALID;
+ALTER TABLE customers ADD CONSTRAINT fk_customers_sales_rep
+    FOREIGN KEY (salesrepemployeenumber) REFERENCES employees (id) NOT VALID;
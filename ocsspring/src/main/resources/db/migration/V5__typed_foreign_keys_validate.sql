@@ -0,0 +1,21 @@
+-- Typed foreign keys, step 4 of 4 (validate).
+-- Runs in its own transaction after the swap: VALIDATE CONSTRAINT scans under a SHARE UPDATE
+-- EXCLUSIVE lock, which does not block reads or writes. SET NOT NULL then reuses the validated
+-- check constraint instead of scanning the table again.
+
+ALTER TABLE orders       VALIDATE CONSTRAINT chk_orders_customernumber_nn;
+ALTER TABLE orderdetails VALIDATE CONSTRAINT chk_orderdetails_order_number_nn;
+ALTER TABLE payments     VALIDATE CONSTRAINT chk_payments_customer_number_nn;
+
+ALTER TABLE orders       ALTER COLUMN customernumber  SET NOT NULL;
+ALTER TABLE orderdetails ALTER COLUMN order_number    SET NOT NULL;
+ALTER TABLE payments     ALTER COLUMN customer_number SET NOT NULL;
+
+ALTER TABLE orders       DROP CONSTRAINT chk_orders_customernumber_nn;
+ALTER TABLE orderdetails DROP CONSTRAINT chk_orderdetails_order_number_nn;
+ALTER TABLE payments     DROP CONSTRAINT chk_payments_customer_number_nn;
+
+ALTER TABLE orders       VALIDATE CONSTRAINT fk_orders_customer;
+ALTER TABLE orderdetails VALIDATE CONSTRAINT fk_orderdetails_order;
+ALTER TABLE payments     VALIDATE CONSTRAINT fk_payments_customer;
+ALTER TABLE customers    VALIDATE CONSTRAINT fk_customers_sales_rep;
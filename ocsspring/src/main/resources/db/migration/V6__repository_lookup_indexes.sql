@@ -0,0 +1,32 @@
+-- Index plan for the derived repository query methods. Each index names the method it serves.
+-- Unique lookups (Employee.email, Product.productCode, ProductLine.productLine, Payment.checkNumber)
+-- are already backed by their unique constraints; the foreign-key lookups are indexed in V3.
+-- Built CONCURRENTLY so applying this to a populated database does not block writes.
+
+-- CustomerRepository.findByCity / findByCountry
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_customers_city    ON customers (city);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_customers_country ON customers (country);
+
+-- OfficeRepository.findByCity / findByCountry
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_offices_city    ON offices (city);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_offices_country ON offices (country);
+
+-- EmployeeRepository.findByOfficeCode
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_employees_office_code ON employees (office_code);
+
+-- OrderRepository.findByStatus
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_orders_status ON orders (status);
+
+-- OrderDetailRepository.findByProductCode; order_number is included so per-product order
+-- lookups can be answered from the index alone.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_orderdetails_product_code
+    ON orderdetails (product_code) INCLUDE (order_number);
+
+-- ProductRepository.findByProductLine
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_products_productline ON products (productline);
+
+-- Customers with a sales rep are the only ones ever looked up by rep, so the V3 index only
+-- needs to cover those rows.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_customers_salesrep_assigned
+    ON customers (salesrepemployeenumber) WHERE salesrepemployeenumber IS NOT NULL;
+DROP INDEX CONCURRENTLY IF EXISTS idx_customers_salesrepemployeenumber;
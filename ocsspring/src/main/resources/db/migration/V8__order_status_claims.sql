@@ -0,0 +1,11 @@
+-- Order status state machine and work-queue claims.
+-- claimedby/claimeduntil hold a worker's lease on an order it claimed; both are nullable, so
+-- adding them is a catalog-only change.
+ALTER TABLE orders
+    ADD COLUMN claimedby    varchar(64),
+    ADD COLUMN claimeduntil timestamptz;
+
+-- New and updated rows must carry a known status. NOT VALID skips checking existing rows, so
+-- this takes no long lock; validate once any legacy free-form statuses are cleaned up.
+ALTER TABLE orders ADD CONSTRAINT chk_orders_status
+    CHECK (status IN ('In Process', 'On Hold', 'Disputed', 'Shipped', 'Resolved', 'Cancelled')) NOT VALID;
@@ -0,0 +1,6 @@
+-- OrderRepository.findClaimableIds: the open statuses are the fulfilment queues and a small
+-- fraction of orders, so a partial index over just those rows, in claim order, stays small and
+-- hot while the bulk of shipped and resolved orders never enters it.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_orders_open_queue
+    ON orders (status, orderdate, id)
+    WHERE status IN ('In Process', 'On Hold', 'Disputed');
@@ -0,0 +1,238 @@
+package com.team.onlinecatalogsystem.repository;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs every derived repository query against a large fixture in an embedded PostgreSQL and fails
+ * if the planner falls back to a sequential scan. The SQL checked is the SQL Hibernate actually
+ * issues, captured through a {@link StatementInspector}. Date-range queries on the partitioned
+ * tables must also be pruned to the years they ask for.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.team.onlinecatalogsystem.repository.QueryPlanRegressionTest$CapturingStatementInspector")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class QueryPlanRegressionTest {
+
+    @Autowired private CustomerRepository customerRepository;
+    @Autowired private EmployeeRepository employeeRepository;
+    @Autowired private OfficeRepository officeRepository;
+    @Autowired private OrderRepository orderRepository;
+    @Autowired private OrderDetailRepository orderDetailRepository;
+    @Autowired private PaymentRepository paymentRepository;
+    @Autowired private ProductRepository productRepository;
+    @Autowired private ProductLineRepository productLineRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void customerFindByCityUsesIndex() {
+        assertNoSeqScan("customers", () -> customerRepository.findByCity("City 42"), "City 42");
+    }
+
+    @Test
+    void customerFindByCountryUsesIndex() {
+        assertNoSeqScan("customers", () -> customerRepository.findByCountry("Country 7"), "Country 7");
+    }
+
+    @Test
+    void employeeFindByEmailUsesIndex() {
+        assertNoSeqScan("employees", () -> employeeRepository.findByEmail("employee42@classicmodels.test"),
+                "employee42@classicmodels.test");
+    }
+
+    @Test
+    void employeeFindByOfficeCodeUsesIndex() {
+        assertNoSeqScan("employees", () -> employeeRepository.findByOfficeCode("42"), "42");
+    }
+
+    @Test
+    void officeFindByCityUsesIndex() {
+        assertNoSeqScan("offices", () -> officeRepository.findByCity("City 42"), "City 42");
+    }
+
+    @Test
+    void officeFindByCountryUsesIndex() {
+        assertNoSeqScan("offices", () -> officeRepository.findByCountry("Country 7"), "Country 7");
+    }
+
+    @Test
+    void orderFindByCustomernumberUsesIndex() {
+        assertNoSeqScan("orders", () -> orderRepository.findByCustomernumber(103L), 103L);
+    }
+
+    @Test
+    void orderFindByStatusUsesIndex() {
+        // 'Shipped' is most of the table, where a sequential scan is the right plan; the
+        // work-queue statuses are the ones polled and must stay indexed.
+        assertNoSeqScan("orders", () -> orderRepository.findByStatus("In Process"), "In Process");
+    }
+
+    @Test
+    void orderFindClaimableIdsUsesQueueIndex() {
+        assertNoSeqScan("orders", () -> orderRepository.findClaimableIds("In Process", 10), "In Process", 10);
+    }
+
+    @Test
+    void orderDetailFindByOrderNumberUsesIndex() {
+        assertNoSeqScan("orderdetails", () -> orderDetailRepository.findByOrderNumber(10100L), 10100L);
+    }
+
+    @Test
+    void orderDetailFindByProductCodeUsesIndex() {
+        assertNoSeqScan("orderdetails", () -> orderDetailRepository.findByProductCode("S00000042"), "S00000042");
+    }
+
+    @Test
+    void paymentFindByCustomerNumberUsesIndex() {
+        assertNoSeqScan("payments", () -> paymentRepository.findByCustomerNumber(103L), 103L);
+    }
+
+    @Test
+    void orderFindByOrderdateBetweenReadsOnlyItsYear() {
+        LocalDate from = LocalDate.of(2004, 3, 1);
+        LocalDate to = LocalDate.of(2004, 3, 7);
+        assertNoSeqScan("orders", () -> orderRepository.findByOrderdateBetween(from, to, Sort.by("orderdate", "id")), from, to);
+        assertScans("orders", Set.of("orders_y2004"));
+    }
+
+    @Test
+    void orderDetailFindByOrderdateBetweenReadsOnlyItsYear() {
+        LocalDate from = LocalDate.of(2004, 3, 1);
+        LocalDate to = LocalDate.of(2004, 3, 7);
+        assertNoSeqScan("orderdetails", () -> orderDetailRepository.findByOrderdateBetween(from, to, Sort.by("orderdate")), from, to);
+        assertScans("orderdetails", Set.of("orderdetails_y2004"));
+    }
+
+    @Test
+    void paymentFindByPaymentDateBetweenReadsOnlyItsYears() {
+        LocalDate from = LocalDate.of(2004, 12, 28);
+        LocalDate to = LocalDate.of(2005, 1, 3);
+        assertNoSeqScan("payments", () -> paymentRepository.findByPaymentDateBetween(from, to, Sort.by("paymentDate")), from, to);
+        assertScans("payments", Set.of("payments_y2004", "payments_y2005"));
+    }
+
+    @Test
+    void productFindByProductCodeUsesIndex() {
+        assertNoSeqScan("products", () -> productRepository.findByProductCode("S00000042"), "S00000042");
+    }
+
+    @Test
+    void productFindByProductLineUsesIndex() {
+        assertNoSeqScan("products", () -> productRepository.findByProductLine("Line 42"), "Line 42");
+    }
+
+    @Test
+    void productLineFindByProductLineUsesIndex() {
+        assertNoSeqScan("productlines", () -> productLineRepository.findByProductLine("Line 42"), "Line 42");
+    }
+
+    private String lastPlan;
+
+    // Empty partitions, such as next year's, cost nothing to scan and are fine to seq scan
+    private void assertNoSeqScan(String table, Runnable query, Object... args) {
+        CapturingStatementInspector.STATEMENTS.clear();
+        query.run();
+        assertThat(CapturingStatementInspector.STATEMENTS).as("SQL issued for %s lookup", table).isNotEmpty();
+        String sql = CapturingStatementInspector.STATEMENTS.get(CapturingStatementInspector.STATEMENTS.size() - 1);
+
+        lastPlan = explain(sql, args);
+        Set<String> seqScanned = relationsScanned(table, "Seq Scan");
+        seqScanned.removeIf(relation -> jdbcTemplate.queryForObject(
+                "SELECT reltuples <= 0 FROM pg_class WHERE oid = ?::regclass", Boolean.class, relation));
+        assertThat(seqScanned).as("tables seq scanned in plan for %s%n%s", sql, lastPlan).isEmpty();
+    }
+
+    // The table or partitions of it read by the last plan checked
+    private void assertScans(String table, Set<String> partitions) {
+        assertThat(relationsScanned(table, "Scan")).as("partitions read by%n%s", lastPlan).isEqualTo(partitions);
+    }
+
+    private Set<String> relationsScanned(String table, String scan) {
+        // Bitmap index scans name the index, not the table
+        Matcher matcher = Pattern.compile("(?<!Bitmap Index )" + scan + "(?: using \\S+)? on (" + table + "(?:_\\w+)?)\\b").matcher(lastPlan);
+        Set<String> relations = new TreeSet<>();
+        while (matcher.find()) {
+            relations.add(matcher.group(1));
+        }
+        return relations;
+    }
+
+    private String explain(String sql, Object... args) {
+        StringBuilder numbered = new StringBuilder();
+        int param = 0;
+        for (char c : sql.toCharArray()) {
+            if (c == '?') {
+                numbered.append('$').append(++param);
+            } else {
+                numbered.append(c);
+            }
+        }
+        String values = List.of(args).stream()
+                .map(arg -> "'" + arg.toString().replace("'", "''") + "'")
+                .collect(Collectors.joining(", "));
+
+        jdbcTemplate.execute("PREPARE plan_check AS " + numbered);
+        try {
+            return String.join("\n", jdbcTemplate.queryForList("EXPLAIN EXECUTE plan_check(" + values + ")", String.class));
+        } finally {
+            jdbcTemplate.execute("DEALLOCATE plan_check");
+        }
+    }
+
+    public static class CapturingStatementInspector implements StatementInspector {
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+
+    @TestConfiguration(proxyBeanMethods = false)
+    static class EmbeddedPostgresConfig {
+
+        @Bean(destroyMethod = "close")
+        EmbeddedPostgres embeddedPostgres() throws IOException {
+            return EmbeddedPostgres.start();
+        }
+
+        @Bean
+        DataSource dataSource(EmbeddedPostgres embeddedPostgres) {
+            return embeddedPostgres.getPostgresDatabase();
+        }
+
+        @Bean
+        FlywayMigrationStrategy migrateAndLoadFixture() {
+            return flyway -> {
+                flyway.migrate();
+                new ResourceDatabasePopulator(new ClassPathResource("db/query-plan-fixture.sql"))
+                        .execute(flyway.getConfiguration().getDataSource());
+            };
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.team.onlinecatalogsystem.service;
+
+import com.team.onlinecatalogsystem.config.ChangeFeedProperties;
+import com.team.onlinecatalogsystem.exception.ChangeCursorExpiredException;
+import com.team.onlinecatalogsystem.exception.GlobalExceptionHandler;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Runs the change recorder and the feed over it against the migrated schema in an embedded
+ * PostgreSQL, with real commits, so that the advisory lock, compaction over a page and the
+ * retention bookkeeping are checked against the tables they use.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ChangeRecorder.class, ChangeFeedServiceImpl.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ChangeFeedServiceImplTest {
+
+    @Autowired private ChangeRecorder changeRecorder;
+    @Autowired private ChangeFeedServiceI changeFeedService;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("TRUNCATE change_log RESTART IDENTITY");
+        jdbcTemplate.update("UPDATE change_log_retention SET purged_through = 0");
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Test
+    void changesAreWrittenOnlyWhenTheirTransactionCommits() {
+        transactionTemplate.executeWithoutResult(status -> {
+            changeRecorder.inserted(ChangeType.PRODUCT, 1L);
+            status.setRollbackOnly();
+        });
+        transactionTemplate.executeWithoutResult(status -> changeRecorder.inserted(ChangeType.PRODUCT, 2L));
+
+        ChangeBatch batch = changeFeedService.getChanges(0L, null, null, false);
+
+        assertThat(batch.changes()).extracting(ChangeBatch.Change::id).containsExactly(2L);
+        assertThat(batch.cursor()).isEqualTo(batch.changes().getFirst().seq());
+    }
+
+    @Test
+    void seqOrderIsCommitOrder() throws Exception {
+        CountDownLatch firstWritten = new CountDownLatch(1);
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            // The first transaction takes its seq and then stalls before committing, holding the lock
+            Future<?> first = pool.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+                changeRecorder.updated(ChangeType.PRODUCT, 1L);
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void beforeCommit(boolean readOnly) {
+                        firstWritten.countDown();
+                        await(releaseFirst);
+                    }
+                });
+            }));
+            assertThat(firstWritten.await(10, TimeUnit.SECONDS)).isTrue();
+            Future<?> second = pool.submit(() -> transactionTemplate.executeWithoutResult(status ->
+                    changeRecorder.updated(ChangeType.PRODUCT, 2L)));
+
+            // Without the lock the second would commit a higher seq now, which a reader would pass
+            Thread.sleep(300);
+            assertThat(second.isDone()).isFalse();
+            ChangeBatch meanwhile = changeFeedService.getChanges(0L, null, null, false);
+            assertThat(meanwhile.changes()).isEmpty();
+            assertThat(meanwhile.cursor()).isZero();
+
+            releaseFirst.countDown();
+            first.get(10, TimeUnit.SECONDS);
+            second.get(10, TimeUnit.SECONDS);
+        } finally {
+            releaseFirst.countDown();
+            pool.shutdownNow();
+        }
+
+        ChangeBatch batch = changeFeedService.getChanges(0L, null, null, false);
+        assertThat(batch.changes()).extracting(ChangeBatch.Change::id).containsExactly(1L, 2L);
+        assertThat(batch.changes().get(0).seq()).isLessThan(batch.changes().get(1).seq());
+    }
+
+    @Test
+    void pageKeepsOnlyEachEntitysLastChangeAtItsPosition() {
+        transactionTemplate.executeWithoutResult(status -> {
+            changeRecorder.inserted(ChangeType.PRODUCT, 1L);
+            changeRecorder.inserted(ChangeType.PRODUCT, 2L);
+            changeRecorder.updated(ChangeType.PRODUCT, 1L);
+            changeRecorder.inserted(ChangeType.CUSTOMER, 1L);
+            changeRecorder.deleted(ChangeType.CUSTOMER, 1L);
+        });
+
+        ChangeBatch batch = changeFeedService.getChanges(0L, null, null, false);
+
+        assertThat(batch.changes()).extracting(ChangeBatch.Change::type, ChangeBatch.Change::id, ChangeBatch.Change::op,
+                ChangeBatch.Change::seq).containsExactly(
+                tuple("product", 2L, ChangeBatch.Change.UPSERT, 2L),
+                tuple("product", 1L, ChangeBatch.Change.UPSERT, 3L),
+                tuple("customer", 1L, ChangeBatch.Change.DELETE, 5L));
+        assertThat(batch.cursor()).isEqualTo(5);
+        assertThat(batch.hasMore()).isFalse();
+        assertThat(changeFeedService.getChanges(0L, Set.of(ChangeType.CUSTOMER), null, false).changes())
+                .extracting(ChangeBatch.Change::type).containsOnly("customer");
+    }
+
+    @Test
+    void pagesEndAtTheirLastRowAndCompactOnlyWithinThemselves() {
+        transactionTemplate.executeWithoutResult(status -> {
+            changeRecorder.inserted(ChangeType.PRODUCT, 1L);
+            changeRecorder.inserted(ChangeType.PRODUCT, 2L);
+            changeRecorder.updated(ChangeType.PRODUCT, 1L);
+        });
+
+        ChangeBatch first = changeFeedService.getChanges(0L, null, 2, false);
+        ChangeBatch second = changeFeedService.getChanges(first.cursor(), null, 2, false);
+
+        assertThat(first.changes()).extracting(ChangeBatch.Change::seq).containsExactly(1L, 2L);
+        assertThat(first.cursor()).isEqualTo(2);
+        assertThat(first.hasMore()).isTrue();
+        assertThat(second.changes()).extracting(ChangeBatch.Change::seq).containsExactly(3L);
+        assertThat(second.hasMore()).isFalse();
+    }
+
+    @Test
+    void upsertOfARowThatIsGoneIsReportedAsADelete() {
+        transactionTemplate.executeWithoutResult(status -> changeRecorder.inserted(ChangeType.PRODUCT, 424242L));
+
+        ChangeBatch batch = changeFeedService.getChanges(0L, null, null, true);
+
+        assertThat(batch.changes()).singleElement().satisfies(change -> {
+            assertThat(change.op()).isEqualTo(ChangeBatch.Change.DELETE);
+            assertThat(change.data()).isNull();
+        });
+    }
+
+    @Test
+    void purgeDeletesInBatchesAndAdvancesPurgedThrough() {
+        for (long id = 1; id <= 3; id++) {
+            long product = id;
+            transactionTemplate.executeWithoutResult(status -> changeRecorder.updated(ChangeType.PRODUCT, product));
+        }
+        jdbcTemplate.update("UPDATE change_log SET changed_at = now() - interval '2 days' WHERE seq <= 2");
+        Instant cutoff = Instant.now().minus(1, ChronoUnit.DAYS);
+
+        assertThat(changeFeedService.purgeChangesBefore(cutoff, 1)).isEqualTo(1);
+        assertThat(purgedThrough()).isEqualTo(1);
+        assertThat(changeFeedService.purgeChangesBefore(cutoff, 1)).isEqualTo(1);
+        assertThat(changeFeedService.purgeChangesBefore(cutoff, 1)).isZero();
+
+        assertThat(purgedThrough()).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForList("SELECT seq FROM change_log", Long.class)).containsExactly(3L);
+    }
+
+    @Test
+    void cursorBehindRetentionOrPastTheHeadMustResync() {
+        for (long id = 1; id <= 3; id++) {
+            long product = id;
+            transactionTemplate.executeWithoutResult(status -> changeRecorder.updated(ChangeType.PRODUCT, product));
+        }
+        jdbcTemplate.update("UPDATE change_log SET changed_at = now() - interval '2 days'");
+        changeFeedService.purgeChangesBefore(Instant.now().minus(1, ChronoUnit.DAYS), 2);
+
+        assertThatThrownBy(() -> changeFeedService.getChanges(1L, null, null, false))
+                .isInstanceOfSatisfying(ChangeCursorExpiredException.class, e -> {
+                    assertThat(e.getCursor()).isEqualTo(3);
+                    assertThat(new GlobalExceptionHandler().handleChangeCursorExpired(e).getStatusCode())
+                            .isEqualTo(HttpStatus.GONE);
+                });
+        assertThatThrownBy(() -> changeFeedService.getChanges(4L, null, null, false))
+                .isInstanceOf(ChangeCursorExpiredException.class);
+        // Exactly at purged_through nothing was missed
+        assertThat(changeFeedService.getChanges(2L, null, null, false).changes())
+                .extracting(ChangeBatch.Change::id).containsExactly(3L);
+
+        // With the whole log purged the head stays where it was, so caught-up clients can carry on
+        changeFeedService.purgeChangesBefore(Instant.now().minus(1, ChronoUnit.DAYS), 2);
+        ChangeBatch empty = changeFeedService.getChanges(3L, null, null, false);
+        assertThat(empty.changes()).isEmpty();
+        assertThat(empty.cursor()).isEqualTo(3);
+        assertThat(changeFeedService.getChanges(null, null, null, false).cursor()).isEqualTo(3);
+    }
+
+    private long purgedThrough() {
+        return jdbcTemplate.queryForObject("SELECT purged_through FROM change_log_retention", Long.class);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @TestConfiguration(proxyBeanMethods = false)
+    @EnableConfigurationProperties(ChangeFeedProperties.class)
+    static class EmbeddedPostgresConfig {
+
+        @Bean(destroyMethod = "close")
+        EmbeddedPostgres embeddedPostgres() throws IOException {
+            return EmbeddedPostgres.start();
+        }
+
+        @Bean
+        DataSource dataSource(EmbeddedPostgres embeddedPostgres) {
+            return embeddedPostgres.getPostgresDatabase();
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.team.onlinecatalogsystem.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * {@link CoalescingAspect} around a target whose first call blocks until the test lets it go, so
+ * the other callers are known to arrive while it is in flight.
+ */
+class CoalescingAspectTest {
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ExecutorService pool = Executors.newCachedThreadPool();
+    private final Lookup target = new Lookup();
+
+    @AfterEach
+    void tearDown() {
+        target.release.countDown();
+        pool.shutdownNow();
+    }
+
+    static class Lookup {
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger calls = new AtomicInteger();
+        volatile RuntimeException failure;
+
+        // Only the first call blocks; calls made while it's held return at once
+        @Coalesced
+        public List<String> find(String key) {
+            if (calls.incrementAndGet() == 1) {
+                entered.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                if (failure != null) {
+                    throw failure;
+                }
+            }
+            return new ArrayList<>(List.of(key));
+        }
+    }
+
+    @Test
+    void identicalCallsInFlightShareOneExecution() throws Exception {
+        Lookup lookup = proxy(Duration.ofSeconds(10));
+        Future<List<String>> leader = pool.submit(() -> lookup.find("a"));
+        assertThat(target.entered.await(5, TimeUnit.SECONDS)).isTrue();
+        List<Future<List<String>>> followers = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            followers.add(pool.submit(() -> lookup.find("a")));
+        }
+        awaitFollowers(3);
+
+        target.release.countDown();
+
+        List<String> result = leader.get(5, TimeUnit.SECONDS);
+        for (Future<List<String>> follower : followers) {
+            assertThat(follower.get(5, TimeUnit.SECONDS)).isSameAs(result);
+        }
+        assertThat(target.calls).hasValue(1);
+        assertThat(registry.get("ocs.service.coalescing").tag("role", "follower").counter().count()).isEqualTo(3);
+        assertThat(registry.get("ocs.service.coalescing.callers").summary().max()).isEqualTo(4);
+    }
+
+    @Test
+    void differentArgumentsAndLaterCallsRunOnTheirOwn() throws Exception {
+        Lookup lookup = proxy(Duration.ofSeconds(10));
+        Future<List<String>> leader = pool.submit(() -> lookup.find("a"));
+        assertThat(target.entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(lookup.find("b")).containsExactly("b");
+
+        target.release.countDown();
+        List<String> first = leader.get(5, TimeUnit.SECONDS);
+        // The flight is over, so the same call now runs again
+        assertThat(lookup.find("a")).isNotSameAs(first);
+        assertThat(target.calls).hasValue(3);
+    }
+
+    @Test
+    void leadersErrorReachesEveryWaiter() throws Exception {
+        Lookup lookup = proxy(Duration.ofSeconds(10));
+        IllegalStateException failure = new IllegalStateException("database unavailable");
+        target.failure = failure;
+        Future<List<String>> leader = pool.submit(() -> lookup.find("a"));
+        assertThat(target.entered.await(5, TimeUnit.SECONDS)).isTrue();
+        Future<List<String>> follower = pool.submit(() -> lookup.find("a"));
+        awaitFollowers(1);
+
+        target.release.countDown();
+
+        assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class).hasCause(failure);
+        assertThatThrownBy(() -> follower.get(5, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class).hasCause(failure);
+        assertThat(target.calls).hasValue(1);
+    }
+
+    @Test
+    void waiterPastTheMaxWaitRunsTheCallItself() throws Exception {
+        Lookup lookup = proxy(Duration.ofMillis(100));
+        Future<List<String>> leader = pool.submit(() -> lookup.find("a"));
+        assertThat(target.entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+        long started = System.nanoTime();
+        assertThat(lookup.find("a")).containsExactly("a");
+
+        assertThat(System.nanoTime() - started).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+        assertThat(leader.isDone()).isFalse();
+        assertThat(target.calls).hasValue(2);
+        assertThat(registry.get("ocs.service.coalescing").tag("role", "timeout").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void callInsideATransactionNeverWaits() throws Exception {
+        Lookup lookup = proxy(Duration.ofSeconds(10));
+        pool.submit(() -> lookup.find("a"));
+        assertThat(target.entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            assertThat(lookup.find("a")).containsExactly("a");
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+        assertThat(target.calls).hasValue(2);
+    }
+
+    private Lookup proxy(Duration maxWait) {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerSingleton("meterRegistry", registry);
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new CoalescingAspect(maxWait, beanFactory.getBeanProvider(MeterRegistry.class)));
+        return factory.getProxy();
+    }
+
+    // The aspect doesn't expose its flights, so wait until that many threads are parked on one
+    private static void awaitFollowers(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (waitingOnAFlight() < count && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(waitingOnAFlight()).isGreaterThanOrEqualTo(count);
+    }
+
+    private static long waitingOnAFlight() {
+        return Thread.getAllStackTraces().entrySet().stream()
+                .filter(entry -> entry.getKey().getState() == Thread.State.TIMED_WAITING)
+                .filter(entry -> Arrays.stream(entry.getValue())
+                        .anyMatch(frame -> frame.getClassName().equals(CompletableFuture.class.getName())))
+                .count();
+    }
+}
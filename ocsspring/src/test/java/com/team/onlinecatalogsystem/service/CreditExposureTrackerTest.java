@@ -0,0 +1,274 @@
+package com.team.onlinecatalogsystem.service;
+
+import com.team.onlinecatalogsystem.exception.CreditLimitExceededException;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs the tracker against the migrated schema in an embedded PostgreSQL, with real transactions,
+ * so that changes are seen to land only on commit and the reconcile query is checked against the
+ * tables it counts.
+ */
+@JdbcTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CreditExposureTrackerTest {
+
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    private CreditExposureTracker tracker;
+    private TransactionTemplate transactionTemplate;
+    private long customer;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("TRUNCATE orderdetails, orders, payments, payment_check_numbers, "
+                + "orderdetails_archive, orders_archive, payments_archive, customers CASCADE");
+        customer = insertCustomer(new BigDecimal("1000.00"));
+        tracker = new CreditExposureTracker(jdbcTemplate);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Test
+    void reconcileCountsLinesOfOrdersNotCancelledLessPayments() {
+        long shipped = insertOrder(customer, "Shipped");
+        insertLine(shipped, 3, "100.00");
+        insertLine(shipped, 1, "50.25");
+        insertLine(insertOrder(customer, "Cancelled"), 10, "100.00");
+        insertPayment(customer, "CHK-1", "120.00");
+        jdbcTemplate.update("INSERT INTO orders_archive (id, orderdate, requireddate, shippeddate, status, customernumber) "
+                + "VALUES (900001, DATE '2001-01-01', DATE '2001-01-05', DATE '2001-01-03', 'Shipped', ?)", customer);
+        jdbcTemplate.update("INSERT INTO orderdetails_archive (id, order_number, orderdate, product_code, quantity_ordered, "
+                + "price_each, order_line_number) VALUES (900001, 900001, DATE '2001-01-01', 'S1', 2, 10.00, 1)");
+        jdbcTemplate.update("INSERT INTO payments_archive (id, customer_number, check_number, payment_date, amount) "
+                + "VALUES (900001, ?, 'CHK-OLD', DATE '2001-02-01', 5.00)", customer);
+
+        tracker.reconcile();
+
+        // 300 + 50.25 + 20 archived - 120 - 5 archived
+        assertThat(tracker.exposureOf(customer)).isEqualByComparingTo("245.25");
+    }
+
+    @Test
+    void changesLandOnlyWhenTheirTransactionCommits() {
+        long order = insertOrder(customer, "In Process");
+        tracker.reconcile();
+
+        transactionTemplate.executeWithoutResult(status ->
+                tracker.lineMoved(null, null, 0, customer, "In Process", 40_000));
+        assertThat(tracker.exposureOf(customer)).isEqualByComparingTo("400.00");
+
+        transactionTemplate.executeWithoutResult(status -> {
+            tracker.lineMoved(null, null, 0, customer, "In Process", 10_000);
+            tracker.paymentMoved(null, null, customer, new BigDecimal("50.00"));
+            tracker.orderMoved(order, customer, "In Process", customer, "Cancelled");
+            assertThat(tracker.exposureOf(customer)).isEqualByComparingTo("400.00");
+            status.setRollbackOnly();
+        });
+        assertThat(tracker.exposureOf(customer)).isEqualByComparingTo("400.00");
+    }
+
+    @Test
+    void cancellingAnOrderTakesItsLinesOffTheExposure() {
+        long order = insertOrder(customer, "In Process");
+        insertLine(order, 2, "150.00");
+        tracker.reconcile();
+
+        transactionTemplate.executeWithoutResult(status ->
+                tracker.orderMoved(order, customer, "In Process", customer, "Cancelled"));
+
+        assertThat(tracker.exposureOf(customer)).isEqualByComparingTo("0.00");
+    }
+
+    @Test
+    void lineTakingTheCustomerOverTheirLimitIsRefused() {
+        insertLine(insertOrder(customer, "In Process"), 9, "100.00");
+        tracker.reconcile();
+
+        assertThatThrownBy(() -> tracker.lineMoved(null, null, 0, customer, "In Process", 10_001))
+                .isInstanceOf(CreditLimitExceededException.class)
+                .hasMessageContaining("1000.01");
+        // Exactly at the limit is still allowed, and so is any line on a cancelled order
+        tracker.lineMoved(null, null, 0, customer, "In Process", 10_000);
+        tracker.lineMoved(null, null, 0, customer, "Cancelled", 1_000_000);
+        assertThat(tracker.exposureOf(customer)).isEqualByComparingTo("1000.00");
+    }
+
+    @Test
+    void growingALineIsCheckedOnTheIncreaseAndShrinkingOneNeverIs() {
+        insertLine(insertOrder(customer, "In Process"), 11, "100.00");
+        tracker.reconcile();
+
+        assertThatThrownBy(() -> tracker.checkCredit(customer)).isInstanceOf(CreditLimitExceededException.class);
+        // Already over the limit: taking value off a line must still work
+        tracker.lineMoved(customer, "In Process", 50_000, customer, "In Process", 45_000);
+        assertThat(tracker.exposureOf(customer)).isEqualByComparingTo("1050.00");
+        assertThatThrownBy(() -> tracker.lineMoved(customer, "In Process", 10_000, customer, "In Process", 10_001))
+                .isInstanceOf(CreditLimitExceededException.class);
+        assertThat(tracker.exposureOf(customer)).isEqualByComparingTo("1050.00");
+    }
+
+    @Test
+    void concurrentLinesOnlyGetTheCreditLeftByEachOther() throws Exception {
+        tracker.reconcile();
+        int writers = 8;
+        CountDownLatch checked = new CountDownLatch(writers);
+        CountDownLatch commit = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(writers);
+        try {
+            List<Future<Boolean>> accepted = new ArrayList<>();
+            for (int i = 0; i < writers; i++) {
+                accepted.add(pool.submit(() -> {
+                    try {
+                        transactionTemplate.executeWithoutResult(status -> {
+                            try {
+                                tracker.lineMoved(null, null, 0, customer, "In Process", 30_000);
+                            } finally {
+                                checked.countDown();
+                            }
+                            await(commit);
+                        });
+                        return true;
+                    } catch (CreditLimitExceededException e) {
+                        return false;
+                    }
+                }));
+            }
+            // Every line has been checked before any of them commits
+            assertThat(checked.await(10, TimeUnit.SECONDS)).isTrue();
+            assertThat(tracker.exposureOf(customer)).isEqualByComparingTo("0.00");
+            commit.countDown();
+
+            int count = 0;
+            for (Future<Boolean> result : accepted) {
+                count += result.get(10, TimeUnit.SECONDS) ? 1 : 0;
+            }
+            assertThat(count).isEqualTo(3);
+        } finally {
+            commit.countDown();
+            pool.shutdownNow();
+        }
+        assertThat(tracker.exposureOf(customer)).isEqualByComparingTo("900.00");
+    }
+
+    @Test
+    void rolledBackLineGivesItsReservationBack() {
+        tracker.reconcile();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            tracker.lineMoved(null, null, 0, customer, "In Process", 80_000);
+            assertThatThrownBy(() -> tracker.checkCredit(customer, 30_000)).isInstanceOf(CreditLimitExceededException.class);
+            status.setRollbackOnly();
+        });
+
+        transactionTemplate.executeWithoutResult(status ->
+                tracker.lineMoved(null, null, 0, customer, "In Process", 30_000));
+        assertThat(tracker.exposureOf(customer)).isEqualByComparingTo("300.00");
+    }
+
+    @Test
+    void lineMovedToAnotherCustomerIsCheckedAgainstThatCustomer() {
+        long other = insertCustomer(new BigDecimal("100.00"));
+        tracker.reconcile();
+
+        assertThatThrownBy(() -> tracker.lineMoved(customer, "In Process", 20_000, other, "In Process", 20_000))
+                .isInstanceOf(CreditLimitExceededException.class)
+                .extracting(e -> ((CreditLimitExceededException) e).getCustomerNumber())
+                .isEqualTo(other);
+    }
+
+    @Test
+    void reconcilePicksUpWritesMadeElsewhereAndForgetsDeletedCustomers() {
+        long other = insertCustomer(null);
+        tracker.reconcile();
+        assertThat(tracker.exposureOf(other)).isEqualByComparingTo("0.00");
+
+        insertLine(insertOrder(customer, "On Hold"), 1, "75.00");
+        jdbcTemplate.update("UPDATE customers SET creditlimit = 50.00 WHERE id = ?", customer);
+        jdbcTemplate.update("DELETE FROM customers WHERE id = ?", other);
+        tracker.reconcile();
+
+        assertThat(tracker.exposureOf(customer)).isEqualByComparingTo("75.00");
+        assertThat(tracker.exposureOf(other)).isNull();
+        assertThatThrownBy(() -> tracker.checkCredit(customer)).isInstanceOf(CreditLimitExceededException.class);
+    }
+
+    @Test
+    void customerWithoutALimitIsNeverRefused() {
+        long unlimited = insertCustomer(null);
+        insertLine(insertOrder(unlimited, "In Process"), 1000, "1000.00");
+        tracker.reconcile();
+
+        tracker.checkCredit(unlimited, 100_000_000);
+    }
+
+    private long insertCustomer(BigDecimal creditLimit) {
+        return jdbcTemplate.queryForObject("INSERT INTO customers (customername, contactlastname, contactfirstname, phone, "
+                + "addressline1, city, country, creditlimit) VALUES ('Customer', 'Last', 'First', '+1 555', '1 Street', "
+                + "'City', 'Country', ?) RETURNING id", Long.class, creditLimit);
+    }
+
+    private long insertOrder(long customerNumber, String status) {
+        return jdbcTemplate.queryForObject("INSERT INTO orders (orderdate, requireddate, status, customernumber) "
+                + "VALUES (current_date, current_date + 7, ?, ?) RETURNING id", Long.class, status, customerNumber);
+    }
+
+    private void insertLine(long orderNumber, int quantity, String priceEach) {
+        jdbcTemplate.update("INSERT INTO orderdetails (order_number, orderdate, product_code, quantity_ordered, price_each, "
+                        + "order_line_number) SELECT id, orderdate, 'S1', ?, ?, 1 FROM orders WHERE id = ?",
+                quantity, new BigDecimal(priceEach), orderNumber);
+    }
+
+    private void insertPayment(long customerNumber, String checkNumber, String amount) {
+        jdbcTemplate.update("INSERT INTO payments (customer_number, check_number, payment_date, amount) "
+                + "VALUES (?, ?, current_date, ?)", customerNumber, checkNumber, new BigDecimal(amount));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @TestConfiguration(proxyBeanMethods = false)
+    static class EmbeddedPostgresConfig {
+
+        @Bean(destroyMethod = "close")
+        EmbeddedPostgres embeddedPostgres() throws IOException {
+            return EmbeddedPostgres.start();
+        }
+
+        @Bean
+        DataSource dataSource(EmbeddedPostgres embeddedPostgres) {
+            return embeddedPostgres.getPostgresDatabase();
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.team.onlinecatalogsystem.service;
+
+import com.team.onlinecatalogsystem.config.ArchiveProperties;
+import com.team.onlinecatalogsystem.config.OrderQueueProperties;
+import com.team.onlinecatalogsystem.model.Order;
+import com.team.onlinecatalogsystem.model.OrderDetail;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Runs the archiver against the migrated schema in an embedded PostgreSQL, so the statements that
+ * move rows across the partitioned tables, the reads that fall back to the archive and the
+ * trigger that keeps archived check numbers reserved are checked together.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({OrderServiceImpl.class, OrderDetailServiceImpl.class, ChangeRecorder.class, OrderStatusCounters.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderArchiverTest {
+    private static final LocalDate OLD = LocalDate.of(2003, 1, 6);
+
+    @Autowired private OrderServiceI orderService;
+    @Autowired private OrderDetailServiceI orderDetailService;
+    @Autowired private OrderStatusCounters statusCounters;
+    @Autowired private ChangeRecorder changeRecorder;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    private OrderArchiver archiver;
+    private long customer;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("TRUNCATE orderdetails, orders, payments, payment_check_numbers, orderdetails_archive, "
+                + "orders_archive, payments_archive, customers, change_log RESTART IDENTITY CASCADE");
+        customer = jdbcTemplate.queryForObject("INSERT INTO customers (customername, contactlastname, contactfirstname, "
+                + "phone, addressline1, city, country, creditlimit) "
+                + "VALUES ('Customer', 'Last', 'First', '555', '1 Main Street', 'City', 'Country', 50000) RETURNING id", Long.class);
+        ArchiveProperties properties = new ArchiveProperties();
+        properties.setPause(Duration.ZERO);
+        archiver = new OrderArchiver(jdbcTemplate, new TransactionTemplate(transactionManager), properties,
+                statusCounters, changeRecorder);
+    }
+
+    @Test
+    void oldShippedOrderMovesWithItsLinesAndIsStillReadById() {
+        long shipped = insertOrder(OLD, OLD.plusDays(4), "Shipped");
+        long first = insertLine(shipped, OLD, 1);
+        long second = insertLine(shipped, OLD, 2);
+        long open = insertOrder(OLD, null, "On Hold");
+        long recent = insertOrder(LocalDate.now().minusDays(10), LocalDate.now().minusDays(5), "Shipped");
+
+        archiver.archive();
+
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM orders ORDER BY id", Long.class)).containsExactly(open, recent);
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM orders_archive", Long.class)).containsExactly(shipped);
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM orderdetails_archive ORDER BY id", Long.class))
+                .containsExactly(first, second);
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM orderdetails", Long.class)).isZero();
+        assertThat(jdbcTemplate.queryForList("SELECT entity, entity_id, op FROM change_log ORDER BY seq"))
+                .extracting(row -> row.get("entity"), row -> row.get("entity_id"), row -> row.get("op"))
+                .containsExactly(tuple("order", shipped, "U"), tuple("orderdetail", first, "U"),
+                        tuple("orderdetail", second, "U"));
+
+        assertThat(orderService.getOrderById(shipped)).get()
+                .extracting(Order::getOrderdate, Order::getStatus, Order::getCustomernumber)
+                .containsExactly(OLD, "Shipped", customer);
+        assertThat(orderDetailService.getOrderDetailsByOrderNumber(shipped))
+                .extracting(OrderDetail::getId, OrderDetail::getOrderLineNumber)
+                .containsExactlyInAnyOrder(tuple(first, 1), tuple(second, 2));
+        // The counters count the hot table only
+        assertThat(statusCounters.snapshot()).containsEntry("Shipped", 1L).containsEntry("On Hold", 1L);
+    }
+
+    @Test
+    void archivedPaymentsKeepTheirCheckNumberReserved() {
+        long old = insertPayment("CHK-OLD", OLD.plusMonths(1));
+        insertPayment("CHK-NEW", LocalDate.now());
+
+        archiver.archive();
+
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM payments_archive", Long.class)).containsExactly(old);
+        assertThat(jdbcTemplate.queryForList("SELECT check_number FROM payments", String.class)).containsExactly("CHK-NEW");
+        assertThat(jdbcTemplate.queryForList("SELECT check_number FROM payment_check_numbers ORDER BY check_number",
+                String.class)).containsExactly("CHK-NEW", "CHK-OLD");
+        assertThatThrownBy(() -> insertPayment("CHK-OLD", LocalDate.now()))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    void batchesRunUntilTheBacklogIsGone() {
+        ArchiveProperties properties = new ArchiveProperties();
+        properties.setBatchSize(2);
+        properties.setPause(Duration.ZERO);
+        archiver = new OrderArchiver(jdbcTemplate, new TransactionTemplate(transactionManager), properties,
+                statusCounters, changeRecorder);
+        for (int day = 0; day < 5; day++) {
+            insertOrder(OLD.plusDays(day), OLD.plusDays(day + 3), "Resolved");
+        }
+
+        archiver.archive();
+
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM orders", Long.class)).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM orders_archive", Long.class)).isEqualTo(5);
+    }
+
+    private long insertOrder(LocalDate orderDate, LocalDate shippedDate, String status) {
+        return jdbcTemplate.queryForObject("INSERT INTO orders (orderdate, requireddate, shippeddate, status, customernumber) "
+                + "VALUES (?, ?, ?, ?, ?) RETURNING id", Long.class, orderDate, orderDate.plusDays(7), shippedDate, status, customer);
+    }
+
+    private long insertLine(long order, LocalDate orderDate, int number) {
+        return jdbcTemplate.queryForObject("INSERT INTO orderdetails (order_number, orderdate, product_code, "
+                + "quantity_ordered, price_each, order_line_number) VALUES (?, ?, 'S10_1678', 10, 95.70, ?) RETURNING id",
+                Long.class, order, orderDate, number);
+    }
+
+    private long insertPayment(String checkNumber, LocalDate date) {
+        return jdbcTemplate.queryForObject("INSERT INTO payments (customer_number, check_number, payment_date, amount) "
+                + "VALUES (?, ?, ?, ?) RETURNING id", Long.class, customer, checkNumber, date, new BigDecimal("100.00"));
+    }
+
+    @TestConfiguration(proxyBeanMethods = false)
+    @EnableConfigurationProperties(OrderQueueProperties.class)
+    static class EmbeddedPostgresConfig {
+
+        @Bean(destroyMethod = "close")
+        EmbeddedPostgres embeddedPostgres() throws IOException {
+            return EmbeddedPostgres.start();
+        }
+
+        @Bean
+        DataSource dataSource(EmbeddedPostgres embeddedPostgres) {
+            return embeddedPostgres.getPostgresDatabase();
+        }
+    }
+}
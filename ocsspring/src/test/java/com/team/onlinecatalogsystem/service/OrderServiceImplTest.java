@@ -0,0 +1,187 @@
+package com.team.onlinecatalogsystem.service;
+
+import com.team.onlinecatalogsystem.config.OrderQueueProperties;
+import com.team.onlinecatalogsystem.exception.GlobalExceptionHandler;
+import com.team.onlinecatalogsystem.exception.InvalidStatusTransitionException;
+import com.team.onlinecatalogsystem.model.Order;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Order writes through {@link OrderServiceImpl} against the migrated schema in an embedded
+ * PostgreSQL, each in its own committed transaction as in the application.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({OrderServiceImpl.class, ChangeRecorder.class, OrderStatusCounters.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@RecordApplicationEvents
+class OrderServiceImplTest {
+
+    @Autowired private OrderServiceI orderService;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private ApplicationEvents events;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    private long customer;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("TRUNCATE orderdetails, orders, customers, change_log RESTART IDENTITY CASCADE");
+        customer = jdbcTemplate.queryForObject("INSERT INTO customers (customername, contactlastname, contactfirstname, "
+                + "phone, addressline1, city, country, creditlimit) "
+                + "VALUES ('Customer', 'Last', 'First', '555', '1 Main Street', 'City', 'Country', 50000) RETURNING id", Long.class);
+    }
+
+    @Test
+    void changingTheOrderDateRecordsTheLinesItCascadesTo() {
+        Order order = orderService.addOrder(order(LocalDate.of(2003, 12, 30), "In Process"));
+        long first = line(order, 1);
+        long second = line(order, 2);
+        jdbcTemplate.execute("TRUNCATE change_log RESTART IDENTITY");
+        events.clear();
+
+        orderService.updateOrder(order.getId(), order(LocalDate.of(2004, 1, 2), "In Process"));
+
+        assertThat(jdbcTemplate.queryForList("SELECT orderdate FROM orderdetails ORDER BY id", LocalDate.class))
+                .containsOnly(LocalDate.of(2004, 1, 2));
+        assertThat(jdbcTemplate.queryForList("SELECT entity, entity_id, op FROM change_log ORDER BY seq"))
+                .extracting(row -> row.get("entity"), row -> row.get("entity_id"), row -> row.get("op"))
+                .containsExactly(tuple("order", order.getId(), "U"), tuple("orderdetail", first, "U"),
+                        tuple("orderdetail", second, "U"));
+        assertThat(events.stream(CommittedChange.Event.class).flatMap(event -> event.changes().stream())
+                .filter(change -> change.type() == ChangeType.ORDER_DETAIL))
+                .extracting(CommittedChange::id, CommittedChange::fields)
+                .containsExactly(tuple(first, Set.of("orderdate")), tuple(second, Set.of("orderdate")));
+    }
+
+    @Test
+    void otherOrderChangesLeaveTheLinesAlone() {
+        Order order = orderService.addOrder(order(LocalDate.of(2003, 12, 30), "In Process"));
+        line(order, 1);
+        jdbcTemplate.execute("TRUNCATE change_log RESTART IDENTITY");
+
+        Order update = order(LocalDate.of(2003, 12, 30), "On Hold");
+        update.setComments("Waiting on stock");
+        orderService.updateOrder(order.getId(), update);
+
+        assertThat(jdbcTemplate.queryForList("SELECT entity FROM change_log", String.class)).containsExactly("order");
+    }
+
+    @Test
+    void illegalTransitionIsAConflictAndChangesNothing() {
+        Order order = orderService.addOrder(order(LocalDate.of(2004, 3, 1), "Shipped"));
+
+        assertThatThrownBy(() -> orderService.updateOrder(order.getId(), order(LocalDate.of(2004, 3, 1), "In Process")))
+                .isInstanceOfSatisfying(InvalidStatusTransitionException.class, e ->
+                        assertThat(new GlobalExceptionHandler().handleInvalidStatusTransition(e).getStatusCode())
+                                .isEqualTo(HttpStatus.CONFLICT));
+        assertThat(jdbcTemplate.queryForObject("SELECT status FROM orders", String.class)).isEqualTo("Shipped");
+    }
+
+    @Test
+    void concurrentClaimsGetDisjointBatches() throws Exception {
+        for (int day = 1; day <= 6; day++) {
+            orderService.addOrder(order(LocalDate.of(2004, 3, day), "In Process"));
+        }
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        CountDownLatch firstClaimed = new CountDownLatch(1);
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            // The first claim holds its row locks open while the second runs
+            Future<List<Order>> first = pool.submit(() -> transactionTemplate.execute(status -> {
+                List<Order> claimed = orderService.claimOrders("In Process", "worker-1", 3);
+                firstClaimed.countDown();
+                await(releaseFirst);
+                return claimed;
+            }));
+            assertThat(firstClaimed.await(10, TimeUnit.SECONDS)).isTrue();
+            List<Order> second = pool.submit(() -> orderService.claimOrders("In Process", "worker-2", 3))
+                    .get(10, TimeUnit.SECONDS);
+            releaseFirst.countDown();
+
+            assertThat(ids(first.get(10, TimeUnit.SECONDS))).containsExactly(1L, 2L, 3L);
+            assertThat(ids(second)).containsExactly(4L, 5L, 6L);
+        } finally {
+            releaseFirst.countDown();
+            pool.shutdownNow();
+        }
+        assertThat(orderService.claimOrders("In Process", "worker-3", 3)).isEmpty();
+        assertThat(jdbcTemplate.queryForList("SELECT claimedby FROM orders ORDER BY id", String.class))
+                .containsExactly("worker-1", "worker-1", "worker-1", "worker-2", "worker-2", "worker-2");
+    }
+
+    private static List<Long> ids(List<Order> orders) {
+        return orders.stream().map(Order::getId).toList();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Order order(LocalDate date, String status) {
+        Order order = new Order();
+        order.setOrderdate(date);
+        order.setRequireddate(date.plusDays(7));
+        order.setStatus(status);
+        order.setCustomernumber(customer);
+        return order;
+    }
+
+    private long line(Order order, int number) {
+        return jdbcTemplate.queryForObject("INSERT INTO orderdetails (order_number, orderdate, product_code, "
+                + "quantity_ordered, price_each, order_line_number) VALUES (?, ?, 'S10_1678', 10, 95.70, ?) RETURNING id",
+                Long.class, order.getId(), order.getOrderdate(), number);
+    }
+
+    @TestConfiguration(proxyBeanMethods = false)
+    @EnableConfigurationProperties(OrderQueueProperties.class)
+    static class EmbeddedPostgresConfig {
+
+        @Bean(destroyMethod = "close")
+        EmbeddedPostgres embeddedPostgres() throws IOException {
+            return EmbeddedPostgres.start();
+        }
+
+        @Bean
+        DataSource dataSource(EmbeddedPostgres embeddedPostgres) {
+            return embeddedPostgres.getPostgresDatabase();
+        }
+    }
+}
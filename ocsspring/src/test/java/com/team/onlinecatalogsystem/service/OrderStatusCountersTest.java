@@ -0,0 +1,115 @@
+package com.team.onlinecatalogsystem.service;
+
+import com.team.onlinecatalogsystem.model.OrderStatus;
+import com.team.onlinecatalogsystem.repository.OrderRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Reconciles of {@link OrderStatusCounters} racing order writes, over a stubbed count query. A
+ * write's transaction is driven by hand, so its commit can be placed before the count query and
+ * its after-commit callbacks after the reconcile.
+ */
+class OrderStatusCountersTest {
+    private final Map<OrderStatus, Long> table = new EnumMap<>(OrderStatus.class);
+    private Runnable duringCount = () -> { };
+    private OrderStatusCounters counters;
+
+    @BeforeEach
+    void setUp() {
+        OrderRepository repository = mock(OrderRepository.class);
+        when(repository.countByStatus()).thenAnswer(invocation -> {
+            List<Object[]> rows = new ArrayList<>();
+            table.forEach((status, count) -> rows.add(new Object[]{status.label(), count}));
+            duringCount.run();
+            return rows;
+        });
+        counters = new OrderStatusCounters(repository);
+        table.put(OrderStatus.IN_PROCESS, 5L);
+        table.put(OrderStatus.SHIPPED, 2L);
+        counters.reconcile();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void reconcilePicksUpWritesMadeElsewhere() {
+        table.put(OrderStatus.IN_PROCESS, 4L);
+        table.put(OrderStatus.CANCELLED, 1L);
+
+        counters.reconcile();
+
+        assertThat(counters.snapshot()).containsEntry("In Process", 4L).containsEntry("Cancelled", 1L)
+                .containsEntry("Shipped", 2L);
+    }
+
+    @Test
+    void moveCommittedBeforeTheCountButAppliedAfterItIsCountedOnce() {
+        List<TransactionSynchronization> commit = write(OrderStatus.IN_PROCESS, OrderStatus.SHIPPED);
+        table.put(OrderStatus.IN_PROCESS, 4L);
+        table.put(OrderStatus.SHIPPED, 3L);
+
+        counters.reconcile();
+        commit.forEach(TransactionSynchronization::afterCommit);
+        commit.forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+        assertThat(counters.snapshot()).containsEntry("In Process", 4L).containsEntry("Shipped", 3L);
+        counters.reconcile();
+        assertThat(counters.snapshot()).containsEntry("In Process", 4L).containsEntry("Shipped", 3L);
+    }
+
+    @Test
+    void moveAppliedDuringTheCountIsLeftForTheNextReconcile() {
+        table.put(OrderStatus.ON_HOLD, 1L);
+        counters.reconcile();
+        // The rows are read as they were; the move commits and lands before the adjustment
+        duringCount = () -> counters.moved(OrderStatus.ON_HOLD, OrderStatus.IN_PROCESS);
+
+        counters.reconcile();
+
+        assertThat(counters.snapshot()).containsEntry("In Process", 6L).containsEntry("On Hold", 0L)
+                .containsEntry("Shipped", 2L);
+        duringCount = () -> { };
+        table.put(OrderStatus.ON_HOLD, 0L);
+        table.put(OrderStatus.IN_PROCESS, 6L);
+        counters.reconcile();
+        assertThat(counters.snapshot()).containsEntry("In Process", 6L).containsEntry("On Hold", 0L);
+    }
+
+    @Test
+    void rolledBackMoveIsNoLongerPending() {
+        List<TransactionSynchronization> rollback = write(OrderStatus.IN_PROCESS, OrderStatus.CANCELLED);
+        rollback.forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        table.put(OrderStatus.IN_PROCESS, 3L);
+
+        counters.reconcile();
+
+        assertThat(counters.snapshot()).containsEntry("In Process", 3L).containsEntry("Cancelled", 0L);
+    }
+
+    // Registers a move in a transaction and hands back its callbacks, to be run as it completes
+    private List<TransactionSynchronization> write(OrderStatus from, OrderStatus to) {
+        TransactionSynchronizationManager.initSynchronization();
+        counters.moved(from, to);
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        return synchronizations;
+    }
+}
@@ -0,0 +1,144 @@
+package com.team.onlinecatalogsystem.service;
+
+import com.team.onlinecatalogsystem.config.CatalogIndexProperties;
+import com.team.onlinecatalogsystem.model.Product;
+import com.team.onlinecatalogsystem.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Reloads of {@link ProductCatalog} racing writes. The stubbed repository can hold a reload in
+ * the middle of reading the table, returning the rows as they were when it started, so writes
+ * committed meanwhile are missing from what it read and must be replayed on top.
+ */
+class ProductCatalogTest {
+    private final List<Product> table = new ArrayList<>();
+    private final ExecutorService pool = Executors.newSingleThreadExecutor();
+    private final CountDownLatch reading = new CountDownLatch(1);
+    private volatile CountDownLatch holdReads;
+    private volatile RuntimeException readFailure;
+    private ProductCatalog catalog;
+    private ProductFacetIndex index;
+
+    @BeforeEach
+    void setUp() {
+        ProductRepository repository = mock(ProductRepository.class);
+        when(repository.findAll(any(Sort.class))).thenAnswer(invocation -> {
+            if (readFailure != null) {
+                throw readFailure;
+            }
+            List<Product> read = List.copyOf(table);
+            CountDownLatch hold = holdReads;
+            if (hold != null) {
+                reading.countDown();
+                hold.await(10, TimeUnit.SECONDS);
+            }
+            return read;
+        });
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        catalog = new ProductCatalog(repository, new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                beanFactory.getBeanProvider(ProductIndex.class));
+        index = new ProductFacetIndex(catalog, new CatalogIndexProperties().getFacets());
+        beanFactory.registerSingleton("productFacetIndex", index);
+
+        table.add(product(1, "S1", "Planes"));
+        table.add(product(2, "S2", "Planes"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (holdReads != null) {
+            holdReads.countDown();
+        }
+        pool.shutdownNow();
+    }
+
+    @Test
+    void writesCommittedDuringAReloadAreReplayedOnWhatItRead() throws Exception {
+        catalog.reload();
+        holdReads = new CountDownLatch(1);
+        Future<?> reload = pool.submit(catalog::reload);
+        assertThat(reading.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // The table as read lacks these; the writes land as they commit, reload or not
+        catalog.saved(product(1, "S1", "Ships"));
+        catalog.saved(product(3, "S3", "Trains"));
+        catalog.deleted(2L);
+        assertThat(lines()).containsExactly("Ships", "Trains");
+
+        holdReads.countDown();
+        reload.get(5, TimeUnit.SECONDS);
+
+        assertThat(lines()).containsExactly("Ships", "Trains");
+        assertThat(index.browse(new EnumMap<>(ProductFacetIndex.Facet.class), 0, 10).total()).isEqualTo(2);
+    }
+
+    @Test
+    void writesDuringTheFirstLoadAreKeptForIt() throws Exception {
+        holdReads = new CountDownLatch(1);
+        Future<List<String>> firstQuery = pool.submit(this::lines);
+        assertThat(reading.await(5, TimeUnit.SECONDS)).isTrue();
+
+        catalog.saved(product(2, "S2", "Ships"));
+
+        holdReads.countDown();
+        assertThat(firstQuery.get(5, TimeUnit.SECONDS)).containsExactly("Planes", "Ships");
+    }
+
+    @Test
+    void failedReloadKeepsWhatWasLoadedAndLaterWritesStillApply() {
+        catalog.reload();
+        readFailure = new DataAccessResourceFailureException("database unavailable");
+
+        catalog.reload();
+        catalog.saved(product(3, "S3", "Trains"));
+
+        assertThat(lines()).containsExactly("Planes", "Planes", "Trains");
+    }
+
+    @Test
+    void deletedProductLeavesAnEmptyOrdinalUntilTheNextReload() {
+        catalog.reload();
+
+        catalog.deleted(1L);
+
+        assertThat(catalog.read(() -> catalog.ordinalCount())).isEqualTo(2);
+        assertThat(catalog.read(() -> catalog.product(0))).isNull();
+        table.removeFirst();
+        catalog.reload();
+        assertThat(catalog.read(() -> catalog.ordinalCount())).isEqualTo(1);
+    }
+
+    // Product lines of everything the catalog holds, in ordinal order
+    private List<String> lines() {
+        return index.browse(new EnumMap<>(ProductFacetIndex.Facet.class), 0, 100).products().stream()
+                .map(Product::getProductLine)
+                .toList();
+    }
+
+    private static Product product(long id, String code, String line) {
+        return new Product(id, code, "Model " + code, line, "1:18", "Vendor", "", 10, new BigDecimal("1.00"),
+                new BigDecimal("2.00"));
+    }
+}
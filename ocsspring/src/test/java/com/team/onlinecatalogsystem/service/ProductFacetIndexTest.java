@@ -0,0 +1,151 @@
+package com.team.onlinecatalogsystem.service;
+
+import com.team.onlinecatalogsystem.config.CatalogIndexProperties;
+import com.team.onlinecatalogsystem.model.Product;
+import com.team.onlinecatalogsystem.repository.ProductRepository;
+import com.team.onlinecatalogsystem.service.ProductFacetIndex.Facet;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Facet counts and selections of {@link ProductFacetIndex}, driven through a {@link ProductCatalog}
+ * over a stubbed repository, with the default bands: prices 25, 50, 100, 200 and stock 1, 100, 1000.
+ */
+class ProductFacetIndexTest {
+    private final List<Product> table = new ArrayList<>();
+    private ProductCatalog catalog;
+    private ProductFacetIndex index;
+
+    @BeforeEach
+    void setUp() {
+        ProductRepository repository = mock(ProductRepository.class);
+        when(repository.findAll(any(Sort.class))).thenAnswer(invocation -> List.copyOf(table));
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        catalog = new ProductCatalog(repository, new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                beanFactory.getBeanProvider(ProductIndex.class));
+        index = new ProductFacetIndex(catalog, new CatalogIndexProperties().getFacets());
+        beanFactory.registerSingleton("productFacetIndex", index);
+
+        table.add(product(1, "S1", "Planes", "1:18", "Vendor A", "10.00", 0));
+        table.add(product(2, "S2", "Planes", "1:24", "Vendor B", "25.00", 1));
+        table.add(product(3, "S3", "Ships", "1:18", "Vendor A", "49.99", 100));
+        table.add(product(4, "S4", "Ships", "1:18", "Vendor B", "200", 5000));
+        table.add(product(5, "S5", "Trains", "1:24", "Vendor A", null, null));
+        catalog.reload();
+    }
+
+    @Test
+    void withoutSelectionsEveryValueIsCounted() {
+        BrowseResult result = browse(Map.of(), 0, 10);
+
+        assertThat(result.total()).isEqualTo(5);
+        assertThat(result.facets().get("productLine")).containsExactly(
+                Map.entry("Planes", 2), Map.entry("Ships", 2), Map.entry("Trains", 1));
+        assertThat(result.facets().get("productVendor")).containsExactly(Map.entry("Vendor A", 3), Map.entry("Vendor B", 2));
+        assertThat(codes(result)).containsExactly("S1", "S2", "S3", "S4", "S5");
+    }
+
+    @Test
+    void bandsIncludeTheirLowerEdgeAndListInOrder() {
+        BrowseResult result = browse(Map.of(), 0, 10);
+
+        // 25.00 sits on an edge and goes up; 49.99 stays below 50; 200 opens the top band.
+        // Empty bands are left out, as are products without a price or stock figure
+        assertThat(result.facets().get("price")).containsExactly(
+                Map.entry("0-25", 1), Map.entry("25-50", 2), Map.entry("200+", 1));
+        assertThat(result.facets().get("stock")).containsExactly(
+                Map.entry("0-1", 1), Map.entry("1-100", 1), Map.entry("100-1000", 1), Map.entry("1000+", 1));
+        assertThat(codes(browse(Map.of(Facet.PRICE, List.of("25-50")), 0, 10))).containsExactly("S2", "S3");
+    }
+
+    @Test
+    void eachFacetIsCountedAgainstTheOtherFacetsSelectionsOnly() {
+        BrowseResult ships = browse(Map.of(Facet.PRODUCT_LINE, List.of("Ships")), 0, 10);
+
+        assertThat(ships.total()).isEqualTo(2);
+        assertThat(ships.facets().get("productLine")).containsEntry("Planes", 2).containsEntry("Trains", 1);
+        assertThat(ships.facets().get("productScale")).containsExactly(Map.entry("1:18", 2), Map.entry("1:24", 0));
+
+        // Values within a facet are OR-ed, facets AND-ed
+        BrowseResult mixed = browse(Map.of(Facet.PRODUCT_LINE, List.of("Planes", "Trains"),
+                Facet.PRODUCT_VENDOR, List.of("Vendor A")), 0, 10);
+
+        assertThat(codes(mixed)).containsExactly("S1", "S5");
+        assertThat(mixed.facets().get("productLine")).containsExactly(
+                Map.entry("Planes", 1), Map.entry("Ships", 1), Map.entry("Trains", 1));
+        assertThat(mixed.facets().get("productVendor")).containsExactly(Map.entry("Vendor A", 2), Map.entry("Vendor B", 1));
+        assertThat(browse(Map.of(Facet.PRODUCT_LINE, List.of("Boats")), 0, 10).total()).isZero();
+    }
+
+    @Test
+    void pagesWalkTheMatchesInCatalogOrder() {
+        assertThat(codes(browse(Map.of(), 1, 2))).containsExactly("S3", "S4");
+        assertThat(codes(browse(Map.of(), 2, 2))).containsExactly("S5");
+        BrowseResult past = browse(Map.of(), 3, 2);
+        assertThat(past.products()).isEmpty();
+        assertThat(past.total()).isEqualTo(5);
+    }
+
+    @Test
+    void writesMoveOnlyTheValuesThatChanged() {
+        catalog.saved(product(1, "S1", "Ships", "1:18", "Vendor A", "50", 0));
+
+        BrowseResult result = browse(Map.of(), 0, 10);
+        assertThat(result.facets().get("productLine")).containsExactly(
+                Map.entry("Planes", 1), Map.entry("Ships", 3), Map.entry("Trains", 1));
+        // The only product under 25 moved up, so its band is gone and 50-100 appears
+        assertThat(result.facets().get("price")).containsExactly(
+                Map.entry("25-50", 2), Map.entry("50-100", 1), Map.entry("200+", 1));
+        assertThat(result.facets().get("stock")).containsEntry("0-1", 1);
+
+        // Losing a price takes the product out of the price facet but not the others
+        catalog.saved(product(4, "S4", "Ships", "1:18", "Vendor B", null, 5000));
+        assertThat(browse(Map.of(), 0, 10).facets().get("price")).doesNotContainKey("200+");
+        assertThat(browse(Map.of(Facet.PRODUCT_VENDOR, List.of("Vendor B")), 0, 10).total()).isEqualTo(2);
+    }
+
+    @Test
+    void removedProductsLeaveEveryFacetAndNewOnesJoinAtTheEnd() {
+        catalog.deleted(5L);
+        catalog.saved(product(6, "S0", "Cars", "1:12", "Vendor C", "150", 10));
+
+        BrowseResult result = browse(Map.of(), 0, 10);
+
+        assertThat(result.total()).isEqualTo(5);
+        assertThat(result.facets().get("productLine")).doesNotContainKey("Trains").containsEntry("Cars", 1);
+        assertThat(result.facets().get("productVendor")).containsEntry("Vendor A", 2);
+        // Ordinals follow code order only as of the last reload
+        assertThat(codes(result)).containsExactly("S1", "S2", "S3", "S4", "S0");
+        assertThat(codes(browse(Map.of(Facet.PRODUCT_LINE, List.of("Trains")), 0, 10))).isEmpty();
+    }
+
+    private BrowseResult browse(Map<Facet, List<String>> selected, int page, int size) {
+        Map<Facet, List<String>> filters = new EnumMap<>(Facet.class);
+        filters.putAll(selected);
+        return index.browse(filters, page, size);
+    }
+
+    private static List<String> codes(BrowseResult result) {
+        return result.products().stream().map(Product::getProductCode).toList();
+    }
+
+    private static Product product(long id, String code, String line, String scale, String vendor, String msrp, Integer stock) {
+        return new Product(id, code, "Model " + code, line, scale, vendor, "", stock, new BigDecimal("1.00"),
+                msrp != null ? new BigDecimal(msrp) : null);
+    }
+}
@@ -0,0 +1,166 @@
+package com.team.onlinecatalogsystem.service;
+
+import com.team.onlinecatalogsystem.model.Product;
+import com.team.onlinecatalogsystem.repository.ProductRepository;
+import com.team.onlinecatalogsystem.service.ProductPriceIndex.PriceField;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The sorted arrays behind {@link ProductPriceIndex}, driven through a {@link ProductCatalog}
+ * over a stubbed repository. Writes go through the catalog outside a transaction, so they reach
+ * the index at once.
+ */
+class ProductPriceIndexTest {
+    private final List<Product> table = new ArrayList<>();
+    private ProductCatalog catalog;
+    private ProductPriceIndex index;
+
+    @BeforeEach
+    void setUp() {
+        ProductRepository repository = mock(ProductRepository.class);
+        when(repository.findAll(any(Sort.class))).thenAnswer(invocation -> List.copyOf(table));
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        catalog = new ProductCatalog(repository, new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                beanFactory.getBeanProvider(ProductIndex.class));
+        index = new ProductPriceIndex(catalog);
+        beanFactory.registerSingleton("productPriceIndex", index);
+    }
+
+    @Test
+    void rangesAreInclusiveInCentsWithTiesInCatalogOrder() {
+        load(product(1, "S1", "Planes", "10.00", "4.00"),
+                product(2, "S2", "Ships", "20.00", "5.00"),
+                product(3, "S3", "Planes", "20.00", "15.00"),
+                product(4, "S4", "Ships", "30.00", "29.99"));
+
+        assertThat(index.count(PriceField.MSRP, new BigDecimal("20"), new BigDecimal("20.00"))).isEqualTo(2);
+        // Bounds round to the cent like prices do
+        assertThat(index.count(PriceField.MSRP, new BigDecimal("19.995"), null)).isEqualTo(3);
+        assertThat(index.count(PriceField.MSRP, new BigDecimal("30.01"), null)).isZero();
+        assertThat(index.count(PriceField.MSRP, new BigDecimal("25"), new BigDecimal("15"))).isZero();
+        assertThat(codes(index.range(PriceField.MSRP, new BigDecimal("15"), null, 0, 10))).containsExactly("S2", "S3", "S4");
+        assertThat(codes(index.range(PriceField.MSRP, null, null, 1, 2))).containsExactly("S2", "S3");
+        assertThat(index.range(PriceField.MSRP, null, null, 10, 5)).isEmpty();
+        // Margins: 6.00, 15.00, 5.00, 0.01
+        assertThat(codes(index.range(PriceField.MARGIN, null, new BigDecimal("6"), 0, 10))).containsExactly("S4", "S3", "S1");
+        assertThat(index.count(PriceField.BUY_PRICE, new BigDecimal("5"), new BigDecimal("15"))).isEqualTo(2);
+    }
+
+    @Test
+    void boundsBeyondAnyPriceAreTakenAsOpen() {
+        load(product(1, "S1", "Planes", "10.00", "4.00"), product(2, "S2", "Ships", "20.00", "5.00"));
+
+        assertThat(index.count(PriceField.MSRP, new BigDecimal("-1e30"), new BigDecimal("1e30"))).isEqualTo(2);
+        assertThat(index.count(PriceField.MSRP, new BigDecimal("1e30"), null)).isZero();
+        assertThat(index.count(PriceField.MSRP, null, new BigDecimal("-1e30"))).isZero();
+        assertThat(index.count(PriceField.MSRP, new BigDecimal("1e-2147483647"), new BigDecimal("1e2147483647"))).isEqualTo(2);
+        assertThat(codes(index.range(PriceField.MARGIN, new BigDecimal("92233720368547758.07"), null, 0, 10))).isEmpty();
+        assertThat(codes(index.range(PriceField.MARGIN, null, new BigDecimal("92233720368547758.07"), 0, 10)))
+                .containsExactly("S1", "S2");
+    }
+
+    @Test
+    void productsWithoutAPriceAreLeftOutOfThatField() {
+        load(product(1, "S1", "Planes", "10.00", null), product(2, "S2", "Ships", null, "5.00"));
+
+        assertThat(index.count(PriceField.MSRP, null, null)).isEqualTo(1);
+        assertThat(index.count(PriceField.BUY_PRICE, null, null)).isEqualTo(1);
+        assertThat(index.count(PriceField.MARGIN, null, null)).isZero();
+    }
+
+    @Test
+    void writesKeepEveryFieldSortedAsTheArraysGrow() {
+        load(product(1, "S1", "Planes", "10.00", "1.00"));
+        Random random = new Random(42);
+        List<Product> expected = new ArrayList<>(List.of(table.getFirst()));
+        // Enough inserts to grow the arrays past their initial 16 slots several times, with many ties
+        for (long id = 2; id <= 200; id++) {
+            Product product = product(id, "P" + id, "Planes", (1 + random.nextInt(20)) + ".00", random.nextInt(10) + ".50");
+            catalog.saved(product);
+            expected.add(product);
+        }
+        for (int i = 0; i < 100; i++) {
+            Product before = expected.get(random.nextInt(expected.size()));
+            Product after = product(before.getId(), before.getProductCode(), "Ships", (1 + random.nextInt(20)) + ".00",
+                    before.getBuyPrice().toPlainString());
+            catalog.saved(after);
+            expected.set(expected.indexOf(before), after);
+        }
+        for (int i = 0; i < 50; i++) {
+            Product removed = expected.remove(random.nextInt(expected.size()));
+            catalog.deleted(removed.getId());
+        }
+
+        for (PriceField field : PriceField.values()) {
+            List<Product> all = index.range(field, null, null, 0, 1000);
+            assertThat(all).hasSize(expected.size());
+            assertThat(all).containsExactlyInAnyOrderElementsOf(expected);
+            assertThat(all).isSortedAccordingTo(Comparator.comparing(field::of));
+        }
+        // Each removal took out its own product, not another one at the same price
+        assertThat(index.count(PriceField.MSRP, null, null)).isEqualTo(expected.size());
+        long atTen = expected.stream().filter(product -> product.getMsrp().compareTo(BigDecimal.TEN) == 0).count();
+        assertThat(index.count(PriceField.MSRP, BigDecimal.TEN, BigDecimal.TEN)).isEqualTo(atTen);
+    }
+
+    @Test
+    void changingOnlyOneFieldMovesOnlyThatFieldsEntry() {
+        load(product(1, "S1", "Planes", "10.00", "4.00"), product(2, "S2", "Ships", "20.00", "5.00"));
+
+        catalog.saved(product(1, "S1", "Planes", "10.00", "8.00"));
+
+        assertThat(codes(index.range(PriceField.MSRP, null, null, 0, 10))).containsExactly("S1", "S2");
+        assertThat(codes(index.range(PriceField.BUY_PRICE, null, null, 0, 10))).containsExactly("S2", "S1");
+        assertThat(codes(index.range(PriceField.MARGIN, null, null, 0, 10))).containsExactly("S1", "S2");
+        assertThat(index.count(PriceField.BUY_PRICE, null, null)).isEqualTo(2);
+    }
+
+    @Test
+    void topWalksFromEitherEndAndSkipsOtherLines() {
+        load(product(1, "S1", "Planes", "40.00", "4.00"),
+                product(2, "S2", "Ships", "10.00", "5.00"),
+                product(3, "S3", "Planes", "30.00", "15.00"),
+                product(4, "S4", "Ships", "20.00", "5.00"),
+                product(5, "S5", "Planes", "20.00", "6.00"));
+
+        assertThat(codes(index.top(PriceField.MSRP, false, null, 3))).containsExactly("S2", "S4", "S5");
+        assertThat(codes(index.top(PriceField.MSRP, true, null, 2))).containsExactly("S1", "S3");
+        assertThat(codes(index.top(PriceField.MSRP, false, "Planes", 2))).containsExactly("S5", "S3");
+        assertThat(codes(index.top(PriceField.MSRP, true, "Ships", 10))).containsExactly("S4", "S2");
+        assertThat(index.top(PriceField.MSRP, false, "Trains", 10)).isEmpty();
+
+        catalog.deleted(2L);
+
+        assertThat(codes(index.top(PriceField.MSRP, false, "Ships", 10))).containsExactly("S4");
+    }
+
+    private void load(Product... products) {
+        table.addAll(List.of(products));
+        catalog.reload();
+    }
+
+    private static List<String> codes(List<Product> products) {
+        return products.stream().map(Product::getProductCode).toList();
+    }
+
+    private static Product product(long id, String code, String line, String msrp, String buyPrice) {
+        return new Product(id, code, "Model " + code, line, "1:18", "Vendor", "", 10,
+                buyPrice != null ? new BigDecimal(buyPrice) : null, msrp != null ? new BigDecimal(msrp) : null);
+    }
+}
@@ -0,0 +1,162 @@
+package com.team.onlinecatalogsystem.service;
+
+import com.team.onlinecatalogsystem.exception.InvalidBulkUpdateException;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Bulk product updates through {@link ProductServiceImpl} against the migrated schema in an
+ * embedded PostgreSQL, so the statement that previews or writes them runs as in the application.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ProductServiceImpl.class, ChangeRecorder.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@RecordApplicationEvents
+class ProductServiceImplTest {
+    private static final BulkProductUpdate.Filter ALL = new BulkProductUpdate.Filter(null, null, null, null, null, true);
+
+    @Autowired private ProductServiceI productService;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private ApplicationEvents events;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("TRUNCATE products, change_log RESTART IDENTITY CASCADE");
+        product("S1", "Planes", "10.00", "19.99", 5);
+        product("S2", "Planes", "1.00", "1.00", 500);
+        product("S3", "Ships", "40.00", "80.00", 50);
+    }
+
+    @Test
+    void percentAndAmountChangesAreRoundedToCents() {
+        BulkUpdateResult result = productService.bulkUpdateProducts(new BulkProductUpdate(ALL,
+                new BulkProductUpdate.PriceChange(null, new BigDecimal("0.005")),
+                new BulkProductUpdate.PriceChange(new BigDecimal("5"), null), null), false);
+
+        // 19.99 * 1.05 = 20.9895 and 1.00 * 1.05 = 1.05; 10.005 rounds half away from zero
+        assertThat(column("buyprice")).containsExactly(new BigDecimal("10.01"), new BigDecimal("1.01"), new BigDecimal("40.01"));
+        assertThat(column("msrp")).containsExactly(new BigDecimal("20.99"), new BigDecimal("1.05"), new BigDecimal("84.00"));
+        assertThat(result.matched()).isEqualTo(3);
+        assertThat(result.changed()).isEqualTo(3);
+        assertThat(result.msrp()).isEqualTo(new BulkUpdateResult.Totals(new BigDecimal("100.99"), new BigDecimal("106.04")));
+    }
+
+    @Test
+    void updateThatWouldLeaveAnyProductOutOfRangeChangesNone() {
+        BulkProductUpdate cut = new BulkProductUpdate(ALL, new BulkProductUpdate.PriceChange(null, new BigDecimal("-5")), null, null);
+
+        assertThatThrownBy(() -> productService.bulkUpdateProducts(cut, false))
+                .isInstanceOf(InvalidBulkUpdateException.class)
+                .hasMessageStartingWith("1 products would be left")
+                .hasMessageContaining("S2");
+        assertThatThrownBy(() -> productService.bulkUpdateProducts(new BulkProductUpdate(ALL, null, null, -6), true))
+                .isInstanceOf(InvalidBulkUpdateException.class)
+                .hasMessageContaining("S1");
+        assertThatThrownBy(() -> productService.bulkUpdateProducts(new BulkProductUpdate(ALL,
+                new BulkProductUpdate.PriceChange(new BigDecimal("-100"), null), null, null), true))
+                .isInstanceOf(InvalidBulkUpdateException.class);
+
+        assertThat(column("buyprice"))
+                .containsExactly(new BigDecimal("10.00"), new BigDecimal("1.00"), new BigDecimal("40.00"));
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM change_log", Long.class)).isZero();
+    }
+
+    @Test
+    void dryRunReportsWhatTheUpdateThenDoes() {
+        BulkProductUpdate update = new BulkProductUpdate(
+                new BulkProductUpdate.Filter("Planes", null, null, null, null, false),
+                null, new BulkProductUpdate.PriceChange(null, new BigDecimal("2.50")), null);
+
+        BulkUpdateResult preview = productService.bulkUpdateProducts(update, true);
+
+        assertThat(preview.dryRun()).isTrue();
+        assertThat(preview.products()).extracting(BulkUpdateResult.ProductChange::productCode,
+                BulkUpdateResult.ProductChange::msrpAfter).containsExactly(
+                tuple("S1", new BigDecimal("22.49")), tuple("S2", new BigDecimal("3.50")));
+        assertThat(column("msrp"))
+                .containsExactly(new BigDecimal("19.99"), new BigDecimal("1.00"), new BigDecimal("80.00"));
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM change_log", Long.class)).isZero();
+
+        BulkUpdateResult applied = productService.bulkUpdateProducts(update, false);
+
+        assertThat(applied.dryRun()).isFalse();
+        assertThat(applied.products()).isEqualTo(preview.products());
+        assertThat(applied.msrp()).isEqualTo(preview.msrp());
+        assertThat(column("msrp"))
+                .containsExactly(new BigDecimal("22.49"), new BigDecimal("3.50"), new BigDecimal("80.00"));
+    }
+
+    @Test
+    void stockDeltaAddsToTheFilteredProducts() {
+        BulkUpdateResult result = productService.bulkUpdateProducts(new BulkProductUpdate(
+                new BulkProductUpdate.Filter(null, null, null, null, 100, false), null, null, 250), false);
+
+        assertThat(jdbcTemplate.queryForList("SELECT quantityinstock FROM products ORDER BY productcode", Integer.class))
+                .containsExactly(255, 500, 300);
+        assertThat(result.quantityInStock()).isEqualTo(new BulkUpdateResult.Totals(new BigDecimal("55"), new BigDecimal("555")));
+    }
+
+    @Test
+    void onlyTheProductsThatChangeAreRecorded() {
+        // 1.00 + 0.2% rounds back to 1.00, so S2 matches but stays as it is
+        BulkUpdateResult result = productService.bulkUpdateProducts(new BulkProductUpdate(
+                new BulkProductUpdate.Filter(null, null, null, List.of("S1", "S2", "S3"), null, false),
+                null, new BulkProductUpdate.PriceChange(new BigDecimal("0.2"), null), null), false);
+
+        assertThat(result.matched()).isEqualTo(3);
+        assertThat(result.changed()).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForList("SELECT entity, entity_id, op FROM change_log ORDER BY seq"))
+                .extracting(row -> row.get("entity"), row -> row.get("entity_id"), row -> row.get("op"))
+                .containsExactly(tuple("product", 1L, "U"), tuple("product", 3L, "U"));
+        assertThat(events.stream(CommittedChange.Event.class).flatMap(event -> event.changes().stream()))
+                .extracting(CommittedChange::id, CommittedChange::fields)
+                .containsExactly(tuple(1L, Set.of("msrp")), tuple(3L, Set.of("msrp")));
+    }
+
+    private List<BigDecimal> column(String name) {
+        return jdbcTemplate.queryForList("SELECT " + name + " FROM products ORDER BY productcode", BigDecimal.class);
+    }
+
+    private void product(String code, String line, String buyPrice, String msrp, int stock) {
+        jdbcTemplate.update("INSERT INTO products (productcode, productname, productline, productscale, productvendor, "
+                + "productdescription, quantityinstock, buyprice, msrp) VALUES (?, ?, ?, '1:18', 'Vendor', '', ?, ?, ?)",
+                code, "Model " + code, line, stock, new BigDecimal(buyPrice), new BigDecimal(msrp));
+    }
+
+    @TestConfiguration(proxyBeanMethods = false)
+    static class EmbeddedPostgresConfig {
+
+        @Bean(destroyMethod = "close")
+        EmbeddedPostgres embeddedPostgres() throws IOException {
+            return EmbeddedPostgres.start();
+        }
+
+        @Bean
+        DataSource dataSource(EmbeddedPostgres embeddedPostgres) {
+            return embeddedPostgres.getPostgresDatabase();
+        }
+    }
+}
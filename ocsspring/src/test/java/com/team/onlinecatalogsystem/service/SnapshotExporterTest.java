@@ -0,0 +1,268 @@
+package com.team.onlinecatalogsystem.service;
+
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.team.onlinecatalogsystem.config.ArchiveProperties;
+import com.team.onlinecatalogsystem.config.SnapshotExportProperties;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.hadoop.ParquetReader;
+import org.apache.parquet.hadoop.api.ReadSupport;
+import org.apache.parquet.hadoop.example.GroupReadSupport;
+import org.apache.parquet.io.InputFile;
+import org.apache.parquet.io.LocalInputFile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Exports from the migrated schema in an embedded PostgreSQL into a temporary directory, read
+ * back with Parquet's example reader, so the queries over the hot and archive tables and the
+ * change log are checked against what lands in the files and the manifest.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ChangeRecorder.class, OrderStatusCounters.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SnapshotExporterTest {
+
+    @Autowired private ChangeRecorder changeRecorder;
+    @Autowired private OrderStatusCounters statusCounters;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    @TempDir private Path directory;
+
+    private SnapshotExportProperties properties;
+    private SnapshotExporter exporter;
+    private TransactionTemplate transactionTemplate;
+    private long customer;
+    private long january;
+    private long february;
+    private long januaryLine;
+    private long februaryLine;
+    private long payment;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("TRUNCATE orderdetails, orders, payments, payment_check_numbers, orderdetails_archive, "
+                + "orders_archive, payments_archive, customers, change_log RESTART IDENTITY CASCADE");
+        jdbcTemplate.update("UPDATE change_log_retention SET purged_through = 0");
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        TransactionTemplate snapshot = new TransactionTemplate(transactionManager);
+        snapshot.setReadOnly(true);
+        snapshot.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        properties = new SnapshotExportProperties();
+        properties.setDirectory(directory);
+        exporter = new SnapshotExporter(jdbcTemplate, snapshot, properties, JsonMapper.builder().findAndAddModules().build());
+
+        customer = jdbcTemplate.queryForObject("INSERT INTO customers (customername, contactlastname, contactfirstname, "
+                + "phone, addressline1, city, country) VALUES ('Customer', 'Last', 'First', '555', '1 Main Street', "
+                + "'City', 'Country') RETURNING id", Long.class);
+        january = insertOrder(LocalDate.of(2004, 1, 15), "Shipped");
+        february = insertOrder(LocalDate.of(2004, 2, 10), "In Process");
+        januaryLine = insertLine(january, LocalDate.of(2004, 1, 15), 1);
+        februaryLine = insertLine(february, LocalDate.of(2004, 2, 10), 1);
+        insertLine(february, LocalDate.of(2004, 2, 10), 2);
+        payment = jdbcTemplate.queryForObject("INSERT INTO payments (customer_number, check_number, payment_date, amount) "
+                + "VALUES (?, 'CHK-1', current_date, 125.50) RETURNING id", Long.class, customer);
+    }
+
+    @Test
+    void fullExportWritesAFilePerTableAndMonthWithItsStats() throws IOException {
+        SnapshotManifest manifest = exporter.export(true);
+
+        assertThat(manifest.mode()).isEqualTo(SnapshotManifest.FULL);
+        assertThat(manifest.basedOn()).isNull();
+        assertThat(manifest.rows()).isEqualTo(6);
+        assertThat(manifest.files()).filteredOn(file -> !file.table().equals("payments"))
+                .extracting(SnapshotManifest.FileStats::table, SnapshotManifest.FileStats::kind,
+                        SnapshotManifest.FileStats::path, SnapshotManifest.FileStats::rows,
+                        SnapshotManifest.FileStats::minDate, SnapshotManifest.FileStats::maxDate,
+                        SnapshotManifest.FileStats::minId, SnapshotManifest.FileStats::maxId)
+                .containsExactly(
+                        tuple("orders", "rows", "orders/month=2004-01/part-0.parquet", 1L,
+                                LocalDate.of(2004, 1, 15), LocalDate.of(2004, 1, 15), january, january),
+                        tuple("orders", "rows", "orders/month=2004-02/part-0.parquet", 1L,
+                                LocalDate.of(2004, 2, 10), LocalDate.of(2004, 2, 10), february, february),
+                        tuple("orderdetails", "rows", "orderdetails/month=2004-01/part-0.parquet", 1L,
+                                LocalDate.of(2004, 1, 15), LocalDate.of(2004, 1, 15), januaryLine, januaryLine),
+                        tuple("orderdetails", "rows", "orderdetails/month=2004-02/part-0.parquet", 2L,
+                                LocalDate.of(2004, 2, 10), LocalDate.of(2004, 2, 10), februaryLine, februaryLine + 1));
+        assertThat(manifest.files()).filteredOn(file -> file.table().equals("payments")).singleElement()
+                .satisfies(file -> {
+                    assertThat(file.path()).isEqualTo("payments/month=" + YearMonth.now() + "/part-0.parquet");
+                    assertThat(file.minId()).isEqualTo(payment);
+                });
+        long bytes = 0;
+        for (SnapshotManifest.FileStats file : manifest.files()) {
+            Path path = directory.resolve(manifest.id()).resolve(file.path());
+            assertThat(Files.size(path)).isEqualTo(file.bytes());
+            assertThat(ids(path)).hasSize((int) file.rows());
+            bytes += file.bytes();
+        }
+        assertThat(manifest.bytes()).isEqualTo(bytes);
+        assertThat(directory.resolve(manifest.id()).resolve("_manifest.json")).isRegularFile();
+        assertThat(exporter.exports()).extracting(SnapshotManifest::id).containsExactly(manifest.id());
+    }
+
+    @Test
+    void incrementalExportHasWhatChangedSinceTheLastOne() throws IOException {
+        SnapshotManifest full = exporter.export(true);
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("UPDATE orders SET comments = 'Rush' WHERE id = ?", february);
+            changeRecorder.updated(ChangeType.ORDER, february);
+            jdbcTemplate.update("DELETE FROM orderdetails WHERE id = ?", februaryLine);
+            changeRecorder.deleted(ChangeType.ORDER_DETAIL, februaryLine);
+        });
+        // The January order is shipped and years old, so it goes to the archive with its line
+        archiver().archive();
+
+        SnapshotManifest incremental = exporter.export(false);
+
+        assertThat(incremental.mode()).isEqualTo(SnapshotManifest.INCREMENTAL);
+        assertThat(incremental.basedOn()).isEqualTo(full.id());
+        assertThat(incremental.changeSeq()).isGreaterThan(full.changeSeq());
+        assertThat(incremental.files()).extracting(SnapshotManifest.FileStats::table, SnapshotManifest.FileStats::kind,
+                SnapshotManifest.FileStats::path).containsExactly(
+                tuple("orders", "rows", "orders/month=2004-01/part-0.parquet"),
+                tuple("orders", "rows", "orders/month=2004-02/part-0.parquet"),
+                tuple("orderdetails", "rows", "orderdetails/month=2004-01/part-0.parquet"),
+                tuple("orderdetails", "deleted", "orderdetails/deleted.parquet"));
+        Path export = directory.resolve(incremental.id());
+        assertThat(rows(export.resolve("orders/month=2004-01/part-0.parquet")))
+                .extracting(row -> row.getLong("id", 0), row -> row.getBoolean("archived", 0))
+                .containsExactly(tuple(january, true));
+        assertThat(rows(export.resolve("orders/month=2004-02/part-0.parquet")))
+                .extracting(row -> row.getLong("id", 0), row -> row.getString("comments", 0), row -> row.getBoolean("archived", 0))
+                .containsExactly(tuple(february, "Rush", false));
+        assertThat(ids(export.resolve("orderdetails/month=2004-01/part-0.parquet"))).containsExactly(januaryLine);
+        assertThat(ids(export.resolve("orderdetails/deleted.parquet"))).containsExactly(februaryLine);
+
+        // Nothing changed since, so there's nothing to write
+        assertThat(exporter.export(false)).isNull();
+        assertThat(exporter.exports()).hasSize(2);
+    }
+
+    @Test
+    void incrementalFallsBackToFullOncePurgedPastTheLastExport() {
+        exporter.export(true);
+        transactionTemplate.executeWithoutResult(status -> changeRecorder.updated(ChangeType.ORDER, february));
+        jdbcTemplate.update("UPDATE change_log_retention SET purged_through = (SELECT max(seq) FROM change_log)");
+
+        SnapshotManifest manifest = exporter.export(false);
+
+        assertThat(manifest.mode()).isEqualTo(SnapshotManifest.FULL);
+        assertThat(manifest.basedOn()).isNull();
+        assertThat(manifest.rows()).isEqualTo(6);
+    }
+
+    @Test
+    void pruneKeepsTheNewestFullExportAndWhatFollowsIt() throws Exception {
+        SnapshotManifest oldFull = exporter.export(true);
+        SnapshotManifest oldIncremental = changeAndExport();
+        SnapshotManifest full = exporter.export(true);
+        Path unfinished = Files.createDirectory(directory.resolve("20040101T000000000Z.tmp"));
+        Files.setLastModifiedTime(unfinished, FileTime.from(Instant.now().minus(1, ChronoUnit.DAYS)));
+        properties.setRetention(Duration.ZERO);
+
+        SnapshotManifest incremental = changeAndExport();
+
+        assertThat(exporter.exports()).extracting(SnapshotManifest::id).containsExactly(incremental.id(), full.id());
+        assertThat(directory.resolve(oldFull.id())).doesNotExist();
+        assertThat(directory.resolve(oldIncremental.id())).doesNotExist();
+        assertThat(unfinished).doesNotExist();
+    }
+
+    private SnapshotManifest changeAndExport() throws InterruptedException {
+        transactionTemplate.executeWithoutResult(status -> changeRecorder.updated(ChangeType.ORDER, february));
+        // Export ids are the start time to the millisecond
+        Thread.sleep(2);
+        return exporter.export(false);
+    }
+
+    private OrderArchiver archiver() {
+        ArchiveProperties archive = new ArchiveProperties();
+        archive.setPause(Duration.ZERO);
+        return new OrderArchiver(jdbcTemplate, transactionTemplate, archive, statusCounters, changeRecorder);
+    }
+
+    private long insertOrder(LocalDate date, String status) {
+        return jdbcTemplate.queryForObject("INSERT INTO orders (orderdate, requireddate, shippeddate, status, customernumber) "
+                        + "VALUES (?, ?, ?, ?, ?) RETURNING id", Long.class, date, date.plusDays(7),
+                status.equals("Shipped") ? date.plusDays(3) : null, status, customer);
+    }
+
+    private long insertLine(long order, LocalDate date, int number) {
+        return jdbcTemplate.queryForObject("INSERT INTO orderdetails (order_number, orderdate, product_code, "
+                + "quantity_ordered, price_each, order_line_number) VALUES (?, ?, 'S10_1678', 10, ?, ?) RETURNING id",
+                Long.class, order, date, new BigDecimal("95.70"), number);
+    }
+
+    private static List<Long> ids(Path file) throws IOException {
+        return rows(file).stream().map(row -> row.getLong("id", 0)).toList();
+    }
+
+    private static List<Group> rows(Path file) throws IOException {
+        List<Group> rows = new ArrayList<>();
+        try (ParquetReader<Group> reader = new GroupReaderBuilder(new LocalInputFile(file)).build()) {
+            for (Group row = reader.read(); row != null; row = reader.read()) {
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    private static final class GroupReaderBuilder extends ParquetReader.Builder<Group> {
+        GroupReaderBuilder(InputFile file) {
+            super(file);
+        }
+
+        @Override
+        protected ReadSupport<Group> getReadSupport() {
+            return new GroupReadSupport();
+        }
+    }
+
+    @TestConfiguration(proxyBeanMethods = false)
+    static class EmbeddedPostgresConfig {
+
+        @Bean(destroyMethod = "close")
+        EmbeddedPostgres embeddedPostgres() throws IOException {
+            return EmbeddedPostgres.start();
+        }
+
+        @Bean
+        DataSource dataSource(EmbeddedPostgres embeddedPostgres) {
+            return embeddedPostgres.getPostgresDatabase();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.team.onlinecatalogsystem.web;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BulkheadsTest {
+
+    @Test
+    void firstMatchingRouteWins() {
+        Bulkheads bulkheads = new Bulkheads(Map.of("exports", 2, "reports", 8, "order-writes", 16));
+        bulkheads.addRoute("exports", List.of("GET"), List.of("/api/orders"));
+        bulkheads.addRoute("reports", List.of("GET"), List.of("/api/orders/**"));
+        bulkheads.addRoute("order-writes", List.of(), List.of("/api/orders/**"));
+
+        assertThat(bulkheads.route("GET", "/api/orders").group()).isEqualTo("exports");
+        assertThat(bulkheads.route("GET", "/api/orders/42").group()).isEqualTo("reports");
+        assertThat(bulkheads.route("DELETE", "/api/orders/42").group()).isEqualTo("order-writes");
+        assertThat(bulkheads.route("GET", "/api/products")).isNull();
+    }
+
+    @Test
+    void routeNeedsALimit() {
+        Bulkheads bulkheads = new Bulkheads(Map.of());
+
+        assertThatThrownBy(() -> bulkheads.addRoute("exports", List.of(), List.of("/api/orders")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void admitsUpToTheLimitAndFreesASlotOnExit() {
+        Bulkheads.Bulkhead bulkhead = new Bulkheads(Map.of("exports", 2)).get("exports");
+
+        assertThat(bulkhead.tryEnter()).isTrue();
+        assertThat(bulkhead.tryEnter()).isTrue();
+        assertThat(bulkhead.tryEnter()).isFalse();
+        assertThat(bulkhead.inFlight()).isEqualTo(2);
+
+        bulkhead.exit();
+        assertThat(bulkhead.tryEnter()).isTrue();
+        assertThat(bulkhead.inFlight()).isEqualTo(2);
+    }
+
+    @Test
+    void loweringTheLimitLetsRequestsInFlightFinish() {
+        Bulkheads bulkheads = new Bulkheads(Map.of("exports", 3));
+        Bulkheads.Bulkhead bulkhead = bulkheads.get("exports");
+        for (int i = 0; i < 3; i++) {
+            bulkhead.tryEnter();
+        }
+
+        bulkheads.setLimit("exports", 1);
+
+        assertThat(bulkhead.inFlight()).isEqualTo(3);
+        bulkhead.exit();
+        bulkhead.exit();
+        assertThat(bulkhead.tryEnter()).isFalse();
+        bulkhead.exit();
+        assertThat(bulkhead.tryEnter()).isTrue();
+        assertThatThrownBy(() -> bulkheads.setLimit("exports", 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void neverAdmitsMoreThanTheLimitUnderContention() throws Exception {
+        Bulkheads.Bulkhead bulkhead = new Bulkheads(Map.of("reports", 4)).get("reports");
+        AtomicInteger peak = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < 16; t++) {
+                workers.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 10_000; i++) {
+                        if (bulkhead.tryEnter()) {
+                            peak.accumulateAndGet(bulkhead.inFlight(), Math::max);
+                            bulkhead.exit();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertThat(peak.get()).isBetween(1, 4);
+        assertThat(bulkhead.inFlight()).isZero();
+    }
+}
@@ -0,0 +1,116 @@
+package com.team.onlinecatalogsystem.web;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * The GCRA arithmetic of {@link ClientRateLimiter}. Rates are slow enough (one request a second
+ * or less) that the time a test takes doesn't refill a bucket under it.
+ */
+class ClientRateLimiterTest {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void rateIsConvertedToSpacingAndTolerance() {
+        ClientRateLimiter.Rate rate = ClientRateLimiter.Rate.of(4, 10);
+
+        assertThat(rate.intervalNanos()).isEqualTo(SECOND / 4);
+        // A full bucket lets burst requests through back to back: the first plus burst - 1 ahead
+        assertThat(rate.toleranceNanos()).isEqualTo(9 * SECOND / 4);
+    }
+
+    @Test
+    void rejectsRatesThatCantBeMet() {
+        assertThatThrownBy(() -> ClientRateLimiter.Rate.of(0, 10)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ClientRateLimiter.Rate.of(5, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void fullBucketAllowsTheBurstThenSaysHowLongToWait() {
+        ClientRateLimiter limiter = new ClientRateLimiter(ClientRateLimiter.Rate.of(1, 3), Map.of(), 100);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(limiter.tryAcquire("ip:10.0.0.1", null)).isZero();
+        }
+        long wait = limiter.tryAcquire("ip:10.0.0.1", null);
+
+        // The next token is one interval after the first was taken, less the time spent since
+        assertThat(wait).isPositive().isLessThanOrEqualTo(SECOND);
+        assertThat(wait).isGreaterThan(SECOND / 2);
+    }
+
+    @Test
+    void rejectedRequestsDontUseUpTokens() {
+        ClientRateLimiter limiter = new ClientRateLimiter(ClientRateLimiter.Rate.of(1, 1), Map.of(), 100);
+
+        assertThat(limiter.tryAcquire("ip:10.0.0.1", null)).isZero();
+        long first = limiter.tryAcquire("ip:10.0.0.1", null);
+        long second = limiter.tryAcquire("ip:10.0.0.1", null);
+
+        // Were the rejection charged, the wait would grow by a whole interval each time
+        assertThat(second).isPositive().isLessThanOrEqualTo(first);
+    }
+
+    @Test
+    void bucketRefillsAtTheConfiguredRate() throws InterruptedException {
+        ClientRateLimiter limiter = new ClientRateLimiter(ClientRateLimiter.Rate.of(20, 1), Map.of(), 100);
+
+        assertThat(limiter.tryAcquire("ip:10.0.0.1", null)).isZero();
+        long wait = limiter.tryAcquire("ip:10.0.0.1", null);
+        assertThat(wait).isPositive();
+
+        TimeUnit.NANOSECONDS.sleep(wait + TimeUnit.MILLISECONDS.toNanos(5));
+        assertThat(limiter.tryAcquire("ip:10.0.0.1", null)).isZero();
+    }
+
+    @Test
+    void bucketsAreSeparateAndConfiguredClientsGetTheirOwnRate() {
+        ClientRateLimiter limiter = new ClientRateLimiter(ClientRateLimiter.Rate.of(1, 1),
+                Map.of("partner-a", ClientRateLimiter.Rate.of(1, 5)), 100);
+
+        assertThat(limiter.tryAcquire("ip:10.0.0.1", null)).isZero();
+        assertThat(limiter.tryAcquire("ip:10.0.0.1", null)).isPositive();
+        assertThat(limiter.tryAcquire("ip:10.0.0.2", null)).isZero();
+        for (int i = 0; i < 5; i++) {
+            assertThat(limiter.tryAcquire("client:partner-a", "partner-a")).isZero();
+        }
+        assertThat(limiter.tryAcquire("client:partner-a", "partner-a")).isPositive();
+        // A client without a configured rate falls back to the default
+        assertThat(limiter.tryAcquire("client:partner-b", "partner-b")).isZero();
+        assertThat(limiter.tryAcquire("client:partner-b", "partner-b")).isPositive();
+    }
+
+    @Test
+    void changedLimitsApplyToTheNextRequest() {
+        ClientRateLimiter limiter = new ClientRateLimiter(ClientRateLimiter.Rate.of(1, 1), Map.of(), 100);
+        assertThat(limiter.tryAcquire("ip:10.0.0.1", null)).isZero();
+        assertThat(limiter.tryAcquire("ip:10.0.0.1", null)).isPositive();
+
+        limiter.setDefaultRate(ClientRateLimiter.Rate.of(1, 3));
+
+        assertThat(limiter.tryAcquire("ip:10.0.0.1", null)).isZero();
+        assertThat(limiter.tryAcquire("ip:10.0.0.1", null)).isZero();
+        assertThat(limiter.tryAcquire("ip:10.0.0.1", null)).isPositive();
+    }
+
+    @Test
+    void sweepDropsOnlyFullBuckets() throws InterruptedException {
+        ClientRateLimiter limiter = new ClientRateLimiter(ClientRateLimiter.Rate.of(1, 2),
+                Map.of("fast", ClientRateLimiter.Rate.of(1000, 1)), 2);
+        limiter.tryAcquire("client:fast", "fast");
+        limiter.tryAcquire("ip:10.0.0.1", null);
+        limiter.tryAcquire("ip:10.0.0.1", null);
+        TimeUnit.MILLISECONDS.sleep(10);
+
+        // A third bucket goes over the limit; the fast client's has refilled by now, 10.0.0.1's hasn't
+        limiter.tryAcquire("ip:10.0.0.2", null);
+
+        assertThat(limiter.trackedClients()).isLessThanOrEqualTo(2);
+        assertThat(limiter.tryAcquire("ip:10.0.0.1", null)).isPositive();
+    }
+}
@@ -0,0 +1,92 @@
+package com.team.onlinecatalogsystem.web;
+
+import com.team.onlinecatalogsystem.service.ChangeRecorder;
+import com.team.onlinecatalogsystem.service.ChangeType;
+import com.team.onlinecatalogsystem.service.CommittedChange;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompressedResponseCacheTest {
+    private final CompressedResponseCache cache = new CompressedResponseCache(
+            List.of("/api/products", "/api/customers"), TimeUnit.MINUTES.toNanos(1), 1024, 64 * 1024);
+
+    @Test
+    void writeEvictsItsWholeResourceAndNothingElse() {
+        put("/api/products");
+        put("/api/products/7");
+        put("/api/customers/3");
+
+        cache.invalidate("/api/products/7");
+
+        assertThat(cached("/api/products")).isFalse();
+        assertThat(cached("/api/products/7")).isFalse();
+        assertThat(cached("/api/customers/3")).isTrue();
+    }
+
+    @Test
+    void readThatStartedBeforeAnEvictionIsNotStored() {
+        long readAt = cache.generation();
+        cache.invalidate("/api/products/7");
+
+        cache.put(key("/api/products"), "/api/products", "application/json", body(), readAt);
+
+        assertThat(cached("/api/products")).isFalse();
+        assertThat(cache.sizeInBytes()).isZero();
+        // The next read fills it as usual
+        put("/api/products");
+        assertThat(cached("/api/products")).isTrue();
+    }
+
+    @Test
+    void committedChangesEvictTheirResourceAndItsDependents() {
+        put("/api/products/7");
+        put("/api/products/code/S10_1678/related");
+        put("/api/customers/3");
+
+        cache.onCommitted(event(ChangeType.ORDER_DETAIL));
+
+        // Order lines feed the related products, not the products themselves
+        assertThat(cached("/api/products/code/S10_1678/related")).isFalse();
+        assertThat(cached("/api/products/7")).isTrue();
+
+        cache.onCommitted(event(ChangeType.CUSTOMER));
+
+        assertThat(cached("/api/customers/3")).isFalse();
+        assertThat(cached("/api/products/7")).isTrue();
+    }
+
+    @Test
+    void writePathEvictsDependentsToo() {
+        put("/api/products/code/S10_1678/related");
+
+        cache.invalidate("/api/orderdetails/12");
+
+        assertThat(cached("/api/products/code/S10_1678/related")).isFalse();
+    }
+
+    private void put(String path) {
+        cache.put(key(path), path, "application/json", body(), cache.generation());
+    }
+
+    private boolean cached(String path) {
+        return cache.get(key(path)) != null;
+    }
+
+    private static String key(String path) {
+        return CompressedResponseCache.key(path, null, "application/json");
+    }
+
+    private static byte[] body() {
+        return "[{\"id\":1}]".getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static CommittedChange.Event event(ChangeType type) {
+        return new CommittedChange.Event(List.of(new CommittedChange(type, 1, ChangeRecorder.Op.UPDATE, 1, Set.of())));
+    }
+}
@@ -0,0 +1,62 @@
+package com.team.onlinecatalogsystem.web;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompressorTest {
+    private static final byte[] BODY = "{\"productCode\":\"S10_1678\",\"quantityInStock\":7933},".repeat(500)
+            .getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void gzipHasTheFixedHeaderAndATrailerOfCrcAndLength() throws IOException {
+        byte[] gzip = Compressor.compress(ContentEncoding.GZIP, 6, BODY).body();
+
+        // Magic, deflate, no flags, no mtime, no extra flags, unknown OS
+        assertThat(Arrays.copyOf(gzip, 10)).containsExactly(0x1f, 0x8b, 8, 0, 0, 0, 0, 0, 0, 0xff);
+        ByteBuffer trailer = ByteBuffer.wrap(gzip, gzip.length - 8, 8).order(ByteOrder.LITTLE_ENDIAN);
+        CRC32 crc = new CRC32();
+        crc.update(BODY);
+        assertThat(trailer.getInt() & 0xffffffffL).isEqualTo(crc.getValue());
+        assertThat(trailer.getInt()).isEqualTo(BODY.length);
+        assertThat(new GZIPInputStream(new ByteArrayInputStream(gzip)).readAllBytes()).isEqualTo(BODY);
+    }
+
+    @Test
+    void deflateIsTheZlibWrapping() throws IOException {
+        byte[] deflate = Compressor.compress(ContentEncoding.DEFLATE, 6, BODY).body();
+
+        assertThat(deflate[0]).isEqualTo((byte) 0x78);
+        assertThat(new InflaterInputStream(new ByteArrayInputStream(deflate)).readAllBytes()).isEqualTo(BODY);
+    }
+
+    @Test
+    void flushSendsEverythingWrittenSoFarAndCountsBothSides() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Compressor compressor = new Compressor(ContentEncoding.GZIP, 6, out);
+        compressor.write(BODY, 0, 1000);
+        compressor.flush();
+
+        // A reader of what has arrived can already decode the first part
+        GZIPInputStream partial = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()));
+        assertThat(partial.readNBytes(1000)).isEqualTo(Arrays.copyOf(BODY, 1000));
+
+        compressor.write(BODY, 1000, BODY.length - 1000);
+        compressor.finish();
+
+        assertThat(compressor.bytesIn()).isEqualTo(BODY.length);
+        assertThat(compressor.bytesOut()).isEqualTo(out.size());
+        assertThat(new GZIPInputStream(new ByteArrayInputStream(out.toByteArray())).readAllBytes()).isEqualTo(BODY);
+    }
+}
@@ -0,0 +1,178 @@
+package com.team.onlinecatalogsystem.web;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.team.onlinecatalogsystem.service.ChangeRecorder;
+import com.team.onlinecatalogsystem.service.ChangeType;
+import com.team.onlinecatalogsystem.service.CommittedChange;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Committed changes fed straight into {@link LiveUpdateHub#onCommitted} and flushed by hand, with
+ * stub sessions that keep what they are sent. Sends happen on the hub's own threads, so messages
+ * are waited for, and a session that should get nothing is checked after the others have theirs.
+ */
+class LiveUpdateHubTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private LiveUpdateHub hub;
+
+    @AfterEach
+    void tearDown() {
+        if (hub != null) {
+            hub.destroy();
+        }
+    }
+
+    @Test
+    void changesToOneEntityMergeIntoOneNotification() throws Exception {
+        hub = hub(1000, 1000);
+        Client client = connect("a", ChangeType.PRODUCT, ChangeType.CUSTOMER);
+
+        hub.onCommitted(event(
+                change(ChangeType.PRODUCT, 1, ChangeRecorder.Op.INSERT, 1),
+                change(ChangeType.PRODUCT, 1, ChangeRecorder.Op.UPDATE, 2, "msrp"),
+                change(ChangeType.PRODUCT, 2, ChangeRecorder.Op.UPDATE, 3, "msrp"),
+                change(ChangeType.CUSTOMER, 5, ChangeRecorder.Op.UPDATE, 4, "phone")));
+        hub.onCommitted(event(
+                change(ChangeType.PRODUCT, 2, ChangeRecorder.Op.UPDATE, 5, "buyPrice"),
+                change(ChangeType.CUSTOMER, 5, ChangeRecorder.Op.DELETE, 6)));
+        hub.flush();
+
+        // An insert stays one however often it's updated; a delete wins; fields of updates add up
+        assertThat(client.next()).isEqualTo(objectMapper.readTree("""
+                {"changes": [
+                  {"type": "product", "id": 1, "op": "insert", "version": 2},
+                  {"type": "product", "id": 2, "op": "update", "version": 5, "fields": ["buyPrice", "msrp"]},
+                  {"type": "customer", "id": 5, "op": "delete", "version": 6}
+                ]}"""));
+        assertThat(hub.pendingCount()).isZero();
+    }
+
+    @Test
+    void eachTopicSetIsRenderedOnceAndOnlyForItsChanges() throws Exception {
+        hub = hub(1000, 1000);
+        Client first = connect("a", ChangeType.PRODUCT);
+        Client second = connect("b", ChangeType.PRODUCT);
+        Client both = connect("c", ChangeType.CUSTOMER, ChangeType.PRODUCT);
+        Client orders = connect("d", ChangeType.ORDER);
+        Client none = connect("e");
+
+        hub.onCommitted(event(change(ChangeType.PRODUCT, 7, ChangeRecorder.Op.UPDATE, 1, "msrp"),
+                change(ChangeType.CUSTOMER, 3, ChangeRecorder.Op.INSERT, 2)));
+        hub.flush();
+
+        TextMessage shared = first.nextMessage();
+        assertThat(second.nextMessage()).isSameAs(shared);
+        assertThat(objectMapper.readTree(shared.getPayload()).get("changes")).extracting(change -> change.get("type").asText())
+                .containsExactly("product");
+        assertThat(both.next().get("changes")).extracting(change -> change.get("type").asText())
+                .containsExactly("product", "customer");
+        assertThat(orders.received).isEmpty();
+        assertThat(none.received).isEmpty();
+    }
+
+    @Test
+    void moreChangesThanOneMessageHoldsBecomeAResync() throws Exception {
+        hub = hub(2, 1000);
+        Client products = connect("a", ChangeType.PRODUCT);
+        Client customers = connect("b", ChangeType.CUSTOMER);
+
+        hub.onCommitted(event(change(ChangeType.PRODUCT, 1, ChangeRecorder.Op.UPDATE, 1),
+                change(ChangeType.PRODUCT, 2, ChangeRecorder.Op.UPDATE, 2),
+                change(ChangeType.PRODUCT, 3, ChangeRecorder.Op.UPDATE, 3),
+                change(ChangeType.CUSTOMER, 9, ChangeRecorder.Op.UPDATE, 4)));
+        hub.flush();
+
+        assertThat(products.next()).isEqualTo(objectMapper.readTree("{\"resync\": true, \"version\": 4}"));
+        assertThat(customers.next().get("changes")).hasSize(1);
+    }
+
+    @Test
+    void changesBeyondThePendingLimitResyncEveryClient() throws Exception {
+        hub = hub(1000, 2);
+        Client products = connect("a", ChangeType.PRODUCT);
+        Client orders = connect("b", ChangeType.ORDER);
+
+        hub.onCommitted(event(change(ChangeType.PRODUCT, 1, ChangeRecorder.Op.UPDATE, 1),
+                change(ChangeType.PRODUCT, 2, ChangeRecorder.Op.UPDATE, 2),
+                change(ChangeType.PRODUCT, 3, ChangeRecorder.Op.UPDATE, 3)));
+        assertThat(hub.pendingCount()).isEqualTo(2);
+        hub.flush();
+
+        // Whatever was dropped may have been an order, so every subscriber reloads
+        assertThat(products.next()).isEqualTo(objectMapper.readTree("{\"resync\": true, \"version\": 2}"));
+        assertThat(orders.next()).isEqualTo(objectMapper.readTree("{\"resync\": true, \"version\": 2}"));
+        assertThat(hub.pendingCount()).isZero();
+
+        // The next flush is back to listing changes
+        hub.onCommitted(event(change(ChangeType.PRODUCT, 4, ChangeRecorder.Op.UPDATE, 4)));
+        hub.flush();
+        assertThat(products.next().get("changes")).hasSize(1);
+    }
+
+    @Test
+    void nothingIsQueuedWithoutSubscribers() {
+        hub = hub(1000, 1000);
+
+        hub.onCommitted(event(change(ChangeType.PRODUCT, 1, ChangeRecorder.Op.UPDATE, 1)));
+
+        assertThat(hub.pendingCount()).isZero();
+    }
+
+    private LiveUpdateHub hub(int maxChangesPerMessage, int maxPending) {
+        return new LiveUpdateHub(objectMapper, new LiveUpdateHub.Settings(maxChangesPerMessage, maxPending, 100, 5000,
+                512 * 1024, true), new DefaultListableBeanFactory().getBeanProvider(MeterRegistry.class));
+    }
+
+    private Client connect(String id, ChangeType... topics) throws Exception {
+        Client client = new Client(id);
+        assertThat(hub.register(client.session, Set.of(topics))).isTrue();
+        return client;
+    }
+
+    private static CommittedChange.Event event(CommittedChange... changes) {
+        return new CommittedChange.Event(List.of(changes));
+    }
+
+    private static CommittedChange change(ChangeType type, long id, ChangeRecorder.Op op, long seq, String... fields) {
+        return new CommittedChange(type, id, op, seq, Set.of(fields));
+    }
+
+    private final class Client {
+        private final BlockingQueue<TextMessage> received = new LinkedBlockingQueue<>();
+        private final WebSocketSession session = mock(WebSocketSession.class);
+
+        private Client(String id) throws Exception {
+            when(session.getId()).thenReturn(id);
+            when(session.isOpen()).thenReturn(true);
+            doAnswer(invocation -> received.add(invocation.getArgument(0))).when(session).sendMessage(any());
+        }
+
+        TextMessage nextMessage() throws InterruptedException {
+            TextMessage message = received.poll(5, TimeUnit.SECONDS);
+            assertThat(message).as("message for session %s", session.getId()).isNotNull();
+            return message;
+        }
+
+        JsonNode next() throws Exception {
+            return objectMapper.readTree(nextMessage().getPayload());
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.team.onlinecatalogsystem.web;
+
+import com.team.onlinecatalogsystem.config.CompressionProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@link ResponseCompressionFilter} and its {@link CompressingResponseWrapper} over mock requests,
+ * with the default 2 KB threshold. Bodies are decoded with the JDK's own gzip and zlib readers.
+ */
+class ResponseCompressionFilterTest {
+    private static final int MIN_SIZE = 2048;
+
+    private final CompressionMetrics metrics = new CompressionMetrics(
+            new DefaultListableBeanFactory().getBeanProvider(MeterRegistry.class));
+    private final CompressedResponseCache cache = new CompressedResponseCache(List.of("/api/products"),
+            TimeUnit.MINUTES.toNanos(1), 64 * 1024, 1024 * 1024);
+
+    @Test
+    void bodyBelowTheThresholdGoesOutAsItIs() throws Exception {
+        byte[] body = body(MIN_SIZE - 1);
+
+        MockHttpServletResponse response = send(filter(null), request("/api/orders", "gzip"), writing("application/json", body));
+
+        assertThat(response.getHeader("Content-Encoding")).isNull();
+        assertThat(response.getContentLength()).isEqualTo(body.length);
+        assertThat(response.getContentAsByteArray()).isEqualTo(body);
+        // Another client may still get it compressed, so shared caches must key on the header
+        assertThat(response.getHeaders("Vary")).containsExactly("Accept-Encoding");
+    }
+
+    @Test
+    void bufferedBodyIsCompressedWholeWithItsLength() throws Exception {
+        byte[] body = body(20_000);
+
+        MockHttpServletResponse gzip = send(filter(cache), request("/api/products", "gzip"), writing("application/json", body));
+        MockHttpServletResponse deflate = send(filter(cache), request("/api/products", "deflate"), writing("application/json", body));
+
+        assertThat(gzip.getHeader("Content-Encoding")).isEqualTo("gzip");
+        assertThat(gzip.getContentLength()).isEqualTo(gzip.getContentAsByteArray().length).isLessThan(body.length);
+        assertThat(gunzip(gzip.getContentAsByteArray())).isEqualTo(body);
+        assertThat(gzip.getHeaders("Vary")).containsExactly("Accept", "Accept-Encoding");
+        // The second request was served from the cache, under its own encoding
+        assertThat(deflate.getHeader("Content-Encoding")).isEqualTo("deflate");
+        assertThat(inflate(deflate.getContentAsByteArray())).isEqualTo(body);
+        assertThat(deflate.getHeaders("Vary")).containsExactly("Accept", "Accept-Encoding");
+    }
+
+    @Test
+    void bodyPastTheBufferIsStreamedCompressedWithoutALength() throws Exception {
+        byte[] body = body(3 * MIN_SIZE);
+        int[] sentAfterFirstChunk = new int[1];
+        FilterChain chain = (request, servletResponse) -> {
+            HttpServletResponse response = (HttpServletResponse) servletResponse;
+            response.setContentType("application/json");
+            response.setContentLength(body.length);
+            response.getOutputStream().write(body, 0, MIN_SIZE);
+            sentAfterFirstChunk[0] = ((MockHttpServletResponse) ((CompressingResponseWrapper) response).getResponse())
+                    .getContentAsByteArray().length;
+            response.getOutputStream().write(body, MIN_SIZE, body.length - MIN_SIZE);
+        };
+
+        MockHttpServletResponse response = send(filter(null), request("/api/orders", "gzip, deflate"), chain);
+
+        // Nothing leaves until the buffer overflows, and the declared length is for the raw body
+        assertThat(sentAfterFirstChunk[0]).isZero();
+        assertThat(response.getHeader("Content-Encoding")).isEqualTo("gzip");
+        assertThat(response.getHeader("Content-Length")).isNull();
+        assertThat(response.getHeaders("Vary")).containsExactly("Accept-Encoding");
+        assertThat(gunzip(response.getContentAsByteArray())).isEqualTo(body);
+
+        MockHttpServletResponse deflate = send(filter(null), request("/api/orders", "deflate"), writing("application/json", body));
+        assertThat(inflate(deflate.getContentAsByteArray())).isEqualTo(body);
+    }
+
+    @Test
+    void streamedBodyOfAnotherTypeKeepsItsLength() throws Exception {
+        byte[] body = body(3 * MIN_SIZE);
+        FilterChain chain = (request, servletResponse) -> {
+            servletResponse.setContentType("image/png");
+            servletResponse.setContentLength(body.length);
+            servletResponse.getOutputStream().write(body);
+        };
+
+        MockHttpServletResponse response = send(filter(null), request("/api/orders", "gzip"), chain);
+
+        assertThat(response.getHeader("Content-Encoding")).isNull();
+        assertThat(response.getContentLength()).isEqualTo(body.length);
+        assertThat(response.getHeader("Vary")).isNull();
+        assertThat(response.getContentAsByteArray()).isEqualTo(body);
+    }
+
+    @Test
+    void clientWithoutAnAcceptedEncodingGetsTheBodyAsItIs() throws Exception {
+        byte[] body = body(3 * MIN_SIZE);
+
+        MockHttpServletResponse response = send(filter(null), request("/api/orders", "br"), writing("application/json", body));
+
+        assertThat(response.getHeader("Content-Encoding")).isNull();
+        assertThat(response.getContentAsByteArray()).isEqualTo(body);
+    }
+
+    private ResponseCompressionFilter filter(CompressedResponseCache cache) {
+        return new ResponseCompressionFilter(new CompressionProperties(), cache, metrics);
+    }
+
+    private static MockHttpServletRequest request(String path, String acceptEncoding) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.addHeader("Accept-Encoding", acceptEncoding);
+        return request;
+    }
+
+    private static MockHttpServletResponse send(ResponseCompressionFilter filter, MockHttpServletRequest request,
+                                                FilterChain chain) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    private static FilterChain writing(String contentType, byte[] body) {
+        return (request, response) -> {
+            response.setContentType(contentType);
+            response.getOutputStream().write(body);
+        };
+    }
+
+    // JSON-like rows, repetitive enough to compress well but not a single repeated byte
+    private static byte[] body(int size) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; json.length() < size; i++) {
+            json.append("{\"id\":").append(i).append(",\"productName\":\"Model ").append(i * 7919 % 1000).append("\"},");
+        }
+        return Arrays.copyOf(json.toString().getBytes(StandardCharsets.UTF_8), size);
+    }
+
+    private static byte[] gunzip(byte[] compressed) throws IOException {
+        return readAll(new GZIPInputStream(new ByteArrayInputStream(compressed)));
+    }
+
+    private static byte[] inflate(byte[] compressed) throws IOException {
+        return readAll(new InflaterInputStream(new ByteArrayInputStream(compressed)));
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        try (in) {
+            return in.readAllBytes();
+        }
+    }
+}
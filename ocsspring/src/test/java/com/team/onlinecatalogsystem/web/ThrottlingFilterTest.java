@@ -0,0 +1,145 @@
+package com.team.onlinecatalogsystem.web;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ThrottlingFilterTest {
+    private ClientRateLimiter rateLimiter;
+    private Bulkheads bulkheads;
+    private ThrottlingFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        rateLimiter = new ClientRateLimiter(ClientRateLimiter.Rate.of(1, 1),
+                Map.of("partner-a", ClientRateLimiter.Rate.of(1, 5)), 100);
+        bulkheads = new Bulkheads(Map.of("exports", 1));
+        bulkheads.addRoute("exports", List.of("GET"), List.of("/api/orders"));
+        filter = new ThrottlingFilter(rateLimiter, bulkheads, Map.of("secret-a", "partner-a"), "X-API-Key",
+                "X-Real-IP", TrustedProxies.of(List.of("172.28.0.10", "10.1.0.0/16")), 1,
+                new DefaultListableBeanFactory().getBeanProvider(MeterRegistry.class));
+    }
+
+    @Test
+    void clientOverItsRateGetsA429WithRetryAfter() throws Exception {
+        assertThat(send(request("203.0.113.5")).getStatus()).isEqualTo(200);
+
+        MockHttpServletResponse response = send(request("203.0.113.5"));
+
+        assertThat(response.getStatus()).isEqualTo(429);
+        assertThat(response.getHeader("Retry-After")).isEqualTo("1");
+    }
+
+    @Test
+    void clientIpHeaderIsOnlyBelievedFromATrustedProxy() throws Exception {
+        // From the proxy, each forwarded address has its own bucket
+        assertThat(send(forwarded("172.28.0.10", "198.51.100.1")).getStatus()).isEqualTo(200);
+        assertThat(send(forwarded("10.1.4.2", "198.51.100.2")).getStatus()).isEqualTo(200);
+        assertThat(send(forwarded("172.28.0.10", "198.51.100.1")).getStatus()).isEqualTo(429);
+
+        // From anyone else, a made-up header doesn't buy a fresh bucket
+        assertThat(send(forwarded("203.0.113.5", "198.51.100.3")).getStatus()).isEqualTo(200);
+        assertThat(send(forwarded("203.0.113.5", "198.51.100.4")).getStatus()).isEqualTo(429);
+    }
+
+    @Test
+    void configuredApiKeyGetsTheClientsBucketAndUnknownKeysShareTheirAddress() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            MockHttpServletRequest request = request("203.0.113.5");
+            request.addHeader("X-API-Key", "secret-a");
+            assertThat(send(request).getStatus()).isEqualTo(200);
+        }
+        MockHttpServletRequest madeUp = request("203.0.113.5");
+        madeUp.addHeader("X-API-Key", "made-up");
+        assertThat(send(madeUp).getStatus()).isEqualTo(200);
+        MockHttpServletRequest again = request("203.0.113.5");
+        again.addHeader("X-API-Key", "another");
+        assertThat(send(again).getStatus()).isEqualTo(429);
+    }
+
+    @Test
+    void fullGroupGetsA503AndSynchronousRequestsLeaveTheirSlot() throws Exception {
+        Bulkheads.Bulkhead exports = bulkheads.get("exports");
+        exports.tryEnter();
+
+        MockHttpServletResponse rejected = send(request("203.0.113.5"));
+        assertThat(rejected.getStatus()).isEqualTo(503);
+        assertThat(rejected.getHeader("Retry-After")).isEqualTo("1");
+
+        exports.exit();
+        assertThat(send(request("203.0.113.6")).getStatus()).isEqualTo(200);
+        assertThat(exports.inFlight()).isZero();
+    }
+
+    @Test
+    void failingRequestStillLeavesItsSlot() {
+        FilterChain failing = (request, response) -> {
+            throw new ServletException("boom");
+        };
+
+        assertThatThrownBy(() -> filter.doFilter(request("203.0.113.5"), new MockHttpServletResponse(), failing))
+                .isInstanceOf(ServletException.class);
+        assertThat(bulkheads.get("exports").inFlight()).isZero();
+    }
+
+    @Test
+    void asyncRequestHoldsItsSlotUntilItCompletes() throws Exception {
+        MockHttpServletRequest request = request("203.0.113.5");
+        request.setAsyncSupported(true);
+        FilterChain startsAsync = (req, res) -> req.startAsync();
+
+        filter.doFilter(request, new MockHttpServletResponse(), startsAsync);
+
+        Bulkheads.Bulkhead exports = bulkheads.get("exports");
+        assertThat(exports.inFlight()).isEqualTo(1);
+        ((MockAsyncContext) request.getAsyncContext()).complete();
+        assertThat(exports.inFlight()).isZero();
+    }
+
+    @Test
+    void trustedProxiesMatchAddressesAndBlocks() {
+        TrustedProxies proxies = TrustedProxies.of(List.of("172.28.0.10", "10.1.0.0/16", "fd00::/8", " "));
+
+        assertThat(proxies.contains("172.28.0.10")).isTrue();
+        assertThat(proxies.contains("172.28.0.11")).isFalse();
+        assertThat(proxies.contains("10.1.255.255")).isTrue();
+        assertThat(proxies.contains("10.2.0.1")).isFalse();
+        assertThat(proxies.contains("fd12:3456::1")).isTrue();
+        assertThat(proxies.contains("fe80::1")).isFalse();
+        assertThat(proxies.contains("localhost")).isFalse();
+        assertThat(TrustedProxies.of(List.of()).contains("127.0.0.1")).isFalse();
+        assertThatThrownBy(() -> TrustedProxies.of(List.of("proxy.internal"))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> TrustedProxies.of(List.of("10.0.0.0/33"))).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private MockHttpServletResponse send(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String remoteAddr) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/orders");
+        request.setRemoteAddr(remoteAddr);
+        return request;
+    }
+
+    private static MockHttpServletRequest forwarded(String proxy, String client) {
+        MockHttpServletRequest request = request(proxy);
+        request.addHeader("X-Real-IP", client);
+        return request;
+    }
+}
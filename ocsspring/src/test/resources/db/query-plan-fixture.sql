@@ -0,0 +1,56 @@
+-- Large, classicmodels-shaped fixture for QueryPlanRegressionTest. Sizes are chosen so that a
+-- sequential scan is clearly more expensive than an index lookup for every repository method.
+
+INSERT INTO offices (city, phone, address_line1, country, postal_code, territory)
+SELECT 'City ' || (g % 2000), '+1 555 ' || g, g || ' Main Street', 'Country ' || (g % 100), 'P' || g, 'NA'
+FROM generate_series(1, 20000) g;
+
+INSERT INTO employees (last_name, first_name, extension, email, office_code, job_title)
+SELECT 'Last' || g, 'First' || g, 'x' || (g % 9999), 'employee' || g || '@classicmodels.test', (g % 2000)::text, 'Sales Rep'
+FROM generate_series(1, 20000) g;
+
+INSERT INTO customers (customername, contactlastname, contactfirstname, phone, addressline1, city, country,
+                       salesrepemployeenumber, creditlimit)
+SELECT 'Customer ' || g, 'Last' || g, 'First' || g, '+1 555 ' || g, g || ' Market Street',
+       'City ' || (g % 2000), 'Country ' || (g % 100),
+       CASE WHEN g % 4 = 0 THEN NULL ELSE 1 + (g % 20000) END, 50000
+FROM generate_series(1, 50000) g;
+
+INSERT INTO productlines (productline, textdescription)
+SELECT 'Line ' || g, 'Product line ' || g
+FROM generate_series(1, 5000) g;
+
+INSERT INTO products (productcode, productname, productline, productscale, productvendor, productdescription,
+                      quantityinstock, buyprice, msrp)
+SELECT 'S' || lpad(g::text, 8, '0'), 'Product ' || g, 'Line ' || (1 + g % 200), '1:18', 'Vendor ' || (g % 50),
+       'Description of product ' || g, g % 10000, 10 + (g % 90), 20 + (g % 180)
+FROM generate_series(1, 20000) g;
+
+-- The migration partitioned the empty tables from the current year on; the fixture's years
+-- get partitions of their own, as they would have had the data been there when it ran.
+SELECT ocs_create_year_partitions('orders', 2003, 2005);
+SELECT ocs_create_year_partitions('orderdetails', 2003, 2005);
+SELECT ocs_create_year_partitions('payments', 2003, 2005);
+
+-- Mostly shipped orders, with the work-queue statuses rare as they are in production.
+INSERT INTO orders (orderdate, requireddate, shippeddate, status, customernumber)
+SELECT DATE '2003-01-01' + (g % 1000), DATE '2003-01-08' + (g % 1000),
+       CASE WHEN g % 100 < 95 THEN DATE '2003-01-05' + (g % 1000) END,
+       CASE WHEN g % 100 < 95 THEN 'Shipped'
+            WHEN g % 100 < 97 THEN 'In Process'
+            WHEN g % 100 < 98 THEN 'On Hold'
+            WHEN g % 100 < 99 THEN 'Disputed'
+            ELSE 'Cancelled' END,
+       1 + (g % 50000)
+FROM generate_series(1, 200000) g;
+
+INSERT INTO orderdetails (order_number, orderdate, product_code, quantity_ordered, price_each, order_line_number)
+SELECT o.id, o.orderdate, 'S' || lpad((1 + g % 20000)::text, 8, '0'), 1 + g % 50, 25 + (g % 100), 1 + g % 10
+FROM generate_series(1, 600000) g
+         JOIN orders o ON o.id = 1 + (g % 200000);
+
+INSERT INTO payments (customer_number, check_number, payment_date, amount)
+SELECT 1 + (g % 50000), 'CHK' || g, DATE '2003-01-01' + (g % 1000), 100 + (g % 5000)
+FROM generate_series(1, 150000) g;
+
+ANALYZE;